@@ -1,18 +1,25 @@
 package com.hospital.system;
 
 import com.hospital.system.model.Booking;
+import com.hospital.system.model.CareResource;
 import com.hospital.system.model.Equipment;
 import com.hospital.system.model.EquipmentStatus;
 import com.hospital.system.model.Priority;
+import com.hospital.system.model.ResourceKind;
+import com.hospital.system.model.ResourceStatus;
 import com.hospital.system.repository.BookingRepository;
+import com.hospital.system.repository.CareResourceRepository;
 import com.hospital.system.repository.EquipmentRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
 
+// Small hand-made demo set; the "synthetic" profile generates production-sized data instead
 @Component
+@Profile("!synthetic")
 public class DataInitializer implements CommandLineRunner {
 
     @Autowired
@@ -21,13 +28,21 @@ public class DataInitializer implements CommandLineRunner {
     @Autowired
     private BookingRepository bookingRepository;
 
+    @Autowired
+    private CareResourceRepository careResourceRepository;
+
     @Override
     public void run(String... args) throws Exception {
         // Create Equipment
         equipmentRepository.save(new Equipment(null, "MRI-1", "MRI", EquipmentStatus.AVAILABLE, 60));
         equipmentRepository.save(new Equipment(null, "CT-Scanner", "CT", EquipmentStatus.AVAILABLE, 30));
         equipmentRepository.save(new Equipment(null, "Ventilator-1", "Ventilator", EquipmentStatus.MAINTENANCE, 1440));
-        
+
+        // Staff and rooms (see hospital.dispatch.requires.* for what each type needs)
+        careResourceRepository.save(new CareResource(null, "Tech Priya", ResourceKind.TECHNICIAN, "MRI,CT", ResourceStatus.AVAILABLE));
+        careResourceRepository.save(new CareResource(null, "Tech Ravi", ResourceKind.TECHNICIAN, "CT", ResourceStatus.AVAILABLE));
+        careResourceRepository.save(new CareResource(null, "MRI Prep Room", ResourceKind.PREP_ROOM, "MRI", ResourceStatus.AVAILABLE));
+
         // Create some initial bookings for MRI (ID 1)
         // Normal patient waiting
         bookingRepository.save(new Booking(null, "John Doe (Normal)", 1L, Priority.NORMAL, null, "PENDING", LocalDateTime.now().minusMinutes(30)));
@@ -0,0 +1,230 @@
+package com.hospital.system;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Production-sized demo data for performance work, used instead of DataInitializer when the
+ * "synthetic" profile is active (see application-synthetic.properties).
+ *
+ * Rows go in through JDBC batches of hospital.synthetic.batch-size, not one JPA save at a time; with
+ * rewriteBatchedStatements on MySQL each batch is a single multi-row INSERT. The same seed always gives
+ * the same rows; times are placed relative to startup, so active bookings are always current.
+ *
+ * Shape of the data:
+ * - machines of eight types, with realistic procedure lengths; about 4% in MAINTENANCE and about 10% IN_USE
+ *   (each of those with exactly one IN_USE booking)
+ * - bookings spread over machines with a skew, so a few machines have long queues and many have short ones
+ * - about 86% SERVED history over hospital.synthetic.history-days, mostly during the working day,
+ *   and the rest PENDING or CONFIRMED from the last eight hours with slots in the next three days
+ * - priorities about 75% NORMAL, 20% URGENT and 5% EMERGENCY
+ * - technicians for about 80% of the machines of each type (every fourth also trained on the next type)
+ *   and a prep room for every other MRI machine, so dispatch is sometimes short of staff
+ */
+@Component
+@Profile("synthetic")
+public class SyntheticDataGenerator implements CommandLineRunner {
+
+    private static final String[] TYPES = {"MRI", "CT", "X-Ray", "Ultrasound", "Ventilator", "Dialysis", "ECG", "PET"};
+    private static final int[] TYPE_BUFFER_MINUTES = {60, 30, 15, 20, 1440, 240, 10, 90};
+    private static final double[] TYPE_WEIGHTS = {0.10, 0.14, 0.24, 0.18, 0.08, 0.08, 0.12, 0.06};
+
+    // Share of bookings per hour of day (0-23); clinics run mostly 08:00 to 18:00
+    private static final double[] HOUR_WEIGHTS = {
+            0.5, 0.3, 0.3, 0.3, 0.3, 0.5, 1, 2, 6, 9, 10, 10,
+            8, 9, 10, 9, 8, 6, 3, 2, 1.5, 1, 0.8, 0.6};
+
+    private static final String[] FIRST_NAMES = {
+            "James", "Mary", "John", "Patricia", "Robert", "Jennifer", "Michael", "Linda", "William", "Elizabeth",
+            "David", "Barbara", "Richard", "Susan", "Joseph", "Jessica", "Thomas", "Sarah", "Charles", "Karen",
+            "Aarav", "Priya", "Rohan", "Ananya", "Vikram", "Sneha", "Amit", "Neha", "Arjun", "Kavya",
+            "Mohammed", "Fatima", "Omar", "Aisha", "Wei", "Mei", "Hiroshi", "Yuki", "Carlos", "Sofia",
+            "Lucas", "Emma", "Mateo", "Olivia", "Noah", "Zoë", "Liam", "Chloé", "Ivan", "Olga"};
+    private static final String[] LAST_NAMES = {
+            "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis", "Rodriguez", "Martinez",
+            "Sharma", "Patel", "Agarwal", "Gupta", "Singh", "Reddy", "Iyer", "Nair", "Khan", "Das",
+            "Chen", "Wang", "Li", "Zhang", "Tanaka", "Suzuki", "Kim", "Park", "Nguyen", "Tran",
+            "O'Brien", "Murphy", "Müller", "Schmidt", "Rossi", "Russo", "Dubois", "Lefèvre", "Silva", "Santos",
+            "Kowalski", "Nowak", "Ivanov", "Petrov", "Hansen", "Johansson", "Okafor", "Mensah", "Cohen", "Levi"};
+
+    private static final DateTimeFormatter SLOT_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${hospital.synthetic.equipment:2000}")
+    private int equipmentCount;
+
+    @Value("${hospital.synthetic.bookings:1000000}")
+    private int bookingCount;
+
+    @Value("${hospital.synthetic.seed:42}")
+    private long seed;
+
+    @Value("${hospital.synthetic.history-days:90}")
+    private int historyDays;
+
+    @Value("${hospital.synthetic.batch-size:5000}")
+    private int batchSize;
+
+    @Override
+    public void run(String... args) {
+        Integer existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM equipment", Integer.class);
+        if (existing != null && existing > 0) {
+            System.out.println("[SYNTHETIC] equipment table is not empty, skipping generation");
+            return;
+        }
+        generate();
+    }
+
+    /** Inserts the configured number of machines and bookings. Returns the number of bookings written. */
+    public int generate() {
+        long started = System.nanoTime();
+        SplittableRandom random = new SplittableRandom(seed);
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+
+        // ----- Machines -----
+        String[] equipmentStatus = new String[equipmentCount];
+        int[] typeCounters = new int[TYPES.length];
+        List<Object[]> equipmentRows = new ArrayList<>(equipmentCount);
+        for (int i = 0; i < equipmentCount; i++) {
+            int type = pick(random, TYPE_WEIGHTS);
+            double roll = random.nextDouble();
+            equipmentStatus[i] = roll < 0.04 ? "MAINTENANCE" : roll < 0.14 ? "IN_USE" : "AVAILABLE";
+            String name = String.format("%s-%04d", TYPES[type], ++typeCounters[type]);
+            equipmentRows.add(new Object[] {name, TYPES[type], equipmentStatus[i], TYPE_BUFFER_MINUTES[type]});
+        }
+        insertInBatches("INSERT INTO equipment (tenant_id, name, type, status, buffer_time) VALUES ('default', ?, ?, ?, ?)", equipmentRows);
+        // IDENTITY ids are handed out in insert order, so the newest ids are machines 0..n-1 above
+        List<Long> allIds = jdbcTemplate.queryForList("SELECT id FROM equipment ORDER BY id", Long.class);
+        List<Long> equipmentIds = allIds.subList(allIds.size() - equipmentCount, allIds.size());
+
+        insertCareResources(typeCounters);
+
+        // Skew: a random permutation, then a power-law pick over it, so busy machines are spread across types
+        int[] busyOrder = new int[equipmentCount];
+        for (int i = 0; i < equipmentCount; i++) {
+            busyOrder[i] = i;
+        }
+        for (int i = equipmentCount - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = busyOrder[i];
+            busyOrder[i] = busyOrder[j];
+            busyOrder[j] = swap;
+        }
+
+        // ----- Bookings -----
+        String sql = "INSERT INTO booking (tenant_id, patient_name, equipment_id, priority, slot_time, status, booking_time)"
+                + " VALUES ('default', ?, ?, ?, ?, ?, ?)";
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        int written = 0;
+        int[] statusCounts = new int[4]; // SERVED, PENDING, CONFIRMED, IN_USE
+
+        // Exactly one patient on every machine that is in use
+        for (int i = 0; i < equipmentCount && written < bookingCount; i++) {
+            if ("IN_USE".equals(equipmentStatus[i])) {
+                LocalDateTime bookedAt = now.minusMinutes(30 + random.nextInt(8 * 60));
+                batch.add(bookingRow(random, equipmentIds.get(i), "IN_USE", bookedAt, now.minusMinutes(random.nextInt(30))));
+                statusCounts[3]++;
+                written++;
+            }
+        }
+
+        while (written < bookingCount) {
+            int machine = busyOrder[(int) (equipmentCount * Math.pow(random.nextDouble(), 1.5))];
+            double roll = random.nextDouble();
+            String status = roll < 0.86 || "MAINTENANCE".equals(equipmentStatus[machine]) ? "SERVED"
+                    : roll < 0.94 ? "PENDING" : "CONFIRMED";
+
+            LocalDateTime bookedAt;
+            LocalDateTime slot;
+            if ("SERVED".equals(status)) {
+                bookedAt = now.truncatedTo(ChronoUnit.DAYS)
+                        .minusDays(1 + random.nextInt(Math.max(1, historyDays)))
+                        .plusHours(pick(random, HOUR_WEIGHTS))
+                        .plusMinutes(random.nextInt(60))
+                        .plusSeconds(random.nextInt(60));
+                slot = bookedAt.plusMinutes(15L * (1 + random.nextInt(16)));
+                statusCounts[0]++;
+            } else {
+                bookedAt = now.minusSeconds(random.nextInt(8 * 60 * 60));
+                slot = now.truncatedTo(ChronoUnit.HOURS).plusMinutes(15L * (4 + random.nextInt(3 * 24 * 4)));
+                statusCounts["PENDING".equals(status) ? 1 : 2]++;
+            }
+            batch.add(bookingRow(random, equipmentIds.get(machine), status, bookedAt, slot));
+            written++;
+
+            if (batch.size() >= batchSize) {
+                jdbcTemplate.batchUpdate(sql, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, batch);
+        }
+
+        long millis = (System.nanoTime() - started) / 1_000_000;
+        System.out.println("[SYNTHETIC] " + equipmentCount + " machines and " + written + " bookings (seed " + seed
+                + ") in " + millis + " ms: " + statusCounts[0] + " SERVED, " + statusCounts[1] + " PENDING, "
+                + statusCounts[2] + " CONFIRMED, " + statusCounts[3] + " IN_USE");
+        return written;
+    }
+
+    // Derived from the machine counts only, so the random sequence (and the bookings) do not change
+    private void insertCareResources(int[] typeCounters) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int type = 0; type < TYPES.length; type++) {
+            int technicians = (int) Math.ceil(typeCounters[type] * 0.8);
+            for (int i = 1; i <= technicians; i++) {
+                String qualified = i % 4 == 0 ? TYPES[type] + "," + TYPES[(type + 1) % TYPES.length] : TYPES[type];
+                rows.add(new Object[] {String.format("Tech %s-%03d", TYPES[type], i), "TECHNICIAN", qualified});
+            }
+        }
+        for (int i = 1; i <= (typeCounters[0] + 1) / 2; i++) {
+            rows.add(new Object[] {String.format("MRI Prep Room %02d", i), "PREP_ROOM", "MRI"});
+        }
+        insertInBatches("INSERT INTO care_resource (tenant_id, name, kind, qualified_types, status) VALUES ('default', ?, ?, ?, 'AVAILABLE')", rows);
+    }
+
+    private Object[] bookingRow(SplittableRandom random, Long equipmentId, String status,
+                                LocalDateTime bookedAt, LocalDateTime slot) {
+        double roll = random.nextDouble();
+        String priority = roll < 0.75 ? "NORMAL" : roll < 0.95 ? "URGENT" : "EMERGENCY";
+        String name = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+        return new Object[] {name, equipmentId, priority, slot.format(SLOT_FORMAT), status, Timestamp.valueOf(bookedAt)};
+    }
+
+    private void insertInBatches(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(rows.size(), from + batchSize)));
+        }
+    }
+
+    // Index drawn with probability proportional to its weight
+    private static int pick(SplittableRandom random, double[] weights) {
+        double total = 0;
+        for (double weight : weights) {
+            total += weight;
+        }
+        double roll = random.nextDouble() * total;
+        for (int i = 0; i < weights.length - 1; i++) {
+            roll -= weights[i];
+            if (roll < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+}
@@ -0,0 +1,302 @@
+package com.hospital.system.binary;
+
+import com.hospital.system.model.Booking;
+import com.hospital.system.model.Equipment;
+import com.hospital.system.model.EquipmentStatus;
+import com.hospital.system.model.Priority;
+import com.hospital.system.model.QueueEntry;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The application/x-evervault-binary format for the equipment list, pending bookings and queues.
+ *
+ * A body is the magic, a format version, a record type and a count, then the records. Each record
+ * carries the same fields as the JSON body in a fixed order with no field names: whole numbers as
+ * unsigned varints (7 bits a byte), strings as modified UTF-8 behind a presence byte, enums as their
+ * ordinal, and times as epoch milliseconds in the server's time zone. Booking statuses are one byte
+ * for the known values. A wall display decoding a queue needs no date parser and no text scanning.
+ *
+ * New fields are only ever added in a new format version; decoders reject versions they do not know.
+ */
+public final class BinaryCodec {
+
+    static final int MAGIC = 0x45564254; // "EVBT"
+    static final byte FORMAT = 1;
+
+    public static final byte EQUIPMENT = 1;
+    public static final byte BOOKINGS = 2;
+    public static final byte QUEUE = 3;
+
+    private static final String[] STATUSES = {"PENDING", "CONFIRMED", "IN_USE", "SERVED"};
+    private static final int NO_STATUS = 0xFE;
+    private static final int OTHER_STATUS = 0xFF;
+
+    private static final int NO_TIME = 0;
+    private static final int EPOCH_TIME = 1;
+    private static final int TEXT_TIME = 2;
+
+    private BinaryCodec() {
+    }
+
+    public static void writeEquipment(List<Equipment> equipment, OutputStream target) throws IOException {
+        DataOutputStream out = header(target, EQUIPMENT, equipment.size());
+        for (Equipment eq : equipment) {
+            writeId(out, eq.getId());
+            writeString(out, eq.getName());
+            writeString(out, eq.getType());
+            out.writeByte(eq.getStatus() == null ? 0xFF : eq.getStatus().ordinal());
+            writeVarLong(out, eq.getBufferTime());
+            writeVarLong(out, eq.getQueueLength());
+            writeString(out, eq.getNextAvailable());
+        }
+        out.flush();
+    }
+
+    public static void writeBookings(List<Booking> bookings, OutputStream target) throws IOException {
+        DataOutputStream out = header(target, BOOKINGS, bookings.size());
+        ZoneRules zone = ZoneId.systemDefault().getRules();
+        for (Booking booking : bookings) {
+            writeId(out, booking.getId());
+            writeString(out, booking.getPatientName());
+            writeId(out, booking.getEquipmentId());
+            writePriority(out, booking.getPriority());
+            writeSlotTime(out, booking.getSlotTime(), zone);
+            writeStatus(out, booking.getStatus());
+            writeTime(out, booking.getBookingTime(), zone);
+        }
+        out.flush();
+    }
+
+    public static void writeQueue(List<QueueEntry> entries, OutputStream target) throws IOException {
+        DataOutputStream out = header(target, QUEUE, entries.size());
+        ZoneRules zone = ZoneId.systemDefault().getRules();
+        for (QueueEntry entry : entries) {
+            writeId(out, entry.getId());
+            writeId(out, entry.getEquipmentId());
+            writeString(out, entry.getEquipmentName());
+            writeString(out, entry.getPatientName());
+            writePriority(out, entry.getPriority());
+            writeSlotTime(out, entry.getSlotTime(), zone);
+            writeStatus(out, entry.getStatus());
+            writeTime(out, entry.getBookingTime(), zone);
+            writeVarLong(out, entry.getPosition());
+            writeVarLong(out, entry.getEstimatedWaitMinutes());
+        }
+        out.flush();
+    }
+
+    /**
+     * Reference decoder: one map per record keyed by the JSON field names, with enums as enum values and
+     * times as LocalDateTime. Clients in other languages follow the same layout.
+     */
+    public static List<Map<String, Object>> decode(byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        if (data.length < 6 || in.readInt() != MAGIC || in.readByte() != FORMAT) {
+            throw new IOException("not an EverVault binary body");
+        }
+        byte type = in.readByte();
+        int count = (int) readVarLong(in);
+        List<Map<String, Object>> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> record = new LinkedHashMap<>();
+            switch (type) {
+                case EQUIPMENT -> {
+                    record.put("id", readVarLong(in));
+                    record.put("name", readString(in));
+                    record.put("type", readString(in));
+                    int status = in.readUnsignedByte();
+                    record.put("status", status == 0xFF ? null : EquipmentStatus.values()[status]);
+                    record.put("bufferTime", (int) readVarLong(in));
+                    record.put("queueLength", (int) readVarLong(in));
+                    record.put("nextAvailable", readString(in));
+                }
+                case BOOKINGS -> {
+                    record.put("id", readVarLong(in));
+                    record.put("patientName", readString(in));
+                    record.put("equipmentId", readVarLong(in));
+                    record.put("priority", readPriority(in));
+                    record.put("slotTime", readTime(in));
+                    record.put("status", readStatus(in));
+                    record.put("bookingTime", readTime(in));
+                }
+                case QUEUE -> {
+                    record.put("id", readVarLong(in));
+                    record.put("equipmentId", readVarLong(in));
+                    record.put("equipmentName", readString(in));
+                    record.put("patientName", readString(in));
+                    record.put("priority", readPriority(in));
+                    record.put("slotTime", readTime(in));
+                    record.put("status", readStatus(in));
+                    record.put("bookingTime", readTime(in));
+                    record.put("position", (int) readVarLong(in));
+                    record.put("estimatedWaitMinutes", readVarLong(in));
+                }
+                default -> throw new IOException("unknown record type " + type);
+            }
+            records.add(record);
+        }
+        return records;
+    }
+
+    private static DataOutputStream header(OutputStream target, byte type, int count) throws IOException {
+        // DataOutputStream writes field by field; batch those into one write on the response stream
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(target, 8192));
+        out.writeInt(MAGIC);
+        out.writeByte(FORMAT);
+        out.writeByte(type);
+        writeVarLong(out, count);
+        return out;
+    }
+
+    // A null id is written as 0, which no row has
+    private static void writeId(DataOutputStream out, Long id) throws IOException {
+        writeVarLong(out, id == null ? 0 : id);
+    }
+
+    // Ids, counts and minutes are never negative
+    static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("varint too long");
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writePriority(DataOutputStream out, Priority priority) throws IOException {
+        out.writeByte(priority == null ? 0xFF : priority.ordinal());
+    }
+
+    private static Priority readPriority(DataInputStream in) throws IOException {
+        int ordinal = in.readUnsignedByte();
+        return ordinal == 0xFF ? null : Priority.values()[ordinal];
+    }
+
+    private static void writeStatus(DataOutputStream out, String status) throws IOException {
+        if (status == null) {
+            out.writeByte(NO_STATUS);
+            return;
+        }
+        for (int i = 0; i < STATUSES.length; i++) {
+            if (STATUSES[i].equals(status)) {
+                out.writeByte(i);
+                return;
+            }
+        }
+        out.writeByte(OTHER_STATUS);
+        out.writeUTF(status);
+    }
+
+    private static String readStatus(DataInputStream in) throws IOException {
+        int code = in.readUnsignedByte();
+        if (code == NO_STATUS) {
+            return null;
+        }
+        return code == OTHER_STATUS ? in.readUTF() : STATUSES[code];
+    }
+
+    private static void writeTime(DataOutputStream out, LocalDateTime time, ZoneRules zone) throws IOException {
+        if (time == null) {
+            out.writeByte(NO_TIME);
+        } else {
+            out.writeByte(EPOCH_TIME);
+            out.writeLong(time.toEpochSecond(zone.getOffset(time)) * 1000 + time.getNano() / 1_000_000);
+        }
+    }
+
+    // Slot times are stored as text; anything that is not an ISO date-time goes through unchanged
+    private static void writeSlotTime(DataOutputStream out, String slotTime, ZoneRules zone) throws IOException {
+        if (slotTime == null) {
+            out.writeByte(NO_TIME);
+            return;
+        }
+        LocalDateTime time = parseMinutes(slotTime);
+        try {
+            writeTime(out, time != null ? time : LocalDateTime.parse(slotTime), zone);
+        } catch (DateTimeParseException e) {
+            out.writeByte(TEXT_TIME);
+            out.writeUTF(slotTime);
+        }
+    }
+
+    // The booking form's yyyy-MM-ddTHH:mm without going through DateTimeFormatter, which costs more than
+    // the rest of the record; null for any other shape
+    static LocalDateTime parseMinutes(String text) {
+        if (text.length() != 16 || text.charAt(4) != '-' || text.charAt(7) != '-' || text.charAt(10) != 'T'
+                || text.charAt(13) != ':') {
+            return null;
+        }
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 7);
+        int day = digits(text, 8, 10);
+        int hour = digits(text, 11, 13);
+        int minute = digits(text, 14, 16);
+        if (year < 0 || month < 0 || day < 0 || hour < 0 || minute < 0) {
+            return null;
+        }
+        try {
+            return LocalDateTime.of(year, month, day, hour, minute);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    private static int digits(String text, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static Object readTime(DataInputStream in) throws IOException {
+        return switch (in.readUnsignedByte()) {
+            case NO_TIME -> null;
+            case EPOCH_TIME -> LocalDateTime.ofInstant(Instant.ofEpochMilli(in.readLong()), ZoneId.systemDefault());
+            case TEXT_TIME -> in.readUTF();
+            default -> throw new IOException("unknown time encoding");
+        };
+    }
+}
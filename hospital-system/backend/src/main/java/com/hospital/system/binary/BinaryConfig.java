@@ -0,0 +1,17 @@
+package com.hospital.system.binary;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class BinaryConfig implements WebMvcConfigurer {
+
+    // Added last rather than as a bean, which Boot would put ahead of JSON: clients sending */* keep JSON
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new BinaryMessageConverter());
+    }
+}
@@ -0,0 +1,90 @@
+package com.hospital.system.binary;
+
+import com.hospital.system.model.Booking;
+import com.hospital.system.model.Equipment;
+import com.hospital.system.model.QueueEntry;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Writes equipment lists, booking lists and queues as application/x-evervault-binary (see BinaryCodec)
+ * when the client asks for it in Accept. Every other body, and every client that does not ask, keeps
+ * getting JSON. Write-only: request bodies are always JSON.
+ *
+ * Error bodies are JSON maps, so a client should send
+ * {@code Accept: application/x-evervault-binary, application/json} to get those back instead of a 406.
+ */
+public class BinaryMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final String MEDIA_TYPE_VALUE = "application/x-evervault-binary";
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(MEDIA_TYPE_VALUE);
+
+    public BinaryMessageConverter() {
+        super(MEDIA_TYPE);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return List.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return elementType(type != null ? type : clazz) != null && canWrite(mediaType);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(Object body, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        Class<?> element = elementType(type != null ? type : body.getClass());
+        if (element == Equipment.class) {
+            BinaryCodec.writeEquipment((List<Equipment>) body, outputMessage.getBody());
+        } else if (element == Booking.class) {
+            BinaryCodec.writeBookings((List<Booking>) body, outputMessage.getBody());
+        } else if (element == QueueEntry.class) {
+            BinaryCodec.writeQueue((List<QueueEntry>) body, outputMessage.getBody());
+        } else {
+            throw new HttpMessageNotWritableException("No binary encoding for " + type);
+        }
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Request bodies are JSON only", inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Request bodies are JSON only", inputMessage);
+    }
+
+    // The list's element type when it is one the codec has a record layout for, else null
+    private static Class<?> elementType(Type type) {
+        ResolvableType list = ResolvableType.forType(type).as(List.class);
+        if (list == ResolvableType.NONE) {
+            return null;
+        }
+        Class<?> element = list.resolveGeneric(0);
+        return element == Equipment.class || element == Booking.class || element == QueueEntry.class ? element : null;
+    }
+}
@@ -0,0 +1,108 @@
+package com.hospital.system.controller;
+
+import com.hospital.system.dto.WorkLaneStats;
+import com.hospital.system.limit.ConcurrencyLimited;
+import com.hospital.system.limit.ConcurrencyLimiter;
+import com.hospital.system.limit.EndpointClass;
+import com.hospital.system.service.EquipmentWorkLanes;
+import com.hospital.system.service.InvalidationBus;
+import com.hospital.system.service.PatientSearchService;
+import com.hospital.system.service.QueueViewService;
+import com.hospital.system.service.ResourceDispatcher;
+import com.hospital.system.service.SlotHoldService;
+import com.hospital.system.tenant.TenantContext;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin")
+@CrossOrigin(origins = "*")
+@Tag(name = "Administration", description = "Operational maintenance of derived data")
+public class AdminController {
+
+    @Autowired
+    private QueueViewService queueViewService;
+
+    @Autowired
+    private PatientSearchService patientSearchService;
+
+    @Autowired
+    private ResourceDispatcher resourceDispatcher;
+
+    @Autowired
+    private EquipmentWorkLanes workLanes;
+
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    @Autowired
+    private SlotHoldService slotHoldService;
+
+    @Autowired
+    private ConcurrencyLimiter concurrencyLimiter;
+
+    @Operation(summary = "Rebuild queue read model", description = "Re-projects this hospital's queue_view rows from the booking table, e.g. after bookings were imported directly into the database")
+    @ConcurrencyLimited(EndpointClass.WRITE)
+    @PostMapping("/queue-view/rebuild")
+    public Map<String, Integer> rebuildQueueView() {
+        Map<String, Integer> result = new HashMap<>();
+        result.put("entries", queueViewService.rebuild(TenantContext.get()));
+        return result;
+    }
+
+    @Operation(summary = "Rebuild patient search index", description = "Reloads this hospital's in-memory name index from its active bookings, e.g. after an import or when it ran over capacity")
+    @ConcurrencyLimited(EndpointClass.WRITE)
+    @PostMapping("/search/rebuild")
+    public Map<String, Integer> rebuildSearchIndex() {
+        Map<String, Integer> result = new HashMap<>();
+        result.put("entries", patientSearchService.rebuild(TenantContext.get()));
+        return result;
+    }
+
+    @Operation(summary = "Reload resource pools", description = "Reloads this hospital's free technician and room pools from care_resource, e.g. after rows were edited directly or another node changed them")
+    @ConcurrencyLimited(EndpointClass.WRITE)
+    @PostMapping("/resources/rebuild")
+    public Map<String, Integer> rebuildResourcePools() {
+        Map<String, Integer> result = new HashMap<>();
+        result.put("resources", resourceDispatcher.rebuild(TenantContext.get()));
+        return result;
+    }
+
+    @Operation(summary = "Background work lanes", description = "Queue depth, saturation, failures, timeouts and worst waits of each machine's background work lane (e.g. auto-revert), for this hospital's machines")
+    @ConcurrencyLimited(EndpointClass.READ)
+    @GetMapping("/lanes")
+    public List<WorkLaneStats> getWorkLanes() {
+        return workLanes.getStats(TenantContext.get());
+    }
+
+    @Operation(summary = "Cross-node invalidation", description = "This node's id and transport, and how many machine-changed messages it has sent, applied and ignored as out of date")
+    @ConcurrencyLimited(EndpointClass.READ)
+    @GetMapping("/invalidation")
+    public Map<String, Object> getInvalidationStats() {
+        return invalidationBus.getStats();
+    }
+
+    @Operation(summary = "Slot holds", description = "Holds kept on this node right now, how many are being turned into bookings, and how many ran out since startup")
+    @ConcurrencyLimited(EndpointClass.READ)
+    @GetMapping("/holds")
+    public Map<String, Object> getHoldStats() {
+        return slotHoldService.getStats();
+    }
+
+    @Operation(summary = "Concurrency limits", description = "The connection budget shared by every hospital (its size, the connections reserved for queue actions, how many are in use and how many requests it turned away), and this hospital's limits per endpoint class (READ, WRITE, QUEUE_ACTION): the current adaptive limit, requests in flight, how many were admitted, turned away with 503 or made to wait, how often the limit was cut, and the smoothed latency")
+    @ConcurrencyLimited(EndpointClass.READ)
+    @GetMapping("/limits")
+    public Map<String, Object> getLimits() {
+        return concurrencyLimiter.getStats(TenantContext.get());
+    }
+}
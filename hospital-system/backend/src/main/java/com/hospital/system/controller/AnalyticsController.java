@@ -0,0 +1,37 @@
+package com.hospital.system.controller;
+
+import com.hospital.system.dto.EquipmentAnalytics;
+import com.hospital.system.limit.ConcurrencyLimited;
+import com.hospital.system.limit.EndpointClass;
+import com.hospital.system.repository.EquipmentRepository;
+import com.hospital.system.service.EquipmentAnalyticsService;
+import com.hospital.system.tenant.TenantContext;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/analytics")
+@CrossOrigin(origins = "*")
+@Tag(name = "Analytics", description = "Utilization and wait-time figures for wall displays")
+public class AnalyticsController {
+
+    @Autowired
+    private EquipmentRepository equipmentRepository;
+
+    @Autowired
+    private EquipmentAnalyticsService analyticsService;
+
+    @Operation(summary = "Equipment analytics", description = "Per-machine utilization, procedures per hour and wait percentiles by priority over 1h/24h/7d")
+    @ConcurrencyLimited(EndpointClass.READ)
+    @GetMapping("/equipment")
+    public List<EquipmentAnalytics> getEquipmentAnalytics() {
+        return analyticsService.getAnalytics(equipmentRepository.findByTenantId(TenantContext.get()));
+    }
+}
@@ -0,0 +1,46 @@
+package com.hospital.system.controller;
+
+import com.hospital.system.dto.ChangeBatch;
+import com.hospital.system.limit.ConcurrencyLimited;
+import com.hospital.system.limit.EndpointClass;
+import com.hospital.system.service.ChangeFeedService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api")
+@CrossOrigin(origins = "*")
+@Tag(name = "Delta Sync", description = "Catch up on booking and equipment changes since a known version")
+public class ChangeFeedController {
+
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
+    @Operation(summary = "Changes since version", description = "Booking and equipment changes after sequence 'since' (0 = from the start), oldest first, with the highWaterMark to send next time")
+    @ConcurrencyLimited(EndpointClass.READ)
+    @GetMapping("/changes")
+    public ChangeBatch getChanges(@RequestParam(defaultValue = "0") long since,
+                                  @RequestParam(required = false) Integer limit) {
+        return changeFeedService.getChangesSince(since, limit);
+    }
+
+    @ExceptionHandler(RuntimeException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Map<String, String> handleRuntimeException(RuntimeException e) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", e.getMessage());
+        return error;
+    }
+}
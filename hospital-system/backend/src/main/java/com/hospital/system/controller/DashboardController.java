@@ -0,0 +1,33 @@
+package com.hospital.system.controller;
+
+import com.hospital.system.dto.Dashboard;
+import com.hospital.system.limit.ConcurrencyLimited;
+import com.hospital.system.limit.EndpointClass;
+import com.hospital.system.service.DashboardService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api")
+@CrossOrigin(origins = "*")
+@Tag(name = "Dashboard", description = "One request per UI poll instead of three")
+@ConcurrencyLimited(EndpointClass.READ)
+public class DashboardController {
+
+    @Autowired
+    private DashboardService dashboardService;
+
+    @Operation(summary = "Combined dashboard", description = "Equipment cards, the selected machine's live queue and (with pending=true) the triage summary and first inbox page, from one consistent read")
+    @GetMapping("/dashboard")
+    public Dashboard getDashboard(@RequestParam(required = false) Long equipmentId,
+                                  @RequestParam(defaultValue = "false") boolean pending,
+                                  @RequestParam(required = false) Integer pendingLimit) {
+        return dashboardService.getDashboard(equipmentId, pending, pendingLimit);
+    }
+}
@@ -0,0 +1,66 @@
+package com.hospital.system.controller;
+
+import com.hospital.system.dto.SlotHold;
+import com.hospital.system.limit.ConcurrencyLimited;
+import com.hospital.system.limit.EndpointClass;
+import com.hospital.system.service.SlotHoldService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/holds")
+@CrossOrigin(origins = "*")
+@Tag(name = "Slot Holds", description = "Keep a slot aside while the patient fills in the booking form")
+public class HoldController {
+
+    @Autowired
+    private SlotHoldService slotHoldService;
+
+    @ExceptionHandler(RuntimeException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Map<String, String> handleRuntimeException(RuntimeException e) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", e.getMessage());
+        return error;
+    }
+
+    @Operation(summary = "Hold a slot", description = "Keeps one procedure's slot on a machine for 'minutes' (default 5). Send the returned id as holdId with POST /api/bookings; after expiresAt the slot is free again")
+    @ConcurrencyLimited(EndpointClass.WRITE)
+    @PostMapping
+    public SlotHold holdSlot(@RequestBody Map<String, Object> payload) {
+        Object equipmentId = payload.get("equipmentId");
+        Object minutes = payload.get("minutes");
+        LocalDateTime slotTime;
+        try {
+            slotTime = LocalDateTime.parse(String.valueOf(payload.get("slotTime")));
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Error: Invalid slotTime: " + payload.get("slotTime") + ".");
+        }
+        return slotHoldService.hold(equipmentId == null ? null : Long.valueOf(equipmentId.toString()), slotTime,
+                minutes == null ? null : Integer.valueOf(minutes.toString()));
+    }
+
+    @Operation(summary = "Release a hold", description = "Gives the slot back before the hold expires, e.g. when the patient leaves the form")
+    @ConcurrencyLimited(EndpointClass.WRITE)
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> releaseHold(@PathVariable String id) {
+        slotHoldService.release(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    @Operation(summary = "Active holds", description = "Unexpired holds of this hospital, optionally for one machine, by slot time")
+    @ConcurrencyLimited(EndpointClass.READ)
+    @GetMapping
+    public List<SlotHold> getHolds(@RequestParam(required = false) Long equipmentId) {
+        return slotHoldService.getHolds(equipmentId);
+    }
+}
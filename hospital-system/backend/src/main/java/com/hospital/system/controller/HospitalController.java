@@ -1,10 +1,26 @@
 package com.hospital.system.controller;
 
+import com.hospital.system.binary.BinaryMessageConverter;
+import com.hospital.system.dto.BookingRequest;
+import com.hospital.system.dto.ConfirmOutcome;
+import com.hospital.system.dto.ConfirmRequest;
+import com.hospital.system.dto.ErrorCode;
+import com.hospital.system.dto.PatientMatch;
+import com.hospital.system.dto.PendingPage;
+import com.hospital.system.dto.PendingSummary;
+import com.hospital.system.dto.Result;
+import com.hospital.system.limit.ConcurrencyLimited;
+import com.hospital.system.limit.EndpointClass;
 import com.hospital.system.model.Booking;
 import com.hospital.system.model.Equipment;
 import com.hospital.system.model.Priority;
+import com.hospital.system.model.QueueEntry;
 import com.hospital.system.repository.EquipmentRepository;
+import com.hospital.system.service.IdempotencyService;
+import com.hospital.system.service.PatientSearchService;
 import com.hospital.system.service.QueueService;
+import com.hospital.system.service.QueueViewService;
+import com.hospital.system.tenant.TenantContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
@@ -15,6 +31,8 @@ import java.util.HashMap;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
@@ -22,6 +40,7 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 @RequestMapping("/api")
 @CrossOrigin(origins = "*") // Modernize to allow all for demo, or keep specific if preferred
 @Tag(name = "Health Logistics", description = "EverVault API for managing hospital equipment and patient triage")
+@ConcurrencyLimited // reads and writes by HTTP method; the technician's queue actions are marked below
 public class HospitalController {
 
     @Autowired
@@ -30,14 +49,25 @@ public class HospitalController {
     @Autowired
     private QueueService queueService;
 
-    @Operation(summary = "Fetch all health facilities", description = "Returns active MRI, CT, and specialized equipment status")
-    @GetMapping("/equipment")
+    @Autowired
+    private QueueViewService queueViewService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private PatientSearchService patientSearchService;
+
+    @Operation(summary = "Fetch all health facilities", description = "Returns active MRI, CT, and specialized equipment status of the hospital named by the X-Tenant-Id header. Send Accept: application/x-evervault-binary for the compact binary encoding")
+    @GetMapping(value = "/equipment", produces = {MediaType.APPLICATION_JSON_VALUE, BinaryMessageConverter.MEDIA_TYPE_VALUE})
     public List<Equipment> getAllEquipment() {
-        List<Equipment> equipmentList = equipmentRepository.findAll();
+        List<Equipment> equipmentList = equipmentRepository.findByTenantId(TenantContext.get());
+        // One grouped count over the queue read model instead of loading every confirmed booking
+        Map<Long, Integer> queueLengths = queueViewService.getQueueLengths();
         for (Equipment eq : equipmentList) {
-            List<Booking> queue = queueService.getQueueForEquipment(eq.getId());
-            eq.setQueueLength(queue.size());
-            eq.setNextAvailable(queueService.calculateNextSlot(eq.getId()));
+            int queueLength = queueLengths.getOrDefault(eq.getId(), 0);
+            eq.setQueueLength(queueLength);
+            eq.setNextAvailable(queueService.calculateNextSlot(eq, queueLength));
         }
         return equipmentList;
     }
@@ -50,33 +80,73 @@ public class HospitalController {
         return error;
     }
 
-    @Operation(summary = "New patient booking", description = "Creates a triage request for a specific machine")
+    @Operation(summary = "New patient booking", description = "Creates a triage request for a specific machine. Send an Idempotency-Key header to make retries safe. A refused request gets 400 with the reason as error and a stable code (see ErrorCode)")
     @PostMapping("/bookings")
-    public Booking createBooking(@RequestBody Map<String, Object> payload) {
-        Booking booking = new Booking();
-        booking.setPatientName((String) payload.get("patientName"));
-        booking.setEquipmentId(Long.valueOf(payload.get("equipmentId").toString()));
-        booking.setSlotTime((String) payload.get("slotTime"));
-        
-        // Map requestedPriority to priority enum
-        String requestedPriority = (String) payload.get("requestedPriority");
-        if (requestedPriority != null) {
-            try {
-                booking.setPriority(Priority.valueOf(requestedPriority));
-            } catch (IllegalArgumentException e) {
-                booking.setPriority(Priority.NORMAL); // Default to NORMAL if invalid
+    public ResponseEntity<Object> createBooking(@RequestBody BookingRequest request,
+                                                @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            Result<Booking> result = queueService.submitBooking(request);
+            if (!result.isOk()) {
+                return ResponseEntity.badRequest().body(rejection(result.getCode(), result.getMessage()));
             }
+            return ResponseEntity.ok(result.getValue());
         }
-        
-        return queueService.createBookingRequest(booking);
+        // Keys are scoped per hospital, so two hospitals can never replay each other's responses.
+        // A refusal has to throw here so the key is not remembered for it; Result.Rejected has no stack trace.
+        return ResponseEntity.ok(idempotencyService.execute(idempotencyKey, TenantContext.get() + " POST /bookings",
+                String.valueOf(request), Booking.class, () -> queueService.submitBooking(request).orThrow()));
+    }
+
+    @ExceptionHandler(Result.Rejected.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Map<String, String> handleRejected(Result.Rejected e) {
+        return rejection(e.getCode(), e.getMessage());
+    }
+
+    // Malformed JSON or a field of the wrong type (e.g. an equipmentId that is not a number)
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Map<String, String> handleUnreadable(HttpMessageNotReadableException e) {
+        return rejection(ErrorCode.INVALID_REQUEST, "Error: The request body could not be read.");
     }
 
-    @Operation(summary = "List triage requests", description = "Fetch patients waiting for admin priority assignment")
-    @GetMapping("/bookings/pending")
+    private static Map<String, String> rejection(ErrorCode code, String message) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", message);
+        error.put("code", code.name());
+        return error;
+    }
+
+    @Operation(summary = "List triage requests", description = "Fetch patients waiting for admin priority assignment; also available as application/x-evervault-binary")
+    @GetMapping(value = "/bookings/pending", produces = {MediaType.APPLICATION_JSON_VALUE, BinaryMessageConverter.MEDIA_TYPE_VALUE})
     public List<Booking> getPending() {
         return queueService.getPendingBookings();
     }
 
+    @Operation(summary = "Find a patient", description = "Active bookings whose patient name matches q (word start or inside a word, several words narrow it down), best match first; limit defaults to 10, max 50")
+    @GetMapping("/bookings/search")
+    public List<PatientMatch> searchPatients(@RequestParam String q,
+                                             @RequestParam(required = false) Integer limit) {
+        return patientSearchService.search(q, limit);
+    }
+
+    @Operation(summary = "Page through triage requests", description = "Keyset-paginated pending inbox ordered by requested priority, then arrival; pass nextCursor back to continue")
+    @GetMapping("/bookings/pending/page")
+    public PendingPage getPendingPage(@RequestParam(required = false) Long equipmentId,
+                                      @RequestParam(required = false) String type,
+                                      @RequestParam(required = false) Priority priority,
+                                      @RequestParam(required = false) String cursor,
+                                      @RequestParam(required = false) Integer limit) {
+        return queueService.getPendingPage(equipmentId, type, priority, cursor, limit);
+    }
+
+    @Operation(summary = "Triage inbox summary", description = "Count of pending requests per requested priority")
+    @GetMapping("/bookings/pending/summary")
+    public PendingSummary getPendingSummary(@RequestParam(required = false) Long equipmentId,
+                                            @RequestParam(required = false) String type) {
+        return queueService.getPendingSummary(equipmentId, type);
+    }
+
     @Operation(summary = "Confirm triage", description = "Assigns priority and moves patient to the live operational queue")
     @PostMapping("/bookings/{id}/confirm")
     public Booking confirmBooking(@PathVariable Long id, @RequestBody Map<String, String> payload) {
@@ -84,20 +154,32 @@ public class HospitalController {
         return queueService.confirmBooking(id, priority);
     }
 
-    @Operation(summary = "Operational live queue", description = "Get sorted patient list for a specific machine")
-    @GetMapping("/queue/{equipmentId}")
-    public List<Booking> getQueue(@PathVariable Long equipmentId) {
-        return queueService.getQueueForEquipment(equipmentId);
+    @Operation(summary = "Bulk confirm triage", description = "Confirms or re-triages many pending requests in one transaction and reports an outcome per booking id")
+    @PostMapping("/bookings/confirm")
+    public List<ConfirmOutcome> confirmBookings(@RequestBody List<ConfirmRequest> requests) {
+        return queueService.confirmBookings(requests);
+    }
+
+    @Operation(summary = "Operational live queue", description = "Get sorted patient list for a specific machine, with each patient's position and estimated wait; also available as application/x-evervault-binary")
+    @GetMapping(value = "/queue/{equipmentId}", produces = {MediaType.APPLICATION_JSON_VALUE, BinaryMessageConverter.MEDIA_TYPE_VALUE})
+    public List<QueueEntry> getQueue(@PathVariable Long equipmentId) {
+        List<QueueEntry> queue = queueViewService.getQueue(equipmentId);
+        queueService.checkEquipmentTenant(equipmentId, queue);
+        return queue;
     }
 
-    @Operation(summary = "Commence procedure", description = "Calls the next patient and marks equipment as IN_USE")
+    @Operation(summary = "Commence procedure", description = "Calls the next patient and marks equipment as IN_USE. Send an Idempotency-Key header so a retried click does not advance the queue twice")
     @PostMapping("/queue/{equipmentId}/next")
-    public Booking callNext(@PathVariable Long equipmentId) {
-        return queueService.callNext(equipmentId);
+    @ConcurrencyLimited(EndpointClass.QUEUE_ACTION)
+    public Booking callNext(@PathVariable Long equipmentId,
+                            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, TenantContext.get() + " POST /queue/" + equipmentId + "/next", "", Booking.class,
+                () -> queueService.callNext(equipmentId));
     }
 
     @Operation(summary = "Patient served", description = "Ends procedure and reverts machine to AVAILABLE")
     @PostMapping("/bookings/{id}/serve")
+    @ConcurrencyLimited(EndpointClass.QUEUE_ACTION)
     public ResponseEntity<Void> servePatient(@PathVariable Long id) {
         queueService.markAsServed(id);
         return ResponseEntity.ok().build();
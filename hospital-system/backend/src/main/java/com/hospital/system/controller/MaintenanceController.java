@@ -0,0 +1,101 @@
+package com.hospital.system.controller;
+
+import com.hospital.system.limit.ConcurrencyLimited;
+import com.hospital.system.limit.EndpointClass;
+import com.hospital.system.model.Equipment;
+import com.hospital.system.model.MaintenanceWindow;
+import com.hospital.system.repository.EquipmentRepository;
+import com.hospital.system.service.MaintenanceTimeline;
+import com.hospital.system.service.SlotHoldService;
+import com.hospital.system.tenant.TenantContext;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/maintenance")
+@CrossOrigin(origins = "*")
+@Tag(name = "Maintenance", description = "Planned maintenance windows and the free slots around them")
+public class MaintenanceController {
+
+    @Autowired
+    private MaintenanceTimeline maintenanceTimeline;
+
+    @Autowired
+    private EquipmentRepository equipmentRepository;
+
+    @Autowired
+    private SlotHoldService slotHoldService;
+
+    @ExceptionHandler(RuntimeException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Map<String, String> handleRuntimeException(RuntimeException e) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", e.getMessage());
+        return error;
+    }
+
+    @Operation(summary = "Upcoming maintenance of a machine", description = "Windows that have not ended yet, soonest first")
+    @ConcurrencyLimited(EndpointClass.READ)
+    @GetMapping
+    public List<MaintenanceWindow> getWindows(@RequestParam Long equipmentId) {
+        return maintenanceTimeline.getWindows(equipmentId);
+    }
+
+    @Operation(summary = "Plan maintenance", description = "startsAt and endsAt are ISO date-times (2026-12-31T08:00); the machine cannot be booked or called in between")
+    @ConcurrencyLimited(EndpointClass.WRITE)
+    @PostMapping
+    public MaintenanceWindow scheduleWindow(@RequestBody Map<String, String> payload) {
+        MaintenanceWindow window = new MaintenanceWindow();
+        window.setEquipmentId(payload.get("equipmentId") == null ? null : Long.valueOf(payload.get("equipmentId")));
+        window.setStartsAt(parse(payload.get("startsAt"), "startsAt"));
+        window.setEndsAt(parse(payload.get("endsAt"), "endsAt"));
+        window.setReason(payload.get("reason"));
+        return maintenanceTimeline.schedule(window);
+    }
+
+    @Operation(summary = "Cancel planned maintenance")
+    @ConcurrencyLimited(EndpointClass.WRITE)
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> cancelWindow(@PathVariable Long id) {
+        maintenanceTimeline.cancel(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    @Operation(summary = "Find a free slot", description = "Earliest start at or after 'from' (default now) where a procedure of 'minutes' (default the machine's procedure time) runs without meeting planned maintenance or another patient's hold")
+    @ConcurrencyLimited(EndpointClass.READ)
+    @GetMapping("/free-slot")
+    public Map<String, Object> findFreeSlot(@RequestParam Long equipmentId,
+                                            @RequestParam(required = false) String from,
+                                            @RequestParam(required = false) Integer minutes) {
+        Equipment equipment = equipmentRepository.findById(equipmentId)
+                .filter(eq -> TenantContext.get().equals(eq.getTenantId()))
+                .orElseThrow(() -> new RuntimeException("Error: Equipment not found."));
+        LocalDateTime start = from == null ? LocalDateTime.now() : parse(from, "from");
+        int length = minutes == null ? equipment.getBufferTime() : minutes;
+        LocalDateTime free = slotHoldService.findFreeStart(equipmentId, start, length);
+
+        Map<String, Object> slot = new LinkedHashMap<>();
+        slot.put("equipmentId", equipmentId);
+        slot.put("start", free);
+        slot.put("end", free.plusMinutes(length));
+        return slot;
+    }
+
+    private static LocalDateTime parse(String value, String field) {
+        try {
+            return LocalDateTime.parse(value);
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Error: Invalid " + field + ": " + value + ".");
+        }
+    }
+}
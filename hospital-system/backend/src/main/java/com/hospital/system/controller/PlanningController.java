@@ -0,0 +1,41 @@
+package com.hospital.system.controller;
+
+import com.hospital.system.dto.WhatIfResult;
+import com.hospital.system.dto.WhatIfScenario;
+import com.hospital.system.limit.ConcurrencyLimited;
+import com.hospital.system.limit.EndpointClass;
+import com.hospital.system.service.CapacityPlanner;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/planning")
+@CrossOrigin(origins = "*")
+@Tag(name = "Capacity Planning", description = "Projected waits under hypothetical changes, without touching live state")
+public class PlanningController {
+
+    @Autowired
+    private CapacityPlanner capacityPlanner;
+
+    @ExceptionHandler(RuntimeException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Map<String, String> handleRuntimeException(RuntimeException e) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", e.getMessage());
+        return error;
+    }
+
+    @Operation(summary = "What if", description = "Projects per-priority waits for the current confirmed queues as they are and with the scenario applied, "
+            + "e.g. {\"addMachines\": {\"CT\": 1}, \"bufferTimes\": {\"CT\": 20}, \"extraArrivals\": [{\"type\": \"CT\", \"priority\": \"EMERGENCY\", \"perHour\": 2}]}")
+    @ConcurrencyLimited(EndpointClass.READ) // a POST only to carry the scenario; it changes nothing
+    @PostMapping("/what-if")
+    public WhatIfResult whatIf(@RequestBody(required = false) WhatIfScenario scenario) {
+        return capacityPlanner.whatIf(scenario == null ? new WhatIfScenario() : scenario);
+    }
+}
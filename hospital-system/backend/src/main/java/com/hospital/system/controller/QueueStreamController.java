@@ -0,0 +1,65 @@
+package com.hospital.system.controller;
+
+import com.hospital.system.limit.ConcurrencyLimited;
+import com.hospital.system.limit.EndpointClass;
+import com.hospital.system.service.QueueService;
+import com.hospital.system.service.QueueStreamService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("/api/stream")
+@CrossOrigin(origins = "*")
+@Tag(name = "Live Streams", description = "Server-Sent Events for displays that would otherwise poll")
+public class QueueStreamController {
+
+    @Autowired
+    private QueueStreamService queueStreamService;
+
+    @Autowired
+    private QueueService queueService;
+
+    @Operation(summary = "Live queue stream", description = "text/event-stream of 'queue' events: the sorted live queue of one machine, sent on connect and after every change")
+    @ConcurrencyLimited(EndpointClass.READ)
+    @GetMapping(value = "/queue/{equipmentId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamQueue(@PathVariable Long equipmentId) {
+        // Unknown and other hospitals' machines look the same, so ids cannot be probed
+        if (!queueService.isEquipmentInTenant(equipmentId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Error: Equipment not found.");
+        }
+        return queueStreamService.subscribe(equipmentId);
+    }
+
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<Map<String, String>> handleStatus(ResponseStatusException e) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", e.getReason());
+        return ResponseEntity.status(e.getStatusCode()).contentType(MediaType.APPLICATION_JSON).body(error);
+    }
+
+    // Only a full stream table or a stream executor that is shutting down; the client may retry later
+    @ExceptionHandler(RejectedExecutionException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public Map<String, String> handleRejected(RejectedExecutionException e) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", e.getMessage());
+        return error;
+    }
+}
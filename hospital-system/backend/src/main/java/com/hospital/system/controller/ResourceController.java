@@ -0,0 +1,81 @@
+package com.hospital.system.controller;
+
+import com.hospital.system.dto.DispatchStatus;
+import com.hospital.system.limit.ConcurrencyLimited;
+import com.hospital.system.limit.EndpointClass;
+import com.hospital.system.model.CareResource;
+import com.hospital.system.model.ResourceKind;
+import com.hospital.system.model.ResourceStatus;
+import com.hospital.system.repository.CareResourceRepository;
+import com.hospital.system.service.ResourceDispatcher;
+import com.hospital.system.tenant.TenantContext;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/resources")
+@CrossOrigin(origins = "*")
+@Tag(name = "Resources", description = "Technicians and prep rooms that procedures need besides the machine")
+public class ResourceController {
+
+    @Autowired
+    private CareResourceRepository careResourceRepository;
+
+    @Autowired
+    private ResourceDispatcher resourceDispatcher;
+
+    @ExceptionHandler(RuntimeException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Map<String, String> handleRuntimeException(RuntimeException e) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", e.getMessage());
+        return error;
+    }
+
+    @Operation(summary = "List technicians and rooms", description = "Every resource with its status and, while BUSY, the machine it is working with")
+    @ConcurrencyLimited(EndpointClass.READ)
+    @GetMapping
+    public List<CareResource> getResources() {
+        return careResourceRepository.findByTenantId(TenantContext.get());
+    }
+
+    @Operation(summary = "Add a technician or room", description = "kind is TECHNICIAN or PREP_ROOM; qualifiedTypes lists the equipment types it can work with, e.g. \"MRI,CT\"")
+    @ConcurrencyLimited(EndpointClass.WRITE)
+    @PostMapping
+    public CareResource createResource(@RequestBody Map<String, String> payload) {
+        CareResource resource = new CareResource();
+        resource.setName(payload.get("name"));
+        resource.setKind(parse(ResourceKind.class, payload.get("kind"), "kind"));
+        resource.setQualifiedTypes(payload.get("qualifiedTypes"));
+        return resourceDispatcher.create(resource);
+    }
+
+    @Operation(summary = "Put on or off duty", description = "status is AVAILABLE or OFF_DUTY; a resource busy with a procedure cannot be changed until it ends")
+    @ConcurrencyLimited(EndpointClass.WRITE)
+    @PostMapping("/{id}/status")
+    public CareResource setStatus(@PathVariable Long id, @RequestBody Map<String, String> payload) {
+        return resourceDispatcher.setStatus(id, parse(ResourceStatus.class, payload.get("status"), "status"));
+    }
+
+    @Operation(summary = "Dispatch readiness", description = "Per machine: queue length and which resources its next procedure is still waiting for; readyToCall when nothing is missing")
+    @ConcurrencyLimited(EndpointClass.READ)
+    @GetMapping("/dispatch")
+    public List<DispatchStatus> getDispatchStatus() {
+        return resourceDispatcher.getDispatchStatus();
+    }
+
+    private static <E extends Enum<E>> E parse(Class<E> type, String value, String field) {
+        try {
+            return Enum.valueOf(type, value);
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Error: Invalid " + field + ": " + value + ".");
+        }
+    }
+}
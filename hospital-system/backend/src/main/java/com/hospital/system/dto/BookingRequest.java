@@ -0,0 +1,85 @@
+package com.hospital.system.dto;
+
+import com.hospital.system.model.Priority;
+
+/**
+ * Body of POST /api/bookings. requestedPriority stays text: an unknown value means NORMAL rather than a
+ * rejected request, and looking it up does not throw.
+ */
+public class BookingRequest {
+    private String patientName;
+    private Long equipmentId;
+    private String slotTime;
+    private String requestedPriority;
+    private String holdId; // from POST /api/holds when the patient held the slot while filling in the form
+
+    public BookingRequest() {
+    }
+
+    public BookingRequest(String patientName, Long equipmentId, String slotTime, String requestedPriority, String holdId) {
+        this.patientName = patientName;
+        this.equipmentId = equipmentId;
+        this.slotTime = slotTime;
+        this.requestedPriority = requestedPriority;
+        this.holdId = holdId;
+    }
+
+    /** The requested priority, or null when none or an unknown one was sent. */
+    public Priority priority() {
+        if (requestedPriority != null) {
+            for (Priority priority : Priority.values()) {
+                if (priority.name().equals(requestedPriority)) {
+                    return priority;
+                }
+            }
+        }
+        return null;
+    }
+
+    public String getPatientName() {
+        return patientName;
+    }
+
+    public void setPatientName(String patientName) {
+        this.patientName = patientName;
+    }
+
+    public Long getEquipmentId() {
+        return equipmentId;
+    }
+
+    public void setEquipmentId(Long equipmentId) {
+        this.equipmentId = equipmentId;
+    }
+
+    public String getSlotTime() {
+        return slotTime;
+    }
+
+    public void setSlotTime(String slotTime) {
+        this.slotTime = slotTime;
+    }
+
+    public String getRequestedPriority() {
+        return requestedPriority;
+    }
+
+    public void setRequestedPriority(String requestedPriority) {
+        this.requestedPriority = requestedPriority;
+    }
+
+    public String getHoldId() {
+        return holdId;
+    }
+
+    public void setHoldId(String holdId) {
+        this.holdId = holdId;
+    }
+
+    // Identifies the request for Idempotency-Key fingerprints
+    @Override
+    public String toString() {
+        return "BookingRequest{patientName=" + patientName + ", equipmentId=" + equipmentId + ", slotTime=" + slotTime
+                + ", requestedPriority=" + requestedPriority + ", holdId=" + holdId + "}";
+    }
+}
@@ -0,0 +1,32 @@
+package com.hospital.system.dto;
+
+import com.hospital.system.model.ChangeRecord;
+import java.util.List;
+
+/**
+ * Answer to GET /api/changes. Pass highWaterMark back as "since" on the next call;
+ * hasMore means the limit was reached and the client should ask again straight away.
+ */
+public class ChangeBatch {
+    private final List<ChangeRecord> changes;
+    private final long highWaterMark;
+    private final boolean hasMore;
+
+    public ChangeBatch(List<ChangeRecord> changes, long highWaterMark, boolean hasMore) {
+        this.changes = changes;
+        this.highWaterMark = highWaterMark;
+        this.hasMore = hasMore;
+    }
+
+    public List<ChangeRecord> getChanges() {
+        return changes;
+    }
+
+    public long getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+}
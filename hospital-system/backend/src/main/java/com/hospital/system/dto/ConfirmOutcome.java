@@ -0,0 +1,30 @@
+package com.hospital.system.dto;
+
+/**
+ * Per-booking result of a bulk confirmation.
+ * outcome is one of CONFIRMED (confirmed or re-triaged at the given priority), NOT_FOUND,
+ * NOT_PENDING (already called or served), DUPLICATE (id listed more than once) or INVALID.
+ */
+public class ConfirmOutcome {
+    public static final String CONFIRMED = "CONFIRMED";
+    public static final String NOT_FOUND = "NOT_FOUND";
+    public static final String NOT_PENDING = "NOT_PENDING";
+    public static final String DUPLICATE = "DUPLICATE";
+    public static final String INVALID = "INVALID";
+
+    private final Long id;
+    private final String outcome;
+
+    public ConfirmOutcome(Long id, String outcome) {
+        this.id = id;
+        this.outcome = outcome;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getOutcome() {
+        return outcome;
+    }
+}
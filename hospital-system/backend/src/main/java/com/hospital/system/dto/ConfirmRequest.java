@@ -0,0 +1,35 @@
+package com.hospital.system.dto;
+
+import com.hospital.system.model.Priority;
+
+/**
+ * One entry of a bulk triage confirmation: which booking, and the priority the admin assigned.
+ */
+public class ConfirmRequest {
+    private Long id;
+    private Priority assignedPriority;
+
+    public ConfirmRequest() {
+    }
+
+    public ConfirmRequest(Long id, Priority assignedPriority) {
+        this.id = id;
+        this.assignedPriority = assignedPriority;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Priority getAssignedPriority() {
+        return assignedPriority;
+    }
+
+    public void setAssignedPriority(Priority assignedPriority) {
+        this.assignedPriority = assignedPriority;
+    }
+}
@@ -0,0 +1,39 @@
+package com.hospital.system.dto;
+
+import com.hospital.system.model.Equipment;
+import com.hospital.system.model.QueueEntry;
+import java.util.List;
+
+/**
+ * Everything one UI poll needs, read together. queue is null when no machine was selected;
+ * pendingSummary and pending are null unless the triage inbox was asked for.
+ */
+public class Dashboard {
+    private final List<Equipment> equipment;
+    private final List<QueueEntry> queue;
+    private final PendingSummary pendingSummary;
+    private final PendingPage pending;
+
+    public Dashboard(List<Equipment> equipment, List<QueueEntry> queue, PendingSummary pendingSummary, PendingPage pending) {
+        this.equipment = equipment;
+        this.queue = queue;
+        this.pendingSummary = pendingSummary;
+        this.pending = pending;
+    }
+
+    public List<Equipment> getEquipment() {
+        return equipment;
+    }
+
+    public List<QueueEntry> getQueue() {
+        return queue;
+    }
+
+    public PendingSummary getPendingSummary() {
+        return pendingSummary;
+    }
+
+    public PendingPage getPending() {
+        return pending;
+    }
+}
@@ -0,0 +1,58 @@
+package com.hospital.system.dto;
+
+import com.hospital.system.model.EquipmentStatus;
+import com.hospital.system.model.ResourceKind;
+
+import java.util.List;
+
+/**
+ * One machine on GET /api/resources/dispatch: whether its next patient could be called right now,
+ * and if not, which kinds of resource it is waiting for. An AVAILABLE machine with a queue and a
+ * non-empty waitingFor is sitting idle for want of staff or a room.
+ */
+public class DispatchStatus {
+    private final Long equipmentId;
+    private final String equipmentName;
+    private final String type;
+    private final EquipmentStatus equipmentStatus;
+    private final int queueLength;
+    private final List<ResourceKind> waitingFor;
+
+    public DispatchStatus(Long equipmentId, String equipmentName, String type, EquipmentStatus equipmentStatus,
+                          int queueLength, List<ResourceKind> waitingFor) {
+        this.equipmentId = equipmentId;
+        this.equipmentName = equipmentName;
+        this.type = type;
+        this.equipmentStatus = equipmentStatus;
+        this.queueLength = queueLength;
+        this.waitingFor = waitingFor;
+    }
+
+    public Long getEquipmentId() {
+        return equipmentId;
+    }
+
+    public String getEquipmentName() {
+        return equipmentName;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public EquipmentStatus getEquipmentStatus() {
+        return equipmentStatus;
+    }
+
+    public int getQueueLength() {
+        return queueLength;
+    }
+
+    public List<ResourceKind> getWaitingFor() {
+        return waitingFor;
+    }
+
+    public boolean isReadyToCall() {
+        return equipmentStatus == EquipmentStatus.AVAILABLE && queueLength > 0 && waitingFor.isEmpty();
+    }
+}
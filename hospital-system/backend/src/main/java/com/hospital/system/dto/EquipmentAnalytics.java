@@ -0,0 +1,43 @@
+package com.hospital.system.dto;
+
+import com.hospital.system.model.EquipmentStatus;
+import java.util.Map;
+
+/**
+ * Analytics for one piece of equipment, keyed by window name ("1h", "24h", "7d").
+ */
+public class EquipmentAnalytics {
+    private final Long equipmentId;
+    private final String name;
+    private final String type;
+    private final EquipmentStatus status;
+    private final Map<String, WindowStats> windows;
+
+    public EquipmentAnalytics(Long equipmentId, String name, String type, EquipmentStatus status, Map<String, WindowStats> windows) {
+        this.equipmentId = equipmentId;
+        this.name = name;
+        this.type = type;
+        this.status = status;
+        this.windows = windows;
+    }
+
+    public Long getEquipmentId() {
+        return equipmentId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public EquipmentStatus getStatus() {
+        return status;
+    }
+
+    public Map<String, WindowStats> getWindows() {
+        return windows;
+    }
+}
@@ -0,0 +1,17 @@
+package com.hospital.system.dto;
+
+/**
+ * Machine-readable reason a request was refused, sent as "code" next to the human "error" text so
+ * clients can react without matching on the message.
+ */
+public enum ErrorCode {
+    INVALID_REQUEST,
+    EQUIPMENT_REQUIRED,
+    EQUIPMENT_NOT_FOUND,
+    EQUIPMENT_UNDER_MAINTENANCE,
+    SLOT_IN_PAST,
+    SLOT_IN_MAINTENANCE,
+    SLOT_HELD,
+    HOLD_NOT_FOUND,
+    HOLD_IN_USE
+}
@@ -0,0 +1,48 @@
+package com.hospital.system.dto;
+
+import com.hospital.system.model.Priority;
+import java.time.LocalDateTime;
+
+/** One active booking found by GET /api/bookings/search, best match first. */
+public class PatientMatch {
+    private final Long bookingId;
+    private final String patientName;
+    private final Long equipmentId;
+    private final String status;
+    private final Priority priority;
+    private final LocalDateTime bookingTime;
+
+    public PatientMatch(Long bookingId, String patientName, Long equipmentId, String status, Priority priority,
+                        LocalDateTime bookingTime) {
+        this.bookingId = bookingId;
+        this.patientName = patientName;
+        this.equipmentId = equipmentId;
+        this.status = status;
+        this.priority = priority;
+        this.bookingTime = bookingTime;
+    }
+
+    public Long getBookingId() {
+        return bookingId;
+    }
+
+    public String getPatientName() {
+        return patientName;
+    }
+
+    public Long getEquipmentId() {
+        return equipmentId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public Priority getPriority() {
+        return priority;
+    }
+
+    public LocalDateTime getBookingTime() {
+        return bookingTime;
+    }
+}
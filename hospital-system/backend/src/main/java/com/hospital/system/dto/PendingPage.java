@@ -0,0 +1,26 @@
+package com.hospital.system.dto;
+
+import com.hospital.system.model.Booking;
+import java.util.List;
+
+/**
+ * One page of the pending triage inbox.
+ * nextCursor is null when there are no more pending requests matching the filters.
+ */
+public class PendingPage {
+    private final List<Booking> items;
+    private final String nextCursor;
+
+    public PendingPage(List<Booking> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Booking> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
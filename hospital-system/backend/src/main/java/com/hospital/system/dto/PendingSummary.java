@@ -0,0 +1,25 @@
+package com.hospital.system.dto;
+
+import com.hospital.system.model.Priority;
+import java.util.Map;
+
+/**
+ * Count of pending triage requests per requested priority, plus the overall total.
+ */
+public class PendingSummary {
+    private final Map<Priority, Long> byPriority;
+    private final long total;
+
+    public PendingSummary(Map<Priority, Long> byPriority) {
+        this.byPriority = byPriority;
+        this.total = byPriority.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    public Map<Priority, Long> getByPriority() {
+        return byPriority;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+}
@@ -0,0 +1,75 @@
+package com.hospital.system.dto;
+
+/**
+ * Either a value or the reason it could not be produced. Validation on hot paths returns one of these
+ * instead of throwing, so a refused request costs no stack trace.
+ */
+public final class Result<T> {
+    private final T value;
+    private final ErrorCode code;
+    private final String message;
+
+    private Result(T value, ErrorCode code, String message) {
+        this.value = value;
+        this.code = code;
+        this.message = message;
+    }
+
+    public static <T> Result<T> ok(T value) {
+        return new Result<>(value, null, null);
+    }
+
+    public static <T> Result<T> rejected(ErrorCode code, String message) {
+        return new Result<>(null, code, message);
+    }
+
+    public boolean isOk() {
+        return code == null;
+    }
+
+    public T getValue() {
+        return value;
+    }
+
+    public ErrorCode getCode() {
+        return code;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /** Same rejection with another value type, for passing it up a pipeline. */
+    @SuppressWarnings("unchecked")
+    public <U> Result<U> cast() {
+        if (isOk()) {
+            throw new IllegalStateException("Only a rejection can change type");
+        }
+        return (Result<U>) this;
+    }
+
+    /** The value, or a Rejected exception for callers that still expect throws. */
+    public T orThrow() {
+        if (!isOk()) {
+            throw new Rejected(code, message);
+        }
+        return value;
+    }
+
+    /**
+     * A rejection as an exception. Has no stack trace: it reports bad input, not a bug, and the
+     * message and code say everything.
+     */
+    public static class Rejected extends RuntimeException {
+        private final ErrorCode code;
+
+        public Rejected(ErrorCode code, String message) {
+            super(message, null, false, false);
+            this.code = code;
+        }
+
+        public ErrorCode getCode() {
+            return code;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.hospital.system.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * A slot kept aside for one patient while they finish the booking form: the machine from slotTime
+ * to slotEnd (one procedure), until expiresAt. Send its id as holdId with POST /api/bookings to
+ * turn it into a booking; after expiresAt the slot is free for anyone again.
+ */
+public class SlotHold {
+    private final String id;
+    private final String tenantId;
+    private final Long equipmentId;
+    private final LocalDateTime slotTime;
+    private final LocalDateTime slotEnd;
+    private final LocalDateTime expiresAt;
+
+    public SlotHold(String id, String tenantId, Long equipmentId, LocalDateTime slotTime, LocalDateTime slotEnd,
+                    LocalDateTime expiresAt) {
+        this.id = id;
+        this.tenantId = tenantId;
+        this.equipmentId = equipmentId;
+        this.slotTime = slotTime;
+        this.slotEnd = slotEnd;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public Long getEquipmentId() {
+        return equipmentId;
+    }
+
+    public LocalDateTime getSlotTime() {
+        return slotTime;
+    }
+
+    public LocalDateTime getSlotEnd() {
+        return slotEnd;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public boolean isExpired(LocalDateTime now) {
+        return !expiresAt.isAfter(now);
+    }
+}
@@ -0,0 +1,36 @@
+package com.hospital.system.dto;
+
+/**
+ * Wait time (request to call-in) statistics for one priority, in seconds. For a window of the
+ * equipment analytics, percentiles come from a log-scale histogram and are accurate to roughly +/-12%;
+ * what-if projections compute them exactly.
+ */
+public class WaitStats {
+    private final long count;
+    private final double meanSeconds;
+    private final double p50Seconds;
+    private final double p95Seconds;
+
+    public WaitStats(long count, double meanSeconds, double p50Seconds, double p95Seconds) {
+        this.count = count;
+        this.meanSeconds = meanSeconds;
+        this.p50Seconds = p50Seconds;
+        this.p95Seconds = p95Seconds;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMeanSeconds() {
+        return meanSeconds;
+    }
+
+    public double getP50Seconds() {
+        return p50Seconds;
+    }
+
+    public double getP95Seconds() {
+        return p95Seconds;
+    }
+}
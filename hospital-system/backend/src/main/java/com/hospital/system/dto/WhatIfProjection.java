@@ -0,0 +1,41 @@
+package com.hospital.system.dto;
+
+import com.hospital.system.model.Priority;
+
+import java.util.Map;
+
+/**
+ * Projected outcome of one simulated run: machines per equipment type, and per priority the waits
+ * (from now, or from arrival for extra patients, until the procedure starts) of everyone who gets
+ * a machine. unserved counts patients whose equipment type has no machine left to serve them.
+ */
+public class WhatIfProjection {
+    private final Map<String, Integer> machines;
+    private final Map<Priority, WaitStats> waits;
+    private final Map<Priority, Long> unserved;
+    private final long lastProcedureEndsInMinutes;
+
+    public WhatIfProjection(Map<String, Integer> machines, Map<Priority, WaitStats> waits, Map<Priority, Long> unserved,
+                            long lastProcedureEndsInMinutes) {
+        this.machines = machines;
+        this.waits = waits;
+        this.unserved = unserved;
+        this.lastProcedureEndsInMinutes = lastProcedureEndsInMinutes;
+    }
+
+    public Map<String, Integer> getMachines() {
+        return machines;
+    }
+
+    public Map<Priority, WaitStats> getWaits() {
+        return waits;
+    }
+
+    public Map<Priority, Long> getUnserved() {
+        return unserved;
+    }
+
+    public long getLastProcedureEndsInMinutes() {
+        return lastProcedureEndsInMinutes;
+    }
+}
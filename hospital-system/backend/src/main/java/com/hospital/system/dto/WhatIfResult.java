@@ -0,0 +1,44 @@
+package com.hospital.system.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Response of POST /api/planning/what-if: the live queues projected as they are (baseline) and with
+ * the scenario applied, both from the same snapshot so the difference is the scenario alone.
+ */
+public class WhatIfResult {
+    private final LocalDateTime snapshotAt;
+    private final int queuedPatients;
+    private final WhatIfProjection baseline;
+    private final WhatIfProjection scenario;
+    private final long elapsedMillis;
+
+    public WhatIfResult(LocalDateTime snapshotAt, int queuedPatients, WhatIfProjection baseline,
+                        WhatIfProjection scenario, long elapsedMillis) {
+        this.snapshotAt = snapshotAt;
+        this.queuedPatients = queuedPatients;
+        this.baseline = baseline;
+        this.scenario = scenario;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public LocalDateTime getSnapshotAt() {
+        return snapshotAt;
+    }
+
+    public int getQueuedPatients() {
+        return queuedPatients;
+    }
+
+    public WhatIfProjection getBaseline() {
+        return baseline;
+    }
+
+    public WhatIfProjection getScenario() {
+        return scenario;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+}
@@ -0,0 +1,105 @@
+package com.hospital.system.dto;
+
+import com.hospital.system.model.Priority;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hypothetical changes for POST /api/planning/what-if, applied to a snapshot of the live queues.
+ * Every field is optional; an empty scenario projects the queues as they are.
+ *
+ * addMachines: equipment type to number of extra machines, e.g. {"CT": 1}
+ * removeMachines: ids of existing machines to take out
+ * bufferTimes: equipment type to procedure minutes, e.g. {"CT": 20}
+ * extraArrivals: additional confirmed patients arriving evenly over horizonMinutes
+ */
+public class WhatIfScenario {
+    private Map<String, Integer> addMachines = new HashMap<>();
+    private List<Long> removeMachines = new ArrayList<>();
+    private Map<String, Integer> bufferTimes = new HashMap<>();
+    private List<Arrivals> extraArrivals = new ArrayList<>();
+    private Integer horizonMinutes;
+
+    /** perHour patients of one priority for one equipment type. */
+    public static class Arrivals {
+        private String type;
+        private Priority priority;
+        private double perHour;
+
+        public Arrivals() {
+        }
+
+        public Arrivals(String type, Priority priority, double perHour) {
+            this.type = type;
+            this.priority = priority;
+            this.perHour = perHour;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public void setType(String type) {
+            this.type = type;
+        }
+
+        public Priority getPriority() {
+            return priority;
+        }
+
+        public void setPriority(Priority priority) {
+            this.priority = priority;
+        }
+
+        public double getPerHour() {
+            return perHour;
+        }
+
+        public void setPerHour(double perHour) {
+            this.perHour = perHour;
+        }
+    }
+
+    public Map<String, Integer> getAddMachines() {
+        return addMachines;
+    }
+
+    public void setAddMachines(Map<String, Integer> addMachines) {
+        this.addMachines = addMachines == null ? new HashMap<>() : addMachines;
+    }
+
+    public List<Long> getRemoveMachines() {
+        return removeMachines;
+    }
+
+    public void setRemoveMachines(List<Long> removeMachines) {
+        this.removeMachines = removeMachines == null ? new ArrayList<>() : removeMachines;
+    }
+
+    public Map<String, Integer> getBufferTimes() {
+        return bufferTimes;
+    }
+
+    public void setBufferTimes(Map<String, Integer> bufferTimes) {
+        this.bufferTimes = bufferTimes == null ? new HashMap<>() : bufferTimes;
+    }
+
+    public List<Arrivals> getExtraArrivals() {
+        return extraArrivals;
+    }
+
+    public void setExtraArrivals(List<Arrivals> extraArrivals) {
+        this.extraArrivals = extraArrivals == null ? new ArrayList<>() : extraArrivals;
+    }
+
+    public Integer getHorizonMinutes() {
+        return horizonMinutes;
+    }
+
+    public void setHorizonMinutes(Integer horizonMinutes) {
+        this.horizonMinutes = horizonMinutes;
+    }
+}
@@ -0,0 +1,37 @@
+package com.hospital.system.dto;
+
+import com.hospital.system.model.Priority;
+import java.util.Map;
+
+/**
+ * Utilization and throughput of one machine over a sliding window (1h, 24h or 7d).
+ */
+public class WindowStats {
+    private final double utilization;
+    private final long procedures;
+    private final double proceduresPerHour;
+    private final Map<Priority, WaitStats> waitByPriority;
+
+    public WindowStats(double utilization, long procedures, double proceduresPerHour, Map<Priority, WaitStats> waitByPriority) {
+        this.utilization = utilization;
+        this.procedures = procedures;
+        this.proceduresPerHour = proceduresPerHour;
+        this.waitByPriority = waitByPriority;
+    }
+
+    public double getUtilization() {
+        return utilization;
+    }
+
+    public long getProcedures() {
+        return procedures;
+    }
+
+    public double getProceduresPerHour() {
+        return proceduresPerHour;
+    }
+
+    public Map<Priority, WaitStats> getWaitByPriority() {
+        return waitByPriority;
+    }
+}
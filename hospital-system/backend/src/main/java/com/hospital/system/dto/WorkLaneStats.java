@@ -0,0 +1,110 @@
+package com.hospital.system.dto;
+
+/**
+ * One machine's background work lane on GET /api/admin/lanes. A lane that is saturated, or whose
+ * maxWaitMillis keeps growing, is turning work away or falling behind, and one with retrying above zero
+ * has scheduled work that keeps failing; other lanes are unaffected.
+ * Counts are since startup.
+ */
+public class WorkLaneStats {
+    private final Long equipmentId;
+    private final int queued;
+    private final int queueCapacity;
+    private final boolean running;
+    private final int maxQueued;
+    private final long submitted;
+    private final long completed;
+    private final long failed;
+    private final long timedOut;
+    private final long rejected;
+    private final int retrying;
+    private final long retries;
+    private final long maxWaitMillis;
+    private final long maxRunMillis;
+
+    public WorkLaneStats(Long equipmentId, int queued, int queueCapacity, boolean running, int maxQueued,
+                         long submitted, long completed, long failed, long timedOut, long rejected,
+                         int retrying, long retries, long maxWaitMillis, long maxRunMillis) {
+        this.equipmentId = equipmentId;
+        this.queued = queued;
+        this.queueCapacity = queueCapacity;
+        this.running = running;
+        this.maxQueued = maxQueued;
+        this.submitted = submitted;
+        this.completed = completed;
+        this.failed = failed;
+        this.timedOut = timedOut;
+        this.rejected = rejected;
+        this.retrying = retrying;
+        this.retries = retries;
+        this.maxWaitMillis = maxWaitMillis;
+        this.maxRunMillis = maxRunMillis;
+    }
+
+    public Long getEquipmentId() {
+        return equipmentId;
+    }
+
+    /** Tasks waiting for their turn, not counting the one running. */
+    public int getQueued() {
+        return queued;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    public long getSubmitted() {
+        return submitted;
+    }
+
+    public long getCompleted() {
+        return completed;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    /** Tasks that ran longer than the task timeout, whether or not they then failed. */
+    public long getTimedOut() {
+        return timedOut;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Scheduled tasks (auto-reverts) waiting to be tried again after failing or finding the lane full.
+     * Above zero for long means the machine is stuck until whatever makes them fail is fixed.
+     */
+    public int getRetrying() {
+        return retrying;
+    }
+
+    public long getRetries() {
+        return retries;
+    }
+
+    /** Longest time a task waited between being due and starting. */
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    public long getMaxRunMillis() {
+        return maxRunMillis;
+    }
+
+    public boolean isSaturated() {
+        return queued >= queueCapacity;
+    }
+}
@@ -0,0 +1,70 @@
+package com.hospital.system.event;
+
+import com.hospital.system.model.Priority;
+import java.time.LocalDateTime;
+
+/**
+ * Published by QueueService for every booking status change (fromStatus is null for a new booking).
+ * Listeners run synchronously on the caller's thread, so they must stay cheap.
+ * patientName and bookingTime may be null when the transition was applied set-based (bulk confirm).
+ */
+public class BookingTransitionEvent {
+    private final String tenantId;
+    private final Long bookingId;
+    private final Long equipmentId;
+    private final String patientName;
+    private final Priority priority;
+    private final String fromStatus;
+    private final String toStatus;
+    private final LocalDateTime bookingTime;
+    private final LocalDateTime at;
+
+    public BookingTransitionEvent(String tenantId, Long bookingId, Long equipmentId, String patientName, Priority priority,
+                                  String fromStatus, String toStatus, LocalDateTime bookingTime, LocalDateTime at) {
+        this.tenantId = tenantId;
+        this.bookingId = bookingId;
+        this.equipmentId = equipmentId;
+        this.patientName = patientName;
+        this.priority = priority;
+        this.fromStatus = fromStatus;
+        this.toStatus = toStatus;
+        this.bookingTime = bookingTime;
+        this.at = at;
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public Long getBookingId() {
+        return bookingId;
+    }
+
+    public Long getEquipmentId() {
+        return equipmentId;
+    }
+
+    public String getPatientName() {
+        return patientName;
+    }
+
+    public Priority getPriority() {
+        return priority;
+    }
+
+    public String getFromStatus() {
+        return fromStatus;
+    }
+
+    public String getToStatus() {
+        return toStatus;
+    }
+
+    public LocalDateTime getBookingTime() {
+        return bookingTime;
+    }
+
+    public LocalDateTime getAt() {
+        return at;
+    }
+}
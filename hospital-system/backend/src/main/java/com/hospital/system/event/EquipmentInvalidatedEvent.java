@@ -0,0 +1,30 @@
+package com.hospital.system.event;
+
+/**
+ * Published by InvalidationBus when another backend node changed a piece of equipment or its queue.
+ * Anything this node keeps in memory about the machine should be dropped or re-read from the database;
+ * the database already holds the change.
+ */
+public class EquipmentInvalidatedEvent {
+    private final String tenantId;
+    private final Long equipmentId;
+    private final long version;
+
+    public EquipmentInvalidatedEvent(String tenantId, Long equipmentId, long version) {
+        this.tenantId = tenantId;
+        this.equipmentId = equipmentId;
+        this.version = version;
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public Long getEquipmentId() {
+        return equipmentId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,37 @@
+package com.hospital.system.event;
+
+import com.hospital.system.model.EquipmentStatus;
+import java.time.LocalDateTime;
+
+/**
+ * Published by QueueService whenever it changes the status of a piece of equipment.
+ */
+public class EquipmentStatusEvent {
+    private final String tenantId;
+    private final Long equipmentId;
+    private final EquipmentStatus status;
+    private final LocalDateTime at;
+
+    public EquipmentStatusEvent(String tenantId, Long equipmentId, EquipmentStatus status, LocalDateTime at) {
+        this.tenantId = tenantId;
+        this.equipmentId = equipmentId;
+        this.status = status;
+        this.at = at;
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public Long getEquipmentId() {
+        return equipmentId;
+    }
+
+    public EquipmentStatus getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getAt() {
+        return at;
+    }
+}
@@ -0,0 +1,17 @@
+package com.hospital.system.event;
+
+/**
+ * Published by QueueService after the live queue or status of a piece of equipment changed.
+ * Bulk operations publish one event per affected equipment, not one per booking.
+ */
+public class QueueChangedEvent {
+    private final Long equipmentId;
+
+    public QueueChangedEvent(Long equipmentId) {
+        this.equipmentId = equipmentId;
+    }
+
+    public Long getEquipmentId() {
+        return equipmentId;
+    }
+}
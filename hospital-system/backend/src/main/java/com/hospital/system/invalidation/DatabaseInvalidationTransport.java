@@ -0,0 +1,167 @@
+package com.hospital.system.invalidation;
+
+import com.hospital.system.model.InvalidationRecord;
+import com.hospital.system.repository.InvalidationRecordRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Sends invalidations through the shared database: publish inserts into invalidation_log inside the
+ * mutating transaction, and every node polls the table by primary key.
+ *
+ * Needs nothing but the database the nodes already share, and a message commits or rolls back with
+ * the change it announces. The price is up to poll-interval-ms of staleness.
+ *
+ * Ids are handed out at insert but become visible at commit, so a lower id can appear after a higher
+ * one was read. Every id a poll skips over is remembered as a gap and looked up again on each
+ * following poll, until it shows up or gap-timeout-ms has passed (a rolled-back insert, or an id the
+ * database never used, never shows up). A message is therefore missed only if its transaction
+ * commits more than gap-timeout-ms after a later id was read, so keep that above the longest
+ * transaction, or if more than MAX_GAPS ids are outstanding at once, which is logged.
+ */
+@Component
+@ConditionalOnProperty(name = "hospital.invalidation.transport", havingValue = "database")
+public class DatabaseInvalidationTransport implements InvalidationTransport {
+
+    @Autowired
+    private InvalidationRecordRepository repository;
+
+    @Value("${hospital.invalidation.db.poll-interval-ms:500}")
+    private long pollIntervalMillis;
+
+    @Value("${hospital.invalidation.db.batch-size:500}")
+    private int batchSize;
+
+    @Value("${hospital.invalidation.db.gap-timeout-ms:60000}")
+    private long gapTimeoutMillis;
+
+    @Value("${hospital.invalidation.db.retention-seconds:300}")
+    private long retentionSeconds;
+
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "invalidation-poller");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static final int MAX_GAPS = 10_000;
+
+    private volatile long cursor;
+    private long lastPrune;
+    // Skipped id -> when it was first missed, oldest first; only touched by the poller thread
+    private final Map<Long, Long> gaps = new LinkedHashMap<>();
+
+    @Override
+    public boolean isTransactional() {
+        return true;
+    }
+
+    @Override
+    public void publish(List<InvalidationMessage> messages) {
+        LocalDateTime now = LocalDateTime.now();
+        List<InvalidationRecord> records = new ArrayList<>(messages.size());
+        for (InvalidationMessage message : messages) {
+            records.add(new InvalidationRecord(message.getNodeId(), message.getTenantId(),
+                    message.getEquipmentId(), message.getVersion(), now));
+        }
+        repository.saveAll(records);
+    }
+
+    @Override
+    public void start(Consumer<InvalidationMessage> receiver) {
+        // Only what happens from now on; caches were loaded from the database at startup anyway
+        cursor = repository.findMaxId();
+        poller.scheduleWithFixedDelay(() -> poll(receiver), pollIntervalMillis, pollIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /** Reads and delivers one round of messages. Returns how many were read. */
+    int poll(Consumer<InvalidationMessage> receiver) {
+        try {
+            long now = System.currentTimeMillis();
+            int read = recheckGaps(receiver, now);
+            List<InvalidationRecord> batch;
+            long from = cursor;
+            do {
+                batch = repository.findAfter(from, PageRequest.of(0, batchSize));
+                for (InvalidationRecord record : batch) {
+                    for (long skipped = from + 1; skipped < record.getId(); skipped++) {
+                        addGap(skipped, now);
+                    }
+                    deliver(receiver, record);
+                    from = record.getId();
+                    cursor = from;
+                }
+                read += batch.size();
+            } while (batch.size() == batchSize);
+            prune();
+            return read;
+        } catch (RuntimeException e) {
+            // Database hiccup: the cursor only moved past what was delivered, so nothing is skipped
+            System.out.println("[INVALIDATION] Poll failed: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    // Delivers gaps that have committed since, and forgets the ones too old to still be in flight
+    private int recheckGaps(Consumer<InvalidationMessage> receiver, long now) {
+        gaps.values().removeIf(firstMissed -> now - firstMissed > gapTimeoutMillis);
+        if (gaps.isEmpty()) {
+            return 0;
+        }
+        int found = 0;
+        List<Long> ids = new ArrayList<>(gaps.keySet());
+        for (int i = 0; i < ids.size(); i += batchSize) {
+            for (InvalidationRecord record : repository.findAllById(ids.subList(i, Math.min(ids.size(), i + batchSize)))) {
+                gaps.remove(record.getId());
+                deliver(receiver, record);
+                found++;
+            }
+        }
+        return found;
+    }
+
+    private void addGap(long id, long now) {
+        if (gaps.size() >= MAX_GAPS) {
+            Long oldest = gaps.keySet().iterator().next();
+            gaps.remove(oldest);
+            System.out.println("[INVALIDATION] More than " + MAX_GAPS + " ids outstanding, no longer waiting for #" + oldest);
+        }
+        gaps.putIfAbsent(id, now);
+    }
+
+    private static void deliver(Consumer<InvalidationMessage> receiver, InvalidationRecord record) {
+        receiver.accept(new InvalidationMessage(record.getNodeId(), record.getTenantId(),
+                record.getEquipmentId(), record.getVersion()));
+    }
+
+    /** Ids skipped by earlier polls that are still being waited for (for tests and diagnostics). */
+    int getOutstandingGaps() {
+        return gaps.size();
+    }
+
+    private void prune() {
+        long now = System.currentTimeMillis();
+        if (now - lastPrune >= TimeUnit.SECONDS.toMillis(retentionSeconds) / 2) {
+            lastPrune = now;
+            repository.deleteOlderThan(LocalDateTime.now().minusSeconds(retentionSeconds));
+        }
+    }
+
+    @Override
+    public void stop() {
+        poller.shutdownNow();
+    }
+}
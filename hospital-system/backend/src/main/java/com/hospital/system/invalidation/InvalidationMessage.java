@@ -0,0 +1,39 @@
+package com.hospital.system.invalidation;
+
+/**
+ * "Equipment X of tenant T changed at version V", as sent between backend nodes.
+ *
+ * Versions come from each node's hybrid logical clock (see InvalidationBus) and only ever grow per
+ * node, so (nodeId, version) identifies a message and a receiver can tell a repeat or an overtaken
+ * message from the same node. Versions of different nodes say nothing about which change committed
+ * last, so they are never compared with each other.
+ */
+public class InvalidationMessage {
+    private final String nodeId;
+    private final String tenantId;
+    private final Long equipmentId;
+    private final long version;
+
+    public InvalidationMessage(String nodeId, String tenantId, Long equipmentId, long version) {
+        this.nodeId = nodeId;
+        this.tenantId = tenantId;
+        this.equipmentId = equipmentId;
+        this.version = version;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public Long getEquipmentId() {
+        return equipmentId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,27 @@
+package com.hospital.system.invalidation;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Carries invalidation messages between backend nodes.
+ * Exactly one transport is active, chosen with hospital.invalidation.transport (none, database or udp).
+ *
+ * Delivery may repeat, reorder or (for udp) lose messages; InvalidationBus drops anything that is
+ * not newer than what it already applied, so receivers only have to hand over what arrives.
+ */
+public interface InvalidationTransport {
+
+    /**
+     * True when publish joins the caller's transaction, so a message exists exactly when the change
+     * committed. Otherwise publish is called after the commit.
+     */
+    boolean isTransactional();
+
+    void publish(List<InvalidationMessage> messages);
+
+    /** Starts handing messages from other nodes (and possibly this one) to the receiver. */
+    void start(Consumer<InvalidationMessage> receiver);
+
+    void stop();
+}
@@ -0,0 +1,32 @@
+package com.hospital.system.invalidation;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Single-node default: there is nobody to tell, so nothing is sent and nothing arrives.
+ */
+@Component
+@ConditionalOnProperty(name = "hospital.invalidation.transport", havingValue = "none", matchIfMissing = true)
+public class NoopInvalidationTransport implements InvalidationTransport {
+
+    @Override
+    public boolean isTransactional() {
+        return false;
+    }
+
+    @Override
+    public void publish(List<InvalidationMessage> messages) {
+    }
+
+    @Override
+    public void start(Consumer<InvalidationMessage> receiver) {
+    }
+
+    @Override
+    public void stop() {
+    }
+}
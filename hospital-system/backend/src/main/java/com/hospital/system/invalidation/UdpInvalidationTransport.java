@@ -0,0 +1,161 @@
+package com.hospital.system.invalidation;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Sends invalidations as UDP datagrams straight to the other nodes (hospital.invalidation.udp.peers),
+ * after the change has committed. Nothing is stored, so a message arrives within a network hop, but a
+ * lost datagram leaves that machine's cached state stale on the receiving node until its next change.
+ * Use the database transport where that is not acceptable.
+ *
+ * Binds to 127.0.0.1 unless told otherwise, so several nodes can run side by side on one host with
+ * different ports. Each datagram holds up to MESSAGES_PER_DATAGRAM messages in a small binary format:
+ * magic, format version, count, then per message node id, tenant id, equipment id and version.
+ */
+@Component
+@ConditionalOnProperty(name = "hospital.invalidation.transport", havingValue = "udp")
+public class UdpInvalidationTransport implements InvalidationTransport {
+
+    static final int MAGIC = 0x45564956; // "EVIV"
+    static final byte FORMAT = 1;
+    // Keeps a datagram under a typical 1500-byte MTU even with 36-character node ids
+    static final int MESSAGES_PER_DATAGRAM = 16;
+
+    @Value("${hospital.invalidation.udp.bind-address:127.0.0.1}")
+    private String bindAddress;
+
+    @Value("${hospital.invalidation.udp.port:9701}")
+    private int port;
+
+    @Value("${hospital.invalidation.udp.peers:}")
+    private String peers;
+
+    private volatile DatagramSocket socket;
+    private final List<InetSocketAddress> peerAddresses = new ArrayList<>();
+    private Thread listener;
+    private volatile boolean running;
+
+    @Override
+    public boolean isTransactional() {
+        return false;
+    }
+
+    @Override
+    public void publish(List<InvalidationMessage> messages) {
+        DatagramSocket current = socket;
+        if (current == null) {
+            return;
+        }
+        for (int from = 0; from < messages.size(); from += MESSAGES_PER_DATAGRAM) {
+            byte[] datagram = encode(messages.subList(from, Math.min(messages.size(), from + MESSAGES_PER_DATAGRAM)));
+            for (InetSocketAddress peer : peerAddresses) {
+                try {
+                    current.send(new DatagramPacket(datagram, datagram.length, peer));
+                } catch (IOException e) {
+                    // Best effort by design; the peer catches up on the machine's next change
+                    System.out.println("[INVALIDATION] Could not send to " + peer + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void start(Consumer<InvalidationMessage> receiver) {
+        try {
+            socket = new DatagramSocket(new InetSocketAddress(bindAddress, port));
+        } catch (SocketException e) {
+            throw new UncheckedIOException("Cannot bind invalidation socket to " + bindAddress + ":" + port, e);
+        }
+        for (String peer : peers.split(",")) {
+            if (!peer.isBlank()) {
+                String[] hostPort = peer.trim().split(":");
+                peerAddresses.add(new InetSocketAddress(hostPort[0], Integer.parseInt(hostPort[1])));
+            }
+        }
+        running = true;
+        listener = new Thread(() -> listen(receiver), "invalidation-udp");
+        listener.setDaemon(true);
+        listener.start();
+        System.out.println("[INVALIDATION] Listening on udp " + socket.getLocalSocketAddress() + ", peers " + peerAddresses);
+    }
+
+    private void listen(Consumer<InvalidationMessage> receiver) {
+        byte[] buffer = new byte[65_507];
+        while (running) {
+            DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+            try {
+                socket.receive(packet);
+            } catch (IOException e) {
+                if (running) {
+                    System.out.println("[INVALIDATION] Receive failed: " + e.getMessage());
+                }
+                continue;
+            }
+            try {
+                decode(packet.getData(), packet.getLength()).forEach(receiver);
+            } catch (IOException | RuntimeException e) {
+                System.out.println("[INVALIDATION] Dropped a bad datagram from " + packet.getSocketAddress() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /** The port actually bound, e.g. when configured as 0 (tests). */
+    public int getLocalPort() {
+        return socket.getLocalPort();
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (socket != null) {
+            socket.close();
+        }
+    }
+
+    static byte[] encode(List<InvalidationMessage> messages) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * messages.size() + 8);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeByte(FORMAT);
+            out.writeShort(messages.size());
+            for (InvalidationMessage message : messages) {
+                out.writeUTF(message.getNodeId());
+                out.writeUTF(message.getTenantId());
+                out.writeLong(message.getEquipmentId());
+                out.writeLong(message.getVersion());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // cannot happen for an in-memory stream
+        }
+        return bytes.toByteArray();
+    }
+
+    static List<InvalidationMessage> decode(byte[] data, int length) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, 0, length));
+        if (in.readInt() != MAGIC || in.readByte() != FORMAT) {
+            throw new IOException("not an invalidation datagram");
+        }
+        int count = in.readUnsignedShort();
+        List<InvalidationMessage> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            messages.add(new InvalidationMessage(in.readUTF(), in.readUTF(), in.readLong(), in.readLong()));
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,27 @@
+package com.hospital.system.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("evervault.AutoRevert")
+@Label("Auto Revert")
+@Category({"EverVault", "Queue"})
+@Description("The end-of-procedure timer fired for a called patient")
+@StackTrace(false)
+public class AutoRevertEvent extends jdk.jfr.Event {
+    @Label("Equipment Id")
+    public long equipmentId;
+
+    @Label("Booking Id")
+    public long bookingId;
+
+    @Label("Served")
+    @Description("False when the patient had already been served by hand")
+    public boolean served;
+
+    @Label("Machine Released")
+    public boolean machineReleased;
+}
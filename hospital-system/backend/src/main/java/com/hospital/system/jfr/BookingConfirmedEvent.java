@@ -0,0 +1,29 @@
+package com.hospital.system.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** One confirm call: a single booking, or a bulk confirm with its request and result counts. */
+@Name("evervault.BookingConfirmed")
+@Label("Booking Confirmed")
+@Category({"EverVault", "Queue"})
+@Description("Triage assigned a priority and moved bookings into the live queue")
+@StackTrace(false)
+public class BookingConfirmedEvent extends jdk.jfr.Event {
+    @Label("Booking Id")
+    @Description("0 for a bulk confirm")
+    public long bookingId;
+
+    @Label("Assigned Priority")
+    @Description("Empty for a bulk confirm")
+    public String priority;
+
+    @Label("Requested")
+    public int requested;
+
+    @Label("Confirmed")
+    public int confirmed;
+}
@@ -0,0 +1,23 @@
+package com.hospital.system.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("evervault.BookingCreated")
+@Label("Booking Created")
+@Category({"EverVault", "Queue"})
+@Description("A triage request was validated and stored")
+@StackTrace(false)
+public class BookingCreatedEvent extends jdk.jfr.Event {
+    @Label("Booking Id")
+    public long bookingId;
+
+    @Label("Equipment Id")
+    public long equipmentId;
+
+    @Label("Requested Priority")
+    public String requestedPriority;
+}
@@ -0,0 +1,26 @@
+package com.hospital.system.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("evervault.BookingServed")
+@Label("Booking Served")
+@Category({"EverVault", "Queue"})
+@Description("A booking was marked as served by hand")
+@StackTrace(false)
+public class BookingServedEvent extends jdk.jfr.Event {
+    @Label("Booking Id")
+    public long bookingId;
+
+    @Label("Equipment Id")
+    public long equipmentId;
+
+    @Label("From Status")
+    public String fromStatus;
+
+    @Label("Machine Released")
+    public boolean machineReleased;
+}
@@ -0,0 +1,35 @@
+package com.hospital.system.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("evervault.CallNext")
+@Label("Call Next Patient")
+@Category({"EverVault", "Queue"})
+@Description("callNext claimed a machine and the head of its queue")
+@StackTrace(false)
+public class CallNextEvent extends jdk.jfr.Event {
+    @Label("Equipment Id")
+    public long equipmentId;
+
+    @Label("Queue Depth")
+    @Description("Patients waiting when the call started")
+    public int queueDepth;
+
+    @Label("Chosen Priority")
+    public String chosenPriority;
+
+    @Label("Booking Id")
+    public long bookingId;
+
+    @Label("Attempts")
+    @Description("Guarded UPDATEs tried before a patient was claimed (more than 1 means contention)")
+    public int attempts;
+
+    @Label("Outcome")
+    @Description("CALLED, EMPTY, MAINTENANCE (machine under repair), BUSY, NO_RESOURCES (no free technician or room) or LOST_RACE")
+    public String outcome;
+}
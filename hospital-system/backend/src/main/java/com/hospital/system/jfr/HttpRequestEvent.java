@@ -0,0 +1,28 @@
+package com.hospital.system.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** A REST call from handler lookup until the response is written (JSON included). */
+@Name("evervault.HttpRequest")
+@Label("HTTP Request")
+@Category({"EverVault", "Web"})
+@StackTrace(false)
+public class HttpRequestEvent extends jdk.jfr.Event {
+    @Label("Method")
+    public String method;
+
+    @Label("Route")
+    @Description("Mapped pattern such as /api/queue/{equipmentId}, so calls group by endpoint")
+    public String route;
+
+    @Label("Status")
+    public int status;
+
+    @Label("Async")
+    @Description("Streaming response; the duration only covers opening the stream")
+    public boolean async;
+}
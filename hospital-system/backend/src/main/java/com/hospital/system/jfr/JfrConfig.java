@@ -0,0 +1,92 @@
+package com.hospital.system.jfr;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Wires the web-side Flight Recorder events: one HttpRequestEvent per REST call and one JsonWriteEvent
+ * per JSON body. Together with the QueueService events this splits a slow call into repository,
+ * sorting and serialization time. With no recording running, each event is a single enabled check.
+ */
+@Configuration
+public class JfrConfig implements WebMvcConfigurer {
+
+    private static final String EVENT_ATTRIBUTE = HttpRequestEvent.class.getName();
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new AsyncHandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                HttpRequestEvent event = new HttpRequestEvent();
+                if (event.isEnabled()) {
+                    event.begin();
+                    request.setAttribute(EVENT_ATTRIBUTE, event);
+                }
+                return true;
+            }
+
+            @Override
+            public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                commit(request, response, true);
+            }
+
+            @Override
+            public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+                commit(request, response, false);
+            }
+        }).addPathPatterns("/api/**");
+    }
+
+    private static void commit(HttpServletRequest request, HttpServletResponse response, boolean async) {
+        HttpRequestEvent event = (HttpRequestEvent) request.getAttribute(EVENT_ATTRIBUTE);
+        if (event == null) {
+            return;
+        }
+        request.removeAttribute(EVENT_ATTRIBUTE);
+        event.end();
+        if (event.shouldCommit()) {
+            Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            event.method = request.getMethod();
+            event.route = route != null ? route.toString() : request.getRequestURI();
+            event.status = response.getStatus();
+            event.async = async;
+            event.commit();
+        }
+    }
+
+    /** Replaces Boot's default JSON converter with one that times each write. */
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        return new MappingJackson2HttpMessageConverter(objectMapper) {
+            @Override
+            protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+                    throws IOException, HttpMessageNotWritableException {
+                JsonWriteEvent event = new JsonWriteEvent();
+                event.begin();
+                try {
+                    super.writeInternal(object, type, outputMessage);
+                } finally {
+                    event.end();
+                    if (event.shouldCommit()) {
+                        event.bodyType = object == null ? "null" : object.getClass().getSimpleName();
+                        event.commit();
+                    }
+                }
+            }
+        };
+    }
+}
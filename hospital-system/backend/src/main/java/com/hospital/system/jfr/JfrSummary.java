@@ -0,0 +1,88 @@
+package com.hospital.system.jfr;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Summarizes the EverVault events in a Flight Recorder file: count and duration percentiles per
+ * event, with HTTP requests split by route and queue reads by source.
+ *
+ * Usage: java -cp target/classes com.hospital.system.jfr.JfrSummary recording.jfr
+ */
+public class JfrSummary {
+
+    private static final String PREFIX = "evervault.";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: JfrSummary <recording.jfr>");
+            System.exit(2);
+        }
+        Map<String, Stats> summary = summarize(Path.of(args[0]));
+        if (summary.isEmpty()) {
+            System.out.println("No EverVault events in " + args[0]);
+            return;
+        }
+        System.out.printf("%-52s %8s %10s %10s %10s %10s%n", "event", "count", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        summary.forEach((key, stats) -> System.out.printf("%-52s %8d %10.2f %10.2f %10.2f %10.2f%n",
+                key, stats.getCount(), stats.percentileMillis(50), stats.percentileMillis(95),
+                stats.percentileMillis(99), stats.percentileMillis(100)));
+    }
+
+    /** Durations of every EverVault event in the file, grouped by {@link #key(RecordedEvent)}. */
+    public static Map<String, Stats> summarize(Path recording) throws IOException {
+        Map<String, List<Long>> durations = new TreeMap<>();
+        try (RecordingFile file = new RecordingFile(recording)) {
+            while (file.hasMoreEvents()) {
+                RecordedEvent event = file.readEvent();
+                if (event.getEventType().getName().startsWith(PREFIX)) {
+                    durations.computeIfAbsent(key(event), k -> new ArrayList<>()).add(event.getDuration().toNanos());
+                }
+            }
+        }
+        Map<String, Stats> summary = new TreeMap<>();
+        durations.forEach((key, nanos) -> summary.put(key, new Stats(nanos)));
+        return summary;
+    }
+
+    static String key(RecordedEvent event) {
+        String name = event.getEventType().getName().substring(PREFIX.length());
+        switch (name) {
+            case "HttpRequest":
+                return name + " " + event.getString("method") + " " + event.getString("route");
+            case "QueueRead":
+                return name + " " + event.getString("source");
+            case "CallNext":
+                return name + " " + event.getString("outcome");
+            default:
+                return name;
+        }
+    }
+
+    public static class Stats {
+        private final long[] sortedNanos;
+
+        Stats(List<Long> nanos) {
+            sortedNanos = nanos.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(sortedNanos);
+        }
+
+        public int getCount() {
+            return sortedNanos.length;
+        }
+
+        /** Nearest-rank percentile; 100 is the maximum. */
+        public double percentileMillis(double percentile) {
+            int rank = (int) Math.ceil(percentile / 100.0 * sortedNanos.length);
+            return sortedNanos[Math.max(0, rank - 1)] / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.hospital.system.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Serializing one response body to JSON and writing it to the client. */
+@Name("evervault.JsonWrite")
+@Label("JSON Write")
+@Category({"EverVault", "Web"})
+@StackTrace(false)
+public class JsonWriteEvent extends jdk.jfr.Event {
+    @Label("Body Type")
+    public String bodyType;
+}
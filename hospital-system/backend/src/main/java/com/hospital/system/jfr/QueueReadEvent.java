@@ -0,0 +1,32 @@
+package com.hospital.system.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * One read of a machine's live queue. The event duration is the whole read; sortTime is the part
+ * spent ordering rows in Java, so the rest is the repository call.
+ */
+@Name("evervault.QueueRead")
+@Label("Queue Read")
+@Category({"EverVault", "Queue"})
+@StackTrace(false)
+public class QueueReadEvent extends jdk.jfr.Event {
+    @Label("Equipment Id")
+    public long equipmentId;
+
+    @Label("Source")
+    @Description("queue_view (read model) or booking (sorted in Java)")
+    public String source;
+
+    @Label("Rows")
+    public int rows;
+
+    @Label("Sort Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long sortTime;
+}
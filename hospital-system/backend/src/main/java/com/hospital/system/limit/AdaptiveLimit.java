@@ -0,0 +1,129 @@
+package com.hospital.system.limit;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An AIMD concurrency limit for one class of endpoints. Every finished request is a latency sample:
+ * one within the target latency while the limit is at least half used adds 1/limit (about +1 per
+ * limit's worth of requests); a slow or failed one multiplies the limit by the backoff ratio. Many
+ * requests finish slow together when the database stalls, so the limit is cut at most once per target
+ * latency rather than once per request. The limit stays between min and max.
+ */
+public class AdaptiveLimit {
+
+    private final EndpointClass endpointClass;
+    private final int min;
+    private final int max;
+    private final long targetNanos;
+    private final double backoffRatio;
+
+    // All guarded by this
+    private double limit;
+    private int inFlight;
+    private long accepted;
+    private long rejected;
+    private long waited;
+    private long decreases;
+    private long lastDecreaseNanos;
+    private double smoothedRttMillis;
+
+    public AdaptiveLimit(EndpointClass endpointClass, int initial, int min, int max, long targetLatencyMillis,
+                         double backoffRatio) {
+        this.endpointClass = endpointClass;
+        this.min = Math.max(1, min);
+        this.max = Math.max(this.min, max);
+        this.targetNanos = targetLatencyMillis * 1_000_000;
+        this.backoffRatio = backoffRatio;
+        this.limit = Math.max(this.min, Math.min(this.max, initial));
+        this.lastDecreaseNanos = System.nanoTime() - targetNanos;
+    }
+
+    /** Takes a slot if one is free right now. */
+    public synchronized boolean tryAcquire() {
+        if (inFlight < (int) limit) {
+            inFlight++;
+            accepted++;
+            return true;
+        }
+        rejected++;
+        return false;
+    }
+
+    /** Takes a slot, waiting up to maxWaitMillis for one to free up. */
+    public synchronized boolean acquire(long maxWaitMillis) throws InterruptedException {
+        if (inFlight >= (int) limit && maxWaitMillis > 0) {
+            waited++;
+            long deadline = System.nanoTime() + maxWaitMillis * 1_000_000;
+            long remaining;
+            while (inFlight >= (int) limit && (remaining = deadline - System.nanoTime()) > 0) {
+                wait(Math.max(1, remaining / 1_000_000));
+            }
+        }
+        return tryAcquire();
+    }
+
+    /** Gives a slot back without a sample, e.g. when a request went async. */
+    public synchronized void release() {
+        inFlight--;
+        notifyAll();
+    }
+
+    /**
+     * Gives a slot back and adjusts the limit by how long the request took. Returns true when the
+     * request counted as congested (slow or failed).
+     */
+    public boolean release(long rttNanos, boolean failed) {
+        return release(rttNanos, failed, System.nanoTime());
+    }
+
+    synchronized boolean release(long rttNanos, boolean failed, long nowNanos) {
+        double rttMillis = rttNanos / 1_000_000.0;
+        smoothedRttMillis = smoothedRttMillis == 0 ? rttMillis : smoothedRttMillis * 0.9 + rttMillis * 0.1;
+        boolean congested = failed || rttNanos > targetNanos;
+        if (congested) {
+            backOff(nowNanos);
+        } else if (inFlight * 2 >= limit) {
+            limit = Math.min(max, limit + 1 / limit);
+        }
+        release();
+        return congested;
+    }
+
+    /** Multiplicative decrease, at most once per target latency. Also used to shed this class for another's sake. */
+    public synchronized void backOff(long nowNanos) {
+        if (nowNanos - lastDecreaseNanos >= targetNanos && limit > min) {
+            limit = Math.max(min, limit * backoffRatio);
+            lastDecreaseNanos = nowNanos;
+            decreases++;
+        }
+    }
+
+    public EndpointClass getEndpointClass() {
+        return endpointClass;
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("endpointClass", endpointClass);
+        stats.put("limit", (int) limit);
+        stats.put("min", min);
+        stats.put("max", max);
+        stats.put("inFlight", inFlight);
+        stats.put("accepted", accepted);
+        stats.put("rejected", rejected);
+        stats.put("waited", waited);
+        stats.put("decreases", decreases);
+        stats.put("targetLatencyMillis", targetNanos / 1_000_000);
+        stats.put("smoothedLatencyMillis", Math.round(smoothedRttMillis * 10) / 10.0);
+        return stats;
+    }
+}
@@ -0,0 +1,16 @@
+package com.hospital.system.limit;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Puts a controller's endpoints behind the adaptive concurrency limits. Without a value, GET and HEAD
+ * count as READ and everything else as WRITE; a method can name its class explicitly instead.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ConcurrencyLimited {
+    EndpointClass[] value() default {};
+}
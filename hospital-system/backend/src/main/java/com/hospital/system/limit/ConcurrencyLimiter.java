@@ -0,0 +1,179 @@
+package com.hospital.system.limit;
+
+import com.hospital.system.tenant.TenantContext;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.MediaType;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Admits requests to @ConcurrencyLimited controllers only while their hospital's limit for the endpoint
+ * class (see AdaptiveLimit) and the shared connection budget (see ConnectionBudget) both have room,
+ * before the handler takes a database connection. Limits are kept per hospital, so one hospital's burst
+ * only uses up its own; the budget keeps all of them together within the connection pool. It runs after
+ * TenantInterceptor, which has already refused unknown hospitals, so there is one set per real hospital.
+ *
+ * When the database slows down, latency rises, the limits shrink and excess reads and writes get 503
+ * with Retry-After at once instead of piling up on the connection pool. Queue actions have their own
+ * limit with a reserved minimum and connections reserved for them; over either they wait up to
+ * queueActionMaxWaitMillis rather than fail the technician's click. A slow queue action also cuts every
+ * hospital's read and write limits, since they share the database, so lower-priority traffic gives way first.
+ */
+public class ConcurrencyLimiter implements AsyncHandlerInterceptor {
+
+    private static final String LIMIT_ATTRIBUTE = ConcurrencyLimiter.class.getName() + ".limit";
+    private static final String START_ATTRIBUTE = ConcurrencyLimiter.class.getName() + ".start";
+
+    private final Function<EndpointClass, AdaptiveLimit> newLimit;
+    private final ConnectionBudget connections;
+    private final long queueActionMaxWaitMillis;
+    private final Map<String, Map<EndpointClass, AdaptiveLimit>> limitsByTenant = new ConcurrentHashMap<>();
+
+    /**
+     * newLimit creates one hospital's limit for an endpoint class; connections is the size of the
+     * connection pool, of which reservedForQueueActions only queue actions may use.
+     */
+    public ConcurrencyLimiter(Function<EndpointClass, AdaptiveLimit> newLimit, int connections,
+                              int reservedForQueueActions, long queueActionMaxWaitMillis) {
+        this.newLimit = newLimit;
+        this.connections = new ConnectionBudget(connections, reservedForQueueActions);
+        this.queueActionMaxWaitMillis = queueActionMaxWaitMillis;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        EndpointClass endpointClass = classify(request, handler);
+        // The async dispatch that finishes a stream only writes out what the handler already produced
+        if (endpointClass == null || request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        AdaptiveLimit limit = getLimit(TenantContext.get(), endpointClass);
+        boolean admitted;
+        try {
+            admitted = admit(limit, endpointClass == EndpointClass.QUEUE_ACTION);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admitted = false;
+        }
+        if (!admitted) {
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader("Retry-After", "1");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"error\":\"Error: The server is busy, please retry.\"}");
+            return false;
+        }
+        request.setAttribute(LIMIT_ATTRIBUTE, limit);
+        request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        return true;
+    }
+
+    // Takes a slot under the hospital's limit, then a connection from the budget; gives the slot back if there is none
+    private boolean admit(AdaptiveLimit limit, boolean queueAction) throws InterruptedException {
+        if (!queueAction) {
+            if (!limit.tryAcquire()) {
+                return false;
+            }
+            if (connections.tryAcquire(false)) {
+                return true;
+            }
+            limit.release();
+            return false;
+        }
+        long deadline = System.nanoTime() + queueActionMaxWaitMillis * 1_000_000;
+        if (!limit.acquire(queueActionMaxWaitMillis)) {
+            return false;
+        }
+        if (connections.acquire(Math.max(0, (deadline - System.nanoTime()) / 1_000_000))) {
+            return true;
+        }
+        limit.release();
+        return false;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // Gone async: no longer holds a thread, and its duration says nothing about the database
+        AdaptiveLimit limit = (AdaptiveLimit) request.getAttribute(LIMIT_ATTRIBUTE);
+        if (limit != null) {
+            request.removeAttribute(LIMIT_ATTRIBUTE);
+            limit.release();
+            connections.release();
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        AdaptiveLimit limit = (AdaptiveLimit) request.getAttribute(LIMIT_ATTRIBUTE);
+        if (limit == null) {
+            return;
+        }
+        request.removeAttribute(LIMIT_ATTRIBUTE);
+        connections.release();
+        long now = System.nanoTime();
+        long rtt = now - (Long) request.getAttribute(START_ATTRIBUTE);
+        boolean failed = ex != null || response.getStatus() >= 500;
+        boolean congested = limit.release(rtt, failed);
+        if (congested && limit.getEndpointClass() == EndpointClass.QUEUE_ACTION) {
+            limitsByTenant.values().forEach(limits -> limits.forEach((endpointClass, other) -> {
+                if (endpointClass != EndpointClass.QUEUE_ACTION) {
+                    other.backOff(now);
+                }
+            }));
+        }
+    }
+
+    /** The hospital's limit for the endpoint class, created the first time it is needed. */
+    public AdaptiveLimit getLimit(String tenantId, EndpointClass endpointClass) {
+        return limitsByTenant.computeIfAbsent(tenantId, t -> {
+            Map<EndpointClass, AdaptiveLimit> limits = new EnumMap<>(EndpointClass.class);
+            for (EndpointClass c : EndpointClass.values()) {
+                limits.put(c, newLimit.apply(c));
+            }
+            return limits;
+        }).get(endpointClass);
+    }
+
+    /**
+     * For GET /api/admin/limits: the connection budget every hospital shares (totals only), and one
+     * hospital's current limit, requests in flight, rejections and latency per endpoint class.
+     */
+    public Map<String, Object> getStats(String tenantId) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("connections", connections.getStats());
+        Map<String, Object> byClass = new LinkedHashMap<>();
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            byClass.put(endpointClass.name(), getLimit(tenantId, endpointClass).getStats());
+        }
+        stats.put("limits", byClass);
+        return stats;
+    }
+
+    // null when the handler is not behind the limits
+    static EndpointClass classify(HttpServletRequest request, Object handler) {
+        if (!(handler instanceof HandlerMethod method)) {
+            return null;
+        }
+        ConcurrencyLimited limited = method.getMethodAnnotation(ConcurrencyLimited.class);
+        if (limited == null) {
+            limited = AnnotatedElementUtils.findMergedAnnotation(method.getBeanType(), ConcurrencyLimited.class);
+        }
+        if (limited == null) {
+            return null;
+        }
+        if (limited.value().length > 0) {
+            return limited.value()[0];
+        }
+        String httpMethod = request.getMethod();
+        return "GET".equals(httpMethod) || "HEAD".equals(httpMethod) ? EndpointClass.READ : EndpointClass.WRITE;
+    }
+}
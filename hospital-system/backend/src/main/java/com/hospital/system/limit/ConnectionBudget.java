@@ -0,0 +1,59 @@
+package com.hospital.system.limit;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The database connections that limited requests may hold at once, across every hospital and endpoint
+ * class: sized to the connection pool, so the adaptive limits can never admit more requests than there
+ * are connections to serve them. Reads and writes together may take all but the reserved connections,
+ * which only queue actions can use, so a flood of reads never leaves a technician's call waiting for one.
+ */
+class ConnectionBudget {
+
+    private final int size;
+    private final int reserved;
+
+    // All guarded by this
+    private int inUse;
+    private long rejected;
+
+    ConnectionBudget(int size, int reserved) {
+        this.size = Math.max(1, size);
+        this.reserved = Math.max(0, Math.min(this.size - 1, reserved));
+    }
+
+    /** Takes a connection if one is free right now; reads and writes cannot take the reserved ones. */
+    synchronized boolean tryAcquire(boolean queueAction) {
+        if (inUse < (queueAction ? size : size - reserved)) {
+            inUse++;
+            return true;
+        }
+        rejected++;
+        return false;
+    }
+
+    /** For queue actions: takes a connection, waiting up to maxWaitMillis for one to free up. */
+    synchronized boolean acquire(long maxWaitMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + maxWaitMillis * 1_000_000;
+        long remaining;
+        while (inUse >= size && (remaining = deadline - System.nanoTime()) > 0) {
+            wait(Math.max(1, remaining / 1_000_000));
+        }
+        return tryAcquire(true);
+    }
+
+    synchronized void release() {
+        inUse--;
+        notifyAll();
+    }
+
+    synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", size);
+        stats.put("reservedForQueueActions", reserved);
+        stats.put("inUse", inUse);
+        stats.put("rejected", rejected);
+        return stats;
+    }
+}
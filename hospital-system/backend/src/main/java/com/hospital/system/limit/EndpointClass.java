@@ -0,0 +1,12 @@
+package com.hospital.system.limit;
+
+/**
+ * Endpoints that share one adaptive concurrency limit. Queue actions are the technician's calls
+ * (call next, serve); they keep a reserved minimum and wait briefly for a slot instead of being
+ * turned away.
+ */
+public enum EndpointClass {
+    READ,
+    WRITE,
+    QUEUE_ACTION
+}
@@ -0,0 +1,93 @@
+package com.hospital.system.limit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class LimitConfig implements WebMvcConfigurer {
+
+    @Value("${hospital.limits.enabled:true}")
+    private boolean enabled;
+
+    @Value("${hospital.limits.backoff-ratio:0.9}")
+    private double backoffRatio;
+
+    // Every limited request may need a connection, so no limit is allowed to outgrow the pool
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int poolSize;
+
+    @Value("${hospital.limits.reads.initial:5}")
+    private int readsInitial;
+
+    @Value("${hospital.limits.reads.min:1}")
+    private int readsMin;
+
+    @Value("${hospital.limits.reads.max:10}")
+    private int readsMax;
+
+    @Value("${hospital.limits.reads.target-latency-ms:250}")
+    private long readsTargetMillis;
+
+    @Value("${hospital.limits.writes.initial:3}")
+    private int writesInitial;
+
+    @Value("${hospital.limits.writes.min:1}")
+    private int writesMin;
+
+    @Value("${hospital.limits.writes.max:10}")
+    private int writesMax;
+
+    @Value("${hospital.limits.writes.target-latency-ms:500}")
+    private long writesTargetMillis;
+
+    @Value("${hospital.limits.queue-actions.initial:2}")
+    private int queueActionsInitial;
+
+    @Value("${hospital.limits.queue-actions.min:1}")
+    private int queueActionsMin;
+
+    @Value("${hospital.limits.queue-actions.max:10}")
+    private int queueActionsMax;
+
+    @Value("${hospital.limits.queue-actions.reserved-connections:2}")
+    private int queueActionsReservedConnections;
+
+    @Value("${hospital.limits.queue-actions.target-latency-ms:500}")
+    private long queueActionsTargetMillis;
+
+    @Value("${hospital.limits.queue-actions.max-wait-ms:250}")
+    private long queueActionsMaxWaitMillis;
+
+    @Bean
+    public ConcurrencyLimiter concurrencyLimiter() {
+        int reads = capAtPool("reads.max", readsMax);
+        int writes = capAtPool("writes.max", writesMax);
+        int queueActions = capAtPool("queue-actions.max", queueActionsMax);
+        return new ConcurrencyLimiter(endpointClass -> switch (endpointClass) {
+            case READ -> new AdaptiveLimit(endpointClass, readsInitial, readsMin, reads, readsTargetMillis, backoffRatio);
+            case WRITE -> new AdaptiveLimit(endpointClass, writesInitial, writesMin, writes, writesTargetMillis, backoffRatio);
+            case QUEUE_ACTION -> new AdaptiveLimit(endpointClass, queueActionsInitial, queueActionsMin, queueActions,
+                    queueActionsTargetMillis, backoffRatio);
+        }, poolSize, queueActionsReservedConnections, queueActionsMaxWaitMillis);
+    }
+
+    private int capAtPool(String property, int max) {
+        if (max > poolSize) {
+            System.out.println("[LIMITS] Capping hospital.limits." + property + " at " + poolSize
+                    + " (spring.datasource.hikari.maximum-pool-size) instead of " + max);
+            return poolSize;
+        }
+        return max;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (enabled) {
+            // After TenantInterceptor (order 0), which says whose limits apply
+            registry.addInterceptor(concurrencyLimiter()).addPathPatterns("/api/**").order(1);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.hospital.system.model;
 
+import com.hospital.system.tenant.TenantContext;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
@@ -8,11 +9,20 @@ import java.time.LocalDateTime;
  * JPA uses the same DataSource (from application.properties) to persist bookings.
  */
 @Entity
+@Table(name = "booking", indexes = {
+        // Keyset scan of one hospital's triage inbox: WHERE tenant_id = ? AND status = ? AND priority = ?
+        // ORDER BY booking_time, id. Leading with the tenant keeps each hospital's inbox one contiguous range
+        @Index(name = "idx_booking_tenant_status_priority_time", columnList = "tenant_id, status, priority, booking_time, id"),
+        @Index(name = "idx_booking_equipment_status", columnList = "equipment_id, status")
+})
 public class Booking {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @Column(nullable = false, length = 32)
+    private String tenantId = TenantContext.DEFAULT_TENANT; // always the tenant of the machine
+
     private String patientName;
     
     private Long equipmentId; // Initial simplification: one queue per equipment
@@ -49,6 +59,14 @@ public class Booking {
         this.id = id;
     }
 
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public void setTenantId(String tenantId) {
+        this.tenantId = tenantId;
+    }
+
     public String getPatientName() {
         return patientName;
     }
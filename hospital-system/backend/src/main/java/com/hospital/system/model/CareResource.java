@@ -0,0 +1,118 @@
+package com.hospital.system.model;
+
+import com.hospital.system.tenant.TenantContext;
+import jakarta.persistence.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Something besides the machine that a procedure needs (table "care_resource"): a technician or a prep room.
+ * qualifiedTypes lists the equipment types it can work with ("MRI,CT"). While a procedure runs the
+ * resource is BUSY and equipmentId names the machine it is working with.
+ */
+@Entity
+@Table(name = "care_resource", indexes = {
+        @Index(name = "idx_care_resource_equipment", columnList = "equipment_id"),
+        @Index(name = "idx_care_resource_tenant", columnList = "tenant_id")
+})
+public class CareResource {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 32)
+    private String tenantId = TenantContext.DEFAULT_TENANT; // works only on this hospital's machines
+
+    private String name; // e.g., Tech Priya
+
+    @Enumerated(EnumType.STRING)
+    private ResourceKind kind;
+
+    private String qualifiedTypes; // comma-separated equipment types, e.g., MRI,CT
+
+    @Enumerated(EnumType.STRING)
+    private ResourceStatus status;
+
+    private Long equipmentId; // machine it is busy with, null otherwise
+
+    public CareResource() {
+    }
+
+    public CareResource(Long id, String name, ResourceKind kind, String qualifiedTypes, ResourceStatus status) {
+        this.id = id;
+        this.name = name;
+        this.kind = kind;
+        this.qualifiedTypes = qualifiedTypes;
+        this.status = status;
+    }
+
+    /** qualifiedTypes split and trimmed; empty when none are set. */
+    public List<String> qualifiedTypeList() {
+        List<String> types = new ArrayList<>();
+        if (qualifiedTypes != null) {
+            for (String type : qualifiedTypes.split(",")) {
+                if (!type.isBlank()) {
+                    types.add(type.trim());
+                }
+            }
+        }
+        return types;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public void setTenantId(String tenantId) {
+        this.tenantId = tenantId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public ResourceKind getKind() {
+        return kind;
+    }
+
+    public void setKind(ResourceKind kind) {
+        this.kind = kind;
+    }
+
+    public String getQualifiedTypes() {
+        return qualifiedTypes;
+    }
+
+    public void setQualifiedTypes(String qualifiedTypes) {
+        this.qualifiedTypes = qualifiedTypes;
+    }
+
+    public ResourceStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(ResourceStatus status) {
+        this.status = status;
+    }
+
+    public Long getEquipmentId() {
+        return equipmentId;
+    }
+
+    public void setEquipmentId(Long equipmentId) {
+        this.equipmentId = equipmentId;
+    }
+}
@@ -0,0 +1,143 @@
+package com.hospital.system.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+import java.time.LocalDateTime;
+
+/**
+ * One entry of the global change feed (table "change_log"): which booking or machine changed,
+ * and the status it moved to. seq is taken from the change_seq counter row (ChangeSequence) just
+ * before commit and only ever grows, on every node, so a client can ask for "everything after
+ * seq N". Numbering is shared by all tenants; each client is only shown its own tenant's entries.
+ */
+@Entity
+@Table(name = "change_log", indexes = {
+        @Index(name = "idx_change_log_tenant_seq", columnList = "tenant_id, seq")
+})
+public class ChangeRecord implements Persistable<Long> {
+    public static final String BOOKING = "BOOKING";
+    public static final String EQUIPMENT = "EQUIPMENT";
+
+    @Id
+    private Long seq;
+
+    @Column(nullable = false, length = 32)
+    private String tenantId;
+
+    @Column(length = 16)
+    private String entityType; // BOOKING or EQUIPMENT
+
+    private Long entityId;
+    private Long equipmentId;
+
+    @Column(length = 16)
+    private String status;
+
+    @Enumerated(EnumType.STRING)
+    private Priority priority; // null for equipment changes
+
+    private LocalDateTime changedAt;
+
+    // seq is assigned by us, so tell Spring Data this is an insert instead of letting it SELECT first
+    @Transient
+    @JsonIgnore
+    private boolean stored;
+
+    public ChangeRecord() {
+    }
+
+    public ChangeRecord(Long seq, String tenantId, String entityType, Long entityId, Long equipmentId, String status,
+                        Priority priority, LocalDateTime changedAt) {
+        this.seq = seq;
+        this.tenantId = tenantId;
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.equipmentId = equipmentId;
+        this.status = status;
+        this.priority = priority;
+        this.changedAt = changedAt;
+    }
+
+    @Override
+    @JsonIgnore
+    public Long getId() {
+        return seq;
+    }
+
+    @Override
+    @JsonIgnore
+    public boolean isNew() {
+        return !stored;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markStored() {
+        this.stored = true;
+    }
+
+    public Long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(Long seq) {
+        this.seq = seq;
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public void setTenantId(String tenantId) {
+        this.tenantId = tenantId;
+    }
+
+    public String getEntityType() {
+        return entityType;
+    }
+
+    public void setEntityType(String entityType) {
+        this.entityType = entityType;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public void setEntityId(Long entityId) {
+        this.entityId = entityId;
+    }
+
+    public Long getEquipmentId() {
+        return equipmentId;
+    }
+
+    public void setEquipmentId(Long equipmentId) {
+        this.equipmentId = equipmentId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Priority getPriority() {
+        return priority;
+    }
+
+    public void setPriority(Priority priority) {
+        this.priority = priority;
+    }
+
+    public LocalDateTime getChangedAt() {
+        return changedAt;
+    }
+
+    public void setChangedAt(LocalDateTime changedAt) {
+        this.changedAt = changedAt;
+    }
+}
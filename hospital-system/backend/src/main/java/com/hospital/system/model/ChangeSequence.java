@@ -0,0 +1,44 @@
+package com.hospital.system.model;
+
+import jakarta.persistence.*;
+
+/**
+ * The single counter row (table "change_seq") that change_log numbers are taken from. Every node
+ * advances the same row, so two nodes can never hand out the same seq, and the row lock it takes
+ * is held until the transaction commits, so numbers become visible in the order they were handed out.
+ */
+@Entity
+@Table(name = "change_seq")
+public class ChangeSequence {
+    public static final long ROW_ID = 1L;
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private long lastSeq; // highest seq handed out so far
+
+    public ChangeSequence() {
+    }
+
+    public ChangeSequence(Long id, long lastSeq) {
+        this.id = id;
+        this.lastSeq = lastSeq;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public long getLastSeq() {
+        return lastSeq;
+    }
+
+    public void setLastSeq(long lastSeq) {
+        this.lastSeq = lastSeq;
+    }
+}
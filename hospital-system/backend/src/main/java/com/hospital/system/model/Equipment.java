@@ -1,5 +1,6 @@
 package com.hospital.system.model;
 
+import com.hospital.system.tenant.TenantContext;
 import jakarta.persistence.*;
 
 /**
@@ -7,12 +8,17 @@ import jakarta.persistence.*;
  * JPA/Hibernate uses the connection from application.properties to read/write this table.
  */
 @Entity
-@Table(name = "equipment")
+@Table(name = "equipment", indexes = {
+        @Index(name = "idx_equipment_tenant_type", columnList = "tenant_id, type")
+})
 public class Equipment {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @Column(nullable = false, length = 32)
+    private String tenantId = TenantContext.DEFAULT_TENANT; // hospital that owns the machine
+
     private String name; // e.g., MRI-1
     private String type; // e.g., MRI
 
@@ -49,6 +55,14 @@ public class Equipment {
         this.id = id;
     }
 
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public void setTenantId(String tenantId) {
+        this.tenantId = tenantId;
+    }
+
     public String getName() {
         return name;
     }
@@ -0,0 +1,67 @@
+package com.hospital.system.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Stored response of a request made with an Idempotency-Key, so a retry that reaches another
+ * node (or arrives after a restart) can be answered without executing the mutation again.
+ * Only written when hospital.idempotency.persist=true.
+ */
+@Entity
+@Table(name = "idempotency_record")
+public class IdempotencyRecord {
+    @Id
+    @Column(length = 200)
+    private String cacheKey; // "<scope>:<Idempotency-Key>"
+
+    @Column(length = 64)
+    private String fingerprint;
+
+    @Lob
+    private String responseJson;
+
+    private LocalDateTime createdAt;
+
+    public IdempotencyRecord() {
+    }
+
+    public IdempotencyRecord(String cacheKey, String fingerprint, String responseJson, LocalDateTime createdAt) {
+        this.cacheKey = cacheKey;
+        this.fingerprint = fingerprint;
+        this.responseJson = responseJson;
+        this.createdAt = createdAt;
+    }
+
+    public String getCacheKey() {
+        return cacheKey;
+    }
+
+    public void setCacheKey(String cacheKey) {
+        this.cacheKey = cacheKey;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    public String getResponseJson() {
+        return responseJson;
+    }
+
+    public void setResponseJson(String responseJson) {
+        this.responseJson = responseJson;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
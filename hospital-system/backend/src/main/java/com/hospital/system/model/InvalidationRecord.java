@@ -0,0 +1,65 @@
+package com.hospital.system.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One invalidation message in the shared table "invalidation_log", used when
+ * hospital.invalidation.transport=database. Written in the same transaction as the change it
+ * announces, read by every node's poller and deleted after the retention period.
+ */
+@Entity
+@Table(name = "invalidation_log", indexes = {
+        @Index(name = "idx_invalidation_log_created", columnList = "created_at")
+})
+public class InvalidationRecord {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 36)
+    private String nodeId;
+
+    @Column(nullable = false, length = 32)
+    private String tenantId;
+
+    private Long equipmentId;
+    private long version;
+    private LocalDateTime createdAt;
+
+    public InvalidationRecord() {
+    }
+
+    public InvalidationRecord(String nodeId, String tenantId, Long equipmentId, long version, LocalDateTime createdAt) {
+        this.nodeId = nodeId;
+        this.tenantId = tenantId;
+        this.equipmentId = equipmentId;
+        this.version = version;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public Long getEquipmentId() {
+        return equipmentId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
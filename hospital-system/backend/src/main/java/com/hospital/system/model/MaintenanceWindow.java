@@ -0,0 +1,93 @@
+package com.hospital.system.model;
+
+import com.hospital.system.tenant.TenantContext;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Planned service of one machine (table "maintenance_window"), from startsAt up to but not including
+ * endsAt. Unlike EquipmentStatus.MAINTENANCE, which marks an unplanned breakdown with no known end,
+ * a window is known in advance: the machine stays bookable outside it and ETAs work around it.
+ */
+@Entity
+@Table(name = "maintenance_window", indexes = {
+        @Index(name = "idx_maintenance_window_equipment_end", columnList = "equipment_id, ends_at")
+})
+public class MaintenanceWindow {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 32)
+    private String tenantId = TenantContext.DEFAULT_TENANT;
+
+    @Column(nullable = false)
+    private Long equipmentId;
+
+    @Column(nullable = false)
+    private LocalDateTime startsAt;
+
+    @Column(nullable = false)
+    private LocalDateTime endsAt;
+
+    private String reason; // e.g., Quarterly coil calibration
+
+    public MaintenanceWindow() {
+    }
+
+    public MaintenanceWindow(Long equipmentId, LocalDateTime startsAt, LocalDateTime endsAt, String reason) {
+        this.equipmentId = equipmentId;
+        this.startsAt = startsAt;
+        this.endsAt = endsAt;
+        this.reason = reason;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public void setTenantId(String tenantId) {
+        this.tenantId = tenantId;
+    }
+
+    public Long getEquipmentId() {
+        return equipmentId;
+    }
+
+    public void setEquipmentId(Long equipmentId) {
+        this.equipmentId = equipmentId;
+    }
+
+    public LocalDateTime getStartsAt() {
+        return startsAt;
+    }
+
+    public void setStartsAt(LocalDateTime startsAt) {
+        this.startsAt = startsAt;
+    }
+
+    public LocalDateTime getEndsAt() {
+        return endsAt;
+    }
+
+    public void setEndsAt(LocalDateTime endsAt) {
+        this.endsAt = endsAt;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+}
@@ -0,0 +1,126 @@
+package com.hospital.system.model;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A notification waiting to be delivered to displays or the paging system (table "outbox_message").
+ * Written in the same transaction as the state change it announces, then picked up and delivered
+ * by OutboxDispatcher, so a slow or unreachable receiver never delays the technician's click.
+ */
+@Entity
+@Table(name = "outbox_message", indexes = {
+        // Dispatcher scan: WHERE status = 'PENDING' AND next_attempt_at <= ? ORDER BY id
+        @Index(name = "idx_outbox_status_next_attempt", columnList = "status, next_attempt_at, id")
+})
+public class OutboxMessage {
+    public static final String PENDING = "PENDING";
+    public static final String SENT = "SENT";
+    public static final String FAILED = "FAILED"; // gave up after hospital.outbox.max-attempts
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(length = 40)
+    private String eventType; // e.g. PATIENT_CALLED
+
+    @Column(length = 2000)
+    @JsonRawValue // already JSON; embed it as-is when the message itself is serialized
+    private String payload;
+
+    @Column(length = 16)
+    private String status;
+
+    private int attempts;
+    private LocalDateTime createdAt;
+    private LocalDateTime nextAttemptAt;
+    private LocalDateTime sentAt;
+
+    @Column(length = 500)
+    private String lastError;
+
+    public OutboxMessage() {
+    }
+
+    public OutboxMessage(String eventType, String payload, LocalDateTime createdAt) {
+        this.eventType = eventType;
+        this.payload = payload;
+        this.status = PENDING;
+        this.createdAt = createdAt;
+        this.nextAttemptAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public void setEventType(String eventType) {
+        this.eventType = eventType;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public LocalDateTime getSentAt() {
+        return sentAt;
+    }
+
+    public void setSentAt(LocalDateTime sentAt) {
+        this.sentAt = sentAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+}
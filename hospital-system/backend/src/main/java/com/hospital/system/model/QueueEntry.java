@@ -0,0 +1,157 @@
+package com.hospital.system.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+import java.time.LocalDateTime;
+
+/**
+ * Read model row (table "queue_view"): one CONFIRMED booking of a machine's live queue.
+ * Maintained by QueueViewService whenever QueueService changes a queue, so queue reads are a single
+ * range scan on (equipment_id, priority_rank, booking_time) instead of a sort over the booking table.
+ * Position and estimated wait are not stored: they are numbered on read from that order, so calling,
+ * adding or re-triaging one patient writes only that patient's row.
+ * Serializes with the same fields as Booking (id is the booking id) plus position and wait.
+ */
+@Entity
+@Table(name = "queue_view", indexes = {
+        @Index(name = "idx_queue_view_equipment_order", columnList = "equipment_id, priority_rank, booking_time, id"),
+        @Index(name = "idx_queue_view_tenant_equipment", columnList = "tenant_id, equipment_id")
+})
+public class QueueEntry implements Persistable<Long> {
+    @Id
+    private Long id; // booking id
+
+    @Column(nullable = false, length = 32)
+    private String tenantId;
+
+    private Long equipmentId;
+    private String equipmentName;
+    private String patientName;
+
+    @Enumerated(EnumType.STRING)
+    private Priority priority;
+
+    // 0 = most urgent; ascending order is call order, so the index needs no descending column
+    @JsonIgnore
+    private int priorityRank;
+
+    private String slotTime;
+    private String status;
+    private LocalDateTime bookingTime;
+
+    // The machine's procedure time when the row was written, for the wait estimate
+    @JsonIgnore
+    private long procedureMinutes;
+
+    @Transient
+    private int position;              // 1 = next patient to be called
+    @Transient
+    private long estimatedWaitMinutes;
+
+    // New rows are inserted without the SELECT Spring Data would do first; stored rows are updated in place
+    @Transient
+    @JsonIgnore
+    private boolean stored;
+
+    public QueueEntry() {
+    }
+
+    public QueueEntry(Booking booking, Equipment equipment) {
+        this.id = booking.getId();
+        update(booking, equipment);
+    }
+
+    public QueueEntry(Booking booking, Equipment equipment, int position) {
+        this(booking, equipment);
+        place(position, (long) (position - 1) * procedureMinutes);
+    }
+
+    /**
+     * Copies the booking's current values. On a stored row, fields that did not change leave it clean,
+     * so Hibernate issues an UPDATE only for a row that really changed (e.g. a re-triage).
+     */
+    public void update(Booking booking, Equipment equipment) {
+        this.tenantId = booking.getTenantId();
+        this.equipmentId = booking.getEquipmentId();
+        this.equipmentName = equipment == null ? null : equipment.getName();
+        this.patientName = booking.getPatientName();
+        this.priority = booking.getPriority();
+        this.priorityRank = rank(booking.getPriority());
+        this.slotTime = booking.getSlotTime();
+        this.status = booking.getStatus();
+        this.bookingTime = booking.getBookingTime();
+        this.procedureMinutes = equipment == null ? 0 : equipment.getBufferTime();
+    }
+
+    /** Sets the place in the queue, which QueueViewService numbers on every read. */
+    public void place(int position, long estimatedWaitMinutes) {
+        this.position = position;
+        this.estimatedWaitMinutes = estimatedWaitMinutes;
+    }
+
+    private static int rank(Priority priority) {
+        return priority == null ? Priority.values().length : Priority.values().length - 1 - priority.ordinal();
+    }
+
+    @Override
+    @JsonIgnore
+    public boolean isNew() {
+        return !stored;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markStored() {
+        this.stored = true;
+    }
+
+    @Override
+    public Long getId() {
+        return id;
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public Long getEquipmentId() {
+        return equipmentId;
+    }
+
+    public String getEquipmentName() {
+        return equipmentName;
+    }
+
+    public String getPatientName() {
+        return patientName;
+    }
+
+    public Priority getPriority() {
+        return priority;
+    }
+
+    public String getSlotTime() {
+        return slotTime;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getBookingTime() {
+        return bookingTime;
+    }
+
+    public long getProcedureMinutes() {
+        return procedureMinutes;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    public long getEstimatedWaitMinutes() {
+        return estimatedWaitMinutes;
+    }
+}
@@ -0,0 +1,6 @@
+package com.hospital.system.model;
+
+public enum ResourceKind {
+    TECHNICIAN,
+    PREP_ROOM
+}
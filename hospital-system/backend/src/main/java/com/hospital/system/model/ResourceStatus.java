@@ -0,0 +1,7 @@
+package com.hospital.system.model;
+
+public enum ResourceStatus {
+    AVAILABLE,
+    BUSY,
+    OFF_DUTY
+}
@@ -0,0 +1,43 @@
+package com.hospital.system.notification;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hospital.system.model.OutboxMessage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends each message as one JSON line to hospital.outbox.file-path, for receivers that tail a file.
+ * The whole batch is written with a single append.
+ */
+@Component
+@ConditionalOnProperty(name = "hospital.outbox.sink", havingValue = "file")
+public class FileNotificationSink implements NotificationSink {
+
+    @Value("${hospital.outbox.file-path:notifications.jsonl}")
+    private String filePath;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    public synchronized void deliver(List<OutboxMessage> batch) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (OutboxMessage message : batch) {
+            lines.append(objectMapper.writeValueAsString(message)).append('\n');
+        }
+        Path path = Path.of(filePath);
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        Files.writeString(path, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+}
@@ -0,0 +1,39 @@
+package com.hospital.system.notification;
+
+import com.hospital.system.model.OutboxMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Keeps the most recent delivered messages in memory. The default sink, used by tests and demos
+ * where there is no display to talk to.
+ */
+@Component
+@ConditionalOnProperty(name = "hospital.outbox.sink", havingValue = "memory", matchIfMissing = true)
+public class InMemoryNotificationSink implements NotificationSink {
+
+    @Value("${hospital.outbox.memory-capacity:1000}")
+    private int capacity = 1000;
+
+    private final Deque<OutboxMessage> delivered = new ArrayDeque<>();
+
+    @Override
+    public synchronized void deliver(List<OutboxMessage> batch) {
+        for (OutboxMessage message : batch) {
+            if (delivered.size() == capacity) {
+                delivered.removeFirst();
+            }
+            delivered.addLast(message);
+        }
+    }
+
+    public synchronized List<OutboxMessage> getDelivered() {
+        return new ArrayList<>(delivered);
+    }
+}
@@ -0,0 +1,15 @@
+package com.hospital.system.notification;
+
+import com.hospital.system.model.OutboxMessage;
+import java.util.List;
+
+/**
+ * Receiver of outbox notifications (waiting-room displays, paging system, ...).
+ * Exactly one sink is active, chosen with hospital.outbox.sink (webhook, file or memory).
+ *
+ * deliver gets a whole batch and either accepts all of it or throws; the dispatcher then retries
+ * the batch later. Delivery is at-least-once, so receivers should de-duplicate on the message id.
+ */
+public interface NotificationSink {
+    void deliver(List<OutboxMessage> batch) throws Exception;
+}
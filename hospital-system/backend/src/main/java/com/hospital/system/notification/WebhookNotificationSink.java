@@ -0,0 +1,51 @@
+package com.hospital.system.notification;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hospital.system.model.OutboxMessage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * POSTs each batch as one JSON array to hospital.outbox.webhook-url. Any non-2xx answer or
+ * network error fails the batch so the dispatcher retries it with backoff.
+ */
+@Component
+@ConditionalOnProperty(name = "hospital.outbox.sink", havingValue = "webhook")
+public class WebhookNotificationSink implements NotificationSink {
+
+    @Value("${hospital.outbox.webhook-url}")
+    private String webhookUrl;
+
+    @Value("${hospital.outbox.webhook-timeout-ms:5000}")
+    private long timeoutMillis;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @Override
+    public void deliver(List<OutboxMessage> batch) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(webhookUrl))
+                .timeout(Duration.ofMillis(timeoutMillis))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(batch)))
+                .build();
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("Webhook answered HTTP " + response.statusCode());
+        }
+    }
+}
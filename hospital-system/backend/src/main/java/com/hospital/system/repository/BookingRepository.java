@@ -1,8 +1,16 @@
 package com.hospital.system.repository;
 
 import com.hospital.system.model.Booking;
+import com.hospital.system.model.Priority;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -14,5 +22,105 @@ import java.util.List;
 public interface BookingRepository extends JpaRepository<Booking, Long> {
     List<Booking> findByEquipmentId(Long equipmentId);
     List<Booking> findByStatus(String status);
+    List<Booking> findByTenantIdAndStatus(String tenantId, String status);
     List<Booking> findByEquipmentIdAndStatus(Long equipmentId, String status);
+    List<Booking> findByEquipmentIdInAndStatus(Collection<Long> equipmentIds, String status);
+    List<Booking> findByStatusNot(String status);
+    List<Booking> findByTenantIdAndStatusNot(String tenantId, String status);
+    List<Booking> findByEquipmentIdAndStatusNot(Long equipmentId, String status);
+
+    /**
+     * Substring match on patientName over one tenant's bookings that are not SERVED. A scan; only used
+     * by patient search when that tenant's in-memory index is over capacity. q is matched literally:
+     * a % or _ typed by the user is not a wildcard.
+     */
+    default List<Booking> searchActiveByName(String tenantId, String q, Pageable pageable) {
+        String escaped = q.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return searchActiveByNameEscaped(tenantId, escaped, pageable);
+    }
+
+    /** searchActiveByName with q already escaped for LIKE, using a backslash as the escape character. */
+    @Query("SELECT b FROM Booking b WHERE b.tenantId = :tenantId AND b.status <> 'SERVED'"
+            + " AND LOWER(b.patientName) LIKE LOWER(CONCAT('%', :q, '%')) ESCAPE '\\'"
+            + " ORDER BY b.bookingTime ASC")
+    List<Booking> searchActiveByNameEscaped(@Param("tenantId") String tenantId, @Param("q") String q, Pageable pageable);
+
+    /**
+     * Keyset page of one tenant's PENDING bookings for one requested priority, ordered by (bookingTime, id).
+     * Pass null afterTime/afterId to start at the beginning of the priority; null filters are ignored.
+     */
+    @Query("SELECT b FROM Booking b WHERE b.tenantId = :tenantId AND b.status = 'PENDING' AND b.priority = :priority"
+            + " AND (:equipmentId IS NULL OR b.equipmentId = :equipmentId)"
+            + " AND (:type IS NULL OR b.equipmentId IN (SELECT e.id FROM Equipment e WHERE e.type = :type))"
+            + " AND (:afterTime IS NULL OR b.bookingTime > :afterTime"
+            + "      OR (b.bookingTime = :afterTime AND b.id > :afterId))"
+            + " ORDER BY b.bookingTime ASC, b.id ASC")
+    List<Booking> findPendingPage(@Param("tenantId") String tenantId,
+                                  @Param("priority") Priority priority,
+                                  @Param("equipmentId") Long equipmentId,
+                                  @Param("type") String type,
+                                  @Param("afterTime") LocalDateTime afterTime,
+                                  @Param("afterId") Long afterId,
+                                  Pageable page);
+
+    /** Rows of [Priority, Long count] for one tenant's PENDING bookings matching the optional filters. */
+    @Query("SELECT b.priority, COUNT(b) FROM Booking b WHERE b.tenantId = :tenantId AND b.status = 'PENDING'"
+            + " AND (:equipmentId IS NULL OR b.equipmentId = :equipmentId)"
+            + " AND (:type IS NULL OR b.equipmentId IN (SELECT e.id FROM Equipment e WHERE e.type = :type))"
+            + " GROUP BY b.priority")
+    List<Object[]> countPendingByPriority(@Param("tenantId") String tenantId,
+                                          @Param("equipmentId") Long equipmentId,
+                                          @Param("type") String type);
+
+    /** Rows of [Long id, Long equipmentId, String status] for those of the given booking ids in the tenant. */
+    @Query("SELECT b.id, b.equipmentId, b.status FROM Booking b WHERE b.tenantId = :tenantId AND b.id IN :ids")
+    List<Object[]> findStatusByIdIn(@Param("tenantId") String tenantId, @Param("ids") Collection<Long> ids);
+
+    /** Set-based triage confirmation; only the tenant's rows still PENDING are touched. Returns the rows updated. */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Booking b SET b.priority = :priority, b.status = 'CONFIRMED'"
+            + " WHERE b.tenantId = :tenantId AND b.id IN :ids AND b.status = 'PENDING'")
+    int confirmPending(@Param("tenantId") String tenantId, @Param("ids") Collection<Long> ids,
+                       @Param("priority") Priority priority);
+
+    /** Set-based re-triage: changes the priority of the tenant's rows that are still CONFIRMED. Returns the rows updated. */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Booking b SET b.priority = :priority"
+            + " WHERE b.tenantId = :tenantId AND b.id IN :ids AND b.status = 'CONFIRMED'")
+    int retriageConfirmed(@Param("tenantId") String tenantId, @Param("ids") Collection<Long> ids,
+                          @Param("priority") Priority priority);
+
+    /**
+     * Compare-and-set status change: moves the booking to toStatus only if it is still in fromStatus.
+     * Returns 1 when this caller won the transition, 0 when the booking is missing or already moved on.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Booking b SET b.status = :toStatus WHERE b.id = :id AND b.status = :fromStatus")
+    int transitionStatus(@Param("id") Long id,
+                         @Param("fromStatus") String fromStatus,
+                         @Param("toStatus") String toStatus);
+
+    /**
+     * Same compare-and-set restricted to one tenant, so a booking of another hospital is never touched.
+     * Returns 0 when the booking is missing, belongs elsewhere or is no longer in fromStatus.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Booking b SET b.status = :toStatus"
+            + " WHERE b.id = :id AND b.tenantId = :tenantId AND b.status = :fromStatus")
+    int transitionInTenant(@Param("id") Long id,
+                           @Param("tenantId") String tenantId,
+                           @Param("fromStatus") String fromStatus,
+                           @Param("toStatus") String toStatus);
+
+    /** Guarded single confirmation (or re-triage): sets priority and CONFIRMED only if the tenant's booking is still fromStatus. */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Booking b SET b.priority = :priority, b.status = 'CONFIRMED'"
+            + " WHERE b.id = :id AND b.tenantId = :tenantId AND b.status = :fromStatus")
+    int confirmIfStatus(@Param("id") Long id,
+                        @Param("tenantId") String tenantId,
+                        @Param("fromStatus") String fromStatus,
+                        @Param("priority") Priority priority);
 }
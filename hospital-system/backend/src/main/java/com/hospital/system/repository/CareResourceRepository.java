@@ -0,0 +1,43 @@
+package com.hospital.system.repository;
+
+import com.hospital.system.model.CareResource;
+import com.hospital.system.model.ResourceStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CareResourceRepository extends JpaRepository<CareResource, Long> {
+
+    List<CareResource> findByTenantId(String tenantId);
+
+    List<CareResource> findByEquipmentId(Long equipmentId);
+
+    /** Compare-and-set claim for a procedure on the given machine. Returns 1 when this caller won it. */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE CareResource r SET r.status = com.hospital.system.model.ResourceStatus.BUSY, r.equipmentId = :equipmentId "
+            + "WHERE r.id = :id AND r.status = com.hospital.system.model.ResourceStatus.AVAILABLE")
+    int claim(@Param("id") Long id, @Param("equipmentId") Long equipmentId);
+
+    /** Frees the given resources, but only those still busy with this machine. */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE CareResource r SET r.status = com.hospital.system.model.ResourceStatus.AVAILABLE, r.equipmentId = null "
+            + "WHERE r.id IN :ids AND r.equipmentId = :equipmentId AND r.status = com.hospital.system.model.ResourceStatus.BUSY")
+    int release(@Param("ids") Collection<Long> ids, @Param("equipmentId") Long equipmentId);
+
+    /** Compare-and-set status change, e.g. AVAILABLE to OFF_DUTY at the end of a shift. */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE CareResource r SET r.status = :toStatus WHERE r.id = :id AND r.status = :fromStatus")
+    int transitionStatus(@Param("id") Long id,
+                         @Param("fromStatus") ResourceStatus fromStatus,
+                         @Param("toStatus") ResourceStatus toStatus);
+}
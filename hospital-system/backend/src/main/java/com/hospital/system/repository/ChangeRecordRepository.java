@@ -0,0 +1,27 @@
+package com.hospital.system.repository;
+
+import com.hospital.system.model.ChangeRecord;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository for the change feed (table "change_log"). Reads only happen for cursors that are
+ * older than the in-memory ring in ChangeFeedService.
+ */
+@Repository
+public interface ChangeRecordRepository extends JpaRepository<ChangeRecord, Long> {
+
+    @Query("SELECT COALESCE(MAX(c.seq), 0) FROM ChangeRecord c")
+    long findMaxSeq();
+
+    /** One tenant's changes in (after, upTo], oldest first. */
+    @Query("SELECT c FROM ChangeRecord c WHERE c.tenantId = :tenantId AND c.seq > :after AND c.seq <= :upTo"
+            + " ORDER BY c.seq ASC")
+    List<ChangeRecord> findRange(@Param("tenantId") String tenantId, @Param("after") long after,
+                                 @Param("upTo") long upTo, Pageable page);
+}
@@ -0,0 +1,24 @@
+package com.hospital.system.repository;
+
+import com.hospital.system.model.ChangeSequence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for the change_log counter row (table "change_seq").
+ */
+@Repository
+public interface ChangeSequenceRepository extends JpaRepository<ChangeSequence, Long> {
+
+    /** Reserves the next count numbers; the row stays locked until the calling transaction ends. */
+    @Modifying
+    @Query("UPDATE ChangeSequence s SET s.lastSeq = s.lastSeq + :count WHERE s.id = 1")
+    int advance(@Param("count") int count);
+
+    /** Highest number handed out (by this transaction, or committed by any other). */
+    @Query("SELECT s.lastSeq FROM ChangeSequence s WHERE s.id = 1")
+    long current();
+}
@@ -1,8 +1,18 @@
 package com.hospital.system.repository;
 
 import com.hospital.system.model.Equipment;
+import com.hospital.system.model.EquipmentStatus;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Repository for the Equipment entity. Spring Data JPA implements this interface automatically
@@ -11,4 +21,45 @@ import org.springframework.stereotype.Repository;
  */
 @Repository
 public interface EquipmentRepository extends JpaRepository<Equipment, Long> {
+
+    /** One hospital's machines. */
+    List<Equipment> findByTenantId(String tenantId);
+
+    /** Whether the hospital owns at least one machine; one probe of the (tenant_id, type) index. */
+    boolean existsByTenantId(String tenantId);
+
+    /**
+     * Compare-and-set status change: moves the machine to toStatus only if it is still in fromStatus.
+     * Returns 1 when this caller won the transition, 0 otherwise.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Equipment e SET e.status = :toStatus WHERE e.id = :id AND e.status = :fromStatus")
+    int transitionStatus(@Param("id") Long id,
+                         @Param("fromStatus") EquipmentStatus fromStatus,
+                         @Param("toStatus") EquipmentStatus toStatus);
+
+    /**
+     * Reads the machines and locks their rows until the transaction ends, always in id order so two
+     * transactions locking overlapping sets cannot deadlock. Serialises queue_view refreshes per machine.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM Equipment e WHERE e.id IN :ids ORDER BY e.id")
+    List<Equipment> lockAllById(@Param("ids") Collection<Long> ids);
+
+    /** Every machine, locked in id order like lockAllById. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM Equipment e ORDER BY e.id")
+    List<Equipment> lockAll();
+
+    /** Every machine of one tenant, locked in id order like lockAllById. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM Equipment e WHERE e.tenantId = :tenantId ORDER BY e.id")
+    List<Equipment> lockAllByTenant(@Param("tenantId") String tenantId);
+
+    @Query("SELECT e.type FROM Equipment e WHERE e.id = :id")
+    String findTypeById(@Param("id") Long id);
+
+    @Query("SELECT e.tenantId FROM Equipment e WHERE e.id = :id")
+    String findTenantIdById(@Param("id") Long id);
 }
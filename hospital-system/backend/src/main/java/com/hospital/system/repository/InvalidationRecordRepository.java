@@ -0,0 +1,32 @@
+package com.hospital.system.repository;
+
+import com.hospital.system.model.InvalidationRecord;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository for the cross-node invalidation table (table "invalidation_log").
+ */
+@Repository
+public interface InvalidationRecordRepository extends JpaRepository<InvalidationRecord, Long> {
+
+    /** Messages after the cursor, oldest first (primary key range scan). */
+    @Query("SELECT r FROM InvalidationRecord r WHERE r.id > :after ORDER BY r.id ASC")
+    List<InvalidationRecord> findAfter(@Param("after") long after, Pageable page);
+
+    @Query("SELECT COALESCE(MAX(r.id), 0) FROM InvalidationRecord r")
+    long findMaxId();
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM InvalidationRecord r WHERE r.createdAt < :before")
+    int deleteOlderThan(@Param("before") LocalDateTime before);
+}
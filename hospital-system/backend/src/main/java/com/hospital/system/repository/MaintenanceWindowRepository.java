@@ -0,0 +1,24 @@
+package com.hospital.system.repository;
+
+import com.hospital.system.model.MaintenanceWindow;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository for planned maintenance (table "maintenance_window"). Windows that have already
+ * ended are never loaded into the availability timeline.
+ */
+@Repository
+public interface MaintenanceWindowRepository extends JpaRepository<MaintenanceWindow, Long> {
+
+    @Query("SELECT w FROM MaintenanceWindow w WHERE w.endsAt > :now ORDER BY w.equipmentId, w.startsAt")
+    List<MaintenanceWindow> findNotEndedBy(@Param("now") LocalDateTime now);
+
+    @Query("SELECT w FROM MaintenanceWindow w WHERE w.equipmentId = :equipmentId AND w.endsAt > :now ORDER BY w.startsAt")
+    List<MaintenanceWindow> findNotEndedBy(@Param("equipmentId") Long equipmentId, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,43 @@
+package com.hospital.system.repository;
+
+import com.hospital.system.model.OutboxMessage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for the notification outbox (table "outbox_message").
+ */
+@Repository
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+
+    /** Oldest messages that are waiting and whose retry time has come. */
+    @Query("SELECT m FROM OutboxMessage m WHERE m.status = 'PENDING' AND m.nextAttemptAt <= :now ORDER BY m.id ASC")
+    List<OutboxMessage> findDue(@Param("now") LocalDateTime now, Pageable page);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.status = 'SENT', m.sentAt = :now, m.attempts = m.attempts + 1"
+            + " WHERE m.id IN :ids AND m.status = 'PENDING'")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    /** Records a failed attempt; messages that reached maxAttempts are parked as FAILED. */
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.attempts = m.attempts + 1, m.nextAttemptAt = :nextAttemptAt,"
+            + " m.lastError = :error,"
+            + " m.status = CASE WHEN m.attempts + 1 >= :maxAttempts THEN 'FAILED' ELSE 'PENDING' END"
+            + " WHERE m.id IN :ids AND m.status = 'PENDING'")
+    int markFailed(@Param("ids") Collection<Long> ids,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                   @Param("error") String error,
+                   @Param("maxAttempts") int maxAttempts);
+}
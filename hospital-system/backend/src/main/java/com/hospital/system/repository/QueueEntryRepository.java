@@ -0,0 +1,36 @@
+package com.hospital.system.repository;
+
+import com.hospital.system.model.QueueEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for the queue read model (table "queue_view"). Only QueueViewService writes to it.
+ */
+@Repository
+public interface QueueEntryRepository extends JpaRepository<QueueEntry, Long> {
+
+    /** One machine's live queue, in call order. */
+    List<QueueEntry> findByEquipmentIdOrderByPriorityRankAscBookingTimeAscIdAsc(Long equipmentId);
+
+    /** Every live queue of the tenant, each in call order. */
+    List<QueueEntry> findByTenantIdOrderByEquipmentIdAscPriorityRankAscBookingTimeAscIdAsc(String tenantId);
+
+    /** The stored rows of the given machines, for comparing against their bookings. */
+    List<QueueEntry> findByEquipmentIdIn(Collection<Long> equipmentIds);
+
+    /** Rows of [Long equipmentId, Long queueLength] for every machine of the tenant with someone waiting. */
+    @Query("SELECT q.equipmentId, COUNT(q) FROM QueueEntry q WHERE q.tenantId = :tenantId GROUP BY q.equipmentId")
+    List<Object[]> countByEquipment(@Param("tenantId") String tenantId);
+
+    /** Drops every row of the tenant with one DELETE. */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM QueueEntry q WHERE q.tenantId = :tenantId")
+    int deleteByTenant(@Param("tenantId") String tenantId);
+}
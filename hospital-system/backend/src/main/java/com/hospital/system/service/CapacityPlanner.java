@@ -0,0 +1,297 @@
+package com.hospital.system.service;
+
+import com.hospital.system.dto.WaitStats;
+import com.hospital.system.dto.WhatIfProjection;
+import com.hospital.system.dto.WhatIfResult;
+import com.hospital.system.dto.WhatIfScenario;
+import com.hospital.system.model.Booking;
+import com.hospital.system.model.Equipment;
+import com.hospital.system.model.EquipmentStatus;
+import com.hospital.system.model.Priority;
+import com.hospital.system.model.QueueEntry;
+import com.hospital.system.repository.EquipmentRepository;
+import com.hospital.system.tenant.TenantContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Answers "what happens to the waits if we add a CT or shorten CT slots to 20 minutes" without
+ * touching live state.
+ *
+ * A request reads the hospital's machines and confirmed queues (queue_view) once, in one
+ * transaction, into an immutable snapshot. The scenario is applied copy-on-write: it produces a new
+ * snapshot that shares every queue and machine it does not change. Both snapshots are then run
+ * forward in simulated minutes, and the projected waits per priority are compared.
+ *
+ * The simulation calls patients in QueueService.QUEUE_ORDER, the order the live queues use, and lets
+ * any machine of the right type take the next patient of that type (that is what adding a machine
+ * means; today's per-machine queues are pooled by type in both runs). A machine IN_USE is assumed to
+ * have just started, a machine with the unplanned MAINTENANCE status takes no patients, and planned
+ * maintenance windows are skipped as they are on the live booking path.
+ */
+@Service
+public class CapacityPlanner {
+
+    @Autowired
+    private EquipmentRepository equipmentRepository;
+
+    @Autowired
+    private QueueViewService queueViewService;
+
+    @Autowired
+    private MaintenanceTimeline maintenanceTimeline;
+
+    @Value("${hospital.planning.default-horizon-minutes:480}")
+    private int defaultHorizonMinutes;
+
+    @Value("${hospital.planning.max-horizon-minutes:10080}")
+    private int maxHorizonMinutes;
+
+    @Value("${hospital.planning.max-patients:100000}")
+    private int maxPatients;
+
+    /** One machine as the simulation sees it; equipmentId is null for a hypothetical one. */
+    static final class Machine {
+        final Long equipmentId;
+        final String type;
+        final int bufferTime;
+        final long busyForMinutes;
+
+        Machine(Long equipmentId, String type, int bufferTime, long busyForMinutes) {
+            this.equipmentId = equipmentId;
+            this.type = type;
+            this.bufferTime = bufferTime;
+            this.busyForMinutes = busyForMinutes;
+        }
+    }
+
+    /** A patient waiting for (or about to arrive at) a machine type, arrivalMinute after the snapshot. */
+    static final class Visit {
+        final Booking booking;
+        final long arrivalMinute;
+
+        Visit(Booking booking, long arrivalMinute) {
+            this.booking = booking;
+            this.arrivalMinute = arrivalMinute;
+        }
+    }
+
+    private static final Comparator<Visit> CALL_ORDER = Comparator.comparing(visit -> visit.booking, QueueService.QUEUE_ORDER);
+
+    /** Machines and queues at one instant. Never modified; a scenario makes a new one. */
+    static final class Snapshot {
+        final LocalDateTime at;
+        final List<Machine> machines;
+        final Map<String, List<Visit>> visitsByType;
+
+        Snapshot(LocalDateTime at, List<Machine> machines, Map<String, List<Visit>> visitsByType) {
+            this.at = at;
+            this.machines = List.copyOf(machines);
+            this.visitsByType = Map.copyOf(visitsByType);
+        }
+
+        int patients() {
+            return visitsByType.values().stream().mapToInt(List::size).sum();
+        }
+    }
+
+    @Transactional
+    public WhatIfResult whatIf(WhatIfScenario scenario) {
+        long started = System.nanoTime();
+        Snapshot live = snapshot();
+        Snapshot changed = apply(live, scenario);
+        WhatIfProjection baseline = simulate(live);
+        WhatIfProjection projected = simulate(changed);
+        return new WhatIfResult(live.at, live.patients(), baseline, projected, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    Snapshot snapshot() {
+        String tenantId = TenantContext.get();
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, String> typeById = new HashMap<>();
+        List<Machine> machines = new ArrayList<>();
+        for (Equipment eq : equipmentRepository.findByTenantId(tenantId)) {
+            typeById.put(eq.getId(), eq.getType());
+            if (eq.getStatus() != EquipmentStatus.MAINTENANCE) {
+                long busyFor = eq.getStatus() == EquipmentStatus.IN_USE ? eq.getBufferTime() : 0;
+                machines.add(new Machine(eq.getId(), eq.getType(), eq.getBufferTime(), busyFor));
+            }
+        }
+        Map<String, List<Visit>> visitsByType = new HashMap<>();
+        for (QueueEntry entry : queueViewService.getQueues()) {
+            String type = typeById.get(entry.getEquipmentId());
+            if (type != null) {
+                Booking booking = new Booking(entry.getId(), entry.getPatientName(), entry.getEquipmentId(),
+                        entry.getPriority(), entry.getSlotTime(), entry.getStatus(), entry.getBookingTime());
+                visitsByType.computeIfAbsent(type, t -> new ArrayList<>()).add(new Visit(booking, 0));
+            }
+        }
+        return new Snapshot(now, machines, visitsByType);
+    }
+
+    /** The snapshot with the scenario applied. Queues and machines the scenario leaves alone are shared. */
+    Snapshot apply(Snapshot live, WhatIfScenario scenario) {
+        int horizon = scenario.getHorizonMinutes() == null ? defaultHorizonMinutes : scenario.getHorizonMinutes();
+        if (horizon < 1 || horizon > maxHorizonMinutes) {
+            throw new RuntimeException("Error: horizonMinutes must be between 1 and " + maxHorizonMinutes + ".");
+        }
+
+        Set<Long> known = new HashSet<>();
+        live.machines.forEach(machine -> known.add(machine.equipmentId));
+        for (Long id : scenario.getRemoveMachines()) {
+            if (!known.contains(id)) {
+                throw new RuntimeException("Error: Equipment not found.");
+            }
+        }
+        Map<String, Integer> bufferTimes = scenario.getBufferTimes();
+        bufferTimes.forEach((type, minutes) -> {
+            if (minutes == null || minutes < 1) {
+                throw new RuntimeException("Error: bufferTimes for " + type + " must be at least 1 minute.");
+            }
+        });
+
+        List<Machine> machines = live.machines;
+        if (!scenario.getRemoveMachines().isEmpty() || !bufferTimes.isEmpty() || !scenario.getAddMachines().isEmpty()) {
+            machines = new ArrayList<>();
+            Map<String, Integer> typicalBuffer = new HashMap<>();
+            for (Machine machine : live.machines) {
+                typicalBuffer.putIfAbsent(machine.type, machine.bufferTime);
+                if (scenario.getRemoveMachines().contains(machine.equipmentId)) {
+                    continue;
+                }
+                Integer minutes = bufferTimes.get(machine.type);
+                machines.add(minutes == null ? machine
+                        : new Machine(machine.equipmentId, machine.type, minutes, machine.busyForMinutes));
+            }
+            for (Map.Entry<String, Integer> added : scenario.getAddMachines().entrySet()) {
+                Integer minutes = bufferTimes.getOrDefault(added.getKey(), typicalBuffer.get(added.getKey()));
+                if (minutes == null) {
+                    throw new RuntimeException("Error: Give bufferTimes for new equipment type " + added.getKey() + ".");
+                }
+                for (int i = 0; i < added.getValue(); i++) {
+                    machines.add(new Machine(null, added.getKey(), minutes, 0));
+                }
+            }
+        }
+
+        Map<String, List<Visit>> visitsByType = live.visitsByType;
+        if (!scenario.getExtraArrivals().isEmpty()) {
+            visitsByType = new HashMap<>(live.visitsByType);
+            long total = live.patients();
+            long nextId = -1;
+            for (WhatIfScenario.Arrivals arrivals : scenario.getExtraArrivals()) {
+                if (arrivals.getType() == null || arrivals.getPriority() == null || arrivals.getPerHour() < 0) {
+                    throw new RuntimeException("Error: Each of extraArrivals needs a type, a priority and a perHour of 0 or more.");
+                }
+                long count = Math.round(arrivals.getPerHour() * horizon / 60.0);
+                total += count;
+                if (total > maxPatients) {
+                    throw new RuntimeException("Error: The scenario simulates more than " + maxPatients + " patients.");
+                }
+                // Copied only for the types that get extra patients
+                List<Visit> visits = new ArrayList<>(visitsByType.getOrDefault(arrivals.getType(), List.of()));
+                for (long k = 0; k < count; k++) {
+                    long minute = k * horizon / Math.max(count, 1);
+                    Booking booking = new Booking(nextId--, "Simulated", null, arrivals.getPriority(), null, "CONFIRMED",
+                            live.at.plusMinutes(minute));
+                    visits.add(new Visit(booking, minute));
+                }
+                visitsByType.put(arrivals.getType(), visits);
+            }
+        }
+        return new Snapshot(live.at, machines, visitsByType);
+    }
+
+    /** Runs every equipment type's pool forward until its last patient has started. */
+    WhatIfProjection simulate(Snapshot snapshot) {
+        Map<String, List<Machine>> machinesByType = new TreeMap<>();
+        snapshot.machines.forEach(machine -> machinesByType.computeIfAbsent(machine.type, t -> new ArrayList<>()).add(machine));
+
+        Map<Priority, List<Long>> waits = new EnumMap<>(Priority.class);
+        Map<Priority, Long> unserved = new EnumMap<>(Priority.class);
+        for (Priority priority : Priority.values()) {
+            waits.put(priority, new ArrayList<>());
+            unserved.put(priority, 0L);
+        }
+        long lastEnd = 0;
+        for (Map.Entry<String, List<Visit>> queue : snapshot.visitsByType.entrySet()) {
+            List<Machine> pool = machinesByType.getOrDefault(queue.getKey(), List.of());
+            if (pool.isEmpty()) {
+                queue.getValue().forEach(visit -> unserved.merge(visit.booking.getPriority(), 1L, Long::sum));
+                continue;
+            }
+            lastEnd = Math.max(lastEnd, run(snapshot.at, pool, queue.getValue(), waits));
+        }
+
+        Map<String, Integer> machineCounts = new TreeMap<>();
+        machinesByType.forEach((type, pool) -> machineCounts.put(type, pool.size()));
+        Map<Priority, WaitStats> stats = new EnumMap<>(Priority.class);
+        waits.forEach((priority, minutes) -> stats.put(priority, toStats(minutes)));
+        return new WhatIfProjection(machineCounts, stats, unserved, lastEnd);
+    }
+
+    // Event loop for one type: the machine that frees up first calls the best waiting patient
+    private long run(LocalDateTime at, List<Machine> pool, List<Visit> visits, Map<Priority, List<Long>> waits) {
+        List<Visit> byArrival = new ArrayList<>(visits);
+        byArrival.sort(Comparator.comparingLong(visit -> visit.arrivalMinute));
+        PriorityQueue<long[]> freeAt = new PriorityQueue<>(Comparator.comparingLong(slot -> slot[0])); // [minute, machine index]
+        for (int i = 0; i < pool.size(); i++) {
+            freeAt.add(new long[]{pool.get(i).busyForMinutes, i});
+        }
+        PriorityQueue<Visit> waiting = new PriorityQueue<>(CALL_ORDER);
+        long lastEnd = 0;
+        int next = 0;
+        while (next < byArrival.size() || !waiting.isEmpty()) {
+            long[] slot = freeAt.poll();
+            long t = slot[0];
+            if (waiting.isEmpty() && byArrival.get(next).arrivalMinute > t) {
+                t = byArrival.get(next).arrivalMinute;
+            }
+            while (next < byArrival.size() && byArrival.get(next).arrivalMinute <= t) {
+                waiting.add(byArrival.get(next++));
+            }
+            Visit visit = waiting.poll();
+            Machine machine = pool.get((int) slot[1]);
+            long start = machine.equipmentId == null ? t : startAfterMaintenance(at, machine, t);
+            waits.get(visit.booking.getPriority()).add(start - visit.arrivalMinute);
+            slot[0] = start + machine.bufferTime;
+            lastEnd = Math.max(lastEnd, slot[0]);
+            freeAt.add(slot);
+        }
+        return lastEnd;
+    }
+
+    private long startAfterMaintenance(LocalDateTime at, Machine machine, long minute) {
+        LocalDateTime free = maintenanceTimeline.findFreeStart(machine.equipmentId, at.plusMinutes(minute), machine.bufferTime);
+        return (Duration.between(at, free).getSeconds() + 59) / 60;
+    }
+
+    private static WaitStats toStats(List<Long> minutes) {
+        if (minutes.isEmpty()) {
+            return new WaitStats(0, 0, 0, 0);
+        }
+        minutes.sort(null);
+        double mean = minutes.stream().mapToLong(Long::longValue).average().orElse(0);
+        return new WaitStats(minutes.size(), mean * 60, percentile(minutes, 0.50) * 60, percentile(minutes, 0.95) * 60);
+    }
+
+    private static long percentile(List<Long> sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1)));
+    }
+}
@@ -0,0 +1,234 @@
+package com.hospital.system.service;
+
+import com.hospital.system.dto.ChangeBatch;
+import com.hospital.system.event.BookingTransitionEvent;
+import com.hospital.system.event.EquipmentStatusEvent;
+import com.hospital.system.model.ChangeRecord;
+import com.hospital.system.model.ChangeSequence;
+import com.hospital.system.repository.ChangeRecordRepository;
+import com.hospital.system.repository.ChangeSequenceRepository;
+import com.hospital.system.tenant.TenantContext;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Global change feed for delta sync. Every booking and equipment transition published by QueueService
+ * is written to change_log in the same transaction as the change itself (one batched insert per transaction,
+ * however many rows it touched). That guarantee rests on the caller: every QueueService method that publishes
+ * a transition runs in a transaction, and the auto-revert runs in its work lane's. A change published with no
+ * transaction at all is inserted in a transaction of its own right away, so it can be recorded even though the
+ * change around it later fails, or be lost after that change committed.
+ *
+ * Sequence numbers come from the change_seq counter row, taken just before commit. Every node advances the
+ * same row, so numbers are unique across nodes, and the row lock is held until commit, so a later number can
+ * never become visible before an earlier one. Nothing else may be locked after it: the synchronization that
+ * takes it runs after the queue_view refresh (see QueueViewService).
+ *
+ * On a single node (hospital.invalidation.transport=none) recent changes are also kept in a fixed-size ring,
+ * so a terminal that polls regularly is answered from memory; only a cursor older than the ring goes to the
+ * database. With a multi-node transport the ring would miss the other nodes' changes, so every read goes to
+ * change_log and the high-water mark is the committed counter.
+ *
+ * Numbering is shared by every tenant, but a client only ever receives its own tenant's changes; the
+ * gaps left by other hospitals' changes are invisible to it.
+ */
+@Service
+public class ChangeFeedService {
+
+    private static final int DEFAULT_LIMIT = 500;
+    private static final int MAX_LIMIT = 2000;
+
+    @Autowired
+    private ChangeRecordRepository changeRecordRepository;
+
+    @Autowired
+    private ChangeSequenceRepository changeSequenceRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${hospital.changes.ring-size:4096}")
+    private int ringSize;
+
+    @Value("${hospital.invalidation.transport:none}")
+    private String transport;
+
+    private TransactionTemplate transactionTemplate;
+    // Other nodes write change_log too, so the ring would only ever hold part of the feed
+    private boolean shared;
+    private AtomicReferenceArray<ChangeRecord> ring;
+    private final AtomicLong lastCommitted = new AtomicLong();
+    private final ConcurrentSkipListSet<Long> inFlight = new ConcurrentSkipListSet<>();
+    // Changes up to here happened before this process started and only exist in the database
+    private volatile long ringFloor;
+
+    @PostConstruct
+    void init() {
+        ring = new AtomicReferenceArray<>(ringSize);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        shared = !"none".equalsIgnoreCase(transport);
+        if (!changeSequenceRepository.existsById(ChangeSequence.ROW_ID)) {
+            try {
+                changeSequenceRepository.save(new ChangeSequence(ChangeSequence.ROW_ID, changeRecordRepository.findMaxSeq()));
+            } catch (DataIntegrityViolationException e) {
+                // Another node created it at the same moment
+            }
+        }
+        long start = changeSequenceRepository.current();
+        lastCommitted.set(start);
+        ringFloor = start;
+    }
+
+    @EventListener
+    public void onBookingTransition(BookingTransitionEvent event) {
+        record(ChangeRecord.BOOKING, event.getBookingId(), event.getEquipmentId(), event.getToStatus(), event);
+    }
+
+    @EventListener
+    public void onEquipmentStatus(EquipmentStatusEvent event) {
+        record(ChangeRecord.EQUIPMENT, event.getEquipmentId(), event.getEquipmentId(), event.getStatus().name(), event);
+    }
+
+    private void record(String type, Long entityId, Long equipmentId, String status, Object event) {
+        // seq stays empty until the transaction is about to commit
+        ChangeRecord change = event instanceof BookingTransitionEvent t
+                ? new ChangeRecord(null, t.getTenantId(), type, entityId, equipmentId, status, t.getPriority(), t.getAt())
+                : new ChangeRecord(null, ((EquipmentStatusEvent) event).getTenantId(), type, entityId, equipmentId,
+                        status, null, ((EquipmentStatusEvent) event).getAt());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            List<ChangeRecord> single = List.of(change);
+            try {
+                transactionTemplate.executeWithoutResult(tx -> store(single));
+            } catch (RuntimeException e) {
+                finish(single, false);
+                throw e;
+            }
+            finish(single, true);
+            return;
+        }
+
+        // Inside a transaction: collect its changes and insert them together just before it commits
+        @SuppressWarnings("unchecked")
+        List<ChangeRecord> pending = (List<ChangeRecord>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            List<ChangeRecord> batch = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, batch);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    store(batch);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ChangeFeedService.this);
+                    finish(batch, status == STATUS_COMMITTED);
+                }
+            });
+            pending = batch;
+        }
+        pending.add(change);
+    }
+
+    // Numbers the batch from the counter row and inserts it. Must be the last lock the transaction takes
+    private void store(List<ChangeRecord> batch) {
+        changeSequenceRepository.advance(batch.size());
+        long seq = changeSequenceRepository.current() - batch.size();
+        for (ChangeRecord change : batch) {
+            change.setSeq(++seq);
+            inFlight.add(seq);
+        }
+        changeRecordRepository.saveAll(batch);
+    }
+
+    private void finish(List<ChangeRecord> batch, boolean committed) {
+        for (ChangeRecord change : batch) {
+            Long seq = change.getSeq();
+            if (seq == null) {
+                continue; // rolled back before it was numbered
+            }
+            if (committed) {
+                if (!shared) {
+                    ring.set(slot(seq), change);
+                }
+                lastCommitted.accumulateAndGet(seq, Math::max);
+            }
+            inFlight.remove(seq);
+        }
+    }
+
+    /** Highest sequence number below which every change is settled (committed or rolled back). */
+    public long getHighWaterMark() {
+        if (shared) {
+            // The counter only moves when its transaction commits, and holds every later one back until then
+            return changeSequenceRepository.current();
+        }
+        long committed = lastCommitted.get();
+        Long oldestInFlight = inFlight.isEmpty() ? null : inFlight.first();
+        return oldestInFlight == null ? committed : Math.min(committed, oldestInFlight - 1);
+    }
+
+    public ChangeBatch getChangesSince(long since, Integer limit) {
+        if (since < 0) {
+            throw new RuntimeException("Error: since must be zero or positive.");
+        }
+        int size = limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, MAX_LIMIT));
+        long highWaterMark = getHighWaterMark();
+        if (since >= highWaterMark) {
+            return new ChangeBatch(List.of(), Math.max(since, highWaterMark), false);
+        }
+
+        String tenantId = TenantContext.get();
+        List<ChangeRecord> changes = !shared && since >= Math.max(ringFloor, highWaterMark - ringSize)
+                ? readRing(tenantId, since, highWaterMark, size)
+                : null;
+        if (changes == null) {
+            // Too old for the ring (or overwritten while we read it): one indexed range scan by primary key
+            changes = changeRecordRepository.findRange(tenantId, since, highWaterMark, PageRequest.of(0, size + 1));
+        }
+
+        boolean hasMore = changes.size() > size;
+        if (hasMore) {
+            changes = new ArrayList<>(changes.subList(0, size));
+        }
+        long mark = hasMore ? changes.get(changes.size() - 1).getSeq() : highWaterMark;
+        return new ChangeBatch(changes, mark, hasMore);
+    }
+
+    // Returns up to size + 1 of the tenant's changes in (since, upTo], or null when a slot was already reused
+    private List<ChangeRecord> readRing(String tenantId, long since, long upTo, int size) {
+        List<ChangeRecord> result = new ArrayList<>();
+        for (long seq = since + 1; seq <= upTo && result.size() <= size; seq++) {
+            ChangeRecord change = ring.get(slot(seq));
+            if (change == null || change.getSeq() < seq) {
+                continue; // rolled back, so it never happened
+            }
+            if (change.getSeq() > seq) {
+                return null;
+            }
+            if (tenantId.equals(change.getTenantId())) {
+                result.add(change);
+            }
+        }
+        return result;
+    }
+
+    private int slot(long seq) {
+        return (int) (seq % ringSize);
+    }
+}
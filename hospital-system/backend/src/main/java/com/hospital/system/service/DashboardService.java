@@ -0,0 +1,63 @@
+package com.hospital.system.service;
+
+import com.hospital.system.dto.Dashboard;
+import com.hospital.system.dto.PendingPage;
+import com.hospital.system.dto.PendingSummary;
+import com.hospital.system.model.Equipment;
+import com.hospital.system.model.QueueEntry;
+import com.hospital.system.repository.EquipmentRepository;
+import com.hospital.system.tenant.TenantContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the combined dashboard behind GET /api/dashboard. The UI used to poll equipment, the
+ * selected queue and the pending inbox separately, and each of those re-ran the queue queries.
+ * Here the equipment cards take their queue lengths from one grouped count over the queue_view read
+ * model, the selected queue is one range scan of it, and the pending summary tells the inbox page
+ * which priorities it can skip.
+ */
+@Service
+public class DashboardService {
+
+    @Autowired
+    private EquipmentRepository equipmentRepository;
+
+    @Autowired
+    private QueueService queueService;
+
+    @Autowired
+    private QueueViewService queueViewService;
+
+    // One read-only transaction, so the cards, the queue and the inbox all describe the same moment
+    @Transactional(readOnly = true)
+    public Dashboard getDashboard(Long equipmentId, boolean includePending, Integer pendingLimit) {
+        List<Equipment> equipment = equipmentRepository.findByTenantId(TenantContext.get());
+        Map<Long, Integer> queueLengths = queueViewService.getQueueLengths();
+        for (Equipment eq : equipment) {
+            int queueLength = queueLengths.getOrDefault(eq.getId(), 0);
+            eq.setQueueLength(queueLength);
+            eq.setNextAvailable(queueService.calculateNextSlot(eq, queueLength));
+        }
+        List<QueueEntry> queue = null;
+        if (equipmentId != null) {
+            // The tenant's machines are already loaded, so ownership needs no extra query
+            if (equipment.stream().noneMatch(eq -> eq.getId().equals(equipmentId))) {
+                throw new RuntimeException("Error: Equipment not found.");
+            }
+            queue = queueViewService.getQueue(equipmentId);
+        }
+
+        PendingSummary summary = null;
+        PendingPage pending = null;
+        if (includePending) {
+            summary = queueService.getPendingSummary(equipmentId, null);
+            pending = queueService.getPendingPage(equipmentId, null, null, null, pendingLimit, summary);
+        }
+        return new Dashboard(equipment, queue, summary, pending);
+    }
+}
@@ -0,0 +1,111 @@
+package com.hospital.system.service;
+
+import com.hospital.system.dto.EquipmentAnalytics;
+import com.hospital.system.dto.WindowStats;
+import com.hospital.system.event.BookingTransitionEvent;
+import com.hospital.system.event.EquipmentStatusEvent;
+import com.hospital.system.model.Equipment;
+import com.hospital.system.model.EquipmentStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-equipment utilization, throughput and wait-time analytics, maintained incrementally from the
+ * QueueService transition events. Nothing here queries the booking table: every figure comes from
+ * fixed-size rolling windows, so reading the analytics costs the same no matter how much history exists.
+ * Transitions are counted once their transaction commits, so one that rolls back never shows up.
+ */
+@Service
+public class EquipmentAnalyticsService {
+
+    // 1h at minute resolution, 24h at hour resolution, 7d at 6-hour resolution
+    private static final long MINUTE = Duration.ofMinutes(1).toMillis();
+    private static final long HOUR = Duration.ofHours(1).toMillis();
+    private static final long SIX_HOURS = Duration.ofHours(6).toMillis();
+
+    private final Map<Long, EquipmentStats> stats = new ConcurrentHashMap<>();
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBookingTransition(BookingTransitionEvent event) {
+        if ("IN_USE".equals(event.getToStatus()) && event.getBookingTime() != null) {
+            long waitSeconds = Math.max(0, Duration.between(event.getBookingTime(), event.getAt()).getSeconds());
+            statsFor(event.getEquipmentId()).recordWait(toMillis(event.getAt()), event, waitSeconds);
+        } else if ("SERVED".equals(event.getToStatus())) {
+            statsFor(event.getEquipmentId()).recordProcedure(toMillis(event.getAt()));
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEquipmentStatus(EquipmentStatusEvent event) {
+        statsFor(event.getEquipmentId()).recordStatus(event.getStatus(), toMillis(event.getAt()));
+    }
+
+    public List<EquipmentAnalytics> getAnalytics(List<Equipment> equipment) {
+        long now = System.currentTimeMillis();
+        List<EquipmentAnalytics> result = new ArrayList<>(equipment.size());
+        for (Equipment eq : equipment) {
+            result.add(new EquipmentAnalytics(eq.getId(), eq.getName(), eq.getType(), eq.getStatus(),
+                    statsFor(eq.getId()).summarize(now)));
+        }
+        return result;
+    }
+
+    private EquipmentStats statsFor(Long equipmentId) {
+        return stats.computeIfAbsent(equipmentId, id -> new EquipmentStats());
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /** Rolling windows for one machine. Transitions for a machine are rare, so a monitor is plenty. */
+    static class EquipmentStats {
+        private final RollingWindow lastHour = new RollingWindow(60, MINUTE);
+        private final RollingWindow lastDay = new RollingWindow(24, HOUR);
+        private final RollingWindow lastWeek = new RollingWindow(28, SIX_HOURS);
+        private Long inUseSince;
+
+        synchronized void recordWait(long atMillis, BookingTransitionEvent event, long waitSeconds) {
+            lastHour.recordWait(atMillis, event.getPriority(), waitSeconds);
+            lastDay.recordWait(atMillis, event.getPriority(), waitSeconds);
+            lastWeek.recordWait(atMillis, event.getPriority(), waitSeconds);
+        }
+
+        synchronized void recordProcedure(long atMillis) {
+            lastHour.recordProcedure(atMillis);
+            lastDay.recordProcedure(atMillis);
+            lastWeek.recordProcedure(atMillis);
+        }
+
+        synchronized void recordStatus(EquipmentStatus status, long atMillis) {
+            if (status == EquipmentStatus.IN_USE) {
+                if (inUseSince == null) {
+                    inUseSince = atMillis;
+                }
+            } else if (inUseSince != null) {
+                lastHour.recordBusy(inUseSince, atMillis);
+                lastDay.recordBusy(inUseSince, atMillis);
+                lastWeek.recordBusy(inUseSince, atMillis);
+                inUseSince = null;
+            }
+        }
+
+        synchronized Map<String, WindowStats> summarize(long nowMillis) {
+            Map<String, WindowStats> windows = new LinkedHashMap<>();
+            windows.put("1h", lastHour.summarize(nowMillis, 60, inUseSince));
+            windows.put("24h", lastDay.summarize(nowMillis, 24, inUseSince));
+            windows.put("7d", lastWeek.summarize(nowMillis, 28, inUseSince));
+            return windows;
+        }
+    }
+}
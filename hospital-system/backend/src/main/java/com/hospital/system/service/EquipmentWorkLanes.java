@@ -0,0 +1,272 @@
+package com.hospital.system.service;
+
+import com.hospital.system.dto.WorkLaneStats;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bulkheads for per-machine background work such as the end-of-procedure auto-revert.
+ *
+ * Every machine has its own lane: a FIFO of at most queue-capacity tasks that run one at a time, in
+ * order. Lanes share a small worker pool, but a lane holds at most one worker and gives it back after
+ * every task, so a machine whose work is stuck ties up one worker at most while the other machines'
+ * work keeps flowing on the rest. A full lane turns new work away instead of growing.
+ *
+ * Scheduled work (the auto-revert that frees a machine) must not be lost, so it is never dropped: when
+ * its lane is full, or it fails or times out, it goes back on the timer and is tried again after a
+ * backoff that doubles from retry-base-ms up to retry-max-ms, until it succeeds. A lane with
+ * retrying above zero on GET /api/admin/lanes is a machine whose work keeps failing.
+ *
+ * Each task runs in its own transaction with task-timeout-seconds as the transaction timeout, which
+ * Hibernate applies as the JDBC query timeout: a hung statement fails instead of holding its worker.
+ * The timer thread only moves due tasks onto their lane and never touches the database.
+ */
+@Service
+public class EquipmentWorkLanes {
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${hospital.lanes.workers:4}")
+    private int workers;
+
+    @Value("${hospital.lanes.queue-capacity:16}")
+    private int queueCapacity;
+
+    @Value("${hospital.lanes.task-timeout-seconds:5}")
+    private int taskTimeoutSeconds;
+
+    @Value("${hospital.lanes.retry-base-ms:500}")
+    private long retryBaseMillis;
+
+    @Value("${hospital.lanes.retry-max-ms:30000}")
+    private long retryMaxMillis;
+
+    private final Map<Long, Lane> lanes = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(daemon("work-lane-timer"));
+
+    private ExecutorService pool;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void start() {
+        pool = Executors.newFixedThreadPool(Math.max(1, workers), daemon("work-lane-"));
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setTimeout(taskTimeoutSeconds);
+    }
+
+    /**
+     * Puts the task on the machine's lane once the delay has passed, and retries it with backoff until
+     * it succeeds (see the class comment). The task must be safe to run again after a failure.
+     */
+    public void schedule(String tenantId, Long equipmentId, String name, Runnable task, long delay, TimeUnit unit) {
+        Lane lane = lanes.computeIfAbsent(equipmentId, id -> new Lane(tenantId, id));
+        timer.schedule(() -> enqueue(lane, new Task(name, task, true)), delay, unit);
+    }
+
+    /** Queues the task on the machine's lane. Returns false, and counts a rejection, when the lane is full. */
+    public boolean submit(String tenantId, Long equipmentId, String name, Runnable task) {
+        return enqueue(lanes.computeIfAbsent(equipmentId, id -> new Lane(tenantId, id)), new Task(name, task, false));
+    }
+
+    private boolean enqueue(Lane lane, Task task) {
+        boolean dispatch;
+        synchronized (lane) {
+            if (lane.queue.size() >= queueCapacity) {
+                lane.rejected++;
+                if (task.retried) {
+                    long backoff = retryLater(lane, task);
+                    System.out.println("[LANES] Machine #" + lane.equipmentId + " already has " + lane.queue.size()
+                            + " tasks waiting, retrying " + task.name + " in " + backoff + " ms");
+                } else {
+                    System.out.println("[LANES] Machine #" + lane.equipmentId + " already has " + lane.queue.size()
+                            + " tasks waiting, dropped " + task.name);
+                }
+                return false;
+            }
+            task.queuedAt = System.nanoTime();
+            lane.queue.add(task);
+            if (task.attempts == 0) {
+                lane.submitted++;
+            }
+            lane.maxQueued = Math.max(lane.maxQueued, lane.queue.size());
+            dispatch = !lane.dispatched;
+            lane.dispatched = true;
+        }
+        if (dispatch) {
+            dispatch(lane);
+        }
+        return true;
+    }
+
+    /** Counters of every lane of the tenant's machines, by machine id. */
+    public List<WorkLaneStats> getStats(String tenantId) {
+        return lanes.values().stream()
+                .filter(lane -> lane.tenantId.equals(tenantId))
+                .sorted(Comparator.comparing(lane -> lane.equipmentId))
+                .map(this::snapshot)
+                .toList();
+    }
+
+    private void dispatch(Lane lane) {
+        try {
+            pool.execute(() -> runNext(lane));
+        } catch (RejectedExecutionException e) {
+            // Shutting down: the remaining work of this lane is dropped with the pool
+        }
+    }
+
+    // Runs the lane's oldest task, then rejoins the back of the pool's queue if there is more,
+    // so one busy machine cannot keep a worker away from the others
+    private void runNext(Lane lane) {
+        Task task;
+        long started = System.nanoTime();
+        synchronized (lane) {
+            task = lane.queue.poll();
+            lane.running = true;
+            lane.maxWaitNanos = Math.max(lane.maxWaitNanos, started - task.queuedAt);
+        }
+        String failure = null;
+        try {
+            transactionTemplate.executeWithoutResult(status -> task.work.run());
+        } catch (RuntimeException e) {
+            failure = e.getMessage();
+        }
+        long ran = System.nanoTime() - started;
+        boolean more;
+        synchronized (lane) {
+            lane.running = false;
+            if (failure != null) {
+                lane.failed++;
+                String next = task.retried ? ", retrying in " + retryLater(lane, task) + " ms" : "";
+                System.out.println("[LANES] " + task.name + " for machine #" + lane.equipmentId + " failed: " + failure + next);
+            } else {
+                lane.completed++;
+            }
+            if (ran > TimeUnit.SECONDS.toNanos(taskTimeoutSeconds)) {
+                lane.timedOut++;
+            }
+            lane.maxRunNanos = Math.max(lane.maxRunNanos, ran);
+            more = !lane.queue.isEmpty();
+            lane.dispatched = more;
+        }
+        if (more) {
+            dispatch(lane);
+        }
+    }
+
+    // Puts the task back on the timer after its next backoff and returns that backoff; holds the lane's monitor
+    private long retryLater(Lane lane, Task task) {
+        task.attempts++;
+        long backoff = Math.min(retryMaxMillis, retryBaseMillis << Math.min(task.attempts - 1, 20));
+        try {
+            timer.schedule(() -> {
+                synchronized (lane) {
+                    lane.retrying--;
+                }
+                enqueue(lane, task);
+            }, backoff, TimeUnit.MILLISECONDS);
+            lane.retrying++;
+            lane.retries++;
+        } catch (RejectedExecutionException e) {
+            // Shutting down: nothing will run any more
+        }
+        return backoff;
+    }
+
+    private WorkLaneStats snapshot(Lane lane) {
+        synchronized (lane) {
+            return new WorkLaneStats(lane.equipmentId, lane.queue.size(), queueCapacity, lane.running,
+                    lane.maxQueued, lane.submitted, lane.completed, lane.failed, lane.timedOut, lane.rejected,
+                    lane.retrying, lane.retries,
+                    TimeUnit.NANOSECONDS.toMillis(lane.maxWaitNanos), TimeUnit.NANOSECONDS.toMillis(lane.maxRunNanos));
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return task -> {
+            Thread thread = new Thread(task, name.endsWith("-") ? name + count.incrementAndGet() : name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Let due tasks reach their lanes, then let the lanes finish, each within a bounded wait
+        timer.shutdown();
+        try {
+            if (!timer.awaitTermination(5, TimeUnit.SECONDS)) {
+                timer.shutdownNow();
+            }
+            pool.shutdown();
+            if (!pool.awaitTermination(5, TimeUnit.SECONDS)) {
+                pool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            timer.shutdownNow();
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // queuedAt and attempts are guarded by the monitor of the task's lane
+    private static class Task {
+        final String name;
+        final Runnable work;
+        final boolean retried; // scheduled work: retried until it succeeds instead of being dropped
+        long queuedAt;
+        int attempts;
+
+        Task(String name, Runnable work, boolean retried) {
+            this.name = name;
+            this.work = work;
+            this.retried = retried;
+        }
+    }
+
+    // All fields are guarded by the lane's own monitor
+    private static class Lane {
+        final String tenantId;
+        final Long equipmentId;
+        final ArrayDeque<Task> queue = new ArrayDeque<>();
+        boolean dispatched; // a runNext for this lane is queued on or running in the pool
+        boolean running;
+        int maxQueued;
+        long submitted;
+        long completed;
+        long failed;
+        long timedOut;
+        long rejected;
+        int retrying; // tasks waiting on the timer for another attempt
+        long retries;
+        long maxWaitNanos;
+        long maxRunNanos;
+
+        Lane(String tenantId, Long equipmentId) {
+            this.tenantId = tenantId;
+            this.equipmentId = equipmentId;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.hospital.system.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hospital.system.model.IdempotencyRecord;
+import com.hospital.system.repository.IdempotencyRecordRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Makes retried mutations safe. The first request with a given Idempotency-Key runs; any retry with
+ * the same key gets the original response replayed instead of executing again. A retry that arrives
+ * while the first call is still running waits for it rather than racing it.
+ *
+ * Entries live in a bounded in-memory map and expire after a fixed TTL. Failed calls are not
+ * remembered, so the client can retry them. With hospital.idempotency.persist=true, responses are
+ * also stored in the idempotency_record table so retries survive restarts and reach other nodes.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    @Value("${hospital.idempotency.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${hospital.idempotency.ttl-seconds:3600}")
+    private long ttlSeconds;
+
+    @Value("${hospital.idempotency.wait-timeout-ms:30000}")
+    private long waitTimeoutMillis;
+
+    @Value("${hospital.idempotency.persist:false}")
+    private boolean persist;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Optional: absent in slices without JPA (e.g. @WebMvcTest)
+    @Autowired
+    private ObjectProvider<IdempotencyRecordRepository> recordRepository;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // Keys in insertion order. Every entry has the same TTL, so this is also expiry order.
+    private final Queue<String> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicLong persistedWrites = new AtomicLong();
+
+    /**
+     * Runs action at most once per (scope, key). scope separates endpoints, requestDescription
+     * identifies the request body so a key reused for a different request is rejected.
+     * A null or blank key just runs the action.
+     */
+    public <T> T execute(String key, String scope, String requestDescription, Class<T> type, Supplier<T> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        String cacheKey = scope + ":" + key;
+        String fingerprint = fingerprint(requestDescription);
+        long now = System.currentTimeMillis();
+
+        Entry mine = new Entry(fingerprint, now);
+        while (true) {
+            Entry existing = entries.putIfAbsent(cacheKey, mine);
+            if (existing == null) break;
+            if (existing.isExpired(now, ttlSeconds)) {
+                entries.remove(cacheKey, existing);
+                continue;
+            }
+            if (!existing.fingerprint.equals(fingerprint)) {
+                throw new RuntimeException("Error: Idempotency-Key was already used for a different request.");
+            }
+            return type.cast(await(existing));
+        }
+        insertionOrder.add(cacheKey);
+        evict(now);
+
+        try {
+            T result = replayStored(cacheKey, fingerprint, type);
+            if (result == null) {
+                result = action.get();
+                store(cacheKey, fingerprint, result);
+            }
+            mine.result.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            // Don't remember failures: waiters see this error, later retries run again
+            entries.remove(cacheKey, mine);
+            mine.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private Object await(Entry entry) {
+        try {
+            return entry.result.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new RuntimeException("Error: A request with this Idempotency-Key is still in progress.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Error: Interrupted while waiting for the original request.");
+        }
+    }
+
+    /**
+     * Drops expired entries from the head of the insertion queue, then the oldest finished entries
+     * while over capacity. Work per call is bounded so a request never pays for a big backlog.
+     */
+    private void evict(long now) {
+        for (int i = 0; i < 64; i++) {
+            String head = insertionOrder.peek();
+            if (head == null) return;
+            Entry entry = entries.get(head);
+            boolean expired = entry == null || entry.isExpired(now, ttlSeconds);
+            if (!expired && entries.size() <= maxEntries) return;
+
+            insertionOrder.poll();
+            if (!expired && !entry.result.isDone()) {
+                // Never evict a call that is still running; look at it again later
+                insertionOrder.add(head);
+                continue;
+            }
+            if (entry != null) {
+                entries.remove(head, entry);
+            }
+        }
+    }
+
+    private <T> T replayStored(String cacheKey, String fingerprint, Class<T> type) {
+        IdempotencyRecordRepository repository = persist ? recordRepository.getIfAvailable() : null;
+        if (repository == null) return null;
+        IdempotencyRecord record = repository.findById(cacheKey).orElse(null);
+        if (record == null || record.getCreatedAt().isBefore(LocalDateTime.now().minusSeconds(ttlSeconds))) {
+            return null;
+        }
+        if (!record.getFingerprint().equals(fingerprint)) {
+            throw new RuntimeException("Error: Idempotency-Key was already used for a different request.");
+        }
+        try {
+            return objectMapper.readValue(record.getResponseJson(), type);
+        } catch (Exception e) {
+            return null; // unreadable (e.g. older format): treat as a miss
+        }
+    }
+
+    private void store(String cacheKey, String fingerprint, Object result) {
+        IdempotencyRecordRepository repository = persist ? recordRepository.getIfAvailable() : null;
+        if (repository == null || result == null) return;
+        try {
+            repository.save(new IdempotencyRecord(cacheKey, fingerprint,
+                    objectMapper.writeValueAsString(result), LocalDateTime.now()));
+            if (persistedWrites.incrementAndGet() % 500 == 0) {
+                repository.deleteOlderThan(LocalDateTime.now().minusSeconds(ttlSeconds));
+            }
+        } catch (Exception e) {
+            // The in-memory entry still protects this node; losing the durable copy is not fatal
+            System.out.println("[IDEMPOTENCY] Could not persist response for " + cacheKey + ": " + e.getMessage());
+        }
+    }
+
+    private static String fingerprint(String requestDescription) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(String.valueOf(requestDescription).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class Entry {
+        final String fingerprint;
+        final long createdAtMillis;
+        final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        Entry(String fingerprint, long createdAtMillis) {
+            this.fingerprint = fingerprint;
+            this.createdAtMillis = createdAtMillis;
+        }
+
+        boolean isExpired(long now, long ttlSeconds) {
+            return now - createdAtMillis > ttlSeconds * 1000;
+        }
+    }
+}
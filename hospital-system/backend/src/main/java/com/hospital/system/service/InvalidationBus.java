@@ -0,0 +1,205 @@
+package com.hospital.system.service;
+
+import com.hospital.system.event.BookingTransitionEvent;
+import com.hospital.system.event.EquipmentInvalidatedEvent;
+import com.hospital.system.event.EquipmentStatusEvent;
+import com.hospital.system.invalidation.InvalidationMessage;
+import com.hospital.system.invalidation.InvalidationTransport;
+import com.hospital.system.tenant.TenantContext;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tells the other backend nodes which machines this node changed, so they can drop or re-read only
+ * what they keep in memory about those machines (live queue streams, the patient search index, the
+ * dispatcher's technician pools).
+ *
+ * Every booking or equipment transition marks its machine; each transaction sends one compact
+ * message per machine it touched, through the configured InvalidationTransport. Every message from
+ * another node is applied, except one from the same node with a version no newer than the last
+ * applied from that node for that machine: a repeated delivery, or one overtaken by a later message
+ * that already caused a refresh. Applying means publishing an EquipmentInvalidatedEvent locally; the
+ * caches listen for it and re-read the machine from the database, so an extra refresh costs a read
+ * but a skipped one would leave a cache stale.
+ *
+ * Versions come from a hybrid logical clock: wall-clock milliseconds, shifted left to leave room for
+ * a counter, and pushed past every version this node has received. Only one node's versions are ever
+ * compared with each other; which of two nodes' changes committed last cannot be told from clocks,
+ * so messages from different nodes never cancel each other out.
+ */
+@Service
+public class InvalidationBus {
+
+    private static final int MAX_NODES_TRACKED = 32;
+
+    @Autowired
+    private InvalidationTransport transport;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${hospital.invalidation.node-id:}")
+    private String configuredNodeId;
+
+    private String nodeId;
+    private final AtomicLong clock = new AtomicLong();
+    // Per machine, the newest version applied from each other node (only the most recent nodes are kept)
+    private final Map<Long, Map<String, Long>> lastApplied = new ConcurrentHashMap<>();
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong applied = new AtomicLong();
+    private final AtomicLong ignored = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        nodeId = configuredNodeId == null || configuredNodeId.isBlank()
+                ? UUID.randomUUID().toString().substring(0, 8)
+                : configuredNodeId;
+    }
+
+    // Once the caches have loaded, so nothing is applied to a cache that is about to be replaced
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        transport.start(this::receive);
+    }
+
+    @EventListener
+    public void onBookingTransition(BookingTransitionEvent event) {
+        markChanged(event.getTenantId(), event.getEquipmentId());
+    }
+
+    @EventListener
+    public void onEquipmentStatus(EquipmentStatusEvent event) {
+        markChanged(event.getTenantId(), event.getEquipmentId());
+    }
+
+    /**
+     * Marks a machine as changed by the current transaction (or right now, outside one). Transitions
+     * are picked up from their events; other changes, such as planned maintenance, call this directly.
+     */
+    public void markChanged(String tenantId, Long equipmentId) {
+        if (equipmentId == null) {
+            return;
+        }
+        String tenant = tenantId == null ? TenantContext.DEFAULT_TENANT : tenantId;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            send(Map.of(equipmentId, tenant));
+            return;
+        }
+
+        // Inside a transaction: one message per machine, sent with the commit
+        @SuppressWarnings("unchecked")
+        Map<Long, String> pending = (Map<Long, String>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Map<Long, String> machines = new LinkedHashMap<>();
+            TransactionSynchronizationManager.bindResource(this, machines);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    if (transport.isTransactional()) {
+                        send(machines);
+                    }
+                }
+
+                @Override
+                public void afterCommit() {
+                    if (!transport.isTransactional()) {
+                        send(machines);
+                    }
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(InvalidationBus.this);
+                }
+            });
+            pending = machines;
+        }
+        pending.putIfAbsent(equipmentId, tenant);
+    }
+
+    private void send(Map<Long, String> machines) {
+        List<InvalidationMessage> messages = new ArrayList<>(machines.size());
+        machines.forEach((equipmentId, tenantId) -> {
+            messages.add(new InvalidationMessage(nodeId, tenantId, equipmentId, nextVersion()));
+        });
+        transport.publish(messages);
+        published.addAndGet(messages.size());
+    }
+
+    /** Called by the transport for every message that arrives, on its own thread. */
+    void receive(InvalidationMessage message) {
+        if (nodeId.equals(message.getNodeId())) {
+            return; // our own change, already reflected here
+        }
+        clock.accumulateAndGet(message.getVersion(), Math::max);
+        boolean[] repeat = {false};
+        lastApplied.compute(message.getEquipmentId(), (id, byNode) -> {
+            Map<String, Long> versions = byNode != null ? byNode : new LinkedHashMap<>(4, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                    return size() > MAX_NODES_TRACKED; // nodes that restarted come back under a new id
+                }
+            };
+            Long last = versions.get(message.getNodeId());
+            repeat[0] = last != null && message.getVersion() <= last;
+            if (!repeat[0]) {
+                versions.put(message.getNodeId(), message.getVersion());
+            }
+            return versions;
+        });
+        if (repeat[0]) {
+            ignored.incrementAndGet();
+            return;
+        }
+        applied.incrementAndGet();
+        try {
+            eventPublisher.publishEvent(new EquipmentInvalidatedEvent(message.getTenantId(), message.getEquipmentId(),
+                    message.getVersion()));
+        } catch (RuntimeException e) {
+            // The next change to this machine refreshes it again; keep the transport's thread alive
+            System.out.println("[INVALIDATION] Refresh of machine #" + message.getEquipmentId() + " failed: " + e.getMessage());
+        }
+    }
+
+    private long nextVersion() {
+        long wall = System.currentTimeMillis() << 12;
+        return clock.updateAndGet(last -> Math.max(last + 1, wall));
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /** Messages sent, applied and ignored as repeats since startup, for GET /api/admin/invalidation. */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("nodeId", nodeId);
+        stats.put("transport", transport.getClass().getSimpleName());
+        stats.put("published", published.get());
+        stats.put("applied", applied.get());
+        stats.put("ignoredRepeats", ignored.get());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        transport.stop();
+    }
+}
@@ -0,0 +1,241 @@
+package com.hospital.system.service;
+
+import com.hospital.system.event.EquipmentInvalidatedEvent;
+import com.hospital.system.model.Equipment;
+import com.hospital.system.model.MaintenanceWindow;
+import com.hospital.system.repository.EquipmentRepository;
+import com.hospital.system.repository.MaintenanceWindowRepository;
+import com.hospital.system.tenant.TenantContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * When each machine is out for planned maintenance, kept in memory as a per-machine timeline: the
+ * windows that have not ended yet, merged where they overlap or touch and sorted by start. Every
+ * question the booking path asks (is the machine in a window now, where is the next free stretch long
+ * enough for a procedure, when could the patient after the current queue start) is a binary search
+ * over that timeline, so none of them reads maintenance_window.
+ *
+ * A machine's timeline is immutable and replaced as a whole when one of its windows is added or
+ * cancelled (after the commit), or when another backend node reports a change to the machine
+ * (EquipmentInvalidatedEvent). Readers never lock; they see either the old timeline or the new one.
+ *
+ * Machines with no planned maintenance have no timeline at all, and every answer is the plain
+ * arithmetic the booking path used before windows existed.
+ */
+@Service
+public class MaintenanceTimeline {
+
+    @Autowired
+    private MaintenanceWindowRepository windowRepository;
+
+    @Autowired
+    private EquipmentRepository equipmentRepository;
+
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    private final Map<Long, Intervals> timelines = new ConcurrentHashMap<>();
+    // Reloads of one machine run one at a time, so an older read can never replace a newer one
+    private final Map<Long, Object> reloadLocks = new ConcurrentHashMap<>();
+
+    /** One stretch of planned maintenance: from start up to but not including end. */
+    public static final class Span {
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+
+        Span(LocalDateTime start, LocalDateTime end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        public LocalDateTime getStart() {
+            return start;
+        }
+
+        public LocalDateTime getEnd() {
+            return end;
+        }
+    }
+
+    /** Disjoint, non-adjacent intervals sorted by start: starts[i] < ends[i] < starts[i + 1]. */
+    private static final class Intervals {
+        final LocalDateTime[] starts;
+        final LocalDateTime[] ends;
+
+        Intervals(List<MaintenanceWindow> windowsByStart) {
+            List<LocalDateTime> mergedStarts = new ArrayList<>();
+            List<LocalDateTime> mergedEnds = new ArrayList<>();
+            for (MaintenanceWindow window : windowsByStart) {
+                int last = mergedEnds.size() - 1;
+                if (last >= 0 && !window.getStartsAt().isAfter(mergedEnds.get(last))) {
+                    if (window.getEndsAt().isAfter(mergedEnds.get(last))) {
+                        mergedEnds.set(last, window.getEndsAt());
+                    }
+                } else {
+                    mergedStarts.add(window.getStartsAt());
+                    mergedEnds.add(window.getEndsAt());
+                }
+            }
+            this.starts = mergedStarts.toArray(new LocalDateTime[0]);
+            this.ends = mergedEnds.toArray(new LocalDateTime[0]);
+        }
+
+        /** Index of the last interval starting at or before t, or -1. */
+        int floor(LocalDateTime t) {
+            int i = Arrays.binarySearch(starts, t);
+            return i >= 0 ? i : -i - 2;
+        }
+
+        /** Earliest moment at or after from that begins an unbroken free stretch of the given length. */
+        LocalDateTime freeStart(LocalDateTime from, long minutes) {
+            int i = floor(from);
+            LocalDateTime t = from;
+            if (i >= 0 && t.isBefore(ends[i])) {
+                t = ends[i];
+            }
+            // Every later interval starts after t; hop over those the procedure would run into
+            for (int j = i + 1; j < starts.length && t.plusMinutes(minutes).isAfter(starts[j]); j++) {
+                t = ends[j];
+            }
+            return t;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        rebuild();
+    }
+
+    /** Reloads every machine's timeline from maintenance_window. Returns the number of windows loaded. */
+    @Transactional(readOnly = true)
+    public int rebuild() {
+        List<MaintenanceWindow> all = windowRepository.findNotEndedBy(LocalDateTime.now());
+        Map<Long, List<MaintenanceWindow>> byEquipment = new LinkedHashMap<>();
+        for (MaintenanceWindow window : all) {
+            byEquipment.computeIfAbsent(window.getEquipmentId(), id -> new ArrayList<>()).add(window);
+        }
+        timelines.clear();
+        byEquipment.forEach((equipmentId, windows) -> timelines.put(equipmentId, new Intervals(windows)));
+        System.out.println("[MAINTENANCE] Loaded " + all.size() + " planned maintenance windows");
+        return all.size();
+    }
+
+    /** Re-reads one machine's windows, e.g. after another node scheduled maintenance on it. */
+    public void reload(Long equipmentId) {
+        synchronized (reloadLocks.computeIfAbsent(equipmentId, id -> new Object())) {
+            List<MaintenanceWindow> windows = windowRepository.findNotEndedBy(equipmentId, LocalDateTime.now());
+            if (windows.isEmpty()) {
+                timelines.remove(equipmentId);
+            } else {
+                timelines.put(equipmentId, new Intervals(windows));
+            }
+        }
+    }
+
+    @EventListener
+    public void onEquipmentInvalidated(EquipmentInvalidatedEvent event) {
+        reload(event.getEquipmentId());
+    }
+
+    /** The planned maintenance the machine is in at time t, or null when it is not in any. */
+    public Span windowAt(Long equipmentId, LocalDateTime t) {
+        Intervals timeline = timelines.get(equipmentId);
+        if (timeline == null) {
+            return null;
+        }
+        int i = timeline.floor(t);
+        return i >= 0 && t.isBefore(timeline.ends[i]) ? new Span(timeline.starts[i], timeline.ends[i]) : null;
+    }
+
+    /** Earliest start at or after from for a procedure of the given length that no planned maintenance interrupts. */
+    public LocalDateTime findFreeStart(Long equipmentId, LocalDateTime from, long minutes) {
+        Intervals timeline = timelines.get(equipmentId);
+        return timeline == null ? from : timeline.freeStart(from, minutes);
+    }
+
+    /**
+     * When the procedure after the given number of queued ones could start, each procedure taking
+     * the given minutes and none of them interrupted by planned maintenance.
+     */
+    public LocalDateTime nextStart(Long equipmentId, LocalDateTime from, int queued, long minutes) {
+        Intervals timeline = timelines.get(equipmentId);
+        if (timeline == null) {
+            return from.plusMinutes(queued * minutes);
+        }
+        LocalDateTime t = from;
+        for (int k = 0; k < queued; k++) {
+            t = timeline.freeStart(t, minutes).plusMinutes(minutes);
+        }
+        return timeline.freeStart(t, minutes);
+    }
+
+    /** Planned maintenance of one of this hospital's machines that has not ended yet, soonest first. */
+    public List<MaintenanceWindow> getWindows(Long equipmentId) {
+        findInTenant(equipmentId);
+        return windowRepository.findNotEndedBy(equipmentId, LocalDateTime.now());
+    }
+
+    @Transactional
+    public MaintenanceWindow schedule(MaintenanceWindow window) {
+        Equipment equipment = findInTenant(window.getEquipmentId());
+        if (window.getStartsAt() == null || window.getEndsAt() == null || !window.getEndsAt().isAfter(window.getStartsAt())) {
+            throw new RuntimeException("Error: A maintenance window must end after it starts.");
+        }
+        if (!window.getEndsAt().isAfter(LocalDateTime.now())) {
+            throw new RuntimeException("Error: That maintenance window is already over.");
+        }
+        window.setId(null);
+        window.setTenantId(equipment.getTenantId());
+        MaintenanceWindow saved = windowRepository.save(window);
+        changed(saved);
+        System.out.println("[MAINTENANCE] " + equipment.getName() + " planned out from " + saved.getStartsAt()
+                + " to " + saved.getEndsAt());
+        return saved;
+    }
+
+    @Transactional
+    public void cancel(Long windowId) {
+        MaintenanceWindow window = windowRepository.findById(windowId)
+                .filter(w -> TenantContext.get().equals(w.getTenantId()))
+                .orElseThrow(() -> new RuntimeException("Error: Maintenance window not found."));
+        windowRepository.delete(window);
+        changed(window);
+    }
+
+    private void changed(MaintenanceWindow window) {
+        Long equipmentId = window.getEquipmentId();
+        invalidationBus.markChanged(window.getTenantId(), equipmentId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reload(equipmentId);
+                }
+            });
+        } else {
+            reload(equipmentId);
+        }
+    }
+
+    private Equipment findInTenant(Long equipmentId) {
+        Equipment equipment = equipmentId == null ? null : equipmentRepository.findById(equipmentId).orElse(null);
+        if (equipment == null || !TenantContext.get().equals(equipment.getTenantId())) {
+            throw new RuntimeException("Error: Equipment not found.");
+        }
+        return equipment;
+    }
+}
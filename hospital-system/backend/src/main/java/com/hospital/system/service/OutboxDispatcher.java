@@ -0,0 +1,126 @@
+package com.hospital.system.service;
+
+import com.hospital.system.model.OutboxMessage;
+import com.hospital.system.notification.NotificationSink;
+import com.hospital.system.repository.OutboxMessageRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivers outbox messages to the configured NotificationSink on its own background thread.
+ * Each pass reads up to batch-size due messages, hands them to the sink in one call and marks them
+ * SENT with one UPDATE. If the sink fails, the whole batch is rescheduled with exponential backoff
+ * (base * 2^attempts, capped) and parked as FAILED after max-attempts. When a full batch was sent
+ * the next pass starts right away, so a backlog drains at sink speed rather than at the poll rate.
+ *
+ * One dispatcher thread per node; with several nodes each message may be delivered more than once,
+ * which the at-least-once contract of NotificationSink already allows.
+ */
+@Service
+public class OutboxDispatcher {
+
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+
+    @Autowired
+    private NotificationSink sink;
+
+    @Value("${hospital.outbox.dispatch-enabled:true}")
+    private boolean dispatchEnabled;
+
+    @Value("${hospital.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${hospital.outbox.poll-interval-ms:1000}")
+    private long pollIntervalMillis;
+
+    @Value("${hospital.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${hospital.outbox.backoff-base-ms:1000}")
+    private long backoffBaseMillis;
+
+    @Value("${hospital.outbox.backoff-max-ms:300000}")
+    private long backoffMaxMillis;
+
+    // Separate from QueueService's scheduler so a slow sink can never delay the auto-revert
+    private final ScheduledExecutorService dispatcher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "outbox-dispatcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    void start() {
+        if (dispatchEnabled) {
+            dispatcher.scheduleWithFixedDelay(this::drain, pollIntervalMillis, pollIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void drain() {
+        try {
+            // Keep going while batches come back full, but never spin on a failing sink
+            int delivered;
+            do {
+                delivered = dispatchOnce();
+            } while (delivered == batchSize);
+        } catch (RuntimeException e) {
+            // Database hiccup: try again on the next tick rather than killing the scheduled task
+            System.out.println("[OUTBOX] Dispatch pass failed: " + e.getMessage());
+        }
+    }
+
+    /** One delivery pass. Returns how many messages were delivered. */
+    public int dispatchOnce() {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxMessage> batch = outboxMessageRepository.findDue(now, PageRequest.of(0, batchSize));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = batch.stream().map(OutboxMessage::getId).toList();
+        try {
+            sink.deliver(batch);
+        } catch (Exception e) {
+            int attempts = batch.stream().mapToInt(OutboxMessage::getAttempts).max().orElse(0) + 1;
+            LocalDateTime retryAt = now.plusNanos(backoffMillis(attempts) * 1_000_000);
+            outboxMessageRepository.markFailed(ids, retryAt, truncate(String.valueOf(e.getMessage())), maxAttempts);
+            System.out.println("[OUTBOX] Delivery of " + ids.size() + " message(s) failed (attempt " + attempts
+                    + "), retrying at " + retryAt + ": " + e.getMessage());
+            return 0;
+        }
+        outboxMessageRepository.markSent(ids, LocalDateTime.now());
+        return ids.size();
+    }
+
+    long backoffMillis(int attempts) {
+        int shift = Math.min(attempts - 1, 30);
+        return Math.min(backoffMaxMillis, backoffBaseMillis << shift);
+    }
+
+    private static String truncate(String message) {
+        return message.length() <= 500 ? message : message.substring(0, 500);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdown();
+        try {
+            if (!dispatcher.awaitTermination(5, TimeUnit.SECONDS)) {
+                dispatcher.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            dispatcher.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
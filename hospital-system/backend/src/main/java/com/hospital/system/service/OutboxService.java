@@ -0,0 +1,52 @@
+package com.hospital.system.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hospital.system.event.BookingTransitionEvent;
+import com.hospital.system.model.OutboxMessage;
+import com.hospital.system.repository.OutboxMessageRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Writes call-display notifications to the outbox. The listener runs synchronously inside the
+ * transaction of QueueService.callNext, so the notification is stored if and only if the patient
+ * really was called; all the click pays for is one INSERT. OutboxDispatcher delivers it afterwards.
+ */
+@Service
+public class OutboxService {
+
+    public static final String PATIENT_CALLED = "PATIENT_CALLED";
+
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @EventListener
+    public void onBookingTransition(BookingTransitionEvent event) {
+        if (!"CONFIRMED".equals(event.getFromStatus()) || !"IN_USE".equals(event.getToStatus())) {
+            return;
+        }
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("bookingId", event.getBookingId());
+        payload.put("equipmentId", event.getEquipmentId());
+        payload.put("patientName", event.getPatientName());
+        payload.put("priority", event.getPriority());
+        payload.put("calledAt", event.getAt());
+        outboxMessageRepository.save(new OutboxMessage(PATIENT_CALLED, toJson(payload), event.getAt()));
+    }
+
+    private String toJson(Map<String, Object> payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Outbox payload is not serializable", e);
+        }
+    }
+}
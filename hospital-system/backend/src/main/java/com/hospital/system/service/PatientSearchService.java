@@ -0,0 +1,448 @@
+package com.hospital.system.service;
+
+import com.hospital.system.dto.PatientMatch;
+import com.hospital.system.event.BookingTransitionEvent;
+import com.hospital.system.event.EquipmentInvalidatedEvent;
+import com.hospital.system.model.Booking;
+import com.hospital.system.model.Priority;
+import com.hospital.system.repository.BookingRepository;
+import com.hospital.system.tenant.TenantContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Patient lookup for the front desk behind GET /api/bookings/search.
+ *
+ * Active (not SERVED) bookings are indexed in memory twice: a sorted token map for "starts with"
+ * ("joh" finds "John Doe", "doe" finds it too) and a trigram map for matches inside a word
+ * ("ohn" finds "John"). A query is answered from these maps alone, without touching the booking
+ * table, and ranked exact word first, then word prefix, then inside a word, then by priority and arrival.
+ *
+ * Each hospital (tenant) has an index of its own with its own lock, so a search only ever sees its own
+ * hospital's patients and a busy hospital's updates never hold up another's searches.
+ *
+ * The indexes are loaded at startup and then kept current from BookingTransitionEvents after they commit:
+ * a new booking is added, SERVED removes it, anything else updates its status and priority. Memory is
+ * bounded by hospital.search.max-entries per tenant; past that, new bookings are not indexed and that
+ * tenant's searches fall back to a LIKE query until the next rebuild. When another backend node changes a
+ * machine's bookings, only that machine's entries are re-read (EquipmentInvalidatedEvent).
+ */
+@Service
+public class PatientSearchService {
+
+    private static final int DEFAULT_LIMIT = 10;
+    private static final int MAX_LIMIT = 50;
+    private static final int GRAM = 3;
+
+    // Score per query word; lower is better
+    private static final int EXACT = 0;
+    private static final int PREFIX = 1;
+    private static final int INFIX = 2;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Value("${hospital.search.max-entries:200000}")
+    private int maxEntries;
+
+    // Write-locked only by rebuild, which replaces every index; everything else shares it
+    private final ReentrantReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+    private final Map<String, TenantIndex> indexes = new ConcurrentHashMap<>();
+
+    private static final class Entry {
+        final Long bookingId;
+        final String patientName;
+        final String[] nameWords;
+        final Long equipmentId;
+        final LocalDateTime bookingTime;
+        String status;
+        Priority priority;
+
+        Entry(Long bookingId, String patientName, Long equipmentId, String status,
+              Priority priority, LocalDateTime bookingTime) {
+            this.bookingId = bookingId;
+            this.patientName = patientName;
+            this.nameWords = words(patientName);
+            this.equipmentId = equipmentId;
+            this.status = status;
+            this.priority = priority;
+            this.bookingTime = bookingTime;
+        }
+
+        PatientMatch toMatch() {
+            return new PatientMatch(bookingId, patientName, equipmentId, status, priority, bookingTime);
+        }
+    }
+
+    private static final Comparator<Entry> BY_PRIORITY_THEN_ARRIVAL = Comparator
+            .comparing((Entry e) -> e.priority, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(e -> e.bookingTime, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(e -> e.bookingId);
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void onReady() {
+        rebuild();
+    }
+
+    /** Reloads every tenant's index from the booking table. Returns the number of bookings indexed. */
+    @Transactional(readOnly = true)
+    public int rebuild() {
+        // Held across the read so no transition can be applied to the old maps and then lost
+        rebuildLock.writeLock().lock();
+        try {
+            indexes.clear();
+            int indexed = 0;
+            for (Booking booking : bookingRepository.findByStatusNot("SERVED")) {
+                TenantIndex index = index(booking.getTenantId());
+                int before = index.entries.size();
+                index.add(new Entry(booking.getId(), booking.getPatientName(), booking.getEquipmentId(),
+                        booking.getStatus(), booking.getPriority(), booking.getBookingTime()));
+                indexed += index.entries.size() - before;
+            }
+            System.out.println("[SEARCH] Indexed " + indexed + " active bookings for " + indexes.size() + " tenants");
+            return indexed;
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+    }
+
+    /** Reloads one tenant's index from the booking table; other tenants keep searching meanwhile. */
+    @Transactional(readOnly = true)
+    public int rebuild(String tenantId) {
+        rebuildLock.readLock().lock();
+        try {
+            TenantIndex index = index(tenantId);
+            // Held across the read so no transition can be applied to the old entries and then lost
+            index.lock.writeLock().lock();
+            try {
+                index.clear();
+                for (Booking booking : bookingRepository.findByTenantIdAndStatusNot(tenantId, "SERVED")) {
+                    index.add(new Entry(booking.getId(), booking.getPatientName(), booking.getEquipmentId(),
+                            booking.getStatus(), booking.getPriority(), booking.getBookingTime()));
+                }
+                System.out.println("[SEARCH] Indexed " + index.entries.size() + " active bookings for tenant " + tenantId);
+                return index.entries.size();
+            } finally {
+                index.lock.writeLock().unlock();
+            }
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    // After commit, so a rolled-back booking never becomes searchable
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingTransition(BookingTransitionEvent event) {
+        rebuildLock.readLock().lock();
+        try {
+            TenantIndex index = index(event.getTenantId());
+            index.lock.writeLock().lock();
+            try {
+                index.apply(event);
+            } finally {
+                index.lock.writeLock().unlock();
+            }
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onEquipmentInvalidated(EquipmentInvalidatedEvent event) {
+        refreshEquipment(event.getTenantId(), event.getEquipmentId());
+    }
+
+    /** Replaces the entries of one machine's bookings with what the booking table holds now. */
+    public void refreshEquipment(String tenantId, Long equipmentId) {
+        List<Booking> active = bookingRepository.findByEquipmentIdAndStatusNot(equipmentId, "SERVED");
+        rebuildLock.readLock().lock();
+        try {
+            TenantIndex index = index(tenantId);
+            index.lock.writeLock().lock();
+            try {
+                for (Long bookingId : new ArrayList<>(index.byEquipment.getOrDefault(equipmentId, Set.of()))) {
+                    index.remove(index.entries.get(bookingId));
+                }
+                for (Booking booking : active) {
+                    index.add(new Entry(booking.getId(), booking.getPatientName(), booking.getEquipmentId(),
+                            booking.getStatus(), booking.getPriority(), booking.getBookingTime()));
+                }
+            } finally {
+                index.lock.writeLock().unlock();
+            }
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    /** Searches the current tenant's patients. */
+    public List<PatientMatch> search(String q, Integer limit) {
+        String[] terms = q == null ? new String[0] : words(q);
+        if (terms.length == 0) {
+            throw new RuntimeException("Error: q must contain at least one letter or digit.");
+        }
+        int size = limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, MAX_LIMIT));
+        String tenantId = TenantContext.get();
+
+        rebuildLock.readLock().lock();
+        try {
+            TenantIndex index = indexes.get(tenantId);
+            if (index == null) {
+                return List.of();
+            }
+            index.lock.readLock().lock();
+            try {
+                if (!index.overCapacity) {
+                    return index.search(terms, size);
+                }
+            } finally {
+                index.lock.readLock().unlock();
+            }
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+        // Outside the locks: a slow scan must not hold up index updates
+        return searchDatabase(tenantId, q.trim(), size);
+    }
+
+    public int getIndexedCount() {
+        rebuildLock.readLock().lock();
+        try {
+            int count = 0;
+            for (TenantIndex index : indexes.values()) {
+                index.lock.readLock().lock();
+                try {
+                    count += index.entries.size();
+                } finally {
+                    index.lock.readLock().unlock();
+                }
+            }
+            return count;
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    private TenantIndex index(String tenantId) {
+        return indexes.computeIfAbsent(tenantId == null ? TenantContext.DEFAULT_TENANT : tenantId,
+                t -> new TenantIndex());
+    }
+
+    private List<PatientMatch> searchDatabase(String tenantId, String q, int size) {
+        List<PatientMatch> result = new ArrayList<>();
+        for (Booking booking : bookingRepository.searchActiveByName(tenantId, q, PageRequest.of(0, size))) {
+            result.add(new PatientMatch(booking.getId(), booking.getPatientName(), booking.getEquipmentId(),
+                    booking.getStatus(), booking.getPriority(), booking.getBookingTime()));
+        }
+        return result;
+    }
+
+    /** One hospital's bookings; every access holds its lock. */
+    private final class TenantIndex {
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        final Map<Long, Entry> entries = new HashMap<>();
+        final TreeMap<String, Set<Long>> words = new TreeMap<>();
+        final Map<String, Set<Long>> trigrams = new HashMap<>();
+        final Map<Long, Set<Long>> byEquipment = new HashMap<>();
+        boolean overCapacity;
+
+        void clear() {
+            entries.clear();
+            words.clear();
+            trigrams.clear();
+            byEquipment.clear();
+            overCapacity = false;
+        }
+
+        void apply(BookingTransitionEvent event) {
+            Entry existing = entries.get(event.getBookingId());
+            if ("SERVED".equals(event.getToStatus())) {
+                if (existing != null) {
+                    remove(existing);
+                }
+            } else if (existing != null) {
+                existing.status = event.getToStatus();
+                if (event.getPriority() != null) {
+                    existing.priority = event.getPriority();
+                }
+            } else if (event.getPatientName() != null) {
+                add(new Entry(event.getBookingId(), event.getPatientName(), event.getEquipmentId(),
+                        event.getToStatus(), event.getPriority(), event.getBookingTime()));
+            }
+        }
+
+        List<PatientMatch> search(String[] terms, int size) {
+            Map<Long, Integer> scores = null;
+            for (String term : terms) {
+                Map<Long, Integer> termScores = match(term);
+                scores = scores == null ? termScores : combine(scores, termScores);
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+            return topK(scores, size);
+        }
+
+        // Best score per booking for one query word
+        private Map<Long, Integer> match(String term) {
+            Map<Long, Integer> scores = new HashMap<>();
+            // Every indexed word that starts with the term is one contiguous range of the sorted map
+            for (Map.Entry<String, Set<Long>> word : words.subMap(term, true, term + Character.MAX_VALUE, false).entrySet()) {
+                int score = word.getKey().length() == term.length() ? EXACT : PREFIX;
+                for (Long id : word.getValue()) {
+                    scores.merge(id, score, Math::min);
+                }
+            }
+            if (term.length() >= GRAM) {
+                for (Long id : containing(term)) {
+                    scores.putIfAbsent(id, INFIX);
+                }
+            }
+            return scores;
+        }
+
+        // Bookings with a word that contains the term: intersect its trigram lists, then check the words
+        private Set<Long> containing(String term) {
+            List<Set<Long>> lists = new ArrayList<>();
+            for (String gram : grams(term)) {
+                Set<Long> ids = trigrams.get(gram);
+                if (ids == null) {
+                    return Set.of();
+                }
+                lists.add(ids);
+            }
+            lists.sort(Comparator.comparingInt(Set::size));
+            Set<Long> result = new HashSet<>();
+            for (Long id : lists.get(0)) {
+                if (lists.stream().allMatch(ids -> ids.contains(id)) && containsWord(entries.get(id), term)) {
+                    result.add(id);
+                }
+            }
+            return result;
+        }
+
+        // Bounded heap: O(n log k) however many bookings matched a short prefix
+        private List<PatientMatch> topK(Map<Long, Integer> scores, int k) {
+            Comparator<Entry> rank = Comparator.comparingInt((Entry e) -> scores.get(e.bookingId))
+                    .thenComparing(BY_PRIORITY_THEN_ARRIVAL);
+            PriorityQueue<Entry> worstFirst = new PriorityQueue<>(k + 1, rank.reversed());
+            for (Long id : scores.keySet()) {
+                worstFirst.add(entries.get(id));
+                if (worstFirst.size() > k) {
+                    worstFirst.poll();
+                }
+            }
+            List<Entry> best = new ArrayList<>(worstFirst);
+            best.sort(rank);
+            List<PatientMatch> result = new ArrayList<>(best.size());
+            best.forEach(e -> result.add(e.toMatch()));
+            return result;
+        }
+
+        private void add(Entry entry) {
+            if (entries.containsKey(entry.bookingId)) {
+                remove(entries.get(entry.bookingId));
+            }
+            if (entries.size() >= maxEntries) {
+                if (!overCapacity) {
+                    System.out.println("[SEARCH] Index full at " + maxEntries + " bookings; searching the database until the next rebuild");
+                }
+                overCapacity = true;
+                return;
+            }
+            entries.put(entry.bookingId, entry);
+            byEquipment.computeIfAbsent(entry.equipmentId, id -> new HashSet<>()).add(entry.bookingId);
+            for (String word : entry.nameWords) {
+                words.computeIfAbsent(word, w -> new HashSet<>()).add(entry.bookingId);
+                for (String gram : grams(word)) {
+                    trigrams.computeIfAbsent(gram, g -> new HashSet<>()).add(entry.bookingId);
+                }
+            }
+        }
+
+        private void remove(Entry entry) {
+            entries.remove(entry.bookingId);
+            Set<Long> machineBookings = byEquipment.get(entry.equipmentId);
+            if (machineBookings != null && machineBookings.remove(entry.bookingId) && machineBookings.isEmpty()) {
+                byEquipment.remove(entry.equipmentId);
+            }
+            for (String word : entry.nameWords) {
+                removeId(words, word, entry.bookingId);
+                for (String gram : grams(word)) {
+                    removeId(trigrams, gram, entry.bookingId);
+                }
+            }
+        }
+    }
+
+    private static boolean containsWord(Entry entry, String term) {
+        for (String word : entry.nameWords) {
+            if (word.contains(term)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Keeps bookings that matched every word so far, adding up their scores
+    private static Map<Long, Integer> combine(Map<Long, Integer> scores, Map<Long, Integer> termScores) {
+        Map<Long, Integer> combined = new HashMap<>();
+        scores.forEach((id, score) -> {
+            Integer termScore = termScores.get(id);
+            if (termScore != null) {
+                combined.put(id, score + termScore);
+            }
+        });
+        return combined;
+    }
+
+    private static void removeId(Map<String, Set<Long>> index, String key, Long id) {
+        Set<Long> ids = index.get(key);
+        if (ids != null && ids.remove(id) && ids.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private static List<String> grams(String word) {
+        List<String> grams = new ArrayList<>();
+        for (int i = 0; i + GRAM <= word.length(); i++) {
+            grams.add(word.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    /** Lower-case words with accents and punctuation removed: "Zoë O'Brien (Urgent)" is [zoe, o, brien, urgent]. */
+    static String[] words(String text) {
+        if (text == null) {
+            return new String[0];
+        }
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT)
+                .replaceAll("[^\\p{Alnum}]+", " ")
+                .trim();
+        return folded.isEmpty() ? new String[0] : folded.split(" ");
+    }
+}
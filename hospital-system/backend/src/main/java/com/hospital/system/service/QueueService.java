@@ -1,20 +1,54 @@
 package com.hospital.system.service;
 
+import com.hospital.system.dto.BookingRequest;
+import com.hospital.system.dto.ConfirmOutcome;
+import com.hospital.system.dto.ConfirmRequest;
+import com.hospital.system.dto.ErrorCode;
+import com.hospital.system.dto.PendingPage;
+import com.hospital.system.dto.PendingSummary;
+import com.hospital.system.dto.Result;
+import com.hospital.system.dto.SlotHold;
+import com.hospital.system.event.BookingTransitionEvent;
+import com.hospital.system.event.EquipmentStatusEvent;
+import com.hospital.system.event.QueueChangedEvent;
+import com.hospital.system.jfr.AutoRevertEvent;
+import com.hospital.system.jfr.BookingConfirmedEvent;
+import com.hospital.system.jfr.BookingCreatedEvent;
+import com.hospital.system.jfr.BookingServedEvent;
+import com.hospital.system.jfr.CallNextEvent;
+import com.hospital.system.jfr.QueueReadEvent;
 import com.hospital.system.model.Booking;
 import com.hospital.system.model.Priority;
+import com.hospital.system.model.QueueEntry;
 import com.hospital.system.repository.BookingRepository;
+import com.hospital.system.tenant.TenantContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.hospital.system.model.Equipment;
 import com.hospital.system.model.EquipmentStatus;
 import com.hospital.system.repository.EquipmentRepository;
-import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -28,109 +62,551 @@ public class QueueService {
     @Autowired
     private EquipmentRepository equipmentRepository;
 
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
+    @Autowired
+    private ResourceDispatcher resourceDispatcher;
+
+    @Autowired
+    private EquipmentWorkLanes workLanes;
+
+    @Autowired
+    private MaintenanceTimeline maintenanceTimeline;
 
+    @Autowired
+    private SlotHoldService slotHolds;
+
+    @Autowired
+    private QueueViewService queueView;
+
+    // Listeners (displays, caches) hear about queue changes through Spring application events
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // Pending inbox page size bounds; the admin console asks for 50 at a time
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+
+    /** Live queue order: priority (high to low), then arrival (oldest first). */
+    public static final Comparator<Booking> QUEUE_ORDER = Comparator.comparing(Booking::getPriority).reversed()
+            .thenComparing(Booking::getBookingTime);
+
+    // Machines never move between hospitals, so the owner is looked up once per machine
+    private final Map<Long, String> tenantByEquipment = new ConcurrentHashMap<>();
+
+    // Patients called on this node whose procedure has not ended; serving one needs no read of the booking.
+    // An entry leaves when the patient is served or auto-reverted, so there is at most one per busy machine.
+    // Entries are only added once the call has committed.
+    private final Map<Long, Booking> inProcedure = new ConcurrentHashMap<>();
+
+    @Transactional
     public Booking createBookingRequest(Booking booking) {
+        return createBookingRequest(booking, null);
+    }
+
+    /**
+     * Creates a PENDING booking. With a holdId (from POST /api/holds) the booking takes the held slot,
+     * and the hold is used up only if the booking is saved. Without one, a slot another patient is
+     * holding is refused. Refusals are thrown as Result.Rejected; see submitBooking for the
+     * non-throwing form.
+     */
+    @Transactional
+    public Booking createBookingRequest(Booking booking, String holdId) {
+        return book(booking, holdId).orThrow();
+    }
+
+    /**
+     * POST /api/bookings: validates and saves the request, returning the reason instead of throwing when
+     * it is refused. Only infrastructure failures (e.g. the database) still throw. The booking and its
+     * change_log entry commit together.
+     */
+    @Transactional
+    public Result<Booking> submitBooking(BookingRequest request) {
+        if (request.getEquipmentId() == null) {
+            return Result.rejected(ErrorCode.EQUIPMENT_REQUIRED, "Error: equipmentId is required.");
+        }
+        Booking booking = new Booking();
+        booking.setPatientName(request.getPatientName());
+        booking.setEquipmentId(request.getEquipmentId());
+        booking.setSlotTime(request.getSlotTime());
+        booking.setPriority(request.priority()); // unknown priorities become NORMAL on save
+        return book(booking, request.getHoldId());
+    }
+
+    private Result<Booking> book(Booking booking, String holdId) {
+        BookingCreatedEvent jfr = new BookingCreatedEvent();
+        jfr.begin();
         if (booking.getBookingTime() == null) {
-            booking.setBookingTime(LocalDateTime.now());
+            // Truncate to the column precision so pagination cursors match what is stored
+            booking.setBookingTime(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
         }
 
         // Check if equipment exists and is available
         Equipment equipment = equipmentRepository.findById(booking.getEquipmentId()).orElse(null);
-        if (equipment == null) {
-            throw new RuntimeException("Error: Equipment not found.");
+        if (equipment == null || !TenantContext.get().equals(equipment.getTenantId())) {
+            return Result.rejected(ErrorCode.EQUIPMENT_NOT_FOUND, "Error: Equipment not found.");
         }
         if (equipment.getStatus() == EquipmentStatus.MAINTENANCE) {
-            throw new RuntimeException("Error: " + equipment.getName() + " is under maintenance and cannot be booked.");
+            return Result.rejected(ErrorCode.EQUIPMENT_UNDER_MAINTENANCE,
+                    "Error: " + equipment.getName() + " is under maintenance and cannot be booked.");
         }
 
+        SlotHold hold = null;
+        if (holdId != null && !holdId.isBlank()) {
+            Result<SlotHold> held = slotHolds.tryBeginConversion(holdId, equipment.getId());
+            if (!held.isOk()) {
+                return held.cast();
+            }
+            hold = held.getValue();
+            booking.setSlotTime(hold.getSlotTime().toString());
+        }
+        Result<Booking> saved;
+        try {
+            saved = saveBookingRequest(booking, equipment, hold);
+        } catch (RuntimeException e) {
+            if (hold != null) {
+                finishConversion(hold, false);
+            }
+            throw e;
+        }
+        if (hold != null) {
+            finishConversion(hold, saved.isOk());
+        }
+        if (saved.isOk() && jfr.shouldCommit()) {
+            jfr.bookingId = saved.getValue().getId();
+            jfr.equipmentId = saved.getValue().getEquipmentId();
+            jfr.requestedPriority = saved.getValue().getPriority().name();
+            jfr.commit();
+        }
+        return saved;
+    }
+
+    private Result<Booking> saveBookingRequest(Booking booking, Equipment equipment, SlotHold hold) {
         // Server-Side Date Validation (assuming slotTime is ISO string)
-        if (booking.getSlotTime() != null && !booking.getSlotTime().isEmpty()) {
-            try {
-                LocalDateTime selected = LocalDateTime.parse(booking.getSlotTime());
-                if (selected.isBefore(LocalDateTime.now())) {
-                    throw new RuntimeException("Error: Booking date cannot be in the past.");
-                }
-            } catch (RuntimeException e) {
-                // Re-throw our validation errors
-                if (e.getMessage().contains("Booking date cannot be in the past")) {
-                    throw e;
-                }
-                // For other parsing errors, continue with validation
+        LocalDateTime selected = parseSlotTime(booking.getSlotTime());
+        if (selected != null) {
+            if (selected.isBefore(LocalDateTime.now())) {
+                return Result.rejected(ErrorCode.SLOT_IN_PAST, "Error: Booking date cannot be in the past.");
+            }
+            // The whole procedure has to fit before any planned maintenance that follows the slot
+            LocalDateTime free = maintenanceTimeline.findFreeStart(equipment.getId(), selected, equipment.getBufferTime());
+            if (!free.equals(selected)) {
+                return Result.rejected(ErrorCode.SLOT_IN_MAINTENANCE, "Error: " + equipment.getName()
+                        + " has planned maintenance at that time. The next free slot is "
+                        + free.truncatedTo(ChronoUnit.MINUTES) + ".");
+            }
+            SlotHold taken = hold == null ? slotHolds.heldAt(equipment.getId(), selected, equipment.getBufferTime()) : null;
+            if (taken != null) {
+                return Result.rejected(ErrorCode.SLOT_HELD, "Error: That slot is held by another patient until "
+                        + taken.getExpiresAt().truncatedTo(ChronoUnit.SECONDS) + ".");
             }
         }
 
         // Ensure status is PENDING (new bookings should always start as PENDING)
         booking.setStatus("PENDING");
+        booking.setTenantId(equipment.getTenantId());
         
         // If priority is not set, default to NORMAL
         if (booking.getPriority() == null) {
             booking.setPriority(Priority.NORMAL);
         }
         
-        return bookingRepository.save(booking);
+        Booking saved = bookingRepository.save(booking);
+        publishTransition(saved, null);
+        return Result.ok(saved);
+    }
+
+    // Unparseable slot times are accepted as before; only a readable time can be checked
+    private static LocalDateTime parseSlotTime(String slotTime) {
+        // Free text cannot be an ISO date-time; skip the parser, which throws to say no
+        if (slotTime == null || slotTime.length() < 16 || slotTime.charAt(10) != 'T') {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(slotTime);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
     }
 
     public List<Booking> getPendingBookings() {
-        return bookingRepository.findByStatus("PENDING");
+        return bookingRepository.findByTenantIdAndStatus(TenantContext.get(), "PENDING");
     }
 
+    /**
+     * Keyset-paginated triage inbox. Requests are ordered by requested priority (EMERGENCY first),
+     * then bookingTime, then id. Each priority is read with its own index-friendly range query, so a
+     * page costs at most one query per priority regardless of how deep the cursor is.
+     */
+    public PendingPage getPendingPage(Long equipmentId, String type, Priority priority, String cursor, Integer limit) {
+        return getPendingPage(equipmentId, type, priority, cursor, limit, null);
+    }
+
+    /**
+     * Same as above for callers that already hold the summary for the same filters:
+     * priorities with nothing pending are skipped instead of queried.
+     */
+    public PendingPage getPendingPage(Long equipmentId, String type, Priority priority, String cursor, Integer limit,
+                                      PendingSummary knownCounts) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        Priority afterPriority = null;
+        LocalDateTime afterTime = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            String[] parts = decodeCursor(cursor);
+            afterPriority = Priority.valueOf(parts[0]);
+            afterTime = LocalDateTime.parse(parts[1]);
+            afterId = Long.valueOf(parts[2]);
+        }
+
+        List<Booking> items = new ArrayList<>();
+        Priority[] priorities = Priority.values();
+        for (int i = priorities.length - 1; i >= 0 && items.size() <= pageSize; i--) {
+            Priority current = priorities[i];
+            if (priority != null && current != priority) continue;
+            if (afterPriority != null && current.compareTo(afterPriority) > 0) continue; // already paged past it
+            if (knownCounts != null && knownCounts.getByPriority().getOrDefault(current, 0L) == 0) continue;
+
+            boolean resume = current == afterPriority;
+            // Fetch one extra row so we know whether another page exists
+            int remaining = pageSize + 1 - items.size();
+            items.addAll(bookingRepository.findPendingPage(TenantContext.get(), current, equipmentId, type,
+                    resume ? afterTime : null, resume ? afterId : null, PageRequest.of(0, remaining)));
+        }
+
+        String nextCursor = null;
+        if (items.size() > pageSize) {
+            items = new ArrayList<>(items.subList(0, pageSize));
+            nextCursor = encodeCursor(items.get(pageSize - 1));
+        }
+        return new PendingPage(items, nextCursor);
+    }
+
+    public PendingSummary getPendingSummary(Long equipmentId, String type) {
+        Map<Priority, Long> counts = new EnumMap<>(Priority.class);
+        for (Priority p : Priority.values()) {
+            counts.put(p, 0L);
+        }
+        for (Object[] row : bookingRepository.countPendingByPriority(TenantContext.get(), equipmentId, type)) {
+            counts.put((Priority) row[0], (Long) row[1]);
+        }
+        return new PendingSummary(counts);
+    }
+
+    private String encodeCursor(Booking last) {
+        String raw = last.getPriority().name() + "|" + last.getBookingTime() + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException(raw);
+            }
+            // Validate every part up front so a tampered cursor fails with one clear message
+            Priority.valueOf(parts[0]);
+            LocalDateTime.parse(parts[1]);
+            Long.valueOf(parts[2]);
+            return parts;
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Error: Invalid cursor.");
+        }
+    }
+
+    /**
+     * Confirms (or re-triages) one booking with a guarded UPDATE that carries the tenant and the expected
+     * status in its WHERE clause, so a patient who was called or served in the meantime is never pulled
+     * back into the queue. The booking is read once, before the UPDATE, to find its machine, which is
+     * locked before the booking row is touched; a re-triage (already CONFIRMED) costs one more UPDATE.
+     * The change and its change_log entry commit together.
+     */
+    @Transactional
     public Booking confirmBooking(Long id, Priority newPriority) {
-        Booking booking = bookingRepository.findById(id).orElseThrow();
+        BookingConfirmedEvent jfr = new BookingConfirmedEvent();
+        jfr.begin();
+        String tenantId = TenantContext.get();
+        Booking booking = findInTenant(id);
+        queueView.lockMachines(List.of(booking.getEquipmentId()));
+        String fromStatus = "PENDING";
+        int updated = bookingRepository.confirmIfStatus(id, tenantId, "PENDING", newPriority);
+        if (updated == 0) {
+            fromStatus = "CONFIRMED";
+            updated = bookingRepository.confirmIfStatus(id, tenantId, "CONFIRMED", newPriority);
+        }
+        if (updated == 0) {
+            throw new RuntimeException("Error: Booking is no longer awaiting triage.");
+        }
         booking.setPriority(newPriority);
         booking.setStatus("CONFIRMED");
-        return bookingRepository.save(booking);
+        publishTransition(booking, fromStatus);
+        eventPublisher.publishEvent(new QueueChangedEvent(booking.getEquipmentId()));
+        if (jfr.shouldCommit()) {
+            jfr.bookingId = id;
+            jfr.priority = newPriority.name();
+            jfr.requested = 1;
+            jfr.confirmed = 1;
+            jfr.commit();
+        }
+        return booking;
+    }
+
+    /**
+     * Confirms or re-triages many requests at once. Statuses are read with one query, then every
+     * priority group is applied with one guarded UPDATE for PENDING rows and one for rows already
+     * CONFIRMED (re-triage), all in one transaction. An id listed twice is rejected outright rather
+     * than guessing which priority was meant. Queue listeners are notified once per affected equipment.
+     */
+    @Transactional
+    public List<ConfirmOutcome> confirmBookings(List<ConfirmRequest> requests) {
+        BookingConfirmedEvent jfr = new BookingConfirmedEvent();
+        jfr.begin();
+        Map<Long, String> outcomes = new LinkedHashMap<>();
+        Map<Priority, Set<Long>> byPriority = new EnumMap<>(Priority.class);
+        for (ConfirmRequest request : requests) {
+            Long id = request.getId();
+            if (id != null && outcomes.containsKey(id)) {
+                outcomes.put(id, ConfirmOutcome.DUPLICATE);
+            } else if (id == null || request.getAssignedPriority() == null) {
+                outcomes.putIfAbsent(id, ConfirmOutcome.INVALID);
+            } else {
+                outcomes.put(id, null);
+                byPriority.computeIfAbsent(request.getAssignedPriority(), p -> new LinkedHashSet<>()).add(id);
+            }
+        }
+        byPriority.values().forEach(ids -> ids.removeIf(id -> ConfirmOutcome.DUPLICATE.equals(outcomes.get(id))));
+
+        Set<Long> candidates = new LinkedHashSet<>();
+        byPriority.values().forEach(candidates::addAll);
+        if (candidates.isEmpty()) {
+            return toOutcomeList(outcomes);
+        }
+
+        // Ids from another hospital are simply not found
+        String tenantId = TenantContext.get();
+        Map<Long, Long> equipmentById = new HashMap<>();
+        Map<Long, String> statusById = new HashMap<>();
+        for (Object[] row : bookingRepository.findStatusByIdIn(tenantId, candidates)) {
+            Long id = (Long) row[0];
+            equipmentById.put(id, (Long) row[1]);
+            statusById.put(id, (String) row[2]);
+            if (!"PENDING".equals(row[2]) && !"CONFIRMED".equals(row[2])) {
+                outcomes.put(id, ConfirmOutcome.NOT_PENDING);
+            }
+        }
+
+        // Machines before bookings, as callNext does, so the two never wait on each other's rows
+        queueView.lockMachines(new HashSet<>(equipmentById.values()));
+
+        Set<Long> affectedEquipment = new LinkedHashSet<>();
+        for (Map.Entry<Priority, Set<Long>> group : byPriority.entrySet()) {
+            Set<Long> ids = group.getValue();
+            ids.removeIf(id -> !equipmentById.containsKey(id) || outcomes.get(id) != null);
+            if (ids.isEmpty()) continue;
+
+            Set<Long> pending = new LinkedHashSet<>();
+            Set<Long> confirmed = new LinkedHashSet<>();
+            ids.forEach(id -> ("PENDING".equals(statusById.get(id)) ? pending : confirmed).add(id));
+            int updated = (pending.isEmpty() ? 0 : bookingRepository.confirmPending(tenantId, pending, group.getKey()))
+                    + (confirmed.isEmpty() ? 0 : bookingRepository.retriageConfirmed(tenantId, confirmed, group.getKey()));
+            if (updated != ids.size()) {
+                // Someone else moved some of these rows since we read them; look again to tell which
+                for (Object[] row : bookingRepository.findStatusByIdIn(tenantId, ids)) {
+                    // Ours were PENDING or CONFIRMED a moment ago; anything not CONFIRMED now was called elsewhere
+                    if (!"CONFIRMED".equals(row[2])) {
+                        outcomes.put((Long) row[0], ConfirmOutcome.NOT_PENDING);
+                    }
+                }
+            }
+            LocalDateTime now = LocalDateTime.now();
+            for (Long id : ids) {
+                if (outcomes.get(id) == null) {
+                    outcomes.put(id, ConfirmOutcome.CONFIRMED);
+                    affectedEquipment.add(equipmentById.get(id));
+                    eventPublisher.publishEvent(new BookingTransitionEvent(tenantId, id, equipmentById.get(id), null,
+                            group.getKey(), statusById.get(id), "CONFIRMED", null, now));
+                }
+            }
+        }
+        outcomes.replaceAll((id, outcome) -> outcome == null ? ConfirmOutcome.NOT_FOUND : outcome);
+
+        affectedEquipment.forEach(equipmentId -> eventPublisher.publishEvent(new QueueChangedEvent(equipmentId)));
+        if (jfr.shouldCommit()) {
+            jfr.requested = requests.size();
+            jfr.confirmed = (int) outcomes.values().stream().filter(ConfirmOutcome.CONFIRMED::equals).count();
+            jfr.commit();
+        }
+        return toOutcomeList(outcomes);
+    }
+
+    private List<ConfirmOutcome> toOutcomeList(Map<Long, String> outcomes) {
+        List<ConfirmOutcome> result = new ArrayList<>(outcomes.size());
+        outcomes.forEach((id, outcome) -> result.add(new ConfirmOutcome(id, outcome)));
+        return result;
     }
 
     public List<Booking> getQueueForEquipment(Long equipmentId) {
+        QueueReadEvent jfr = new QueueReadEvent();
+        jfr.begin();
         // ONLY get CONFIRMED bookings for the queue
         List<Booking> activeBookings = bookingRepository.findByEquipmentIdAndStatus(equipmentId, "CONFIRMED");
-        
+        long sortStart = System.nanoTime();
+
         // CORE LOGIC: Sort by Priority (High to Low), then Time (Oldest to Newest)
-        return activeBookings.stream()
-                .sorted(Comparator.comparing(Booking::getPriority).reversed()
-                        .thenComparing(Booking::getBookingTime))
+        List<Booking> queue = activeBookings.stream()
+                .sorted(QUEUE_ORDER)
                 .collect(Collectors.toList());
+        jfr.end();
+        if (jfr.shouldCommit()) {
+            jfr.equipmentId = equipmentId;
+            jfr.source = "booking";
+            jfr.rows = queue.size();
+            jfr.sortTime = System.nanoTime() - sortStart;
+            jfr.commit();
+        }
+        return queue;
     }
 
+    /**
+     * Claims the machine (AVAILABLE to IN_USE), then the technician and room its type needs, then the
+     * head of its queue (CONFIRMED to IN_USE), each with guarded UPDATEs. If a required resource has
+     * nobody free the machine is handed back and the error says what it is waiting for. If another
+     * caller took the head first the next patient is tried; if nobody is left all claims are handed back.
+     */
+    @Transactional
     public Booking callNext(Long equipmentId) {
+        checkEquipmentTenant(equipmentId);
+        CallNextEvent jfr = new CallNextEvent();
+        jfr.begin();
+        jfr.equipmentId = equipmentId;
         List<Booking> queue = getQueueForEquipment(equipmentId);
+        jfr.queueDepth = queue.size();
         if (queue.isEmpty()) {
+            commit(jfr, "EMPTY");
             return null;
         }
-        Booking nextPatient = queue.get(0);
-        
-        // Update machine status
-        Equipment eq = equipmentRepository.findById(equipmentId).orElse(null);
-        if (eq != null) {
-            eq.setStatus(EquipmentStatus.IN_USE);
-            equipmentRepository.save(eq);
-            
-            // Schedule automatic status reversion after 5-10 seconds (using bufferTime as reference)
-            // For demo purposes, use 8 seconds (between 5-10 seconds)
-            int delaySeconds = 8;
-            final Long bookingId = nextPatient.getId(); // Capture booking ID for closure
-            scheduler.schedule(() -> {
-                Equipment equipment = equipmentRepository.findById(equipmentId).orElse(null);
-                if (equipment != null && equipment.getStatus() == EquipmentStatus.IN_USE) {
-                    equipment.setStatus(EquipmentStatus.AVAILABLE);
-                    equipmentRepository.save(equipment);
-                    System.out.println("[EQUIPMENT] " + equipment.getName() + " is now AVAILABLE (auto-reverted after serving patient)");
-                    
-                    // Also mark the booking as SERVED
-                    Booking booking = bookingRepository.findById(bookingId).orElse(null);
-                    if (booking != null && booking.getStatus().equals("IN_USE")) {
-                        booking.setStatus("SERVED");
-                        bookingRepository.save(booking);
-                        System.out.println("[BOOKING] Patient " + booking.getPatientName() + " has been served");
-                    }
-                }
-            }, delaySeconds, TimeUnit.SECONDS);
+        MaintenanceTimeline.Span window = maintenanceTimeline.windowAt(equipmentId, LocalDateTime.now());
+        if (window != null) {
+            commit(jfr, "MAINTENANCE");
+            throw new RuntimeException("Error: Equipment is in planned maintenance until "
+                    + window.getEnd().truncatedTo(ChronoUnit.MINUTES) + ".");
+        }
+        if (equipmentRepository.transitionStatus(equipmentId, EquipmentStatus.AVAILABLE, EquipmentStatus.IN_USE) == 0) {
+            commit(jfr, "BUSY");
+            throw new RuntimeException("Error: Equipment is not available.");
+        }
+        try {
+            resourceDispatcher.reserve(equipmentId);
+        } catch (RuntimeException e) {
+            equipmentRepository.transitionStatus(equipmentId, EquipmentStatus.IN_USE, EquipmentStatus.AVAILABLE);
+            commit(jfr, "NO_RESOURCES");
+            throw e;
         }
 
-        // Mark booking as IN_USE
+        Booking nextPatient = null;
+        for (Booking candidate : queue) {
+            jfr.attempts++;
+            if (bookingRepository.transitionStatus(candidate.getId(), "CONFIRMED", "IN_USE") == 1) {
+                nextPatient = candidate;
+                break;
+            }
+        }
+        if (nextPatient == null) {
+            resourceDispatcher.release(equipmentId);
+            equipmentRepository.transitionStatus(equipmentId, EquipmentStatus.IN_USE, EquipmentStatus.AVAILABLE);
+            commit(jfr, "LOST_RACE");
+            return null;
+        }
+
+        publishEquipmentStatus(nextPatient.getTenantId(), equipmentId, EquipmentStatus.IN_USE);
         nextPatient.setStatus("IN_USE");
-        return bookingRepository.save(nextPatient);
+        publishTransition(nextPatient, "CONFIRMED");
+        Booking called = nextPatient;
+        // Only a call that committed has a procedure to track and to revert
+        afterCommit(() -> {
+            inProcedure.put(called.getId(), called);
+            scheduleAutoRevert(equipmentId, called);
+        });
+        eventPublisher.publishEvent(new QueueChangedEvent(equipmentId));
+        jfr.bookingId = nextPatient.getId();
+        jfr.chosenPriority = nextPatient.getPriority().name();
+        commit(jfr, "CALLED");
+        return nextPatient;
+    }
+
+    // Runs once the current transaction commits, or right away when there is none
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // The hold is used up only once its booking has committed; a rollback gives it back to the patient
+    private void finishConversion(SlotHold hold, boolean saved) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            slotHolds.finishConversion(hold, saved);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                slotHolds.finishConversion(hold, saved && status == STATUS_COMMITTED);
+            }
+        });
+    }
+
+    private static void commit(CallNextEvent jfr, String outcome) {
+        if (jfr.shouldCommit()) {
+            jfr.outcome = outcome;
+            jfr.commit();
+        }
+    }
+
+    // Schedule automatic status reversion after 5-10 seconds (using bufferTime as reference)
+    // For demo purposes, use 8 seconds (between 5-10 seconds)
+    private void scheduleAutoRevert(Long equipmentId, Booking patient) {
+        int delaySeconds = 8;
+        // Capture plain values for the closure; the entity itself goes back to the caller
+        final String tenantId = patient.getTenantId();
+        final Long bookingId = patient.getId();
+        final String patientName = patient.getPatientName();
+        final Priority priority = patient.getPriority();
+        final LocalDateTime bookingTime = patient.getBookingTime();
+        // On the machine's own lane, so a revert stuck on one machine never holds up another's
+        workLanes.schedule(tenantId, equipmentId, "auto-revert", () -> {
+            AutoRevertEvent jfr = new AutoRevertEvent();
+            jfr.begin();
+            jfr.equipmentId = equipmentId;
+            jfr.bookingId = bookingId;
+            inProcedure.remove(bookingId);
+            queueView.lockMachines(List.of(equipmentId));
+            // Only this patient's procedure may release the machine; if they were already served
+            // (and perhaps someone else called in), the machine is left alone
+            if (bookingRepository.transitionStatus(bookingId, "IN_USE", "SERVED") == 0) {
+                jfr.commit();
+                return;
+            }
+            jfr.served = true;
+            eventPublisher.publishEvent(new BookingTransitionEvent(tenantId, bookingId, equipmentId, patientName,
+                    priority, "IN_USE", "SERVED", bookingTime, LocalDateTime.now()));
+            System.out.println("[BOOKING] Patient " + patientName + " has been served");
+            resourceDispatcher.release(equipmentId);
+
+            if (equipmentRepository.transitionStatus(equipmentId, EquipmentStatus.IN_USE, EquipmentStatus.AVAILABLE) == 1) {
+                publishEquipmentStatus(tenantId, equipmentId, EquipmentStatus.AVAILABLE);
+                System.out.println("[EQUIPMENT] #" + equipmentId + " is now AVAILABLE (auto-reverted after serving patient)");
+                jfr.machineReleased = true;
+            }
+            eventPublisher.publishEvent(new QueueChangedEvent(equipmentId));
+            jfr.commit();
+        }, delaySeconds, TimeUnit.SECONDS);
     }
 
     public String calculateNextSlot(Long equipmentId) {
@@ -139,38 +615,121 @@ public class QueueService {
         if (eq.getStatus() == EquipmentStatus.MAINTENANCE) return "Under Repair";
 
         List<Booking> queue = getQueueForEquipment(equipmentId);
-        if (queue.isEmpty()) return "Now";
+        return calculateNextSlot(eq, queue.size());
+    }
 
-        // Simple math: Now + (Queue Size * Machine Duration)
-        LocalDateTime next = LocalDateTime.now().plusMinutes(queue.size() * (long) eq.getBufferTime());
-        return next.toLocalTime().toString().substring(0, 5); // HH:mm format
+    /**
+     * Same as calculateNextSlot(Long) for callers that already hold the equipment and its queue size.
+     * "Under Repair" is the unplanned MAINTENANCE status, which has no known end; planned maintenance
+     * windows just push the estimate past them.
+     */
+    public String calculateNextSlot(Equipment eq, int queueSize) {
+        if (eq.getStatus() == EquipmentStatus.MAINTENANCE) return "Under Repair";
+
+        // Now + (Queue Size * Machine Duration), with no procedure running into planned maintenance
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime next = maintenanceTimeline.nextStart(eq.getId(), now, queueSize, eq.getBufferTime());
+        if (!next.isAfter(now)) return "Now";
+        String time = next.toLocalTime().toString().substring(0, 5); // HH:mm format
+        return next.toLocalDate().equals(now.toLocalDate()) ? time : next.toLocalDate() + " " + time;
     }
 
+    /**
+     * Ends a booking. The usual case, a patient whose procedure is running, is one guarded UPDATE with
+     * the tenant and IN_USE in its WHERE clause; when the patient was called on this node the booking is
+     * not read at all, otherwise it is read first to find the machine, which is locked before the booking
+     * row is touched. It is read again when that UPDATE changes nothing, to tell a missing booking from
+     * one in another state. The machine is released only when this booking was the one using it, and
+     * only if it is still IN_USE (never out of MAINTENANCE). Booking, machine and change_log commit together.
+     */
+    @Transactional
     public void markAsServed(Long bookingId) {
-        Booking booking = bookingRepository.findById(bookingId)
-                .orElseThrow(() -> new RuntimeException("Booking not found"));
-        
+        BookingServedEvent jfr = new BookingServedEvent();
+        jfr.begin();
+        String tenantId = TenantContext.get();
+        String fromStatus = "IN_USE";
+        Booking called = inProcedure.get(bookingId);
+        Booking booking = called != null && tenantId.equals(called.getTenantId()) ? called : findInTenant(bookingId);
+        queueView.lockMachines(List.of(booking.getEquipmentId()));
+        if (bookingRepository.transitionInTenant(bookingId, tenantId, "IN_USE", "SERVED") == 1) {
+            inProcedure.remove(bookingId);
+        } else {
+            booking = findInTenant(bookingId);
+            fromStatus = booking.getStatus();
+            if ("SERVED".equals(fromStatus)) {
+                return; // Already served (e.g. by the auto-revert); repeating the click changes nothing
+            }
+            if ("IN_USE".equals(fromStatus)
+                    || bookingRepository.transitionInTenant(bookingId, tenantId, fromStatus, "SERVED") == 0) {
+                throw new RuntimeException("Error: Booking changed while being served, please retry.");
+            }
+        }
         booking.setStatus("SERVED");
-        bookingRepository.save(booking);
+        publishTransition(booking, fromStatus);
+        if ("IN_USE".equals(fromStatus)) {
+            // The procedure is over, so its technician and room are free even if the machine stays busy
+            resourceDispatcher.release(booking.getEquipmentId());
+        }
 
         // Reset equipment status
-        Equipment eq = equipmentRepository.findById(booking.getEquipmentId()).orElse(null);
-        if (eq != null) {
-            eq.setStatus(EquipmentStatus.AVAILABLE);
-            equipmentRepository.save(eq);
+        boolean released = "IN_USE".equals(fromStatus)
+                && equipmentRepository.transitionStatus(booking.getEquipmentId(),
+                        EquipmentStatus.IN_USE, EquipmentStatus.AVAILABLE) == 1;
+        if (released) {
+            publishEquipmentStatus(booking.getTenantId(), booking.getEquipmentId(), EquipmentStatus.AVAILABLE);
+        }
+        eventPublisher.publishEvent(new QueueChangedEvent(booking.getEquipmentId()));
+        if (jfr.shouldCommit()) {
+            jfr.bookingId = bookingId;
+            jfr.equipmentId = booking.getEquipmentId();
+            jfr.fromStatus = fromStatus;
+            jfr.machineReleased = released;
+            jfr.commit();
         }
     }
 
-    @PreDestroy
-    public void shutdown() {
-        scheduler.shutdown();
-        try {
-            if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
-                scheduler.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            scheduler.shutdownNow();
-            Thread.currentThread().interrupt();
+    /**
+     * Throws "Equipment not found" when the machine belongs to a hospital other than the current
+     * request's. A machine that does not exist at all is left to the caller's own handling.
+     */
+    public void checkEquipmentTenant(Long equipmentId) {
+        checkOwner(tenantByEquipment.computeIfAbsent(equipmentId, equipmentRepository::findTenantIdById));
+    }
+
+    /** Whether the machine exists and belongs to the current request's hospital. */
+    public boolean isEquipmentInTenant(Long equipmentId) {
+        return TenantContext.get().equals(tenantByEquipment.computeIfAbsent(equipmentId, equipmentRepository::findTenantIdById));
+    }
+
+    private static void checkOwner(String owner) {
+        if (owner != null && !owner.equals(TenantContext.get())) {
+            throw new RuntimeException("Error: Equipment not found.");
+        }
+    }
+
+    /** Same check for a queue that was already read: its rows carry the hospital, so only an empty queue costs a lookup. */
+    public void checkEquipmentTenant(Long equipmentId, List<QueueEntry> queue) {
+        if (queue.isEmpty()) {
+            checkEquipmentTenant(equipmentId);
+        } else if (!TenantContext.get().equals(queue.get(0).getTenantId())) {
+            throw new RuntimeException("Error: Equipment not found.");
         }
     }
+
+    // Another hospital's booking is reported exactly like a missing one
+    private Booking findInTenant(Long bookingId) {
+        return bookingRepository.findById(bookingId)
+                .filter(booking -> TenantContext.get().equals(booking.getTenantId()))
+                .orElseThrow(() -> new RuntimeException("Booking not found"));
+    }
+
+    private void publishTransition(Booking booking, String fromStatus) {
+        eventPublisher.publishEvent(new BookingTransitionEvent(booking.getTenantId(), booking.getId(), booking.getEquipmentId(),
+                booking.getPatientName(), booking.getPriority(), fromStatus, booking.getStatus(),
+                booking.getBookingTime(), LocalDateTime.now()));
+    }
+
+    private void publishEquipmentStatus(String tenantId, Long equipmentId, EquipmentStatus status) {
+        eventPublisher.publishEvent(new EquipmentStatusEvent(tenantId, equipmentId, status, LocalDateTime.now()));
+    }
 }
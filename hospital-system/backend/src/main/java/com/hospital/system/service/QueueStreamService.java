@@ -0,0 +1,275 @@
+package com.hospital.system.service;
+
+import com.hospital.system.event.EquipmentInvalidatedEvent;
+import com.hospital.system.event.QueueChangedEvent;
+import com.hospital.system.model.QueueEntry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Live queue updates over Server-Sent Events. A subscribed display holds an async servlet response,
+ * not a request thread, so thousands of idle screens cost connections rather than threads.
+ *
+ * Updates are pushed from the QueueChangedEvent that QueueService already publishes, after the change
+ * commits. Each change reads the machine's queue once and sends that same list to every display
+ * watching it, and a burst of changes to one machine is coalesced into a single push. Changes made
+ * by another backend node arrive as EquipmentInvalidatedEvents and are pushed the same way.
+ *
+ * Reads run on one stream thread; the blocking writes to displays run on a small sender pool. Each
+ * display sends one event at a time and keeps only the newest unsent one, so a slow display gets the
+ * latest queue late instead of piling up work. A send still unfinished after send-timeout-ms ends
+ * that display's stream (the browser reconnects), and at most sender-threads slow displays can be
+ * writing at once, so the others keep getting their updates.
+ */
+@Service
+public class QueueStreamService {
+
+    public static final String QUEUE_EVENT = "queue";
+
+    // Stands in for a keep-alive comment in a display's outbox
+    private static final Object HEARTBEAT = new Object();
+
+    @Autowired
+    private QueueViewService queueViewService;
+
+    @Value("${hospital.stream.timeout-ms:1800000}")
+    private long timeoutMillis;
+
+    @Value("${hospital.stream.max-subscribers:2000}")
+    private int maxSubscribers;
+
+    @Value("${hospital.stream.heartbeat-seconds:15}")
+    private long heartbeatSeconds;
+
+    @Value("${hospital.stream.sender-threads:4}")
+    private int senderThreads;
+
+    @Value("${hospital.stream.send-timeout-ms:5000}")
+    private long sendTimeoutMillis;
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    // Machines with a push already queued; further changes before it runs ride along with it
+    private final Set<Long> pushQueued = ConcurrentHashMap.newKeySet();
+
+    // One thread for reads, heartbeats and the send watchdog; it never writes to a display itself
+    private final ScheduledExecutorService pusher = Executors.newSingleThreadScheduledExecutor(daemon("queue-stream"));
+
+    private ExecutorService senders;
+
+    @PostConstruct
+    void start() {
+        senders = Executors.newFixedThreadPool(Math.max(1, senderThreads), daemon("queue-stream-send-"));
+        // Keeps proxies from closing idle streams and finds displays that went away
+        pusher.scheduleAtFixedRate(this::heartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+        long every = Math.max(100, sendTimeoutMillis / 2);
+        pusher.scheduleAtFixedRate(this::dropStalled, every, every, TimeUnit.MILLISECONDS);
+    }
+
+    /** Opens a stream for one machine; the current queue is sent as the first event. */
+    public SseEmitter subscribe(Long equipmentId) {
+        return subscribe(equipmentId, new SseEmitter(timeoutMillis));
+    }
+
+    SseEmitter subscribe(Long equipmentId, SseEmitter emitter) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new RejectedExecutionException("Error: Too many live queue streams, please poll instead.");
+        }
+        Subscriber subscriber = new Subscriber(equipmentId, emitter);
+        // Atomic per machine, so a set being dropped as empty can never take a new subscriber with it
+        subscribers.compute(equipmentId, (id, watchers) -> {
+            Set<Subscriber> set = watchers == null ? new CopyOnWriteArraySet<>() : watchers;
+            set.add(subscriber);
+            return set;
+        });
+        emitter.onCompletion(subscriber::remove);
+        emitter.onTimeout(subscriber::remove);
+        emitter.onError(e -> subscriber.remove());
+
+        // Read on the stream thread so the request thread is handed back at once
+        try {
+            pusher.execute(() -> subscriber.offer(queueViewService.getQueue(equipmentId)));
+        } catch (RejectedExecutionException e) {
+            subscriber.remove(); // shutting down
+            throw e;
+        }
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onQueueChanged(QueueChangedEvent event) {
+        queuePush(event.getEquipmentId());
+    }
+
+    @EventListener
+    public void onEquipmentInvalidated(EquipmentInvalidatedEvent event) {
+        queuePush(event.getEquipmentId());
+    }
+
+    private void queuePush(Long equipmentId) {
+        Set<Subscriber> watchers = subscribers.get(equipmentId);
+        if (watchers == null || watchers.isEmpty() || !pushQueued.add(equipmentId)) {
+            return;
+        }
+        pusher.execute(() -> push(equipmentId));
+    }
+
+    void push(Long equipmentId) {
+        // Clear first: a change that lands while we read will queue another push, never get lost
+        pushQueued.remove(equipmentId);
+        Set<Subscriber> watchers = subscribers.get(equipmentId);
+        if (watchers == null || watchers.isEmpty()) {
+            return;
+        }
+        List<QueueEntry> queue = queueViewService.getQueue(equipmentId);
+        for (Subscriber subscriber : watchers) {
+            subscriber.offer(queue);
+        }
+    }
+
+    private void heartbeat() {
+        for (Set<Subscriber> watchers : subscribers.values()) {
+            for (Subscriber subscriber : watchers) {
+                subscriber.offerHeartbeat();
+            }
+        }
+    }
+
+    // Ends the streams of displays whose current send has not finished within the send timeout
+    private void dropStalled() {
+        long now = System.nanoTime();
+        long limit = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMillis);
+        for (Set<Subscriber> watchers : subscribers.values()) {
+            for (Subscriber subscriber : watchers) {
+                long since = subscriber.sendingSince;
+                if (since != 0 && now - since > limit) {
+                    System.out.println("[STREAM] Display did not take an update within " + sendTimeoutMillis
+                            + " ms, closing its stream");
+                    subscriber.close(new TimeoutException("send took longer than " + sendTimeoutMillis + " ms"));
+                }
+            }
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    private static ThreadFactory daemon(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return task -> {
+            Thread thread = new Thread(task, name.endsWith("-") ? name + count.incrementAndGet() : name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pusher.shutdownNow();
+        if (senders != null) {
+            senders.shutdownNow();
+        }
+        subscribers.values().forEach(watchers -> watchers.forEach(subscriber -> subscriber.emitter.complete()));
+    }
+
+    // One display. Its sends run one at a time on the sender pool; while one is in progress, newer
+    // payloads replace the waiting one, so the outbox never holds more than the latest queue.
+    private class Subscriber {
+        final Long equipmentId;
+        final SseEmitter emitter;
+        final AtomicReference<Object> outbox = new AtomicReference<>();
+        final AtomicBoolean draining = new AtomicBoolean();
+        volatile long sendingSince; // System.nanoTime() when the current send started, 0 when idle
+        volatile boolean closed;
+
+        Subscriber(Long equipmentId, SseEmitter emitter) {
+            this.equipmentId = equipmentId;
+            this.emitter = emitter;
+        }
+
+        void offer(List<QueueEntry> queue) {
+            outbox.set(queue);
+            schedule();
+        }
+
+        // A keep-alive only goes out when there is nothing else to send
+        void offerHeartbeat() {
+            if (outbox.compareAndSet(null, HEARTBEAT)) {
+                schedule();
+            }
+        }
+
+        private void schedule() {
+            if (!closed && draining.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::drain);
+                } catch (RuntimeException e) {
+                    draining.set(false); // shutting down
+                }
+            }
+        }
+
+        private void drain() {
+            Object next;
+            while (!closed && (next = outbox.getAndSet(null)) != null) {
+                sendingSince = System.nanoTime();
+                try {
+                    emitter.send(next == HEARTBEAT
+                            ? SseEmitter.event().comment("keep-alive")
+                            : SseEmitter.event().name(QUEUE_EVENT).data(next));
+                } catch (IOException | IllegalStateException e) {
+                    close(e);
+                } finally {
+                    sendingSince = 0;
+                }
+            }
+            draining.set(false);
+            // Something offered after the last poll but before the flag cleared would otherwise wait
+            if (outbox.get() != null) {
+                schedule();
+            }
+        }
+
+        void close(Throwable cause) {
+            closed = true;
+            remove();
+            emitter.completeWithError(cause);
+        }
+
+        // The machine's entry goes with its last display, so machines streamed once do not pile up
+        void remove() {
+            closed = true;
+            subscribers.computeIfPresent(equipmentId, (id, watchers) -> {
+                if (watchers.remove(this)) {
+                    subscriberCount.decrementAndGet();
+                }
+                return watchers.isEmpty() ? null : watchers;
+            });
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.hospital.system.service;
+
+import com.hospital.system.event.QueueChangedEvent;
+import com.hospital.system.jfr.QueueReadEvent;
+import com.hospital.system.model.Booking;
+import com.hospital.system.model.Equipment;
+import com.hospital.system.model.QueueEntry;
+import com.hospital.system.repository.BookingRepository;
+import com.hospital.system.repository.EquipmentRepository;
+import com.hospital.system.repository.QueueEntryRepository;
+import com.hospital.system.tenant.TenantContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the queue_view read model and answers the queue read endpoints from it.
+ *
+ * Every QueueChangedEvent marks its machine dirty in the current transaction. Just before that
+ * transaction commits, all dirty machines are refreshed together, however many a bulk operation
+ * touched: their equipment rows are locked, their stored rows and CONFIRMED bookings are read once
+ * each, and only the rows that differ are inserted, updated or deleted (in JDBC batches). Positions
+ * and waits are numbered on read, so calling the next patient deletes one row rather than renumbering
+ * the rest of the queue, and waits stay in line with the planned maintenance in MaintenanceTimeline.
+ *
+ * The lock serialises refreshes of the same machine, on this node or any other: the second waits,
+ * then sees the first one's committed rows. Every QueueService method that changes a queue runs in a
+ * transaction, so the view commits (or rolls back) with the change itself; an event published outside
+ * one is projected in a short transaction of its own, right after the change.
+ * A read inside a transaction that still has dirty machines projects them first, so callers always
+ * read their own writes.
+ */
+@Service
+public class QueueViewService {
+
+    @Autowired
+    private QueueEntryRepository queueEntryRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private EquipmentRepository equipmentRepository;
+
+    @Autowired
+    private MaintenanceTimeline maintenanceTimeline;
+
+    /**
+     * Builds the view at startup when it is empty (a fresh schema). A populated view is kept in step with
+     * the bookings by every committed transaction, so a node joining a running cluster leaves it alone.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void onReady() {
+        if (queueEntryRepository.count() == 0) {
+            rebuild();
+        }
+    }
+
+    // Always runs in a transaction (its own if the publisher had none) so the projection commits with it
+    @EventListener
+    @Transactional
+    public void onQueueChanged(QueueChangedEvent event) {
+        markDirty(event.getEquipmentId());
+    }
+
+    /**
+     * Schedules a machine's rows to be re-projected before the current transaction commits.
+     * Also for code that writes bookings without going through QueueService (imports, tests).
+     */
+    @Transactional
+    public void markDirty(Long equipmentId) {
+        dirtySet().add(equipmentId);
+    }
+
+    /**
+     * Locks the machines' rows until the current transaction ends. Writers take it before they update any
+     * of the machines' bookings, which is the order callNext locks in (machine, then booking); the refresh
+     * before commit then finds the locks already held instead of queueing for them behind other writers.
+     */
+    @Transactional
+    public void lockMachines(Collection<Long> equipmentIds) {
+        if (!equipmentIds.isEmpty()) {
+            equipmentRepository.lockAllById(equipmentIds);
+        }
+    }
+
+    @Transactional
+    public List<QueueEntry> getQueue(Long equipmentId) {
+        QueueReadEvent jfr = new QueueReadEvent();
+        jfr.begin();
+        projectPending();
+        List<QueueEntry> queue = number(queueEntryRepository.findByEquipmentIdOrderByPriorityRankAscBookingTimeAscIdAsc(equipmentId));
+        if (jfr.shouldCommit()) {
+            jfr.equipmentId = equipmentId;
+            jfr.source = "queue_view";
+            jfr.rows = queue.size();
+            jfr.commit();
+        }
+        return queue;
+    }
+
+    /** Every live queue of the current tenant, each in call order. */
+    @Transactional
+    public List<QueueEntry> getQueues() {
+        projectPending();
+        return number(queueEntryRepository.findByTenantIdOrderByEquipmentIdAscPriorityRankAscBookingTimeAscIdAsc(TenantContext.get()));
+    }
+
+    /** Queue length per machine of the current tenant; machines with nobody waiting are absent. */
+    @Transactional
+    public Map<Long, Integer> getQueueLengths() {
+        projectPending();
+        Map<Long, Integer> lengths = new HashMap<>();
+        for (Object[] row : queueEntryRepository.countByEquipment(TenantContext.get())) {
+            lengths.put((Long) row[0], ((Long) row[1]).intValue());
+        }
+        return lengths;
+    }
+
+    /**
+     * Drops and re-projects the whole view from the booking table. Returns the number of rows written.
+     * Every machine is locked first, so no refresh can interleave with the delete and re-insert.
+     */
+    @Transactional
+    public int rebuild() {
+        List<Equipment> equipment = equipmentRepository.lockAll();
+        queueEntryRepository.deleteAllInBatch();
+        List<QueueEntry> entries = project(bookingRepository.findByStatus("CONFIRMED"), equipment);
+        queueEntryRepository.saveAll(entries);
+        System.out.println("[QUEUE VIEW] Rebuilt with " + entries.size() + " entries");
+        return entries.size();
+    }
+
+    /** rebuild for one tenant's machines; other hospitals' rows are not touched. */
+    @Transactional
+    public int rebuild(String tenantId) {
+        List<Equipment> equipment = equipmentRepository.lockAllByTenant(tenantId);
+        queueEntryRepository.deleteByTenant(tenantId);
+        List<QueueEntry> entries = project(bookingRepository.findByTenantIdAndStatus(tenantId, "CONFIRMED"), equipment);
+        queueEntryRepository.saveAll(entries);
+        System.out.println("[QUEUE VIEW] Rebuilt tenant " + tenantId + " with " + entries.size() + " entries");
+        return entries.size();
+    }
+
+    // Brings the machines' rows in line with their CONFIRMED bookings, writing only the rows that differ
+    private void refresh(Collection<Long> equipmentIds) {
+        // Writers lock their machines up front (lockMachines), so this normally finds the locks already held
+        Map<Long, Equipment> equipmentById = equipmentRepository.lockAllById(equipmentIds).stream()
+                .collect(Collectors.toMap(Equipment::getId, Function.identity()));
+        Map<Long, QueueEntry> stale = queueEntryRepository.findByEquipmentIdIn(equipmentIds).stream()
+                .collect(Collectors.toMap(QueueEntry::getId, Function.identity()));
+        List<QueueEntry> added = new ArrayList<>();
+        for (Booking booking : bookingRepository.findByEquipmentIdInAndStatus(equipmentIds, "CONFIRMED")) {
+            Equipment equipment = equipmentById.get(booking.getEquipmentId());
+            QueueEntry entry = stale.remove(booking.getId());
+            if (entry == null) {
+                added.add(new QueueEntry(booking, equipment));
+            } else {
+                entry.update(booking, equipment); // flushed as an UPDATE only if something changed
+            }
+        }
+        queueEntryRepository.deleteAll(stale.values());
+        queueEntryRepository.saveAll(added);
+    }
+
+    private List<QueueEntry> project(List<Booking> confirmed, List<Equipment> equipment) {
+        Map<Long, Equipment> equipmentById = equipment.stream()
+                .collect(Collectors.toMap(Equipment::getId, Function.identity()));
+        return confirmed.stream()
+                .map(booking -> new QueueEntry(booking, equipmentById.get(booking.getEquipmentId())))
+                .toList();
+    }
+
+    // Numbers rows that arrive in call order, machine by machine, and fills in their estimated waits the
+    // way calculateNextSlot does, so no procedure is expected to run into planned maintenance
+    private List<QueueEntry> number(List<QueueEntry> rows) {
+        LocalDateTime now = LocalDateTime.now();
+        Long equipmentId = null;
+        int position = 0;
+        LocalDateTime start = now;
+        for (QueueEntry entry : rows) {
+            if (!entry.getEquipmentId().equals(equipmentId)) {
+                equipmentId = entry.getEquipmentId();
+                position = 0;
+            }
+            // Each start follows the previous patient's, so the queue is walked once rather than once per row
+            start = position == 0
+                    ? maintenanceTimeline.nextStart(equipmentId, now, 0, entry.getProcedureMinutes())
+                    : maintenanceTimeline.nextStart(equipmentId, start, 1, entry.getProcedureMinutes());
+            position++;
+            entry.place(position, Duration.between(now, start).toMinutes());
+        }
+        return rows;
+    }
+
+    private void projectPending() {
+        @SuppressWarnings("unchecked")
+        Set<Long> dirty = (Set<Long>) TransactionSynchronizationManager.getResource(this);
+        if (dirty != null && !dirty.isEmpty()) {
+            Set<Long> ids = new LinkedHashSet<>(dirty);
+            dirty.clear();
+            refresh(ids);
+        }
+    }
+
+    private Set<Long> dirtySet() {
+        @SuppressWarnings("unchecked")
+        Set<Long> dirty = (Set<Long>) TransactionSynchronizationManager.getResource(this);
+        if (dirty == null) {
+            Set<Long> created = new LinkedHashSet<>();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                // Lock the machines before ChangeFeedService takes the change counter, which must come last
+                @Override
+                public int getOrder() {
+                    return Ordered.LOWEST_PRECEDENCE - 1;
+                }
+
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    projectPending();
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(QueueViewService.this);
+                }
+            });
+            dirty = created;
+        }
+        return dirty;
+    }
+}
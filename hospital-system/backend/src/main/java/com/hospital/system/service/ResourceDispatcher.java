@@ -0,0 +1,429 @@
+package com.hospital.system.service;
+
+import com.hospital.system.dto.DispatchStatus;
+import com.hospital.system.event.EquipmentInvalidatedEvent;
+import com.hospital.system.model.CareResource;
+import com.hospital.system.model.Equipment;
+import com.hospital.system.model.ResourceKind;
+import com.hospital.system.model.ResourceStatus;
+import com.hospital.system.repository.CareResourceRepository;
+import com.hospital.system.repository.EquipmentRepository;
+import com.hospital.system.tenant.TenantContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Decides whether a machine's next procedure can start, and claims the technician and room it needs.
+ *
+ * What a procedure needs besides the machine is configured per equipment type
+ * (hospital.dispatch.requires.MRI=TECHNICIAN,PREP_ROOM); types with no entry need only the machine.
+ * Free resources are indexed in memory by pool, one pool per hospital, kind and equipment type, so a
+ * decision is a lookup per required kind however many resources and pools there are, and a machine
+ * is only ever staffed from its own hospital. A resource qualified
+ * for several types sits in several pools and leaves all of them when claimed. Within a pool the
+ * resource that has been free longest is picked first, which spreads work across the team.
+ *
+ * Memory only chooses; every claim is then confirmed with a guarded UPDATE of care_resource, so a stale
+ * index (or another node) can never put one technician on two machines. Claims are held per machine
+ * until its procedure ends (served, or auto-reverted). A claim made in a transaction that rolls back is
+ * returned to the pools, and a release only reaches the pools once its transaction has committed.
+ * When another backend node claims or releases for a machine, that machine's resources are re-read
+ * (EquipmentInvalidatedEvent), so the pools follow without a full rebuild.
+ */
+@Service
+public class ResourceDispatcher {
+
+    static final String REQUIREMENT_PREFIX = "hospital.dispatch.requires.";
+
+    @Autowired
+    private CareResourceRepository careResourceRepository;
+
+    @Autowired
+    private EquipmentRepository equipmentRepository;
+
+    @Autowired
+    private QueueViewService queueViewService;
+
+    @Autowired
+    private Environment environment;
+
+    private final Object lock = new Object();
+    private final Map<Long, Slot> resources = new HashMap<>();
+    private final Map<String, LinkedHashSet<Long>> freePools = new HashMap<>();
+    private final Map<Long, List<Long>> claims = new HashMap<>();
+
+    // Equipment types and owners never change, and requirements only with the configuration
+    private final Map<Long, String> typeByEquipment = new ConcurrentHashMap<>();
+    private final Map<Long, String> tenantByEquipment = new ConcurrentHashMap<>();
+    private final Map<String, List<ResourceKind>> requirements = new ConcurrentHashMap<>();
+
+    private static final class Slot {
+        final Long id;
+        final String tenantId;
+        final ResourceKind kind;
+        final List<String> types;
+        ResourceStatus status;
+
+        Slot(CareResource resource) {
+            this.id = resource.getId();
+            this.tenantId = resource.getTenantId();
+            this.kind = resource.getKind();
+            this.types = resource.qualifiedTypeList();
+            this.status = resource.getStatus();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        rebuild();
+    }
+
+    /** Reloads the pools and claims from care_resource. Returns the number of resources loaded. */
+    @Transactional(readOnly = true)
+    public int rebuild() {
+        List<CareResource> all = careResourceRepository.findAll();
+        synchronized (lock) {
+            resources.clear();
+            freePools.clear();
+            claims.clear();
+            all.forEach(this::load);
+        }
+        typeByEquipment.clear();
+        tenantByEquipment.clear();
+        requirements.clear();
+        System.out.println("[DISPATCH] Loaded " + all.size() + " technicians and rooms");
+        return all.size();
+    }
+
+    /** rebuild for one hospital's resources; other hospitals' pools and claims are not touched. */
+    @Transactional(readOnly = true)
+    public int rebuild(String tenantId) {
+        List<CareResource> rows = careResourceRepository.findByTenantId(tenantId);
+        synchronized (lock) {
+            resources.values().removeIf(slot -> {
+                if (!tenantId.equals(slot.tenantId)) {
+                    return false;
+                }
+                removeFromPools(slot);
+                return true;
+            });
+            // A machine is only ever staffed from its own hospital, so its claim goes as a whole
+            claims.values().removeIf(held -> held.stream().anyMatch(id -> !resources.containsKey(id)));
+            rows.forEach(this::load);
+        }
+        System.out.println("[DISPATCH] Loaded " + rows.size() + " technicians and rooms for tenant " + tenantId);
+        return rows.size();
+    }
+
+    // Caller holds lock
+    private void load(CareResource resource) {
+        Slot slot = new Slot(resource);
+        resources.put(slot.id, slot);
+        if (slot.status == ResourceStatus.AVAILABLE) {
+            addToPools(slot);
+        } else if (slot.status == ResourceStatus.BUSY && resource.getEquipmentId() != null) {
+            claims.computeIfAbsent(resource.getEquipmentId(), id -> new ArrayList<>()).add(slot.id);
+        }
+    }
+
+    /** Kinds of resource a procedure on this equipment type needs besides the machine, in claim order. */
+    public List<ResourceKind> requirementsFor(String type) {
+        if (type == null) {
+            return List.of();
+        }
+        return requirements.computeIfAbsent(type, t -> {
+            List<ResourceKind> kinds = new ArrayList<>();
+            for (String kind : environment.getProperty(REQUIREMENT_PREFIX + t, "").split(",")) {
+                if (!kind.isBlank()) {
+                    kinds.add(ResourceKind.valueOf(kind.trim()));
+                }
+            }
+            return List.copyOf(kinds);
+        });
+    }
+
+    /**
+     * Claims everything a procedure on this machine needs, or nothing. Returns the claimed resource ids
+     * (empty when its type needs only the machine); throws when some required kind has nobody free.
+     * The caller must already hold the machine, so no other procedure can be claiming for it.
+     */
+    public List<Long> reserve(Long equipmentId) {
+        String type = typeOf(equipmentId);
+        List<ResourceKind> needed = requirementsFor(type);
+        if (needed.isEmpty()) {
+            return List.of();
+        }
+        String tenantId = tenantByEquipment.computeIfAbsent(equipmentId, id -> {
+            String owner = equipmentRepository.findTenantIdById(id);
+            return owner == null ? TenantContext.DEFAULT_TENANT : owner;
+        });
+
+        List<Long> picked;
+        while (true) {
+            picked = pick(equipmentId, tenantId, type, needed);
+            List<Long> won = new ArrayList<>();
+            List<Long> lost = new ArrayList<>();
+            for (Long id : picked) {
+                (careResourceRepository.claim(id, equipmentId) == 1 ? won : lost).add(id);
+            }
+            if (lost.isEmpty()) {
+                break;
+            }
+            // The index was stale: someone else holds the lost ones, so they stay out of the pools.
+            // Hand back the rest and pick again from what is left
+            if (!won.isEmpty()) {
+                careResourceRepository.release(won, equipmentId);
+            }
+            synchronized (lock) {
+                claims.remove(equipmentId);
+                won.forEach(id -> addToPools(resources.get(id)));
+            }
+        }
+
+        List<Long> claimed = picked;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        synchronized (lock) {
+                            if (claims.remove(equipmentId, claimed)) {
+                                claimed.forEach(id -> addToPools(resources.get(id)));
+                            }
+                        }
+                    }
+                }
+            });
+        }
+        return claimed;
+    }
+
+    // Takes one free resource per required kind out of the pools, all or none
+    private List<Long> pick(Long equipmentId, String tenantId, String type, List<ResourceKind> needed) {
+        synchronized (lock) {
+            List<Long> picked = new ArrayList<>(needed.size());
+            List<ResourceKind> missing = new ArrayList<>();
+            for (ResourceKind kind : needed) {
+                LinkedHashSet<Long> pool = freePools.get(pool(tenantId, kind, type));
+                if (pool == null || pool.isEmpty()) {
+                    missing.add(kind);
+                } else {
+                    Slot slot = resources.get(pool.iterator().next());
+                    removeFromPools(slot);
+                    picked.add(slot.id);
+                }
+            }
+            if (!missing.isEmpty()) {
+                picked.forEach(id -> addToPools(resources.get(id)));
+                throw new RuntimeException("Error: Waiting for a free " + missing.stream().map(Enum::name)
+                        .collect(Collectors.joining(" and ")) + " for " + type + ".");
+            }
+            claims.put(equipmentId, picked);
+            return picked;
+        }
+    }
+
+    /** Hands back whatever the machine's procedure was holding. Safe to call when it holds nothing. */
+    public void release(Long equipmentId) {
+        List<Long> held;
+        synchronized (lock) {
+            held = claims.get(equipmentId);
+        }
+        if (held == null || held.isEmpty()) {
+            return;
+        }
+        careResourceRepository.release(held, equipmentId);
+        afterCommit(() -> {
+            synchronized (lock) {
+                if (claims.remove(equipmentId, held)) {
+                    held.forEach(id -> addToPools(resources.get(id)));
+                }
+            }
+        });
+    }
+
+    @EventListener
+    public void onEquipmentInvalidated(EquipmentInvalidatedEvent event) {
+        refreshEquipment(event.getEquipmentId());
+    }
+
+    /**
+     * Re-reads the resources a machine's procedure holds now or held before, after another node claimed
+     * or released them, and puts each into or out of the pools to match. Types that need nothing besides
+     * the machine are skipped without a query.
+     */
+    public void refreshEquipment(Long equipmentId) {
+        List<Long> previous;
+        synchronized (lock) {
+            previous = claims.getOrDefault(equipmentId, List.of());
+        }
+        if (previous.isEmpty() && requirementsFor(typeOf(equipmentId)).isEmpty()) {
+            return;
+        }
+        List<CareResource> rows = new ArrayList<>(careResourceRepository.findByEquipmentId(equipmentId));
+        List<Long> stillHeld = rows.stream().map(CareResource::getId).toList();
+        List<Long> released = previous.stream().filter(id -> !stillHeld.contains(id)).toList();
+        if (!released.isEmpty()) {
+            rows.addAll(careResourceRepository.findAllById(released));
+        }
+        synchronized (lock) {
+            for (CareResource row : rows) {
+                Slot slot = resources.computeIfAbsent(row.getId(), id -> new Slot(row));
+                if (slot.status == row.getStatus()) {
+                    continue; // already right; leave its place in the pools alone
+                }
+                removeFromPools(slot);
+                slot.status = row.getStatus();
+                if (row.getStatus() == ResourceStatus.AVAILABLE) {
+                    addToPools(slot);
+                }
+            }
+            List<Long> held = rows.stream()
+                    .filter(r -> r.getStatus() == ResourceStatus.BUSY && equipmentId.equals(r.getEquipmentId()))
+                    .map(CareResource::getId)
+                    .toList();
+            if (held.isEmpty()) {
+                claims.remove(equipmentId);
+            } else {
+                claims.put(equipmentId, new ArrayList<>(held));
+            }
+        }
+    }
+
+    public CareResource create(CareResource resource) {
+        if (resource.getName() == null || resource.getName().isBlank()) {
+            throw new RuntimeException("Error: Resource name is required.");
+        }
+        if (resource.getKind() == null) {
+            throw new RuntimeException("Error: Resource kind is required.");
+        }
+        if (resource.qualifiedTypeList().isEmpty()) {
+            throw new RuntimeException("Error: qualifiedTypes must name at least one equipment type.");
+        }
+        resource.setId(null);
+        resource.setTenantId(TenantContext.get());
+        resource.setStatus(ResourceStatus.AVAILABLE);
+        resource.setEquipmentId(null);
+        CareResource saved = careResourceRepository.save(resource);
+        Slot slot = new Slot(saved);
+        afterCommit(() -> {
+            synchronized (lock) {
+                resources.put(slot.id, slot);
+                addToPools(slot);
+            }
+        });
+        return saved;
+    }
+
+    /** Puts a resource on or off duty. BUSY is reached only by being dispatched. */
+    public CareResource setStatus(Long id, ResourceStatus status) {
+        if (status == ResourceStatus.BUSY) {
+            throw new RuntimeException("Error: Resources become BUSY only when a procedure is called.");
+        }
+        CareResource resource = careResourceRepository.findById(id)
+                .filter(r -> TenantContext.get().equals(r.getTenantId()))
+                .orElseThrow(() -> new RuntimeException("Error: Resource not found."));
+        ResourceStatus fromStatus = resource.getStatus();
+        if (fromStatus == status) {
+            return resource;
+        }
+        if (fromStatus == ResourceStatus.BUSY || careResourceRepository.transitionStatus(id, fromStatus, status) == 0) {
+            throw new RuntimeException("Error: " + resource.getName() + " is busy with a procedure; try again when it ends.");
+        }
+        resource.setStatus(status);
+        afterCommit(() -> {
+            synchronized (lock) {
+                Slot slot = resources.computeIfAbsent(id, key -> new Slot(resource));
+                removeFromPools(slot);
+                slot.status = status;
+                if (status == ResourceStatus.AVAILABLE) {
+                    addToPools(slot);
+                }
+            }
+        });
+        return resource;
+    }
+
+    /** Every machine of the current tenant with what its next procedure would still be waiting for. */
+    public List<DispatchStatus> getDispatchStatus() {
+        String tenantId = TenantContext.get();
+        Map<Long, Integer> queueLengths = queueViewService.getQueueLengths();
+        List<DispatchStatus> result = new ArrayList<>();
+        for (Equipment equipment : equipmentRepository.findByTenantId(tenantId)) {
+            result.add(new DispatchStatus(equipment.getId(), equipment.getName(), equipment.getType(),
+                    equipment.getStatus(), queueLengths.getOrDefault(equipment.getId(), 0),
+                    missingFor(tenantId, equipment.getType())));
+        }
+        return result;
+    }
+
+    /** Required kinds that have too few free resources in the tenant right now for a procedure on this type. */
+    public List<ResourceKind> missingFor(String tenantId, String type) {
+        Map<ResourceKind, Integer> counts = new EnumMap<>(ResourceKind.class);
+        requirementsFor(type).forEach(kind -> counts.merge(kind, 1, Integer::sum));
+        List<ResourceKind> missing = new ArrayList<>();
+        synchronized (lock) {
+            counts.forEach((kind, count) -> {
+                LinkedHashSet<Long> pool = freePools.get(pool(tenantId, kind, type));
+                if (pool == null || pool.size() < count) {
+                    missing.add(kind);
+                }
+            });
+        }
+        return missing;
+    }
+
+    private String typeOf(Long equipmentId) {
+        return typeByEquipment.computeIfAbsent(equipmentId, equipmentRepository::findTypeById);
+    }
+
+    private void addToPools(Slot slot) {
+        slot.status = ResourceStatus.AVAILABLE;
+        for (String type : slot.types) {
+            // Appended, so the longest-free resource stays at the head of each pool
+            freePools.computeIfAbsent(pool(slot.tenantId, slot.kind, type), key -> new LinkedHashSet<>()).add(slot.id);
+        }
+    }
+
+    private void removeFromPools(Slot slot) {
+        slot.status = ResourceStatus.BUSY;
+        for (String type : slot.types) {
+            LinkedHashSet<Long> pool = freePools.get(pool(slot.tenantId, slot.kind, type));
+            if (pool != null) {
+                pool.remove(slot.id);
+            }
+        }
+    }
+
+    private static String pool(String tenantId, ResourceKind kind, String type) {
+        return tenantId + "|" + kind + "|" + type;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.hospital.system.service;
+
+import com.hospital.system.dto.WaitStats;
+import com.hospital.system.dto.WindowStats;
+import com.hospital.system.model.Priority;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Fixed-size ring of time buckets holding procedure counts, busy time and per-priority wait
+ * histograms. Recording is O(1) and memory never grows: a bucket is reused (reset) once the ring
+ * wraps around to it. A priority's wait histogram is only allocated in buckets that see such a patient,
+ * so the worst case is buckets x priorities x BINS ints.
+ * Not thread-safe; callers synchronize.
+ */
+class RollingWindow {
+
+    // Log-scale wait histogram: bin 0 is < 1s, bin b covers [GROWTH^(b-1), GROWTH^b) seconds.
+    // 64 bins at 1.25x reach ~1.7 years, far beyond any realistic wait.
+    static final int BINS = 64;
+    private static final double GROWTH = 1.25;
+    private static final double LOG_GROWTH = Math.log(GROWTH);
+
+    private final long bucketMillis;
+    private final Bucket[] buckets;
+
+    RollingWindow(int bucketCount, long bucketMillis) {
+        this.bucketMillis = bucketMillis;
+        this.buckets = new Bucket[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new Bucket();
+        }
+    }
+
+    void recordWait(long atMillis, Priority priority, long waitSeconds) {
+        Bucket bucket = bucketFor(atMillis / bucketMillis);
+        if (bucket == null) return;
+        if (bucket.waits == null) {
+            bucket.waits = new int[Priority.values().length][];
+            bucket.waitSums = new long[Priority.values().length];
+        }
+        if (bucket.waits[priority.ordinal()] == null) {
+            bucket.waits[priority.ordinal()] = new int[BINS];
+        }
+        bucket.waits[priority.ordinal()][bin(waitSeconds)]++;
+        bucket.waitSums[priority.ordinal()] += waitSeconds;
+    }
+
+    void recordProcedure(long atMillis) {
+        Bucket bucket = bucketFor(atMillis / bucketMillis);
+        if (bucket != null) {
+            bucket.procedures++;
+        }
+    }
+
+    /** Spreads a busy interval over the buckets it overlaps; parts older than the ring are dropped. */
+    void recordBusy(long startMillis, long endMillis) {
+        long earliest = endMillis - bucketMillis * buckets.length;
+        for (long from = Math.max(startMillis, earliest); from < endMillis; ) {
+            long index = from / bucketMillis;
+            long to = Math.min(endMillis, (index + 1) * bucketMillis);
+            Bucket bucket = bucketFor(index);
+            if (bucket != null) {
+                bucket.busyMillis += to - from;
+            }
+            from = to;
+        }
+    }
+
+    /**
+     * Aggregates the newest bucketCount buckets ending at nowMillis.
+     * inUseSinceMillis (or null) adds the still-running procedure to the busy time.
+     */
+    WindowStats summarize(long nowMillis, int bucketCount, Long inUseSinceMillis) {
+        long currentIndex = nowMillis / bucketMillis;
+        long oldestIndex = currentIndex - Math.min(bucketCount, buckets.length) + 1;
+        long windowStart = oldestIndex * bucketMillis;
+        long windowMillis = Math.max(1, nowMillis - windowStart);
+
+        long procedures = 0;
+        long busy = 0;
+        int priorities = Priority.values().length;
+        long[][] waits = new long[priorities][BINS];
+        long[] waitSums = new long[priorities];
+        for (Bucket bucket : buckets) {
+            if (bucket.index < oldestIndex || bucket.index > currentIndex) continue;
+            procedures += bucket.procedures;
+            busy += bucket.busyMillis;
+            if (bucket.waits != null) {
+                for (int p = 0; p < priorities; p++) {
+                    if (bucket.waits[p] == null) continue;
+                    waitSums[p] += bucket.waitSums[p];
+                    for (int b = 0; b < BINS; b++) {
+                        waits[p][b] += bucket.waits[p][b];
+                    }
+                }
+            }
+        }
+        if (inUseSinceMillis != null) {
+            busy += nowMillis - Math.max(inUseSinceMillis, windowStart);
+        }
+
+        Map<Priority, WaitStats> waitByPriority = new EnumMap<>(Priority.class);
+        for (Priority priority : Priority.values()) {
+            waitByPriority.put(priority, waitStats(waits[priority.ordinal()], waitSums[priority.ordinal()]));
+        }
+        double hours = windowMillis / 3_600_000.0;
+        return new WindowStats(Math.min(1.0, (double) busy / windowMillis), procedures, procedures / hours, waitByPriority);
+    }
+
+    private Bucket bucketFor(long index) {
+        Bucket bucket = buckets[(int) Math.floorMod(index, (long) buckets.length)];
+        if (bucket.index == index) return bucket;
+        if (bucket.index > index) return null; // older than the ring: already rolled out of every window
+        bucket.reset(index);
+        return bucket;
+    }
+
+    static int bin(long seconds) {
+        if (seconds < 1) return 0;
+        return (int) Math.min(BINS - 1, 1 + Math.floor(Math.log(seconds) / LOG_GROWTH));
+    }
+
+    /** Geometric midpoint of a bin, used as the representative value for percentiles. */
+    static double binValue(int bin) {
+        if (bin == 0) return 0.5;
+        return Math.pow(GROWTH, bin - 0.5);
+    }
+
+    private static WaitStats waitStats(long[] histogram, long sum) {
+        long count = 0;
+        for (long c : histogram) count += c;
+        if (count == 0) return new WaitStats(0, 0, 0, 0);
+        return new WaitStats(count, (double) sum / count, percentile(histogram, count, 0.50), percentile(histogram, count, 0.95));
+    }
+
+    private static double percentile(long[] histogram, long count, double p) {
+        long rank = (long) Math.ceil(p * count);
+        long seen = 0;
+        for (int b = 0; b < BINS; b++) {
+            seen += histogram[b];
+            if (seen >= rank) return binValue(b);
+        }
+        return binValue(BINS - 1);
+    }
+
+    private static class Bucket {
+        long index = Long.MIN_VALUE;
+        long procedures;
+        long busyMillis;
+        int[][] waits; // [priority][bin], allocated on first sample
+        long[] waitSums;
+
+        void reset(long newIndex) {
+            index = newIndex;
+            procedures = 0;
+            busyMillis = 0;
+            waits = null;
+            waitSums = null;
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.hospital.system.service;
+
+import com.hospital.system.dto.ErrorCode;
+import com.hospital.system.dto.Result;
+import com.hospital.system.dto.SlotHold;
+import com.hospital.system.model.Equipment;
+import com.hospital.system.repository.EquipmentRepository;
+import com.hospital.system.tenant.TenantContext;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Short-lived holds on booking slots, so two patients picking the same time cannot both submit it.
+ *
+ * A hold covers one procedure on one machine (slotTime plus the machine's procedure time) for a few
+ * minutes. Holds on a machine never overlap, and are kept in a map sorted by slot start, so checking a
+ * time against them is one floor lookup. Expiry is a single min-heap ordered by expiresAt that one
+ * sweeper thread drains each tick, however many holds there are; between ticks an expired hold is
+ * already treated as gone by every check, so capacity comes back at the exact expiry time.
+ *
+ * Turning a hold into a booking marks it as converting first, which keeps the slot blocked while the
+ * booking is saved; the hold is then dropped, or given back if the save failed.
+ *
+ * Holds live in this node's memory only. With several backend nodes, route a patient's form
+ * submissions to the node that gave out their hold (sticky sessions).
+ */
+@Service
+public class SlotHoldService {
+
+    @Autowired
+    private EquipmentRepository equipmentRepository;
+
+    @Autowired
+    private MaintenanceTimeline maintenanceTimeline;
+
+    @Value("${hospital.holds.default-minutes:5}")
+    private int defaultMinutes;
+
+    @Value("${hospital.holds.max-minutes:15}")
+    private int maxMinutes;
+
+    @Value("${hospital.holds.max-active:10000}")
+    private int maxActive;
+
+    @Value("${hospital.holds.sweep-interval-ms:1000}")
+    private long sweepIntervalMillis;
+
+    // All guarded by lock. A hold released or converted early stays in byExpiry until it surfaces.
+    private final Object lock = new Object();
+    private final Map<String, SlotHold> byId = new HashMap<>();
+    private final Map<Long, TreeMap<LocalDateTime, SlotHold>> byEquipment = new HashMap<>();
+    private final PriorityQueue<SlotHold> byExpiry = new PriorityQueue<>(Comparator.comparing(SlotHold::getExpiresAt));
+    private final Set<String> converting = new HashSet<>();
+    private long expired;
+
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "slot-hold-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    void start() {
+        sweeper.scheduleWithFixedDelay(() -> sweep(LocalDateTime.now()), sweepIntervalMillis, sweepIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /** Holds one procedure's slot on a machine of the current hospital for the given minutes (default 5). */
+    public SlotHold hold(Long equipmentId, LocalDateTime slotTime, Integer minutes) {
+        Equipment equipment = equipmentId == null ? null : equipmentRepository.findById(equipmentId).orElse(null);
+        if (equipment == null || !TenantContext.get().equals(equipment.getTenantId())) {
+            throw new RuntimeException("Error: Equipment not found.");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (slotTime == null || slotTime.isBefore(now)) {
+            throw new RuntimeException("Error: Booking date cannot be in the past.");
+        }
+        int holdMinutes = minutes == null ? defaultMinutes : minutes;
+        if (holdMinutes < 1 || holdMinutes > maxMinutes) {
+            throw new RuntimeException("Error: A slot can be held for 1 to " + maxMinutes + " minutes.");
+        }
+        LocalDateTime slotEnd = slotTime.plusMinutes(equipment.getBufferTime());
+        if (!maintenanceTimeline.findFreeStart(equipmentId, slotTime, equipment.getBufferTime()).equals(slotTime)) {
+            throw new RuntimeException("Error: " + equipment.getName() + " has planned maintenance at that time.");
+        }
+
+        SlotHold hold = new SlotHold(UUID.randomUUID().toString(), equipment.getTenantId(), equipmentId, slotTime, slotEnd,
+                now.plusMinutes(holdMinutes));
+        synchronized (lock) {
+            SlotHold taken = heldAt(equipmentId, slotTime, slotEnd, now);
+            if (taken != null) {
+                throw new RuntimeException("Error: That slot is held by another patient until "
+                        + taken.getExpiresAt().truncatedTo(ChronoUnit.SECONDS) + ".");
+            }
+            if (byId.size() >= maxActive) {
+                throw new RuntimeException("Error: Too many slots are being held right now, please try again shortly.");
+            }
+            byId.put(hold.getId(), hold);
+            byEquipment.computeIfAbsent(equipmentId, id -> new TreeMap<>()).put(slotTime, hold);
+            byExpiry.add(hold);
+        }
+        return hold;
+    }
+
+    /** Gives a hold back before it expires, e.g. when the patient closes the form. */
+    public void release(String holdId) {
+        synchronized (lock) {
+            SlotHold hold = byId.get(holdId);
+            if (hold == null || !TenantContext.get().equals(hold.getTenantId())) {
+                throw new RuntimeException("Error: Hold not found or expired.");
+            }
+            if (!converting.contains(holdId)) {
+                remove(hold);
+            }
+        }
+    }
+
+    /** Holds on the given machine (or on all of the current hospital's machines) that have not expired. */
+    public List<SlotHold> getHolds(Long equipmentId) {
+        LocalDateTime now = LocalDateTime.now();
+        String tenantId = TenantContext.get();
+        List<SlotHold> holds = new ArrayList<>();
+        synchronized (lock) {
+            for (SlotHold hold : byId.values()) {
+                if (tenantId.equals(hold.getTenantId()) && !hold.isExpired(now)
+                        && (equipmentId == null || equipmentId.equals(hold.getEquipmentId()))) {
+                    holds.add(hold);
+                }
+            }
+        }
+        holds.sort(Comparator.comparing(SlotHold::getSlotTime));
+        return holds;
+    }
+
+    /** The unexpired hold overlapping [start, start + minutes) on the machine, or null when it is free. */
+    public SlotHold heldAt(Long equipmentId, LocalDateTime start, long minutes) {
+        synchronized (lock) {
+            return heldAt(equipmentId, start, start.plusMinutes(minutes), LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Earliest start at or after from for a procedure of the given length that neither planned
+     * maintenance nor another patient's hold is in the way of.
+     */
+    public LocalDateTime findFreeStart(Long equipmentId, LocalDateTime from, long minutes) {
+        LocalDateTime t = from;
+        while (true) {
+            t = maintenanceTimeline.findFreeStart(equipmentId, t, minutes);
+            SlotHold taken = heldAt(equipmentId, t, minutes);
+            if (taken == null) {
+                return t;
+            }
+            t = taken.getSlotEnd();
+        }
+    }
+
+    /**
+     * First half of turning a hold into a booking: checks it is this machine's, unexpired and not
+     * already being converted, and marks it so nobody else can. Follow with finishConversion.
+     */
+    public SlotHold beginConversion(String holdId, Long equipmentId) {
+        return tryBeginConversion(holdId, equipmentId).orThrow();
+    }
+
+    /** beginConversion for the booking path, which reports a refused hold without throwing. */
+    public Result<SlotHold> tryBeginConversion(String holdId, Long equipmentId) {
+        synchronized (lock) {
+            SlotHold hold = byId.get(holdId);
+            if (hold == null || hold.isExpired(LocalDateTime.now()) || !hold.getEquipmentId().equals(equipmentId)) {
+                return Result.rejected(ErrorCode.HOLD_NOT_FOUND, "Error: Hold not found or expired.");
+            }
+            if (!converting.add(holdId)) {
+                return Result.rejected(ErrorCode.HOLD_IN_USE, "Error: This hold is already being booked.");
+            }
+            return Result.ok(hold);
+        }
+    }
+
+    /** Drops the hold once its booking is saved, or makes it usable again when the booking failed. */
+    public void finishConversion(SlotHold hold, boolean booked) {
+        synchronized (lock) {
+            converting.remove(hold.getId());
+            if (booked || hold.isExpired(LocalDateTime.now())) {
+                remove(hold);
+            }
+        }
+    }
+
+    /** Releases every hold that expired by now. Returns how many were released. */
+    int sweep(LocalDateTime now) {
+        int released = 0;
+        synchronized (lock) {
+            while (!byExpiry.isEmpty() && byExpiry.peek().isExpired(now)) {
+                SlotHold hold = byExpiry.poll();
+                // A hold whose booking is being saved is left to finishConversion
+                if (byId.get(hold.getId()) == hold && !converting.contains(hold.getId())) {
+                    remove(hold);
+                    released++;
+                }
+            }
+            expired += released;
+        }
+        return released;
+    }
+
+    /** Holds in memory and holds released by expiry since startup, for GET /api/admin/holds. */
+    public Map<String, Object> getStats() {
+        synchronized (lock) {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("active", byId.size());
+            stats.put("converting", converting.size());
+            stats.put("expired", expired);
+            return stats;
+        }
+    }
+
+    // Caller holds lock. Holds on one machine never overlap, so only the last one starting before end can.
+    private SlotHold heldAt(Long equipmentId, LocalDateTime start, LocalDateTime end, LocalDateTime now) {
+        TreeMap<LocalDateTime, SlotHold> holds = byEquipment.get(equipmentId);
+        if (holds == null) {
+            return null;
+        }
+        Map.Entry<LocalDateTime, SlotHold> last = holds.lowerEntry(end);
+        while (last != null && last.getValue().isExpired(now) && !converting.contains(last.getValue().getId())) {
+            remove(last.getValue()); // expired since the last sweep
+            last = holds.lowerEntry(end);
+        }
+        return last != null && last.getValue().getSlotEnd().isAfter(start) ? last.getValue() : null;
+    }
+
+    // Caller holds lock
+    private void remove(SlotHold hold) {
+        byId.remove(hold.getId(), hold);
+        TreeMap<LocalDateTime, SlotHold> holds = byEquipment.get(hold.getEquipmentId());
+        if (holds != null && holds.remove(hold.getSlotTime(), hold) && holds.isEmpty()) {
+            byEquipment.remove(hold.getEquipmentId());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdownNow();
+    }
+}
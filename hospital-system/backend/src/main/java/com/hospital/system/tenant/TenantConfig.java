@@ -0,0 +1,43 @@
+package com.hospital.system.tenant;
+
+import com.hospital.system.repository.EquipmentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.Set;
+
+@Configuration
+public class TenantConfig implements WebMvcConfigurer {
+
+    // However it is configured, one hospital never gets more than this share of the request threads
+    private static final int MIN_TENANTS_TO_FILL_THREADS = 4;
+
+    @Autowired
+    private EquipmentRepository equipmentRepository;
+
+    @Value("${hospital.tenancy.max-concurrent-requests:50}")
+    private int maxConcurrentRequests;
+
+    @Value("${server.tomcat.threads.max:200}")
+    private int requestThreads;
+
+    @Value("${hospital.tenancy.tenants:}")
+    private Set<String> configuredTenants;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        int cap = Math.max(1, requestThreads / MIN_TENANTS_TO_FILL_THREADS);
+        int perTenant = maxConcurrentRequests;
+        if (perTenant <= 0 || perTenant > cap) {
+            System.out.println("[TENANCY] Limiting each hospital to " + cap + " concurrent requests (a quarter of "
+                    + requestThreads + " request threads) instead of " + perTenant);
+            perTenant = cap;
+        }
+        registry.addInterceptor(new TenantInterceptor(perTenant,
+                        tenant -> configuredTenants.contains(tenant) || equipmentRepository.existsByTenantId(tenant)))
+                .addPathPatterns("/api/**");
+    }
+}
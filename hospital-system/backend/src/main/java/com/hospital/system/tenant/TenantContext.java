@@ -0,0 +1,41 @@
+package com.hospital.system.tenant;
+
+import java.util.regex.Pattern;
+
+/**
+ * The hospital the current request belongs to. Set by TenantInterceptor from the X-Tenant-Id header
+ * for the duration of one request; code running outside a request (startup, scheduled work) sees the
+ * default tenant unless it sets one itself.
+ *
+ * A deployment that serves a single hospital never needs to send the header: everything lives in
+ * the "default" tenant.
+ */
+public final class TenantContext {
+
+    public static final String HEADER = "X-Tenant-Id";
+    public static final String DEFAULT_TENANT = "default";
+
+    private static final Pattern VALID = Pattern.compile("[A-Za-z0-9_-]{1,32}");
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private TenantContext() {
+    }
+
+    public static String get() {
+        String tenant = CURRENT.get();
+        return tenant == null ? DEFAULT_TENANT : tenant;
+    }
+
+    public static void set(String tenantId) {
+        CURRENT.set(tenantId);
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /** 1 to 32 letters, digits, '-' or '_'. */
+    public static boolean isValid(String tenantId) {
+        return tenantId != null && VALID.matcher(tenantId).matches();
+    }
+}
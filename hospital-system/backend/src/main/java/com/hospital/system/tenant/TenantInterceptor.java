@@ -0,0 +1,106 @@
+package com.hospital.system.tenant;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.function.Predicate;
+
+/**
+ * Binds each /api request to its tenant and keeps one hospital from taking every request thread.
+ *
+ * Only hospitals that exist are accepted: the default one, and any the supplied check knows (see
+ * TenantConfig). Anything else is refused with 400 before it costs a permit, so made-up header values
+ * cannot grow the per-tenant state; it only ever holds one entry per real hospital.
+ *
+ * Each tenant may have at most maxConcurrent requests in progress; beyond that its requests are turned
+ * away at once with 429 instead of queueing for the shared servlet thread pool, so a burst at one
+ * hospital does not slow down the others. A streaming response gives its permit back as soon as it
+ * goes async, since it no longer holds a thread.
+ *
+ * The header is trusted as sent: this class does not authenticate it. Deployments serving several
+ * hospitals must sit behind a gateway that sets X-Tenant-Id from the caller's identity and drops any
+ * value the client sent.
+ */
+public class TenantInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String PERMIT_ATTRIBUTE = TenantInterceptor.class.getName() + ".permit";
+
+    private final int maxConcurrent;
+    private final Predicate<String> exists;
+    // Hospitals the check has accepted; a lookup happens only the first time each one is seen
+    private final Set<String> known = ConcurrentHashMap.newKeySet();
+    private final Map<String, Semaphore> inFlight = new ConcurrentHashMap<>();
+
+    /** maxConcurrent of 0 or less means unlimited; exists says whether a hospital other than the default is real. */
+    public TenantInterceptor(int maxConcurrent, Predicate<String> exists) {
+        this.maxConcurrent = maxConcurrent;
+        this.exists = exists;
+        known.add(TenantContext.DEFAULT_TENANT);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        String header = request.getHeader(TenantContext.HEADER);
+        String tenant = header == null || header.isBlank() ? TenantContext.DEFAULT_TENANT : header.trim();
+        if (!TenantContext.isValid(tenant)) {
+            reject(response, HttpServletResponse.SC_BAD_REQUEST,
+                    "Error: " + TenantContext.HEADER + " must be 1 to 32 letters, digits, '-' or '_'.");
+            return false;
+        }
+        if (!known.contains(tenant)) {
+            if (!exists.test(tenant)) {
+                reject(response, HttpServletResponse.SC_BAD_REQUEST, "Error: Unknown hospital in " + TenantContext.HEADER + ".");
+                return false;
+            }
+            known.add(tenant);
+        }
+        if (maxConcurrent > 0) {
+            Semaphore permits = inFlight.computeIfAbsent(tenant, t -> new Semaphore(maxConcurrent));
+            if (!permits.tryAcquire()) {
+                reject(response, 429, "Error: Too many requests in progress for " + tenant + ", please retry.");
+                return false;
+            }
+            request.setAttribute(PERMIT_ATTRIBUTE, permits);
+        }
+        TenantContext.set(tenant);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        finish(request);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        finish(request);
+    }
+
+    /** Requests currently in progress for the tenant (for tests and diagnostics). */
+    public int getInFlight(String tenant) {
+        Semaphore permits = inFlight.get(tenant);
+        return permits == null ? 0 : maxConcurrent - permits.availablePermits();
+    }
+
+    private static void finish(HttpServletRequest request) {
+        Semaphore permits = (Semaphore) request.getAttribute(PERMIT_ATTRIBUTE);
+        if (permits != null) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            permits.release();
+        }
+        TenantContext.clear();
+    }
+
+    private static void reject(HttpServletResponse response, int status, String message) throws IOException {
+        response.setStatus(status);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"" + message.replace("\"", "'") + "\"}");
+    }
+}
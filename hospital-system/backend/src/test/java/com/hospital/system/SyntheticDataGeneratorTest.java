@@ -0,0 +1,84 @@
+package com.hospital.system;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the synthetic generator at a small size against H2 and checks its shape and reproducibility.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(locations = "classpath:application-test.properties")
+class SyntheticDataGeneratorTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final SyntheticDataGenerator generator = new SyntheticDataGenerator();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(generator, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(generator, "equipmentCount", 100);
+        ReflectionTestUtils.setField(generator, "bookingCount", 20_000);
+        ReflectionTestUtils.setField(generator, "seed", 7L);
+        ReflectionTestUtils.setField(generator, "historyDays", 30);
+        ReflectionTestUtils.setField(generator, "batchSize", 1_000);
+    }
+
+    @Test
+    void testGeneratesRealisticMix() {
+        assertEquals(20_000, generator.generate());
+
+        assertEquals(100, count("SELECT COUNT(*) FROM equipment"));
+        assertEquals(20_000, count("SELECT COUNT(*) FROM booking"));
+        long technicians = count("SELECT COUNT(*) FROM care_resource WHERE kind = 'TECHNICIAN'");
+        assertTrue(technicians >= 80 && technicians < 100, "technicians=" + technicians);
+        long served = count("SELECT COUNT(*) FROM booking WHERE status = 'SERVED'");
+        assertTrue(served > 16_000 && served < 18_500, "served=" + served);
+        long emergency = count("SELECT COUNT(*) FROM booking WHERE priority = 'EMERGENCY'");
+        assertTrue(emergency > 600 && emergency < 1_400, "emergency=" + emergency);
+
+        // Every machine in use has exactly one patient in use, and machines under repair have no queue
+        assertEquals(count("SELECT COUNT(*) FROM equipment WHERE status = 'IN_USE'"),
+                count("SELECT COUNT(*) FROM booking WHERE status = 'IN_USE'"));
+        assertEquals(0, count("SELECT COUNT(*) FROM booking b JOIN equipment e ON e.id = b.equipment_id"
+                + " WHERE e.status = 'MAINTENANCE' AND b.status <> 'SERVED'"));
+    }
+
+    @Test
+    void testSameSeedGivesSameData() {
+        generator.generate();
+        List<Map<String, Object>> first = fingerprint();
+
+        jdbcTemplate.update("DELETE FROM care_resource");
+        jdbcTemplate.update("DELETE FROM booking");
+        jdbcTemplate.update("DELETE FROM equipment");
+        generator.generate();
+
+        assertEquals(first, fingerprint());
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+
+    // Per machine name: how many bookings of each status and priority, and the names of its patients
+    private List<Map<String, Object>> fingerprint() {
+        return jdbcTemplate.queryForList("SELECT e.name, b.status, b.priority, COUNT(*) AS n,"
+                + " MIN(b.patient_name) AS first_patient, MAX(b.patient_name) AS last_patient"
+                + " FROM booking b JOIN equipment e ON e.id = b.equipment_id"
+                + " GROUP BY e.name, b.status, b.priority ORDER BY e.name, b.status, b.priority");
+    }
+}
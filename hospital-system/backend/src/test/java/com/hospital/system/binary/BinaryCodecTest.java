@@ -0,0 +1,144 @@
+package com.hospital.system.binary;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.hospital.system.model.Booking;
+import com.hospital.system.model.Equipment;
+import com.hospital.system.model.EquipmentStatus;
+import com.hospital.system.model.Priority;
+import com.hospital.system.model.QueueEntry;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryCodecTest {
+
+    private static final LocalDateTime BOOKED = LocalDateTime.of(2026, 3, 1, 8, 45, 12, 345_000_000);
+
+    @Test
+    void testEquipmentRoundTrip() throws IOException {
+        Equipment mri = new Equipment(1L, "MRI-1", "MRI", EquipmentStatus.MAINTENANCE, 60);
+        mri.setQueueLength(3);
+        mri.setNextAvailable("13:00");
+        Equipment unnamed = new Equipment(300L, null, "CT", null, 30);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BinaryCodec.writeEquipment(List.of(mri, unnamed), bytes);
+        List<Map<String, Object>> decoded = BinaryCodec.decode(bytes.toByteArray());
+
+        assertEquals(Map.of("id", 1L, "name", "MRI-1", "type", "MRI", "status", EquipmentStatus.MAINTENANCE,
+                "bufferTime", 60, "queueLength", 3, "nextAvailable", "13:00"), decoded.get(0));
+        assertEquals(300L, decoded.get(1).get("id"));
+        assertNull(decoded.get(1).get("name"));
+        assertNull(decoded.get(1).get("status"));
+        assertNull(decoded.get(1).get("nextAvailable"));
+    }
+
+    @Test
+    void testBookingTimesAndStatusesRoundTrip() throws IOException {
+        List<Booking> bookings = List.of(
+                new Booking(10L, "Zoë Ørsted", 2L, Priority.EMERGENCY, "2026-03-02T14:30", "PENDING", BOOKED),
+                new Booking(11L, "John", 2L, null, "after lunch", "ON_HOLD", null),
+                new Booking(12L, "Jane", 2L, Priority.NORMAL, null, null, BOOKED));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BinaryCodec.writeBookings(bookings, bytes);
+        List<Map<String, Object>> decoded = BinaryCodec.decode(bytes.toByteArray());
+
+        assertEquals("Zoë Ørsted", decoded.get(0).get("patientName"));
+        assertEquals(Priority.EMERGENCY, decoded.get(0).get("priority"));
+        assertEquals(LocalDateTime.of(2026, 3, 2, 14, 30), decoded.get(0).get("slotTime"));
+        assertEquals("PENDING", decoded.get(0).get("status"));
+        assertEquals(BOOKED, decoded.get(0).get("bookingTime"), "milliseconds survive");
+        assertNull(decoded.get(1).get("priority"));
+        assertEquals("after lunch", decoded.get(1).get("slotTime"), "free-text slot times pass through");
+        assertEquals("ON_HOLD", decoded.get(1).get("status"));
+        assertNull(decoded.get(1).get("bookingTime"));
+        assertNull(decoded.get(2).get("slotTime"));
+        assertNull(decoded.get(2).get("status"));
+    }
+
+    @Test
+    void testEveryLifecycleStatusTakesOneByte() throws IOException {
+        int oneByteSize = -1;
+        for (String status : List.of("PENDING", "CONFIRMED", "IN_USE", "SERVED")) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            BinaryCodec.writeBookings(List.of(new Booking(10L, "John", 2L, Priority.NORMAL, null, status, BOOKED)), bytes);
+            if (oneByteSize < 0) {
+                oneByteSize = bytes.size();
+            }
+
+            assertEquals(oneByteSize, bytes.size(), status + " is written as a code, not as text");
+            assertEquals(status, BinaryCodec.decode(bytes.toByteArray()).get(0).get("status"));
+        }
+    }
+
+    @Test
+    void testQueueIsAFractionOfTheJsonSize() throws IOException {
+        Equipment ct = new Equipment(2L, "CT-Scanner", "CT", EquipmentStatus.IN_USE, 30);
+        List<QueueEntry> queue = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) {
+            Booking booking = new Booking((long) i, "Patient " + i, 2L, Priority.values()[i % 3], null, "CONFIRMED",
+                    BOOKED.plusMinutes(i));
+            queue.add(new QueueEntry(booking, ct, i));
+        }
+        ObjectMapper json = new ObjectMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BinaryCodec.writeQueue(queue, bytes);
+        List<Map<String, Object>> decoded = BinaryCodec.decode(bytes.toByteArray());
+
+        assertEquals(100, decoded.size());
+        assertEquals(100, decoded.get(99).get("position"));
+        assertEquals(99L * 30, decoded.get(99).get("estimatedWaitMinutes"));
+        assertTrue(bytes.size() * 3 < json.writeValueAsBytes(queue).length,
+                bytes.size() + " bytes against " + json.writeValueAsBytes(queue).length + " as JSON");
+    }
+
+    @Test
+    void testSlotTimesInOtherShapesStillParse() throws IOException {
+        assertEquals(LocalDateTime.of(2026, 3, 2, 14, 30), BinaryCodec.parseMinutes("2026-03-02T14:30"));
+        assertNull(BinaryCodec.parseMinutes("2026-03-02T14:30:15"));
+        assertNull(BinaryCodec.parseMinutes("2026-13-02T14:30"));
+
+        List<Booking> bookings = List.of(
+                new Booking(1L, "A", 2L, Priority.NORMAL, "2026-03-02T14:30:15", "PENDING", BOOKED),
+                new Booking(2L, "B", 2L, Priority.NORMAL, "2026-13-02T14:30", "PENDING", BOOKED));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BinaryCodec.writeBookings(bookings, bytes);
+        List<Map<String, Object>> decoded = BinaryCodec.decode(bytes.toByteArray());
+
+        assertEquals(LocalDateTime.of(2026, 3, 2, 14, 30, 15), decoded.get(0).get("slotTime"));
+        assertEquals("2026-13-02T14:30", decoded.get(1).get("slotTime"));
+    }
+
+    @Test
+    void testVarintsUseOneByteUpTo127() throws IOException {
+        for (long value : new long[]{0, 127, 128, 300, Integer.MAX_VALUE, Long.MAX_VALUE}) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            BinaryCodec.writeVarLong(new DataOutputStream(bytes), value);
+            assertEquals(value, BinaryCodec.readVarLong(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))));
+            if (value <= 127) {
+                assertEquals(1, bytes.size());
+            }
+        }
+    }
+
+    @Test
+    void testForeignBodyIsRejected() {
+        assertThrows(IOException.class, () -> BinaryCodec.decode("[{\"id\":1}]".getBytes()));
+        assertThrows(IOException.class, () -> BinaryCodec.decode(new byte[]{0x45}));
+    }
+}
@@ -4,9 +4,15 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hospital.system.model.Booking;
 import com.hospital.system.model.Equipment;
 import com.hospital.system.model.EquipmentStatus;
+import com.hospital.system.model.OutboxMessage;
 import com.hospital.system.model.Priority;
 import com.hospital.system.repository.BookingRepository;
 import com.hospital.system.repository.EquipmentRepository;
+import com.hospital.system.repository.MaintenanceWindowRepository;
+import com.hospital.system.repository.OutboxMessageRepository;
+import com.hospital.system.service.MaintenanceTimeline;
+import com.hospital.system.service.PatientSearchService;
+import com.hospital.system.service.QueueViewService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -14,13 +20,19 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
 import java.util.Map;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -31,6 +43,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  */
 @SpringBootTest
 @AutoConfigureMockMvc
+@TestPropertySource(locations = "classpath:application-test.properties")
 @Transactional
 class HospitalControllerIntegrationTest {
 
@@ -46,6 +59,21 @@ class HospitalControllerIntegrationTest {
     @Autowired
     private BookingRepository bookingRepository;
 
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+
+    @Autowired
+    private QueueViewService queueViewService;
+
+    @Autowired
+    private PatientSearchService patientSearchService;
+
+    @Autowired
+    private MaintenanceTimeline maintenanceTimeline;
+
+    @Autowired
+    private MaintenanceWindowRepository maintenanceWindowRepository;
+
     private Long mriId;
     private Long ctId;
 
@@ -84,6 +112,60 @@ class HospitalControllerIntegrationTest {
                 .andExpect(jsonPath("$[0].nextAvailable").exists());
     }
 
+    @Test
+    @DisplayName("GET /api/admin/limits - Requests are counted against their hospital's endpoint class and the connection budget")
+    void shouldReportConcurrencyLimits() throws Exception {
+        mockMvc.perform(get("/api/equipment")).andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/admin/limits"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.connections.size").value(10))
+                // The stats request is a READ itself, and is still running while they are taken
+                .andExpect(jsonPath("$.connections.inUse").value(1))
+                .andExpect(jsonPath("$.limits.READ.accepted", greaterThanOrEqualTo(2)))
+                .andExpect(jsonPath("$.limits.READ.inFlight").value(1))
+                .andExpect(jsonPath("$.limits.READ.rejected").value(0))
+                .andExpect(jsonPath("$.limits.QUEUE_ACTION.max").value(10))
+                .andExpect(jsonPath("$.tenants").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("X-Tenant-Id - Each hospital sees only its own machines and bookings")
+    void shouldIsolateTenants() throws Exception {
+        Equipment northMri = new Equipment(null, "MRI-North", "MRI", EquipmentStatus.AVAILABLE, 60);
+        northMri.setTenantId("north");
+        northMri = equipmentRepository.save(northMri);
+        Booking northBooking = createBooking("North Patient", northMri.getId(), Priority.NORMAL, "PENDING");
+        northBooking.setTenantId("north");
+        bookingRepository.save(northBooking);
+
+        mockMvc.perform(get("/api/equipment").header("X-Tenant-Id", "north"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name").value("MRI-North"));
+        mockMvc.perform(get("/api/equipment"))
+                .andExpect(jsonPath("$", hasSize(2)));
+        mockMvc.perform(get("/api/bookings/pending"))
+                .andExpect(jsonPath("$[*].patientName", not(hasItem("North Patient"))));
+
+        // Another hospital's rows are reported exactly like missing ones
+        mockMvc.perform(post("/api/bookings/{id}/confirm", northBooking.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("assignedPriority", "URGENT"))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Booking not found"));
+        mockMvc.perform(get("/api/queue/{equipmentId}", mriId).header("X-Tenant-Id", "north"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Error: Equipment not found."));
+
+        mockMvc.perform(get("/api/equipment").header("X-Tenant-Id", "north/../south"))
+                .andExpect(status().isBadRequest());
+        // A well-formed name is still refused unless that hospital exists
+        mockMvc.perform(get("/api/equipment").header("X-Tenant-Id", "south"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Error: Unknown hospital in X-Tenant-Id."));
+    }
+
     @Test
     @DisplayName("POST /api/bookings - Should create a new booking")
     void shouldCreateBooking() throws Exception {
@@ -107,6 +189,33 @@ class HospitalControllerIntegrationTest {
                 .andExpect(jsonPath("$.status").value("PENDING"));
     }
 
+    @Test
+    @DisplayName("POST /api/bookings - Should replay the first response for a retried Idempotency-Key")
+    void shouldReplayRetriedBooking() throws Exception {
+        String body = objectMapper.writeValueAsString(Map.of(
+                "patientName", "Flaky Wi-Fi Patient",
+                "equipmentId", mriId.intValue(),
+                "slotTime", "2026-12-31T10:00",
+                "requestedPriority", "URGENT"));
+
+        MvcResult first = mockMvc.perform(post("/api/bookings")
+                        .header("Idempotency-Key", "tablet-7-req-42")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andReturn();
+        Long bookingId = objectMapper.readTree(first.getResponse().getContentAsString()).get("id").asLong();
+
+        mockMvc.perform(post("/api/bookings")
+                        .header("Idempotency-Key", "tablet-7-req-42")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(bookingId));
+
+        assertEquals(1, bookingRepository.findByStatus("PENDING").size());
+    }
+
     @Test
     @DisplayName("GET /api/bookings/pending - Should return pending bookings")
     void shouldGetPendingBookings() throws Exception {
@@ -122,6 +231,174 @@ class HospitalControllerIntegrationTest {
                 .andExpect(jsonPath("$[*].status", everyItem(equalTo("PENDING"))));
     }
 
+    @Test
+    @DisplayName("GET /api/bookings/pending/page - Should page through pending bookings by priority then arrival")
+    void shouldPagePendingBookings() throws Exception {
+        createBooking("Normal Early", mriId, Priority.NORMAL, "PENDING");
+        createBooking("Emergency", ctId, Priority.EMERGENCY, "PENDING");
+        createBooking("Urgent", mriId, Priority.URGENT, "PENDING");
+        createBooking("Normal Late", mriId, Priority.NORMAL, "PENDING");
+        createBooking("Already Confirmed", mriId, Priority.EMERGENCY, "CONFIRMED");
+
+        MvcResult first = mockMvc.perform(get("/api/bookings/pending/page").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.items[0].patientName").value("Emergency"))
+                .andExpect(jsonPath("$.items[1].patientName").value("Urgent"))
+                .andExpect(jsonPath("$.nextCursor").isNotEmpty())
+                .andReturn();
+        String cursor = objectMapper.readTree(first.getResponse().getContentAsString()).get("nextCursor").asText();
+
+        mockMvc.perform(get("/api/bookings/pending/page").param("limit", "2").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.items[0].patientName").value("Normal Early"))
+                .andExpect(jsonPath("$.items[1].patientName").value("Normal Late"))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("GET /api/bookings/pending/page - Should filter by equipment type and priority")
+    void shouldFilterPendingPage() throws Exception {
+        createBooking("MRI Normal", mriId, Priority.NORMAL, "PENDING");
+        createBooking("MRI Urgent", mriId, Priority.URGENT, "PENDING");
+        createBooking("CT Urgent", ctId, Priority.URGENT, "PENDING");
+
+        mockMvc.perform(get("/api/bookings/pending/page").param("type", "CT"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].patientName").value("CT Urgent"));
+
+        mockMvc.perform(get("/api/bookings/pending/page")
+                        .param("equipmentId", mriId.toString())
+                        .param("priority", "URGENT"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].patientName").value("MRI Urgent"));
+    }
+
+    @Test
+    @DisplayName("GET /api/bookings/pending/page - Should reject a malformed cursor")
+    void shouldRejectInvalidCursor() throws Exception {
+        mockMvc.perform(get("/api/bookings/pending/page").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Error: Invalid cursor."));
+    }
+
+    @Test
+    @DisplayName("GET /api/changes - Should return a change batch and reject a negative version")
+    void shouldServeChangeFeed() throws Exception {
+        mockMvc.perform(get("/api/changes").param("since", "0"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changes").isArray())
+                .andExpect(jsonPath("$.highWaterMark").isNumber())
+                .andExpect(jsonPath("$.hasMore").value(false));
+
+        mockMvc.perform(get("/api/changes").param("since", "-1"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Error: since must be zero or positive."));
+    }
+
+    @Test
+    @DisplayName("GET /api/bookings/pending/summary - Should count pending bookings per priority")
+    void shouldSummarizePendingBookings() throws Exception {
+        createBooking("Normal 1", mriId, Priority.NORMAL, "PENDING");
+        createBooking("Normal 2", ctId, Priority.NORMAL, "PENDING");
+        createBooking("Emergency", mriId, Priority.EMERGENCY, "PENDING");
+        createBooking("Confirmed", mriId, Priority.URGENT, "CONFIRMED");
+
+        mockMvc.perform(get("/api/bookings/pending/summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.byPriority.NORMAL").value(2))
+                .andExpect(jsonPath("$.byPriority.URGENT").value(0))
+                .andExpect(jsonPath("$.byPriority.EMERGENCY").value(1))
+                .andExpect(jsonPath("$.total").value(3));
+
+        mockMvc.perform(get("/api/bookings/pending/summary").param("equipmentId", ctId.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(1));
+    }
+
+    @Test
+    @DisplayName("GET /api/dashboard - Should combine equipment, selected queue and triage inbox")
+    void shouldReturnDashboard() throws Exception {
+        createBooking("Queued Normal", mriId, Priority.NORMAL, "CONFIRMED");
+        createBooking("Queued Emergency", mriId, Priority.EMERGENCY, "CONFIRMED");
+        createBooking("Waiting Triage", mriId, Priority.URGENT, "PENDING");
+        createBooking("Other Machine", ctId, Priority.NORMAL, "PENDING");
+
+        mockMvc.perform(get("/api/dashboard")
+                        .param("equipmentId", mriId.toString())
+                        .param("pending", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.equipment[?(@.id == " + mriId + ")].queueLength").value(2))
+                .andExpect(jsonPath("$.queue", hasSize(2)))
+                .andExpect(jsonPath("$.queue[0].patientName").value("Queued Emergency"))
+                .andExpect(jsonPath("$.pendingSummary.total").value(1))
+                .andExpect(jsonPath("$.pending.items", hasSize(1)))
+                .andExpect(jsonPath("$.pending.items[0].patientName").value("Waiting Triage"));
+
+        // Patient terminals do not ask for the inbox
+        mockMvc.perform(get("/api/dashboard"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.queue").doesNotExist())
+                .andExpect(jsonPath("$.pending").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("GET /api/bookings/search - Should find active bookings by part of the name")
+    void shouldSearchPatients() throws Exception {
+        createBooking("Maria Gonzalez", mriId, Priority.NORMAL, "PENDING");
+        createBooking("Mario Rossi", ctId, Priority.EMERGENCY, "CONFIRMED");
+        createBooking("Maria Served", mriId, Priority.NORMAL, "SERVED");
+        patientSearchService.rebuild(); // rows were written straight to the repository
+
+        mockMvc.perform(get("/api/bookings/search").param("q", "mari"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].patientName").value("Mario Rossi"))
+                .andExpect(jsonPath("$[1].patientName").value("Maria Gonzalez"));
+
+        mockMvc.perform(get("/api/bookings/search").param("q", "onzal"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].status").value("PENDING"));
+
+        mockMvc.perform(get("/api/bookings/search").param("q", "?"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Error: q must contain at least one letter or digit."));
+    }
+
+    @Test
+    @DisplayName("GET /api/stream/queue/{id} - Should open an event stream and send the current queue")
+    void shouldStreamQueue() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/stream/queue/{equipmentId}", mriId))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // The first event is written from the stream's background thread
+        long deadline = System.currentTimeMillis() + 2_000;
+        while (!result.getResponse().getContentAsString().contains("event:queue") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(result.getResponse().getContentType().startsWith("text/event-stream"));
+        assertTrue(result.getResponse().getContentAsString().contains("event:queue"));
+    }
+
+    @Test
+    @DisplayName("GET /api/stream/queue/{id} - Unknown and other hospitals' machines are 404, not an outage")
+    void shouldNotStreamUnknownEquipment() throws Exception {
+        Equipment northMri = new Equipment(null, "MRI-North-Stream", "MRI", EquipmentStatus.AVAILABLE, 60);
+        northMri.setTenantId("north");
+        Long northId = equipmentRepository.save(northMri).getId();
+
+        mockMvc.perform(get("/api/stream/queue/{equipmentId}", 999_999L))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("Error: Equipment not found."));
+        mockMvc.perform(get("/api/stream/queue/{equipmentId}", northId))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     @DisplayName("POST /api/bookings/{id}/confirm - Should confirm booking with priority")
     void shouldConfirmBooking() throws Exception {
@@ -140,6 +417,40 @@ class HospitalControllerIntegrationTest {
                 .andExpect(jsonPath("$.priority").value("EMERGENCY"));
     }
 
+    @Test
+    @DisplayName("POST /api/bookings/confirm - Should confirm many bookings and report each outcome")
+    void shouldBulkConfirmBookings() throws Exception {
+        Booking first = createBooking("Bulk 1", mriId, Priority.NORMAL, "PENDING");
+        Booking second = createBooking("Bulk 2", ctId, Priority.NORMAL, "PENDING");
+        Booking confirmed = createBooking("Re-triaged", mriId, Priority.NORMAL, "CONFIRMED");
+        Booking served = createBooking("Already Done", mriId, Priority.NORMAL, "SERVED");
+
+        List<Map<String, Object>> request = List.of(
+                Map.of("id", first.getId(), "assignedPriority", "EMERGENCY"),
+                Map.of("id", second.getId(), "assignedPriority", "URGENT"),
+                Map.of("id", confirmed.getId(), "assignedPriority", "URGENT"),
+                Map.of("id", served.getId(), "assignedPriority", "URGENT"),
+                Map.of("id", 987654L, "assignedPriority", "NORMAL"));
+
+        mockMvc.perform(post("/api/bookings/confirm")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(5)))
+                .andExpect(jsonPath("$[0].outcome").value("CONFIRMED"))
+                .andExpect(jsonPath("$[1].outcome").value("CONFIRMED"))
+                .andExpect(jsonPath("$[2].outcome").value("CONFIRMED"))
+                .andExpect(jsonPath("$[3].outcome").value("NOT_PENDING"))
+                .andExpect(jsonPath("$[4].outcome").value("NOT_FOUND"));
+
+        mockMvc.perform(get("/api/queue/{equipmentId}", mriId))
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].patientName").value("Bulk 1"))
+                .andExpect(jsonPath("$[0].priority").value("EMERGENCY"))
+                .andExpect(jsonPath("$[1].patientName").value("Re-triaged"))
+                .andExpect(jsonPath("$[1].priority").value("URGENT"));
+    }
+
     @Test
     @DisplayName("GET /api/queue/{equipmentId} - Should return sorted queue for equipment")
     void shouldGetQueueForEquipment() throws Exception {
@@ -166,6 +477,135 @@ class HospitalControllerIntegrationTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.patientName").value("Next Patient"))
                 .andExpect(jsonPath("$.status").value("IN_USE"));
+
+        // The call-display notification was stored in the same transaction, ready for the dispatcher
+        List<OutboxMessage> outbox = outboxMessageRepository.findAll();
+        assertEquals(1, outbox.size());
+        assertEquals("PATIENT_CALLED", outbox.get(0).getEventType());
+        assertTrue(outbox.get(0).getPayload().contains("\"patientName\":\"Next Patient\""));
+    }
+
+    @Test
+    @DisplayName("POST /api/queue/{equipmentId}/next - Should wait for a free technician and prep room")
+    void shouldWaitForTechnicianAndRoom() throws Exception {
+        // The demo crew has one MRI technician and one MRI prep room
+        Equipment second = equipmentRepository.save(new Equipment(null, "MRI-Test-2", "MRI", EquipmentStatus.AVAILABLE, 60));
+        createBooking("First Patient", mriId, Priority.NORMAL, "CONFIRMED");
+        createBooking("Second Patient", second.getId(), Priority.NORMAL, "CONFIRMED");
+
+        mockMvc.perform(post("/api/queue/{equipmentId}/next", mriId))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/resources/dispatch"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.equipmentName == 'MRI-Test-2')].waitingFor[*]", contains("TECHNICIAN", "PREP_ROOM")))
+                .andExpect(jsonPath("$[?(@.equipmentName == 'MRI-Test-2')].readyToCall", contains(false)));
+
+        mockMvc.perform(post("/api/queue/{equipmentId}/next", second.getId()))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Error: Waiting for a free TECHNICIAN and PREP_ROOM for MRI."));
+        // The machine was handed back rather than left IN_USE with nobody to run it
+        assertEquals(EquipmentStatus.AVAILABLE, equipmentRepository.findById(second.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    @DisplayName("POST /api/maintenance - Bookings and slot search work around planned maintenance")
+    void shouldPlanMaintenanceAroundBookings() throws Exception {
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+        mockMvc.perform(post("/api/maintenance")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of(
+                                "equipmentId", mriId.toString(),
+                                "startsAt", start.toString(),
+                                "endsAt", start.plusHours(2).toString(),
+                                "reason", "Coil calibration"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").exists());
+        // The test transaction never commits, so load the timeline the way the commit would
+        maintenanceTimeline.reload(mriId);
+
+        // A 60-minute scan starting half an hour before the window would run into it
+        Map<String, Object> request = Map.of(
+                "patientName", "Blocked Patient",
+                "equipmentId", mriId.intValue(),
+                "slotTime", start.minusMinutes(30).toString());
+        mockMvc.perform(post("/api/bookings")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", containsString("planned maintenance")));
+
+        mockMvc.perform(get("/api/maintenance/free-slot")
+                        .param("equipmentId", mriId.toString())
+                        .param("from", start.minusMinutes(30).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.start", startsWith(start.plusHours(2).toString().substring(0, 16))));
+
+        mockMvc.perform(post("/api/maintenance")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of(
+                                "equipmentId", mriId.toString(),
+                                "startsAt", start.toString(),
+                                "endsAt", start.toString()))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Error: A maintenance window must end after it starts."));
+
+        maintenanceWindowRepository.deleteAll();
+        maintenanceTimeline.reload(mriId);
+    }
+
+    @Test
+    @DisplayName("POST /api/holds - A held slot is booked only by the patient holding it")
+    void shouldBookHeldSlot() throws Exception {
+        String slot = LocalDateTime.now().plusDays(2).truncatedTo(ChronoUnit.HOURS).toString();
+        MvcResult held = mockMvc.perform(post("/api/holds")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("equipmentId", ctId, "slotTime", slot, "minutes", 5))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.expiresAt").exists())
+                .andReturn();
+        String holdId = objectMapper.readTree(held.getResponse().getContentAsString()).get("id").asText();
+
+        mockMvc.perform(post("/api/bookings")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of(
+                                "patientName", "Walk-in", "equipmentId", ctId.intValue(), "slotTime", slot))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", startsWith("Error: That slot is held by another patient")))
+                .andExpect(jsonPath("$.code").value("SLOT_HELD"));
+
+        mockMvc.perform(post("/api/bookings")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of(
+                                "patientName", "Held Patient", "equipmentId", ctId.intValue(), "holdId", holdId))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.slotTime").value(slot));
+
+        // Spoken for until the booking commits (this test's transaction never does), then used up
+        mockMvc.perform(post("/api/bookings")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of(
+                                "patientName", "Second Try", "equipmentId", ctId.intValue(), "holdId", holdId))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value("HOLD_IN_USE"));
+    }
+
+    @Test
+    @DisplayName("POST /api/planning/what-if - Projects waits with and without the scenario")
+    void shouldProjectWhatIf() throws Exception {
+        createBooking("First CT Patient", ctId, Priority.NORMAL, "CONFIRMED");
+        createBooking("Second CT Patient", ctId, Priority.NORMAL, "CONFIRMED");
+
+        mockMvc.perform(post("/api/planning/what-if")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"addMachines\": {\"CT\": 1}}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.queuedPatients").value(2))
+                .andExpect(jsonPath("$.baseline.waits.NORMAL.p95Seconds").value(30 * 60.0))
+                .andExpect(jsonPath("$.scenario.waits.NORMAL.p95Seconds").value(0.0))
+                .andExpect(jsonPath("$.scenario.machines.CT").value(2));
+        // Nothing hypothetical reached the live tables
+        assertEquals(2, equipmentRepository.count());
     }
 
     @Test
@@ -218,7 +658,11 @@ class HospitalControllerIntegrationTest {
         booking.setPriority(priority);
         booking.setSlotTime("2026-12-31T10:00");
         booking.setStatus(status);
-        booking.setBookingTime(LocalDateTime.now());
-        return bookingRepository.save(booking);
+        // Match the column precision so keyset cursors built from cached entities line up with stored rows
+        booking.setBookingTime(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
+        Booking saved = bookingRepository.save(booking);
+        // Written straight to the repository, so tell the queue read model ourselves
+        queueViewService.markDirty(equipmentId);
+        return saved;
     }
 }
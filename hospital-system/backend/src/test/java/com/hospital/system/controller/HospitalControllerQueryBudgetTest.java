@@ -0,0 +1,196 @@
+package com.hospital.system.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hospital.system.model.Booking;
+import com.hospital.system.model.Equipment;
+import com.hospital.system.model.EquipmentStatus;
+import com.hospital.system.model.Priority;
+import com.hospital.system.repository.BookingRepository;
+import com.hospital.system.repository.EquipmentRepository;
+import com.hospital.system.service.PatientSearchService;
+import com.hospital.system.service.QueueViewService;
+import com.hospital.system.support.QueryBudget;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Query-count and latency budgets for the REST endpoints, measured at realistic row counts.
+ * Not @Transactional on purpose: every MockMvc call gets its own session, exactly like production,
+ * so the statement counts include everything the endpoint really does.
+ * Results are written to target/query-budgets/HospitalControllerQueryBudgetTest.csv.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(locations = "classpath:application-test.properties")
+class HospitalControllerQueryBudgetTest {
+
+    private static final int EQUIPMENT_ROWS = 50;
+    // Generous wall-clock ceiling: catches pathological regressions without flaking on slow CI hosts
+    private static final long MAX_MILLIS = 1_000;
+
+    private static final QueryBudget budget = new QueryBudget("HospitalControllerQueryBudgetTest");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EquipmentRepository equipmentRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private QueueViewService queueViewService;
+
+    @Autowired
+    private PatientSearchService patientSearchService;
+
+    private final List<Long> equipmentIds = new ArrayList<>();
+    private final List<Long> pendingIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository.deleteAll();
+        equipmentRepository.deleteAll();
+        equipmentIds.clear();
+        pendingIds.clear();
+
+        List<Equipment> equipment = new ArrayList<>();
+        for (int i = 0; i < EQUIPMENT_ROWS; i++) {
+            equipment.add(new Equipment(null, "Machine-" + i, i % 2 == 0 ? "MRI" : "CT", EquipmentStatus.AVAILABLE, 30));
+        }
+        equipmentRepository.saveAll(equipment).forEach(eq -> equipmentIds.add(eq.getId()));
+
+        List<Booking> bookings = new ArrayList<>();
+        Priority[] priorities = Priority.values();
+        for (int i = 0; i < EQUIPMENT_ROWS * 4; i++) {
+            Long equipmentId = equipmentIds.get(i % EQUIPMENT_ROWS);
+            String status = i % 2 == 0 ? "CONFIRMED" : "PENDING";
+            bookings.add(new Booking(null, "Patient " + i, equipmentId, priorities[i % priorities.length],
+                    "2026-12-31T10:00", status, LocalDateTime.now().minusMinutes(i)));
+        }
+        bookingRepository.saveAll(bookings).stream()
+                .filter(b -> "PENDING".equals(b.getStatus()))
+                .forEach(b -> pendingIds.add(b.getId()));
+        queueViewService.rebuild();
+        patientSearchService.rebuild();
+    }
+
+    @AfterAll
+    static void writeReport() throws Exception {
+        budget.writeReport();
+    }
+
+    @Test
+    @DisplayName("GET /api/equipment stays within 3 statements at 50 equipment rows")
+    void equipmentListIsNotNPlusOne() throws Exception {
+        budget.call("GET /api/equipment", () -> mockMvc.perform(get("/api/equipment"))
+                        .andExpect(status().isOk()))
+                .maxStatements(3)
+                .maxMillis(MAX_MILLIS)
+                .verify();
+    }
+
+    @Test
+    @DisplayName("GET /api/dashboard replaces three polls and reads the queue read model only twice")
+    void dashboardSharesQueueReads() throws Exception {
+        budget.call("GET /api/dashboard (patient)", () -> mockMvc.perform(get("/api/dashboard")
+                                .param("equipmentId", equipmentIds.get(1).toString()))
+                        .andExpect(status().isOk()))
+                // Equipment, queue lengths (grouped count) and the selected queue (range scan)
+                .maxStatements(3)
+                .maxMillis(MAX_MILLIS)
+                .verify();
+
+        // Equipment, queue lengths, selected queue, summary, then one inbox query per priority that actually has pending requests
+        budget.call("GET /api/dashboard (admin)", () -> mockMvc.perform(get("/api/dashboard")
+                                .param("equipmentId", equipmentIds.get(1).toString())
+                                .param("pending", "true")
+                                .param("pendingLimit", "50"))
+                        .andExpect(status().isOk()))
+                .maxStatements(4 + Priority.values().length)
+                .maxMillis(MAX_MILLIS)
+                .verify();
+    }
+
+    @Test
+    @DisplayName("GET /api/bookings/search is answered from memory")
+    void patientSearchDoesNotTouchTheDatabase() throws Exception {
+        budget.call("GET /api/bookings/search", () -> mockMvc.perform(get("/api/bookings/search").param("q", "patient 1"))
+                        .andExpect(status().isOk()))
+                .maxStatements(0)
+                .maxMillis(MAX_MILLIS)
+                .verify();
+    }
+
+    @Test
+    @DisplayName("GET /api/queue/{id} is a single query")
+    void queueIsSingleQuery() throws Exception {
+        budget.call("GET /api/queue/{id}", () -> mockMvc.perform(get("/api/queue/{id}", equipmentIds.get(0)))
+                        .andExpect(status().isOk()))
+                .maxStatements(1)
+                .maxMillis(MAX_MILLIS)
+                .verify();
+    }
+
+    @Test
+    @DisplayName("Pending inbox page and summary have bounded query counts")
+    void pendingInboxIsBounded() throws Exception {
+        budget.call("GET /api/bookings/pending/page", () -> mockMvc.perform(get("/api/bookings/pending/page").param("limit", "25"))
+                        .andExpect(status().isOk()))
+                .maxStatements(Priority.values().length)
+                .maxEntityLoads(26)
+                .maxMillis(MAX_MILLIS)
+                .verify();
+
+        budget.call("GET /api/bookings/pending/summary", () -> mockMvc.perform(get("/api/bookings/pending/summary"))
+                        .andExpect(status().isOk()))
+                .maxStatements(1)
+                .maxEntityLoads(0)
+                .maxMillis(MAX_MILLIS)
+                .verify();
+    }
+
+    @Test
+    @DisplayName("Bulk confirm costs one read, one machine lock, one UPDATE per priority, one batched change-log insert and one queue view refresh, independent of batch size")
+    void bulkConfirmIsSetBased() throws Exception {
+        List<Map<String, Object>> request = new ArrayList<>();
+        Priority[] priorities = Priority.values();
+        for (int i = 0; i < pendingIds.size(); i++) {
+            request.add(Map.of("id", pendingIds.get(i), "assignedPriority", priorities[i % priorities.length].name()));
+        }
+
+        budget.call("POST /api/bookings/confirm (" + request.size() + " ids)", () -> mockMvc.perform(post("/api/bookings/confirm")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(request)))
+                        .andExpect(status().isOk()))
+                // One lock on the touched machines, taken before the UPDATEs
+                // The queue_view refresh adds four: re-locking the machines, their stored rows, their queues and one batched INSERT
+                // The change-log insert adds two more to take its numbers from the change_seq counter row
+                .maxStatements(1 + 1 + Priority.values().length + 1 + 2 + 4)
+                // The confirm itself loads nothing; the refresh reads each touched machine, stored row and queue once
+                .maxEntityLoads(EQUIPMENT_ROWS + EQUIPMENT_ROWS * 2 + EQUIPMENT_ROWS * 4)
+                .maxMillis(MAX_MILLIS)
+                .verify();
+    }
+}
@@ -1,126 +1,223 @@
-package com.hospital.system.controller;
-
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.hospital.system.model.Booking;
-import com.hospital.system.model.Equipment;
-import com.hospital.system.model.EquipmentStatus;
-import com.hospital.system.model.Priority;
-import com.hospital.system.repository.EquipmentRepository;
-import com.hospital.system.service.QueueService;
-import org.junit.jupiter.api.DisplayName;
-import org.junit.jupiter.api.Test;
-import org.mockito.Mockito;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
-import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.http.MediaType;
-import org.springframework.test.web.servlet.MockMvc;
-
-import java.time.LocalDateTime;
-import java.util.List;
-import java.util.Map;
-
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.eq;
-import static org.mockito.Mockito.when;
-import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
-import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
-
-/**
- * Lightweight controller tests for {@link HospitalController}.
- * Uses MockMvc + mocked service/repository (no real DB).
- */
-@WebMvcTest(HospitalController.class)
-class HospitalControllerTest {
-
-    @Autowired
-    private MockMvc mockMvc;
-
-    @Autowired
-    private ObjectMapper objectMapper;
-
-    @MockBean
-    private EquipmentRepository equipmentRepository;
-
-    @MockBean
-    private QueueService queueService;
-
-    @Test
-    @DisplayName("GET /api/equipment returns enriched equipment list")
-    void shouldReturnEquipmentWithQueueInfo() throws Exception {
-        Equipment mri = new Equipment(1L, "MRI-1", "MRI", EquipmentStatus.AVAILABLE, 60);
-        Equipment ct = new Equipment(2L, "CT-Scanner", "CT", EquipmentStatus.AVAILABLE, 30);
-
-        when(equipmentRepository.findAll()).thenReturn(List.of(mri, ct));
-        // For MRI, pretend there is 1 booking in queue
-        when(queueService.getQueueForEquipment(1L))
-                .thenReturn(List.of(buildBooking(1L, 1L, Priority.NORMAL, "CONFIRMED")));
-        when(queueService.calculateNextSlot(1L)).thenReturn("10:30");
-
-        // For CT, queue is empty
-        when(queueService.getQueueForEquipment(2L)).thenReturn(List.of());
-        when(queueService.calculateNextSlot(2L)).thenReturn("Now");
-
-        mockMvc.perform(get("/api/equipment"))
-                .andExpect(status().isOk())
-                .andExpect(jsonPath("$.length()").value(2))
-                .andExpect(jsonPath("$[0].name").value("MRI-1"))
-                .andExpect(jsonPath("$[0].queueLength").value(1))
-                .andExpect(jsonPath("$[0].nextAvailable").value("10:30"))
-                .andExpect(jsonPath("$[1].name").value("CT-Scanner"))
-                .andExpect(jsonPath("$[1].queueLength").value(0))
-                .andExpect(jsonPath("$[1].nextAvailable").value("Now"));
-    }
-
-    @Test
-    @DisplayName("POST /api/bookings creates booking via QueueService")
-    void shouldCreateBooking() throws Exception {
-        Map<String, Object> requestBody = Map.of(
-                "patientName", "API Test",
-                "equipmentId", 1,
-                "slotTime", "2026-02-14T10:00",
-                "requestedPriority", "EMERGENCY"
-        );
-
-        Booking saved = new Booking(
-                99L,
-                "API Test",
-                1L,
-                Priority.EMERGENCY,
-                "2026-02-14T10:00",
-                "PENDING",
-                LocalDateTime.now()
-        );
-
-        when(queueService.createBookingRequest(any(Booking.class))).thenReturn(saved);
-
-        mockMvc.perform(
-                        post("/api/bookings")
-                                .contentType(MediaType.APPLICATION_JSON)
-                                .content(objectMapper.writeValueAsString(requestBody))
-                )
-                .andExpect(status().isOk())
-                .andExpect(jsonPath("$.id").value(99))
-                .andExpect(jsonPath("$.patientName").value("API Test"))
-                .andExpect(jsonPath("$.equipmentId").value(1))
-                .andExpect(jsonPath("$.priority").value("EMERGENCY"));
-
-        // optional: verify that QueueService was called with mapped values
-        Mockito.verify(queueService).createBookingRequest(any(Booking.class));
-    }
-
-    private Booking buildBooking(Long id, Long equipmentId, Priority priority, String status) {
-        return new Booking(
-                id,
-                "Test Patient " + id,
-                equipmentId,
-                priority,
-                "2026-02-14T10:00",
-                status,
-                LocalDateTime.now()
-        );
-    }
-}
-
+package com.hospital.system.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hospital.system.binary.BinaryCodec;
+import com.hospital.system.binary.BinaryMessageConverter;
+import com.hospital.system.dto.BookingRequest;
+import com.hospital.system.dto.ErrorCode;
+import com.hospital.system.dto.Result;
+import com.hospital.system.model.Booking;
+import com.hospital.system.model.Equipment;
+import com.hospital.system.model.EquipmentStatus;
+import com.hospital.system.model.Priority;
+import com.hospital.system.model.QueueEntry;
+import com.hospital.system.repository.EquipmentRepository;
+import com.hospital.system.service.IdempotencyService;
+import com.hospital.system.service.PatientSearchService;
+import com.hospital.system.service.QueueService;
+import com.hospital.system.service.QueueViewService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Lightweight controller tests for {@link HospitalController}.
+ * Uses MockMvc + mocked service/repository (no real DB).
+ */
+@WebMvcTest(HospitalController.class)
+@Import(IdempotencyService.class)
+class HospitalControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private EquipmentRepository equipmentRepository;
+
+    @MockBean
+    private QueueService queueService;
+
+    @MockBean
+    private QueueViewService queueViewService;
+
+    @MockBean
+    private PatientSearchService patientSearchService;
+
+    @Test
+    @DisplayName("GET /api/equipment returns enriched equipment list")
+    void shouldReturnEquipmentWithQueueInfo() throws Exception {
+        Equipment mri = new Equipment(1L, "MRI-1", "MRI", EquipmentStatus.AVAILABLE, 60);
+        Equipment ct = new Equipment(2L, "CT-Scanner", "CT", EquipmentStatus.AVAILABLE, 30);
+
+        when(equipmentRepository.findByTenantId("default")).thenReturn(List.of(mri, ct));
+        // For MRI, pretend there is 1 booking in queue; CT has no queue entry at all
+        when(queueViewService.getQueueLengths()).thenReturn(Map.of(1L, 1));
+        when(queueService.calculateNextSlot(mri, 1)).thenReturn("10:30");
+        when(queueService.calculateNextSlot(ct, 0)).thenReturn("Now");
+
+        mockMvc.perform(get("/api/equipment"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].name").value("MRI-1"))
+                .andExpect(jsonPath("$[0].queueLength").value(1))
+                .andExpect(jsonPath("$[0].nextAvailable").value("10:30"))
+                .andExpect(jsonPath("$[1].name").value("CT-Scanner"))
+                .andExpect(jsonPath("$[1].queueLength").value(0))
+                .andExpect(jsonPath("$[1].nextAvailable").value("Now"));
+    }
+
+    @Test
+    @DisplayName("GET /api/queue/{id} returns the binary encoding when asked for it")
+    void shouldNegotiateBinaryQueue() throws Exception {
+        Equipment mri = new Equipment(1L, "MRI-1", "MRI", EquipmentStatus.AVAILABLE, 60);
+        LocalDateTime booked = LocalDateTime.of(2026, 2, 14, 9, 15);
+        List<QueueEntry> queue = List.of(
+                new QueueEntry(new Booking(7L, "Jane", 1L, Priority.URGENT, "2026-02-14T10:00", "CONFIRMED", booked), mri, 1),
+                new QueueEntry(new Booking(8L, "John", 1L, Priority.NORMAL, null, "CONFIRMED", booked), mri, 2));
+        when(queueViewService.getQueue(1L)).thenReturn(queue);
+
+        byte[] body = mockMvc.perform(get("/api/queue/1")
+                        .accept(BinaryMessageConverter.MEDIA_TYPE, MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(BinaryMessageConverter.MEDIA_TYPE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        List<Map<String, Object>> decoded = BinaryCodec.decode(body);
+        assertEquals(2, decoded.size());
+        assertEquals("Jane", decoded.get(0).get("patientName"));
+        assertEquals(Priority.URGENT, decoded.get(0).get("priority"));
+        assertEquals(LocalDateTime.of(2026, 2, 14, 10, 0), decoded.get(0).get("slotTime"));
+        assertEquals(booked, decoded.get(1).get("bookingTime"));
+        assertEquals(60L, decoded.get(1).get("estimatedWaitMinutes"));
+
+        // Clients that do not ask keep getting JSON
+        mockMvc.perform(get("/api/queue/1"))
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$[0].priority").value("URGENT"));
+    }
+
+    @Test
+    @DisplayName("Errors stay JSON for a binary client that also accepts JSON")
+    void shouldReturnJsonErrorToBinaryClient() throws Exception {
+        when(queueViewService.getQueue(5L)).thenThrow(new RuntimeException("Error: Equipment not found."));
+
+        mockMvc.perform(get("/api/queue/5")
+                        .accept(BinaryMessageConverter.MEDIA_TYPE, MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Error: Equipment not found."));
+    }
+
+    @Test
+    @DisplayName("POST /api/bookings creates booking via QueueService")
+    void shouldCreateBooking() throws Exception {
+        Map<String, Object> requestBody = Map.of(
+                "patientName", "API Test",
+                "equipmentId", 1,
+                "slotTime", "2026-02-14T10:00",
+                "requestedPriority", "EMERGENCY"
+        );
+
+        Booking saved = new Booking(
+                99L,
+                "API Test",
+                1L,
+                Priority.EMERGENCY,
+                "2026-02-14T10:00",
+                "PENDING",
+                LocalDateTime.now()
+        );
+
+        when(queueService.submitBooking(any(BookingRequest.class))).thenReturn(Result.ok(saved));
+
+        mockMvc.perform(
+                        post("/api/bookings")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(requestBody))
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(99))
+                .andExpect(jsonPath("$.patientName").value("API Test"))
+                .andExpect(jsonPath("$.equipmentId").value(1))
+                .andExpect(jsonPath("$.priority").value("EMERGENCY"));
+
+        // optional: verify that QueueService was called with mapped values
+        Mockito.verify(queueService).submitBooking(Mockito.argThat(request ->
+                request.getEquipmentId() == 1L && request.priority() == Priority.EMERGENCY && request.getHoldId() == null));
+    }
+
+    @Test
+    @DisplayName("POST /api/bookings reports a refused booking with its code")
+    void shouldReturnCodeForRefusedBooking() throws Exception {
+        when(queueService.submitBooking(any(BookingRequest.class)))
+                .thenReturn(Result.rejected(ErrorCode.SLOT_IN_PAST, "Error: Booking date cannot be in the past."));
+
+        mockMvc.perform(post("/api/bookings")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"patientName\": \"Late\", \"equipmentId\": \"1\", \"slotTime\": \"2020-01-01T10:00\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Error: Booking date cannot be in the past."))
+                .andExpect(jsonPath("$.code").value("SLOT_IN_PAST"));
+
+        // With an Idempotency-Key the refusal travels as an exception, and the body is the same
+        mockMvc.perform(post("/api/bookings")
+                        .header("Idempotency-Key", "late-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"patientName\": \"Late\", \"equipmentId\": 1}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value("SLOT_IN_PAST"));
+    }
+
+    @Test
+    @DisplayName("POST /api/bookings reports an unreadable body with INVALID_REQUEST")
+    void shouldReturnCodeForUnreadableBody() throws Exception {
+        mockMvc.perform(post("/api/bookings")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"patientName\": \"Typo\", \"equipmentId\": \"MRI\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Error: The request body could not be read."))
+                .andExpect(jsonPath("$.code").value("INVALID_REQUEST"));
+
+        mockMvc.perform(post("/api/bookings")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"patientName\": "))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value("INVALID_REQUEST"));
+        Mockito.verifyNoInteractions(queueService);
+    }
+
+    private Booking buildBooking(Long id, Long equipmentId, Priority priority, String status) {
+        return new Booking(
+                id,
+                "Test Patient " + id,
+                equipmentId,
+                priority,
+                "2026-02-14T10:00",
+                status,
+                LocalDateTime.now()
+        );
+    }
+}
+
@@ -0,0 +1,72 @@
+package com.hospital.system.invalidation;
+
+import com.hospital.system.model.InvalidationRecord;
+import com.hospital.system.repository.InvalidationRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class DatabaseInvalidationTransportTest {
+
+    @Mock
+    private InvalidationRecordRepository repository;
+
+    @InjectMocks
+    private DatabaseInvalidationTransport transport;
+
+    private final List<InvalidationMessage> received = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(transport, "batchSize", 100);
+        ReflectionTestUtils.setField(transport, "gapTimeoutMillis", 60_000L);
+        ReflectionTestUtils.setField(transport, "retentionSeconds", 300L);
+    }
+
+    @Test
+    void testIdThatCommitsLateIsStillDelivered() {
+        // Id 2 was handed out before 3 but its transaction has not committed yet
+        when(repository.findAfter(eq(0L), any())).thenReturn(List.of(record(1), record(3)));
+        assertEquals(2, transport.poll(received::add));
+        assertEquals(1, transport.getOutstandingGaps());
+
+        when(repository.findAfter(eq(3L), any())).thenReturn(List.of());
+        when(repository.findAllById(List.of(2L))).thenReturn(List.of(record(2)));
+        assertEquals(1, transport.poll(received::add));
+
+        assertEquals(List.of(1L, 3L, 2L), received.stream().map(InvalidationMessage::getEquipmentId).toList());
+        assertEquals(0, transport.getOutstandingGaps());
+    }
+
+    @Test
+    void testGapThatNeverCommitsIsForgotten() {
+        ReflectionTestUtils.setField(transport, "gapTimeoutMillis", 0L);
+        when(repository.findAfter(eq(0L), any())).thenReturn(List.of(record(2)));
+        transport.poll(received::add);
+        assertEquals(1, transport.getOutstandingGaps());
+
+        when(repository.findAfter(eq(2L), any())).thenReturn(List.of());
+        transport.poll(received::add);
+
+        assertEquals(0, transport.getOutstandingGaps());
+    }
+
+    // The equipment id mirrors the row id, so the delivery order is easy to read back
+    private static InvalidationRecord record(long id) {
+        InvalidationRecord record = new InvalidationRecord("node-b", "default", id, 1000 + id, LocalDateTime.now());
+        ReflectionTestUtils.setField(record, "id", id);
+        return record;
+    }
+}
@@ -0,0 +1,69 @@
+package com.hospital.system.invalidation;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two nodes on one host, each on its own loopback port.
+ */
+class UdpInvalidationTransportTest {
+
+    private final UdpInvalidationTransport nodeA = transport("");
+    private UdpInvalidationTransport nodeB;
+
+    @AfterEach
+    void tearDown() {
+        nodeA.stop();
+        if (nodeB != null) {
+            nodeB.stop();
+        }
+    }
+
+    @Test
+    void testMessagesReachPeerOnLocalhost() throws Exception {
+        BlockingQueue<InvalidationMessage> receivedByA = new LinkedBlockingQueue<>();
+        nodeA.start(receivedByA::add);
+        nodeB = transport("localhost:" + nodeA.getLocalPort());
+        nodeB.start(message -> { });
+
+        List<InvalidationMessage> messages = new ArrayList<>();
+        for (long id = 1; id <= UdpInvalidationTransport.MESSAGES_PER_DATAGRAM + 4; id++) {
+            messages.add(new InvalidationMessage("node-b", "north", id, 1000 + id));
+        }
+        nodeB.publish(messages);
+
+        for (InvalidationMessage expected : messages) {
+            InvalidationMessage received = receivedByA.poll(2, TimeUnit.SECONDS);
+            assertNotNull(received, "datagram lost on loopback");
+            assertEquals(expected.getEquipmentId(), received.getEquipmentId());
+            assertEquals(expected.getVersion(), received.getVersion());
+            assertEquals("north", received.getTenantId());
+            assertEquals("node-b", received.getNodeId());
+        }
+    }
+
+    @Test
+    void testForeignDatagramIsRejected() {
+        byte[] garbage = "GET / HTTP/1.1\r\n".getBytes();
+
+        assertThrows(IOException.class, () -> UdpInvalidationTransport.decode(garbage, garbage.length));
+    }
+
+    private static UdpInvalidationTransport transport(String peers) {
+        UdpInvalidationTransport transport = new UdpInvalidationTransport();
+        ReflectionTestUtils.setField(transport, "bindAddress", "127.0.0.1");
+        ReflectionTestUtils.setField(transport, "port", 0);
+        ReflectionTestUtils.setField(transport, "peers", peers);
+        return transport;
+    }
+}
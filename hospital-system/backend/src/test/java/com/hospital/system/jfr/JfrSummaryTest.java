@@ -0,0 +1,120 @@
+package com.hospital.system.jfr;
+
+import com.hospital.system.model.Booking;
+import com.hospital.system.model.EquipmentStatus;
+import com.hospital.system.model.Priority;
+import com.hospital.system.repository.BookingRepository;
+import com.hospital.system.repository.EquipmentRepository;
+import com.hospital.system.service.EquipmentWorkLanes;
+import com.hospital.system.service.MaintenanceTimeline;
+import com.hospital.system.service.QueueService;
+import com.hospital.system.service.QueueViewService;
+import com.hospital.system.service.ResourceDispatcher;
+import com.hospital.system.service.SlotHoldService;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class JfrSummaryTest {
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private EquipmentRepository equipmentRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ResourceDispatcher resourceDispatcher;
+
+    @Mock
+    private EquipmentWorkLanes workLanes;
+
+    // Real timeline with no planned maintenance unless a test schedules some
+    @Spy
+    private MaintenanceTimeline maintenanceTimeline = new MaintenanceTimeline();
+
+    @Mock
+    private SlotHoldService slotHolds;
+
+    @Mock
+    private QueueViewService queueView;
+
+    @InjectMocks
+    private QueueService queueService;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void testBundledProfileRecordsCallNextAndSummarizes() throws Exception {
+        Long mriId = 1L;
+        Booking taken = new Booking(1L, "Taken", mriId, Priority.EMERGENCY, "2026-02-14T10:00", "CONFIRMED", LocalDateTime.now().minusMinutes(20));
+        Booking next = new Booking(2L, "Next Up", mriId, Priority.NORMAL, "2026-02-14T10:05", "CONFIRMED", LocalDateTime.now().minusMinutes(10));
+        when(bookingRepository.findByEquipmentIdAndStatus(mriId, "CONFIRMED")).thenReturn(new ArrayList<>(List.of(next, taken)));
+        when(equipmentRepository.transitionStatus(mriId, EquipmentStatus.AVAILABLE, EquipmentStatus.IN_USE)).thenReturn(1);
+        when(bookingRepository.transitionStatus(2L, "CONFIRMED", "IN_USE")).thenReturn(1);
+
+        Path file = tempDir.resolve("test.jfr");
+        try (Reader settings = new InputStreamReader(
+                getClass().getResourceAsStream("/jfr/evervault.jfc"), StandardCharsets.UTF_8);
+             Recording recording = new Recording(Configuration.create(settings))) {
+            recording.start();
+            queueService.callNext(mriId);
+            for (int status : new int[] {200, 400}) {
+                HttpRequestEvent request = new HttpRequestEvent();
+                request.begin();
+                request.method = "POST";
+                request.route = "/api/queue/{equipmentId}/next";
+                request.status = status;
+                request.commit();
+            }
+            recording.stop();
+            recording.dump(file);
+        }
+
+        RecordedEvent callNext = RecordingFile.readAllEvents(file).stream()
+                .filter(e -> e.getEventType().getName().equals("evervault.CallNext"))
+                .findFirst().orElseThrow();
+        assertEquals(mriId, callNext.getLong("equipmentId"));
+        assertEquals(2, callNext.getInt("queueDepth"));
+        assertEquals(2, callNext.getInt("attempts")); // the emergency patient was claimed elsewhere
+        assertEquals("NORMAL", callNext.getString("chosenPriority"));
+        assertEquals("CALLED", callNext.getString("outcome"));
+
+        Map<String, JfrSummary.Stats> summary = JfrSummary.summarize(file);
+        assertEquals(1, summary.get("CallNext CALLED").getCount());
+        assertEquals(1, summary.get("QueueRead booking").getCount());
+        JfrSummary.Stats http = summary.get("HttpRequest POST /api/queue/{equipmentId}/next");
+        assertEquals(2, http.getCount());
+        assertTrue(http.percentileMillis(50) <= http.percentileMillis(100));
+    }
+}
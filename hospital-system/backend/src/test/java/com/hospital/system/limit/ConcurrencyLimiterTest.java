@@ -0,0 +1,227 @@
+package com.hospital.system.limit;
+
+import com.hospital.system.controller.AdminController;
+import com.hospital.system.controller.AnalyticsController;
+import com.hospital.system.controller.ChangeFeedController;
+import com.hospital.system.controller.DashboardController;
+import com.hospital.system.controller.HospitalController;
+import com.hospital.system.controller.PlanningController;
+import com.hospital.system.controller.QueueStreamController;
+import com.hospital.system.tenant.TenantContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimiterTest {
+
+    private static final long MS = 1_000_000;
+
+    private final ConcurrencyLimiter limiter = limiter(10, 2);
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void testSlowRequestsCutTheLimitOncePerTargetLatency() {
+        AdaptiveLimit limit = new AdaptiveLimit(EndpointClass.WRITE, 8, 2, 10, 100, 0.5);
+        long now = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limit.tryAcquire());
+        }
+
+        assertTrue(limit.release(300 * MS, false, now));
+        limit.release(300 * MS, false, now + 10 * MS); // same stall, already accounted for
+        assertEquals(4, limit.getLimit());
+        limit.release(0, true, now + 150 * MS);
+        assertEquals(2, limit.getLimit());
+
+        limit.backOff(now + 400 * MS);
+        assertEquals(2, limit.getLimit(), "never below min");
+    }
+
+    @Test
+    void testFastRequestsGrowTheLimitOnlyWhileItIsUsed() {
+        AdaptiveLimit limit = new AdaptiveLimit(EndpointClass.READ, 2, 1, 10, 100, 0.5);
+        limit.tryAcquire(); // busy for the whole first round
+        for (int i = 0; i < 20; i++) {
+            assertTrue(limit.tryAcquire());
+            assertFalse(limit.release(5 * MS, false));
+        }
+        // Two busy slots push it up by 1/limit per request until they are less than half of it
+        assertEquals(4, limit.getLimit());
+
+        limit.release();
+        for (int i = 0; i < 20; i++) {
+            limit.tryAcquire();
+            limit.release(5 * MS, false);
+        }
+        assertEquals(4, limit.getLimit(), "one request at a time does not need more");
+    }
+
+    @Test
+    void testReadsOverTheLimitAreTurnedAwayWhileQueueActionsStillGetIn() throws Exception {
+        assertTrue(limiter.preHandle(request("GET"), new MockHttpServletResponse(), handler("getPending")));
+        assertTrue(limiter.preHandle(request("GET"), new MockHttpServletResponse(), handler("getPending")));
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        assertFalse(limiter.preHandle(request("GET"), rejected, handler("getPending")));
+        assertEquals(503, rejected.getStatus());
+        assertEquals("1", rejected.getHeader("Retry-After"));
+        assertTrue(limiter.preHandle(request("POST"), new MockHttpServletResponse(), handler("callNext")));
+        assertEquals(1L, limiter.getLimit("default", EndpointClass.READ).getStats().get("rejected"));
+    }
+
+    @Test
+    void testEachHospitalHasItsOwnLimits() throws Exception {
+        TenantContext.set("north");
+        assertTrue(limiter.preHandle(request("GET"), new MockHttpServletResponse(), handler("getPending")));
+        assertTrue(limiter.preHandle(request("GET"), new MockHttpServletResponse(), handler("getPending")));
+        assertFalse(limiter.preHandle(request("GET"), new MockHttpServletResponse(), handler("getPending")));
+
+        TenantContext.set("south");
+        assertTrue(limiter.preHandle(request("GET"), new MockHttpServletResponse(), handler("getPending")),
+                "north's burst does not use up south's reads");
+        assertEquals(2, limiter.getLimit("north", EndpointClass.READ).getInFlight());
+        assertEquals(1, limiter.getLimit("south", EndpointClass.READ).getInFlight());
+
+        Map<String, Object> stats = limiter.getStats("south");
+        assertEquals(limiter.getLimit("south", EndpointClass.READ).getStats(), ((Map<?, ?>) stats.get("limits")).get("READ"));
+        assertFalse(stats.toString().contains("north"), "one hospital never sees another's");
+    }
+
+    @Test
+    void testReadsAndWritesLeaveReservedConnectionsForQueueActions() throws Exception {
+        ConcurrencyLimiter small = limiter(3, 1);
+        for (String tenant : new String[]{"north", "south"}) {
+            TenantContext.set(tenant);
+            assertTrue(small.preHandle(request("GET"), new MockHttpServletResponse(), handler("getPending")));
+        }
+
+        // Both hospitals are under their own limits, but together they have used the pool up to the reserve
+        TenantContext.set("east");
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        assertFalse(small.preHandle(request("POST"), rejected, handler("confirmBookings")));
+        assertEquals(503, rejected.getStatus());
+        assertEquals(0, small.getLimit("east", EndpointClass.WRITE).getInFlight(), "the slot is given back");
+        assertTrue(small.preHandle(request("POST"), new MockHttpServletResponse(), handler("callNext")));
+    }
+
+    @Test
+    void testQueueActionWaitsForAFreeSlot() throws Exception {
+        MockHttpServletRequest first = request("POST");
+        assertTrue(limiter.preHandle(first, new MockHttpServletResponse(), handler("callNext")));
+
+        CompletableFuture<Boolean> second = CompletableFuture.supplyAsync(() -> {
+            try {
+                return limiter.preHandle(request("POST"), new MockHttpServletResponse(), handler("callNext"));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(50);
+        limiter.afterCompletion(first, new MockHttpServletResponse(), handler("callNext"), null);
+
+        assertTrue(second.get(1, TimeUnit.SECONDS));
+        assertEquals(1L, limiter.getLimit("default", EndpointClass.QUEUE_ACTION).getStats().get("waited"));
+    }
+
+    @Test
+    void testSlowQueueActionMakesReadsAndWritesGiveWay() throws Exception {
+        AdaptiveLimit southReads = limiter.getLimit("south", EndpointClass.READ);
+        MockHttpServletRequest call = request("POST");
+        limiter.preHandle(call, new MockHttpServletResponse(), handler("callNext"));
+        MockHttpServletResponse failed = new MockHttpServletResponse();
+        failed.setStatus(500);
+
+        limiter.afterCompletion(call, failed, handler("callNext"), null);
+
+        assertEquals(1, limiter.getLimit("default", EndpointClass.READ).getLimit());
+        assertEquals(2, limiter.getLimit("default", EndpointClass.WRITE).getLimit());
+        assertEquals(1, southReads.getLimit(), "every hospital shares the database");
+        assertEquals(1, limiter.getLimit("default", EndpointClass.QUEUE_ACTION).getLimit(),
+                "the queue actions keep their reserved minimum");
+    }
+
+    @Test
+    void testOnlyAnnotatedControllersAreLimited() throws Exception {
+        assertEquals(EndpointClass.READ, ConcurrencyLimiter.classify(request("GET"), handler("getPending")));
+        assertEquals(EndpointClass.WRITE, ConcurrencyLimiter.classify(request("POST"), handler("confirmBookings")));
+        assertEquals(EndpointClass.QUEUE_ACTION, ConcurrencyLimiter.classify(request("POST"), handler("servePatient")));
+        assertEquals(EndpointClass.READ, ConcurrencyLimiter.classify(request("GET"), handler(DashboardController.class, "getDashboard")));
+        assertEquals(EndpointClass.READ, ConcurrencyLimiter.classify(request("POST"), handler(PlanningController.class, "whatIf")));
+        assertEquals(EndpointClass.WRITE, ConcurrencyLimiter.classify(request("POST"), handler(AdminController.class, "rebuildQueueView")));
+        assertNull(ConcurrencyLimiter.classify(request("GET"), handler(Unlimited.class, "ping")));
+    }
+
+    @Test
+    void testReadFloodAcrossHospitalsAndControllersLeavesTheQueueActionReserve() throws Exception {
+        ConcurrencyLimiter small = limiter(4, 2);
+        HandlerMethod[] reads = {
+                handler(DashboardController.class, "getDashboard"),
+                handler(QueueStreamController.class, "streamQueue"),
+                handler(ChangeFeedController.class, "getChanges"),
+                handler(AnalyticsController.class, "getEquipmentAnalytics"),
+                handler(AdminController.class, "getLimits")
+        };
+        int admitted = 0;
+        for (int i = 0; i < 20; i++) {
+            TenantContext.set("hospital-" + (i % 10));
+            if (small.preHandle(request("GET"), new MockHttpServletResponse(), reads[i % reads.length])) {
+                admitted++;
+            }
+        }
+        assertEquals(2, admitted, "reads stop at the pool size minus the reserve");
+
+        TenantContext.set("hospital-0");
+        assertTrue(small.preHandle(request("POST"), new MockHttpServletResponse(), handler("callNext")));
+        TenantContext.set("hospital-1");
+        assertTrue(small.preHandle(request("POST"), new MockHttpServletResponse(), handler("servePatient")));
+    }
+
+    // Per hospital: 2 reads, 4 writes, 1 queue action
+    private static ConcurrencyLimiter limiter(int connections, int reserved) {
+        return new ConcurrencyLimiter(endpointClass -> switch (endpointClass) {
+            case READ -> new AdaptiveLimit(endpointClass, 2, 1, 10, 100, 0.5);
+            case WRITE -> new AdaptiveLimit(endpointClass, 4, 1, 10, 100, 0.5);
+            case QUEUE_ACTION -> new AdaptiveLimit(endpointClass, 1, 1, 4, 100, 0.5);
+        }, connections, reserved, 500);
+    }
+
+    private static MockHttpServletRequest request(String method) {
+        return new MockHttpServletRequest(method, "/api/test");
+    }
+
+    private static HandlerMethod handler(String name) {
+        return handler(HospitalController.class, name);
+    }
+
+    private static HandlerMethod handler(Class<?> controller, String name) {
+        for (Method method : controller.getMethods()) {
+            if (method.getName().equals(name)) {
+                try {
+                    return new HandlerMethod(controller.getDeclaredConstructor().newInstance(), method);
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+        throw new IllegalArgumentException(name);
+    }
+
+    // A controller that never opted in
+    public static class Unlimited {
+        public void ping() {
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.hospital.system.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hospital.system.dto.BookingRequest;
+import com.hospital.system.dto.Result;
+import com.hospital.system.model.Booking;
+import com.hospital.system.model.Equipment;
+import com.hospital.system.model.EquipmentStatus;
+import com.hospital.system.model.Priority;
+import com.hospital.system.repository.BookingRepository;
+import com.hospital.system.repository.EquipmentRepository;
+import com.hospital.system.service.QueueService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * CPU and allocation per refused booking, for a flood of bad POST /api/bookings requests, from the JSON
+ * body to the error map the controller answers with. The current path binds a BookingRequest and gets a
+ * Result back. The baseline is the path it replaced: binding a Map, converting fields with toString and
+ * Long.valueOf, catching IllegalArgumentException for an unknown priority, and each refusal thrown as a
+ * RuntimeException with a stack trace that the exception handler turns into the error map. Both run at
+ * the same call depth (bench.depth frames, about what Tomcat and Spring MVC put under a controller),
+ * since filling in a stack trace costs per frame. Message conversion and filters outside the controller
+ * are the same for both and are left out. Run with:
+ *
+ * <pre>
+ * mvn -Pload-test test -Dtest=BookingValidationBenchmark -Dbench.requests=20000
+ * </pre>
+ *
+ * Results are printed and written to target/load-test/booking-validation.csv.
+ */
+@Tag("load")
+@SpringBootTest
+@TestPropertySource(locations = "classpath:application-test.properties", properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.org.springframework.test=INFO"
+})
+class BookingValidationBenchmark {
+
+    private static final int REQUESTS = Integer.getInteger("bench.requests", 5000);
+    private static final int DEPTH = Integer.getInteger("bench.depth", 80);
+
+    @Autowired
+    private QueueService queueService;
+
+    @Autowired
+    private EquipmentRepository equipmentRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Request bodies as they arrive
+    private final List<byte[]> invalid = new ArrayList<>();
+
+    private static volatile int sink;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        bookingRepository.deleteAll();
+        equipmentRepository.deleteAll();
+        Long open = equipmentRepository.save(new Equipment(null, "Bench-MRI", "MRI", EquipmentStatus.AVAILABLE, 30)).getId();
+        Long closed = equipmentRepository.save(new Equipment(null, "Bench-CT", "CT", EquipmentStatus.MAINTENANCE, 30)).getId();
+        invalid.clear();
+        invalid.add(body("No machine", null, null, "URGENT"));
+        invalid.add(body("Unknown machine", 999_999L, null, "ASAP")); // unknown priority, too
+        invalid.add(body("Broken machine", closed, null, "EMERGENCY"));
+        invalid.add(body("Too late", open, "2020-01-01T09:00", "NORMAL"));
+    }
+
+    @Test
+    void compareRefusalCost() throws Exception {
+        Function<byte[], Object> results = json -> {
+            Result<Booking> result = queueService.submitBooking(read(json, BookingRequest.class));
+            if (!result.isOk()) {
+                Map<String, String> error = new HashMap<>();
+                error.put("error", result.getMessage());
+                error.put("code", result.getCode().name());
+                return error;
+            }
+            return result.getValue();
+        };
+        Function<byte[], Object> baseline = json -> {
+            try {
+                return legacyCreateBooking(read(json, Map.class));
+            } catch (RuntimeException e) {
+                // The old handleRuntimeException
+                Map<String, String> error = new HashMap<>();
+                error.put("error", e.getMessage());
+                return error;
+            }
+        };
+
+        run(results);
+        run(baseline);
+        long[] exceptionCost = run(baseline);
+        long[] resultCost = run(results);
+
+        List<String> rows = new ArrayList<>();
+        rows.add("variant,requests,depth,bytesPerRequest,cpuMicrosPerRequest");
+        rows.add(row("baseline", exceptionCost));
+        rows.add(row("result", resultCost));
+        rows.forEach(System.out::println);
+        Path out = Paths.get("target", "load-test", "booking-validation.csv");
+        Files.createDirectories(out.getParent());
+        Files.write(out, rows);
+
+        assertTrue(resultCost[0] < exceptionCost[0], "the Result path should allocate less per refusal");
+    }
+
+    // HospitalController.doCreateBooking before the Result pipeline, refusing the way QueueService did then
+    @SuppressWarnings("unchecked")
+    private Booking legacyCreateBooking(Map<?, ?> rawPayload) {
+        Map<String, Object> payload = (Map<String, Object>) rawPayload;
+        Booking booking = new Booking();
+        booking.setPatientName((String) payload.get("patientName"));
+        booking.setEquipmentId(Long.valueOf(payload.get("equipmentId").toString()));
+        booking.setSlotTime((String) payload.get("slotTime"));
+
+        String requestedPriority = (String) payload.get("requestedPriority");
+        if (requestedPriority != null) {
+            try {
+                booking.setPriority(Priority.valueOf(requestedPriority));
+            } catch (IllegalArgumentException e) {
+                booking.setPriority(Priority.NORMAL);
+            }
+        }
+        try {
+            return queueService.createBookingRequest(booking, (String) payload.get("holdId"));
+        } catch (Result.Rejected e) {
+            // Refusals used to be plain RuntimeExceptions, each filling in its stack trace
+            throw new RuntimeException(e.getMessage());
+        }
+    }
+
+    private byte[] body(String patientName, Long equipmentId, String slotTime, String requestedPriority) throws IOException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("patientName", patientName);
+        body.put("equipmentId", equipmentId);
+        body.put("slotTime", slotTime);
+        body.put("requestedPriority", requestedPriority);
+        return objectMapper.writeValueAsBytes(body);
+    }
+
+    private <T> T read(byte[] json, Class<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String row(String variant, long[] cost) {
+        return String.format(Locale.ROOT, "%s,%d,%d,%d,%.2f", variant, REQUESTS, DEPTH, cost[0] / REQUESTS,
+                cost[1] / 1000.0 / REQUESTS);
+    }
+
+    // Allocated bytes and CPU nanos of this thread for REQUESTS refusals
+    private long[] run(Function<byte[], Object> variant) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long bytes = threads.getThreadAllocatedBytes(thread);
+        long cpu = threads.getCurrentThreadCpuTime();
+        atDepth(DEPTH, () -> {
+            for (int i = 0; i < REQUESTS; i++) {
+                sink += variant.apply(invalid.get(i % invalid.size())).hashCode();
+            }
+        });
+        return new long[]{threads.getThreadAllocatedBytes(thread) - bytes, threads.getCurrentThreadCpuTime() - cpu};
+    }
+
+    private static void atDepth(int frames, Runnable action) {
+        if (frames <= 0) {
+            action.run();
+        } else {
+            atDepth(frames - 1, action);
+        }
+    }
+}
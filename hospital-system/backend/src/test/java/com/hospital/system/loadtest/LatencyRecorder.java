@@ -0,0 +1,91 @@
+package com.hospital.system.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Collects request latencies for one worker thread. Workers never share a recorder,
+ * so recording is a plain array write; recorders are merged once the scenario ends.
+ */
+class LatencyRecorder {
+
+    private long[] samplesMicros = new long[4096];
+    private int count;
+    private long errors;
+    private long exceptions; // calls that never produced a response; counted as errors, not sampled
+
+    void record(long micros, boolean ok) {
+        if (count == samplesMicros.length) {
+            samplesMicros = Arrays.copyOf(samplesMicros, count * 2);
+        }
+        samplesMicros[count++] = micros;
+        if (!ok) {
+            errors++;
+        }
+    }
+
+    void recordException() {
+        exceptions++;
+    }
+
+    static Summary merge(String scenario, Iterable<LatencyRecorder> recorders, double elapsedSeconds) {
+        int total = 0;
+        long errors = 0;
+        for (LatencyRecorder r : recorders) {
+            total += r.count;
+            errors += r.errors + r.exceptions;
+        }
+        long[] all = new long[total];
+        int offset = 0;
+        for (LatencyRecorder r : recorders) {
+            System.arraycopy(r.samplesMicros, 0, all, offset, r.count);
+            offset += r.count;
+        }
+        Arrays.sort(all);
+        long exceptions = 0;
+        for (LatencyRecorder r : recorders) {
+            exceptions += r.exceptions;
+        }
+        return new Summary(scenario, all, all.length + exceptions, errors, elapsedSeconds);
+    }
+
+    /** Machine-readable result of one scenario; serialized into the baseline JSON. */
+    static class Summary {
+        public final String scenario;
+        public final long requests;
+        public final long errors;
+        public final double errorRate;
+        public final double throughputPerSecond;
+        public final double meanMs;
+        public final double p50Ms;
+        public final double p90Ms;
+        public final double p95Ms;
+        public final double p99Ms;
+        public final double maxMs;
+
+        Summary(String scenario, long[] sortedMicros, long requests, long errors, double elapsedSeconds) {
+            this.scenario = scenario;
+            this.requests = requests;
+            this.errors = errors;
+            this.errorRate = requests == 0 ? 0 : (double) errors / requests;
+            this.throughputPerSecond = elapsedSeconds <= 0 ? 0 : requests / elapsedSeconds;
+            this.meanMs = sortedMicros.length == 0 ? 0 : Arrays.stream(sortedMicros).average().orElse(0) / 1000.0;
+            this.p50Ms = percentile(sortedMicros, 0.50);
+            this.p90Ms = percentile(sortedMicros, 0.90);
+            this.p95Ms = percentile(sortedMicros, 0.95);
+            this.p99Ms = percentile(sortedMicros, 0.99);
+            this.maxMs = sortedMicros.length == 0 ? 0 : sortedMicros[sortedMicros.length - 1] / 1000.0;
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) return 0;
+            int index = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1000.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-22s %8d req %8.1f req/s  err %.2f%%  p50 %.2fms  p95 %.2fms  p99 %.2fms  max %.2fms",
+                    scenario, requests, throughputPerSecond, errorRate * 100, p50Ms, p95Ms, p99Ms, maxMs);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.hospital.system.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Closed-loop HTTP load generator: each virtual user runs its script back-to-back for the
+ * configured duration. Requests made during the warm-up are not recorded.
+ */
+class LoadRunner {
+
+    /** One iteration of a virtual user's script. Use the client to issue (and time) requests. */
+    @FunctionalInterface
+    interface Script {
+        void run(Client client, int user, long iteration) throws Exception;
+    }
+
+    private final String baseUrl;
+    private final int users;
+    private final Duration warmUp;
+    private final Duration duration;
+    private final HttpClient http;
+
+    LoadRunner(String baseUrl, int users, Duration warmUp, Duration duration) {
+        this.baseUrl = baseUrl;
+        this.users = users;
+        this.warmUp = warmUp;
+        this.duration = duration;
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    LatencyRecorder.Summary run(String scenario, Script script) throws InterruptedException {
+        List<LatencyRecorder> recorders = new ArrayList<>();
+        ExecutorService pool = Executors.newFixedThreadPool(users);
+        CountDownLatch done = new CountDownLatch(users);
+        long recordFrom = System.nanoTime() + warmUp.toNanos();
+        long stopAt = recordFrom + duration.toNanos();
+
+        for (int u = 0; u < users; u++) {
+            LatencyRecorder recorder = new LatencyRecorder();
+            recorders.add(recorder);
+            int user = u;
+            pool.execute(() -> {
+                Client client = new Client(recorder, recordFrom);
+                try {
+                    for (long i = 0; System.nanoTime() < stopAt; i++) {
+                        try {
+                            script.run(client, user, i);
+                        } catch (Exception e) {
+                            client.recordFailure();
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+        return LatencyRecorder.merge(scenario, recorders, duration.toNanos() / 1e9);
+    }
+
+    /** Per-user HTTP helper that records latency and status of every call. */
+    class Client {
+        private final LatencyRecorder recorder;
+        private final long recordFrom;
+
+        Client(LatencyRecorder recorder, long recordFrom) {
+            this.recorder = recorder;
+            this.recordFrom = recordFrom;
+        }
+
+        HttpResponse<String> get(String path) throws Exception {
+            return send(HttpRequest.newBuilder(URI.create(baseUrl + path)).GET());
+        }
+
+        HttpResponse<String> post(String path, String json) throws Exception {
+            return send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .header("Content-Type", "application/json")
+                    .POST(json == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(json)));
+        }
+
+        private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+            long start = System.nanoTime();
+            HttpResponse<String> response = http.send(request.timeout(Duration.ofSeconds(30)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (start >= recordFrom) {
+                recorder.record((System.nanoTime() - start) / 1_000, response.statusCode() < 400);
+            }
+            return response;
+        }
+
+        void recordFailure() {
+            if (System.nanoTime() >= recordFrom) {
+                recorder.recordException();
+            }
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.hospital.system.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.hospital.system.model.Booking;
+import com.hospital.system.model.CareResource;
+import com.hospital.system.model.Equipment;
+import com.hospital.system.model.EquipmentStatus;
+import com.hospital.system.model.Priority;
+import com.hospital.system.model.ResourceKind;
+import com.hospital.system.model.ResourceStatus;
+import com.hospital.system.repository.BookingRepository;
+import com.hospital.system.repository.CareResourceRepository;
+import com.hospital.system.repository.EquipmentRepository;
+import com.hospital.system.service.QueueViewService;
+import com.hospital.system.service.ResourceDispatcher;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.TestPropertySource;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * End-to-end load scenarios for the real REST surface, run against the app on embedded H2.
+ * Excluded from the normal build; run with:
+ *
+ * <pre>
+ * mvn -Pload-test test -Dload.users=32 -Dload.seconds=20
+ * </pre>
+ *
+ * Results (throughput, latency percentiles, error rate per scenario) are printed and written to
+ * target/load-test/baseline.json so runs can be diffed against a stored baseline.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(locations = "classpath:application-test.properties", properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.org.springframework.test=INFO"
+})
+class WardLoadTest {
+
+    private static final int USERS = Integer.getInteger("load.users", 16);
+    private static final Duration DURATION = Duration.ofSeconds(Integer.getInteger("load.seconds", 5));
+    private static final Duration WARM_UP = Duration.ofSeconds(Integer.getInteger("load.warmup", 1));
+    private static final int MACHINES = 20;
+    // More open streams than Tomcat has request threads (200), to show they do not pin one each
+    private static final int STREAMS = Integer.getInteger("load.streams", 400);
+    private static final String[] PRIORITIES = {"NORMAL", "URGENT", "EMERGENCY"};
+
+    private static final Map<String, LatencyRecorder.Summary> results = new LinkedHashMap<>();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private EquipmentRepository equipmentRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private QueueViewService queueViewService;
+
+    @Autowired
+    private CareResourceRepository careResourceRepository;
+
+    @Autowired
+    private ResourceDispatcher resourceDispatcher;
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final List<Long> equipmentIds = new ArrayList<>();
+    private LoadRunner runner;
+
+    @BeforeAll
+    static void announce() {
+        System.out.printf("Load test: %d users, %ds warm-up, %ds per scenario%n",
+                USERS, WARM_UP.toSeconds(), DURATION.toSeconds());
+    }
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository.deleteAll();
+        equipmentRepository.deleteAll();
+        equipmentIds.clear();
+        List<Equipment> machines = new ArrayList<>();
+        for (int i = 0; i < MACHINES; i++) {
+            machines.add(new Equipment(null, "Load-" + i, i % 2 == 0 ? "MRI" : "CT", EquipmentStatus.AVAILABLE, 30));
+        }
+        equipmentRepository.saveAll(machines).forEach(eq -> equipmentIds.add(eq.getId()));
+        // A full crew per machine, so the scenarios measure the queue rather than a staff shortage
+        careResourceRepository.deleteAll();
+        List<CareResource> crew = new ArrayList<>();
+        for (int i = 0; i < MACHINES; i++) {
+            crew.add(new CareResource(null, "Load tech " + i, ResourceKind.TECHNICIAN, "MRI,CT", ResourceStatus.AVAILABLE));
+            crew.add(new CareResource(null, "Load room " + i, ResourceKind.PREP_ROOM, "MRI", ResourceStatus.AVAILABLE));
+        }
+        careResourceRepository.saveAll(crew);
+        resourceDispatcher.rebuild();
+        runner = new LoadRunner("http://localhost:" + port, USERS, WARM_UP, DURATION);
+    }
+
+    @AfterAll
+    static void writeBaseline() throws Exception {
+        Path out = Paths.get("target", "load-test", "baseline.json");
+        Files.createDirectories(out.getParent());
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("users", USERS);
+        report.put("durationSeconds", DURATION.toSeconds());
+        report.put("scenarios", results.values());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(out.toFile(), report);
+    }
+
+    @Test
+    void dashboardPollStorm() throws Exception {
+        seedBookings(200, "CONFIRMED");
+        record(runner.run("dashboard-poll-storm", (client, user, i) -> client.get("/api/equipment")));
+    }
+
+    @Test
+    void pollingWhileLiveStreamsAreOpen() throws Exception {
+        seedBookings(200, "CONFIRMED");
+        HttpClient streamClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        List<CompletableFuture<HttpResponse<Stream<String>>>> streams = new ArrayList<>();
+        for (int i = 0; i < STREAMS; i++) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port
+                            + "/api/stream/queue/" + equipmentIds.get(i % equipmentIds.size())))
+                    .header("Accept", "text/event-stream")
+                    .build();
+            streams.add(openStream(streamClient, request));
+        }
+        try {
+            CompletableFuture.allOf(streams.toArray(new CompletableFuture<?>[0])).get(60, TimeUnit.SECONDS);
+            streams.forEach(f -> assertEquals(200, f.join().statusCode()));
+            record(runner.run("dashboard-poll-with-" + STREAMS + "-open-streams", (client, user, i) ->
+                    client.get("/api/dashboard?equipmentId=" + equipmentIds.get(user % equipmentIds.size()))));
+        } finally {
+            streams.forEach(f -> f.thenAccept(response -> response.body().close()));
+        }
+    }
+
+    @Test
+    void bookingBurst() throws Exception {
+        record(runner.run("booking-burst", (client, user, i) ->
+                client.post("/api/bookings", bookingJson("Burst " + user + "-" + i))));
+    }
+
+    @Test
+    void adminConfirmWaves() throws Exception {
+        // Each iteration: a handful of patients arrive, then the admin confirms them in one bulk call
+        record(runner.run("admin-confirm-waves", (client, user, i) -> {
+            List<Map<String, Object>> wave = new ArrayList<>();
+            for (int n = 0; n < 5; n++) {
+                HttpResponse<String> created = client.post("/api/bookings", bookingJson("Wave " + user + "-" + i + "-" + n));
+                JsonNode id = json.readTree(created.body()).get("id");
+                if (id != null) {
+                    wave.add(Map.of("id", id.asLong(), "assignedPriority", PRIORITIES[n % PRIORITIES.length]));
+                }
+            }
+            client.post("/api/bookings/confirm", json.writeValueAsString(wave));
+        }));
+    }
+
+    @Test
+    void technicianCallNextServeLoop() throws Exception {
+        seedBookings(MACHINES * 200, "CONFIRMED");
+        record(runner.run("technician-loop", (client, user, i) -> {
+            Long equipmentId = equipmentIds.get(user % equipmentIds.size());
+            HttpResponse<String> next = client.post("/api/queue/" + equipmentId + "/next", null);
+            if (!next.body().isEmpty()) {
+                JsonNode id = json.readTree(next.body()).get("id");
+                if (id != null) {
+                    client.post("/api/bookings/" + id.asLong() + "/serve", null);
+                }
+            }
+        }));
+    }
+
+    private void record(LatencyRecorder.Summary summary) {
+        results.put(summary.scenario, summary);
+        System.out.println(summary);
+        assertTrue(summary.requests > 0, "scenario issued no requests");
+    }
+
+    private String bookingJson(String patient) throws Exception {
+        Map<String, Object> body = Map.of(
+                "patientName", patient,
+                "equipmentId", equipmentIds.get(ThreadLocalRandom.current().nextInt(equipmentIds.size())),
+                "slotTime", "2099-12-31T10:00",
+                "requestedPriority", PRIORITIES[ThreadLocalRandom.current().nextInt(PRIORITIES.length)]);
+        return json.writeValueAsString(body);
+    }
+
+    // Like a display coming back after an outage: turned away while everyone connects, it retries after
+    // Retry-After plus up to a second of jitter, so the displays do not all come back at once
+    private static CompletableFuture<HttpResponse<Stream<String>>> openStream(HttpClient client, HttpRequest request) {
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofLines()).thenCompose(response -> {
+            if (response.statusCode() != 503) {
+                return CompletableFuture.completedFuture(response);
+            }
+            response.body().close();
+            long delay = response.headers().firstValueAsLong("Retry-After").orElse(1) * 1000
+                    + ThreadLocalRandom.current().nextLong(1000);
+            return CompletableFuture.runAsync(() -> { }, CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS))
+                    .thenCompose(ignored -> openStream(client, request));
+        });
+    }
+
+    private void seedBookings(int count, String status) {
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            bookings.add(new Booking(null, "Seed " + i, equipmentIds.get(i % equipmentIds.size()),
+                    Priority.values()[i % 3], "2099-12-31T10:00", status, LocalDateTime.now().minusMinutes(i)));
+        }
+        bookingRepository.saveAll(bookings);
+        queueViewService.rebuild();
+    }
+}
@@ -0,0 +1,148 @@
+package com.hospital.system.loadtest;
+
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.hospital.system.binary.BinaryMessageConverter;
+import com.hospital.system.model.Booking;
+import com.hospital.system.model.Equipment;
+import com.hospital.system.model.EquipmentStatus;
+import com.hospital.system.model.Priority;
+import com.hospital.system.model.QueueEntry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.GenericHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Payload size and encode cost of JSON against application/x-evervault-binary for the bodies wall
+ * displays poll, at ward-sized and worst-case queue lengths. Both go through the HTTP message converter
+ * the app uses, so the numbers include everything but the socket. Run with:
+ *
+ * <pre>
+ * mvn -Pload-test test -Dtest=WireFormatBenchmark -Dbench.millis=2000
+ * </pre>
+ *
+ * Results are printed and written to target/load-test/wire-formats.csv; gzip sizes are there for
+ * links that compress.
+ */
+@Tag("load")
+class WireFormatBenchmark {
+
+    private static final long MILLIS = Long.getLong("bench.millis", 500);
+    private static final int[] QUEUE_SIZES = {10, 50, 200, 1000};
+
+    // Boot's defaults for the app's ObjectMapper: ISO date strings, enum names
+    private final MappingJackson2HttpMessageConverter json = new MappingJackson2HttpMessageConverter(
+            Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build());
+    private final BinaryMessageConverter binary = new BinaryMessageConverter();
+
+    private static volatile int sink;
+
+    @Test
+    void compareFormats() throws Exception {
+        List<String> rows = new ArrayList<>();
+        rows.add("body,records,format,bytes,gzipBytes,encodeMicros");
+        for (int size : QUEUE_SIZES) {
+            measure(rows, "queue", size, queue(size), QueueEntry.class);
+            measure(rows, "pending", size, pending(size), Booking.class);
+        }
+        measure(rows, "equipment", 12, equipment(12), Equipment.class);
+        measure(rows, "equipment", 60, equipment(60), Equipment.class);
+
+        rows.forEach(System.out::println);
+        Path out = Paths.get("target", "load-test", "wire-formats.csv");
+        Files.createDirectories(out.getParent());
+        Files.write(out, rows);
+    }
+
+    private void measure(List<String> rows, String body, int records, List<?> value, Class<?> element) throws Exception {
+        Type type = ResolvableType.forClassWithGenerics(List.class, element).getType();
+        long[] jsonBytes = run(json, value, type, MediaType.APPLICATION_JSON);
+        long[] binaryBytes = run(binary, value, type, BinaryMessageConverter.MEDIA_TYPE);
+        rows.add(body + "," + records + ",json," + jsonBytes[0] + "," + jsonBytes[1] + "," + jsonBytes[2] / 1000.0);
+        rows.add(body + "," + records + ",binary," + binaryBytes[0] + "," + binaryBytes[1] + "," + binaryBytes[2] / 1000.0);
+        assertTrue(binaryBytes[0] < jsonBytes[0], body + " binary body is not smaller than JSON");
+    }
+
+    // Returns bytes, gzipped bytes and mean encode nanos after a warm-up of the same length
+    private static long[] run(GenericHttpMessageConverter<Object> converter, Object value, Type type, MediaType mediaType)
+            throws Exception {
+        byte[] encoded = encode(converter, value, type, mediaType);
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(gzipped)) {
+            gzip.write(encoded);
+        }
+
+        loop(converter, value, type, mediaType, MILLIS * 1_000_000);
+        long start = System.nanoTime();
+        long iterations = loop(converter, value, type, mediaType, MILLIS * 1_000_000);
+        return new long[]{encoded.length, gzipped.size(), (System.nanoTime() - start) / iterations};
+    }
+
+    private static long loop(GenericHttpMessageConverter<Object> converter, Object value, Type type, MediaType mediaType,
+                             long nanos) throws Exception {
+        long deadline = System.nanoTime() + nanos;
+        long iterations = 0;
+        do {
+            sink += encode(converter, value, type, mediaType).length;
+            iterations++;
+        } while (System.nanoTime() < deadline);
+        return iterations;
+    }
+
+    private static byte[] encode(GenericHttpMessageConverter<Object> converter, Object value, Type type, MediaType mediaType)
+            throws Exception {
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+        converter.write(value, type, mediaType, message);
+        return message.getBodyAsBytes();
+    }
+
+    private static List<QueueEntry> queue(int size) {
+        Equipment ct = new Equipment(2L, "CT-Scanner", "CT", EquipmentStatus.IN_USE, 30);
+        List<QueueEntry> queue = new ArrayList<>(size);
+        List<Booking> bookings = pending(size);
+        for (int i = 0; i < size; i++) {
+            bookings.get(i).setStatus("CONFIRMED");
+            queue.add(new QueueEntry(bookings.get(i), ct, i + 1));
+        }
+        return queue;
+    }
+
+    private static List<Booking> pending(int size) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Booking> bookings = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String slot = i % 4 == 0 ? null : now.plusMinutes(30L * i).withSecond(0).withNano(0).toString();
+            bookings.add(new Booking(100_000L + i, "Patient " + i + " (Ward " + (i % 12) + ")", 2L,
+                    Priority.values()[i % 3], slot, "PENDING", now.minusMinutes(i)));
+        }
+        return bookings;
+    }
+
+    private static List<Equipment> equipment(int size) {
+        List<Equipment> equipment = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Equipment eq = new Equipment((long) i + 1, (i % 2 == 0 ? "MRI-" : "CT-") + i, i % 2 == 0 ? "MRI" : "CT",
+                    EquipmentStatus.values()[i % 3], i % 2 == 0 ? 60 : 30);
+            eq.setQueueLength(i % 9);
+            eq.setNextAvailable(i % 9 == 0 ? "Now" : "14:30");
+            equipment.add(eq);
+        }
+        return equipment;
+    }
+}
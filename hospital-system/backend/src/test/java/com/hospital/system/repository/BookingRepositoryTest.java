@@ -8,6 +8,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.TestPropertySource;
 
 import java.time.LocalDateTime;
@@ -151,6 +152,40 @@ class BookingRepositoryTest {
         assertEquals(Priority.EMERGENCY, updated.getPriority());
     }
 
+    @Test
+    @DisplayName("Should only transition a booking that is still in the expected status")
+    void testTransitionStatusIsCompareAndSet() {
+        // Given
+        Booking saved = entityManager.persist(createBooking("CAS Test", 1L, Priority.NORMAL, "CONFIRMED"));
+        entityManager.flush();
+
+        // When - the first caller wins, a second caller expecting the old status does not
+        int first = bookingRepository.transitionStatus(saved.getId(), "CONFIRMED", "IN_USE");
+        int second = bookingRepository.transitionStatus(saved.getId(), "CONFIRMED", "IN_USE");
+
+        // Then
+        assertEquals(1, first);
+        assertEquals(0, second);
+        assertEquals("IN_USE", bookingRepository.findById(saved.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    @DisplayName("Should leave another hospital's booking alone in a tenant-guarded transition")
+    void testTransitionInTenantChecksTheHospital() {
+        // Given
+        Booking saved = entityManager.persist(createBooking("Tenant Test", 1L, Priority.NORMAL, "IN_USE"));
+        entityManager.flush();
+
+        // When
+        int foreign = bookingRepository.transitionInTenant(saved.getId(), "other-hospital", "IN_USE", "SERVED");
+        int own = bookingRepository.transitionInTenant(saved.getId(), "default", "IN_USE", "SERVED");
+
+        // Then
+        assertEquals(0, foreign);
+        assertEquals(1, own);
+        assertEquals("SERVED", bookingRepository.findById(saved.getId()).orElseThrow().getStatus());
+    }
+
     private Booking createBooking(String patientName, Long equipmentId, Priority priority, String status) {
         Booking booking = new Booking();
         booking.setPatientName(patientName);
@@ -161,4 +196,31 @@ class BookingRepositoryTest {
         booking.setBookingTime(LocalDateTime.now());
         return booking;
     }
+
+    @Test
+    @DisplayName("Name search fallback matches inside names and skips served bookings")
+    void testSearchActiveByName() {
+        entityManager.persist(new Booking(null, "Mary Johnson", 1L, Priority.NORMAL, null, "PENDING", LocalDateTime.now().minusMinutes(5)));
+        entityManager.persist(new Booking(null, "JOHN Smith", 1L, Priority.URGENT, null, "CONFIRMED", LocalDateTime.now()));
+        entityManager.persist(new Booking(null, "John Served", 1L, Priority.NORMAL, null, "SERVED", LocalDateTime.now()));
+        entityManager.flush();
+
+        List<Booking> found = bookingRepository.searchActiveByName("default", "john", PageRequest.of(0, 10));
+
+        assertEquals(List.of("Mary Johnson", "JOHN Smith"), found.stream().map(Booking::getPatientName).toList());
+    }
+
+    @Test
+    @DisplayName("Name search fallback treats % and _ in the query as plain characters")
+    void testSearchActiveByNameEscapesWildcards() {
+        entityManager.persist(new Booking(null, "Ann_Lee", 1L, Priority.NORMAL, null, "PENDING", LocalDateTime.now()));
+        entityManager.persist(new Booking(null, "Annie Lee", 1L, Priority.NORMAL, null, "PENDING", LocalDateTime.now()));
+        entityManager.persist(new Booking(null, "100% Smith", 1L, Priority.NORMAL, null, "PENDING", LocalDateTime.now()));
+        entityManager.flush();
+
+        assertEquals(List.of("Ann_Lee"), bookingRepository.searchActiveByName("default", "n_l", PageRequest.of(0, 10))
+                .stream().map(Booking::getPatientName).toList());
+        assertEquals(List.of("100% Smith"), bookingRepository.searchActiveByName("default", "%", PageRequest.of(0, 10))
+                .stream().map(Booking::getPatientName).toList());
+    }
 }
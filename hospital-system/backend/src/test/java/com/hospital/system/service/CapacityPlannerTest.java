@@ -0,0 +1,118 @@
+package com.hospital.system.service;
+
+import com.hospital.system.dto.WhatIfProjection;
+import com.hospital.system.dto.WhatIfResult;
+import com.hospital.system.dto.WhatIfScenario;
+import com.hospital.system.model.Booking;
+import com.hospital.system.model.Equipment;
+import com.hospital.system.model.EquipmentStatus;
+import com.hospital.system.model.Priority;
+import com.hospital.system.model.QueueEntry;
+import com.hospital.system.repository.EquipmentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CapacityPlannerTest {
+
+    @Mock
+    private EquipmentRepository equipmentRepository;
+
+    @Mock
+    private QueueViewService queueViewService;
+
+    @Spy
+    private MaintenanceTimeline maintenanceTimeline = new MaintenanceTimeline();
+
+    @InjectMocks
+    private CapacityPlanner capacityPlanner;
+
+    private final Equipment ct = new Equipment(1L, "CT-1", "CT", EquipmentStatus.AVAILABLE, 30);
+    private final Equipment mri = new Equipment(2L, "MRI-1", "MRI", EquipmentStatus.AVAILABLE, 60);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(capacityPlanner, "defaultHorizonMinutes", 480);
+        ReflectionTestUtils.setField(capacityPlanner, "maxHorizonMinutes", 10080);
+        ReflectionTestUtils.setField(capacityPlanner, "maxPatients", 1000);
+        when(equipmentRepository.findByTenantId("default")).thenReturn(List.of(ct, mri));
+
+        List<QueueEntry> queues = new ArrayList<>();
+        LocalDateTime booked = LocalDateTime.now().minusHours(1);
+        for (int i = 1; i <= 4; i++) {
+            Booking booking = new Booking((long) i, "Patient " + i, 1L, Priority.NORMAL, null, "CONFIRMED", booked.plusMinutes(i));
+            queues.add(new QueueEntry(booking, ct, i));
+        }
+        queues.add(new QueueEntry(new Booking(5L, "Patient 5", 2L, Priority.URGENT, null, "CONFIRMED", booked), mri, 1));
+        when(queueViewService.getQueues()).thenReturn(queues);
+    }
+
+    @Test
+    void testSecondMachineHalvesTheWaits() {
+        WhatIfScenario scenario = new WhatIfScenario();
+        scenario.setAddMachines(Map.of("CT", 1));
+
+        WhatIfResult result = capacityPlanner.whatIf(scenario);
+
+        // One CT: 0, 30, 60, 90 minutes. Two CTs: 0, 0, 30, 30.
+        assertEquals(5, result.getQueuedPatients());
+        assertEquals(45 * 60, result.getBaseline().getWaits().get(Priority.NORMAL).getMeanSeconds());
+        assertEquals(15 * 60, result.getScenario().getWaits().get(Priority.NORMAL).getMeanSeconds());
+        assertEquals(2, result.getScenario().getMachines().get("CT"));
+        assertEquals(0, result.getScenario().getWaits().get(Priority.URGENT).getMeanSeconds(), "other types are unaffected");
+    }
+
+    @Test
+    void testEmergencyArrivalsAreCalledAheadOfTheQueue() {
+        WhatIfScenario scenario = new WhatIfScenario();
+        scenario.setBufferTimes(Map.of("CT", 20));
+        scenario.setHorizonMinutes(60);
+        scenario.setExtraArrivals(List.of(new WhatIfScenario.Arrivals("CT", Priority.EMERGENCY, 2)));
+
+        WhatIfProjection projected = capacityPlanner.whatIf(scenario).getScenario();
+
+        // Emergencies at minute 0 and 30 each take the CT as soon as it is free: waits 0 and 10 minutes
+        assertEquals(2, projected.getWaits().get(Priority.EMERGENCY).getCount());
+        assertEquals(10 * 60, projected.getWaits().get(Priority.EMERGENCY).getP95Seconds());
+        assertEquals(6 * 20, projected.getLastProcedureEndsInMinutes());
+    }
+
+    @Test
+    void testScenarioLeavesTheSnapshotAndUntouchedQueuesAlone() {
+        CapacityPlanner.Snapshot live = capacityPlanner.snapshot();
+        WhatIfScenario scenario = new WhatIfScenario();
+        scenario.setRemoveMachines(List.of(1L));
+        scenario.setExtraArrivals(List.of(new WhatIfScenario.Arrivals("CT", Priority.URGENT, 1)));
+
+        CapacityPlanner.Snapshot changed = capacityPlanner.apply(live, scenario);
+
+        assertEquals(2, live.machines.size());
+        assertEquals(4, live.visitsByType.get("CT").size());
+        assertEquals(12, changed.visitsByType.get("CT").size());
+        assertSame(live.visitsByType.get("MRI"), changed.visitsByType.get("MRI"));
+        // With the only CT removed nobody of that type can be served
+        assertEquals(4L, capacityPlanner.simulate(changed).getUnserved().get(Priority.NORMAL));
+    }
+
+    @Test
+    void testUnknownMachineCannotBeRemoved() {
+        WhatIfScenario scenario = new WhatIfScenario();
+        scenario.setRemoveMachines(List.of(99L));
+
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> capacityPlanner.whatIf(scenario));
+        assertEquals("Error: Equipment not found.", exception.getMessage());
+    }
+}
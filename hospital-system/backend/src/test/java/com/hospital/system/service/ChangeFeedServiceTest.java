@@ -0,0 +1,181 @@
+package com.hospital.system.service;
+
+import com.hospital.system.dto.ChangeBatch;
+import com.hospital.system.event.BookingTransitionEvent;
+import com.hospital.system.event.EquipmentStatusEvent;
+import com.hospital.system.model.ChangeRecord;
+import com.hospital.system.model.EquipmentStatus;
+import com.hospital.system.model.Priority;
+import com.hospital.system.repository.ChangeRecordRepository;
+import com.hospital.system.repository.ChangeSequenceRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ChangeFeedServiceTest {
+
+    @Mock
+    private ChangeRecordRepository changeRecordRepository;
+
+    @Mock
+    private ChangeSequenceRepository changeSequenceRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private ChangeFeedService changeFeedService;
+
+    // Stands in for the change_seq row
+    private final AtomicLong counter = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(changeFeedService, "ringSize", 8);
+        ReflectionTestUtils.setField(changeFeedService, "transport", "none");
+        when(changeRecordRepository.findMaxSeq()).thenReturn(0L);
+        when(changeSequenceRepository.advance(anyInt())).thenAnswer(inv -> {
+            counter.addAndGet(inv.<Integer>getArgument(0));
+            return 1;
+        });
+        when(changeSequenceRepository.current()).thenAnswer(inv -> counter.get());
+        changeFeedService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.unbindResourceIfPossible(changeFeedService);
+    }
+
+    @Test
+    void testRecentChangesAreServedFromMemory() {
+        bookingMoved(1L, "PENDING");
+        bookingMoved(1L, "CONFIRMED");
+        changeFeedService.onEquipmentStatus(new EquipmentStatusEvent("default", 10L, EquipmentStatus.IN_USE, LocalDateTime.now()));
+
+        ChangeBatch batch = changeFeedService.getChangesSince(1, null);
+
+        assertEquals(List.of(2L, 3L), batch.getChanges().stream().map(ChangeRecord::getSeq).toList());
+        assertEquals("CONFIRMED", batch.getChanges().get(0).getStatus());
+        assertEquals(ChangeRecord.EQUIPMENT, batch.getChanges().get(1).getEntityType());
+        assertEquals(3, batch.getHighWaterMark());
+        assertFalse(batch.isHasMore());
+        verify(changeRecordRepository, never()).findRange(anyString(), anyLong(), anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    void testLimitReturnsResumableMark() {
+        for (int i = 0; i < 5; i++) {
+            bookingMoved(1L, "PENDING");
+        }
+
+        ChangeBatch first = changeFeedService.getChangesSince(0, 2);
+        ChangeBatch rest = changeFeedService.getChangesSince(first.getHighWaterMark(), 10);
+
+        assertTrue(first.isHasMore());
+        assertEquals(2, first.getHighWaterMark());
+        assertEquals(List.of(3L, 4L, 5L), rest.getChanges().stream().map(ChangeRecord::getSeq).toList());
+        assertEquals(5, rest.getHighWaterMark());
+    }
+
+    @Test
+    void testCursorOlderThanRingReadsDatabase() {
+        for (int i = 0; i < 20; i++) {
+            bookingMoved(1L, "PENDING");
+        }
+        when(changeRecordRepository.findRange(eq("default"), eq(2L), eq(20L), any(Pageable.class))).thenReturn(List.of());
+
+        changeFeedService.getChangesSince(2, null);
+
+        verify(changeRecordRepository).findRange(eq("default"), eq(2L), eq(20L), any(Pageable.class));
+    }
+
+    @Test
+    void testChangeIsNumberedWhenItsTransactionCommits() {
+        TransactionSynchronizationManager.initSynchronization();
+        bookingMoved(1L, "PENDING"); // opened first, but still running
+        List<TransactionSynchronization> pending = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        bookingMoved(2L, "PENDING"); // commits first, so it takes seq 1
+
+        pending.forEach(s -> s.beforeCommit(false));
+        // seq 2 is numbered and written, but handing it out before it is settled could let a client skip it
+        assertEquals(1, changeFeedService.getHighWaterMark());
+
+        pending.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        ChangeBatch batch = changeFeedService.getChangesSince(0, null);
+        assertEquals(List.of(2L, 1L), batch.getChanges().stream().map(ChangeRecord::getEntityId).toList());
+        assertEquals(List.of(1L, 2L), batch.getChanges().stream().map(ChangeRecord::getSeq).toList());
+    }
+
+    @Test
+    void testNodesSharingTheCounterNeverReuseASeq() {
+        ChangeFeedService otherNode = new ChangeFeedService();
+        ReflectionTestUtils.setField(otherNode, "changeRecordRepository", changeRecordRepository);
+        ReflectionTestUtils.setField(otherNode, "changeSequenceRepository", changeSequenceRepository);
+        ReflectionTestUtils.setField(otherNode, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(otherNode, "ringSize", 8);
+        ReflectionTestUtils.setField(otherNode, "transport", "database");
+        ReflectionTestUtils.setField(changeFeedService, "shared", true);
+        otherNode.init();
+
+        bookingMoved(1L, "PENDING");
+        otherNode.onBookingTransition(new BookingTransitionEvent("default", 2L, 10L, "Patient 2",
+                Priority.NORMAL, null, "PENDING", LocalDateTime.now(), LocalDateTime.now()));
+        bookingMoved(3L, "PENDING");
+        when(changeRecordRepository.findRange(eq("default"), eq(0L), eq(3L), any(Pageable.class))).thenReturn(List.of());
+
+        // The committed counter is the mark on every node, and reads go to change_log, which holds them all
+        assertEquals(3, otherNode.getHighWaterMark());
+        changeFeedService.getChangesSince(0, null);
+        verify(changeRecordRepository).findRange(eq("default"), eq(0L), eq(3L), any(Pageable.class));
+    }
+
+    @Test
+    void testRolledBackChangeIsSkipped() {
+        TransactionSynchronizationManager.initSynchronization();
+        bookingMoved(1L, "CONFIRMED");
+        List<TransactionSynchronization> pending = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        pending.forEach(s -> s.beforeCommit(false)); // numbered, then the insert fails
+        pending.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        bookingMoved(2L, "PENDING");
+
+        ChangeBatch batch = changeFeedService.getChangesSince(0, null);
+
+        assertEquals(List.of(2L), batch.getChanges().stream().map(ChangeRecord::getSeq).toList());
+        assertEquals(2, batch.getHighWaterMark());
+    }
+
+    @Test
+    void testNegativeCursorIsRejected() {
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> changeFeedService.getChangesSince(-1, null));
+
+        assertEquals("Error: since must be zero or positive.", exception.getMessage());
+    }
+
+    private void bookingMoved(Long bookingId, String toStatus) {
+        changeFeedService.onBookingTransition(new BookingTransitionEvent("default", bookingId, 10L, "Patient " + bookingId,
+                Priority.NORMAL, null, toStatus, LocalDateTime.now(), LocalDateTime.now()));
+    }
+}
@@ -0,0 +1,53 @@
+package com.hospital.system.service;
+
+import com.hospital.system.dto.EquipmentAnalytics;
+import com.hospital.system.dto.WindowStats;
+import com.hospital.system.event.BookingTransitionEvent;
+import com.hospital.system.event.EquipmentStatusEvent;
+import com.hospital.system.model.Equipment;
+import com.hospital.system.model.EquipmentStatus;
+import com.hospital.system.model.Priority;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EquipmentAnalyticsServiceTest {
+
+    private final EquipmentAnalyticsService analyticsService = new EquipmentAnalyticsService();
+
+    @Test
+    void testCallNextAndServeFeedTheWindows() {
+        Equipment mri = new Equipment(1L, "MRI-1", "MRI", EquipmentStatus.AVAILABLE, 60);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime calledAt = now.minusMinutes(20);
+
+        analyticsService.onBookingTransition(new BookingTransitionEvent("default", 7L, 1L, "Jane", Priority.EMERGENCY,
+                "CONFIRMED", "IN_USE", calledAt.minusMinutes(5), calledAt));
+        analyticsService.onEquipmentStatus(new EquipmentStatusEvent("default", 1L, EquipmentStatus.IN_USE, calledAt));
+        analyticsService.onBookingTransition(new BookingTransitionEvent("default", 7L, 1L, "Jane", Priority.EMERGENCY,
+                "IN_USE", "SERVED", calledAt.minusMinutes(5), now.minusMinutes(10)));
+        analyticsService.onEquipmentStatus(new EquipmentStatusEvent("default", 1L, EquipmentStatus.AVAILABLE, now.minusMinutes(10)));
+
+        List<EquipmentAnalytics> analytics = analyticsService.getAnalytics(List.of(mri));
+        WindowStats lastHour = analytics.get(0).getWindows().get("1h");
+
+        assertEquals(List.of("1h", "24h", "7d"), List.copyOf(analytics.get(0).getWindows().keySet()));
+        assertEquals(1, lastHour.getProcedures());
+        assertEquals(1, lastHour.getWaitByPriority().get(Priority.EMERGENCY).getCount());
+        assertEquals(300.0, lastHour.getWaitByPriority().get(Priority.EMERGENCY).getMeanSeconds(), 1.0);
+        assertTrue(lastHour.getUtilization() > 0.0 && lastHour.getUtilization() < 1.0);
+    }
+
+    @Test
+    void testUnknownEquipmentReportsEmptyWindows() {
+        Equipment ct = new Equipment(2L, "CT", "CT", EquipmentStatus.AVAILABLE, 30);
+
+        WindowStats week = analyticsService.getAnalytics(List.of(ct)).get(0).getWindows().get("7d");
+
+        assertEquals(0, week.getProcedures());
+        assertEquals(0.0, week.getUtilization());
+    }
+}
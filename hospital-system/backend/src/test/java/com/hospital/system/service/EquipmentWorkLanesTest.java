@@ -0,0 +1,167 @@
+package com.hospital.system.service;
+
+import com.hospital.system.dto.WorkLaneStats;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EquipmentWorkLanesTest {
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private EquipmentWorkLanes workLanes;
+
+    private final CountDownLatch unstall = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(workLanes, "workers", 2);
+        ReflectionTestUtils.setField(workLanes, "queueCapacity", 2);
+        ReflectionTestUtils.setField(workLanes, "taskTimeoutSeconds", 5);
+        ReflectionTestUtils.setField(workLanes, "retryBaseMillis", 20L);
+        ReflectionTestUtils.setField(workLanes, "retryMaxMillis", 100L);
+        workLanes.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        unstall.countDown();
+        workLanes.shutdown();
+    }
+
+    @Test
+    void testStalledMachineDoesNotDelayAnother() throws Exception {
+        CountDownLatch stalled = new CountDownLatch(1);
+        workLanes.submit("default", 1L, "stuck", () -> {
+            stalled.countDown();
+            await(unstall);
+        });
+        assertTrue(stalled.await(2, TimeUnit.SECONDS));
+
+        // Queued behind the stall on machine 1, while machine 2 goes ahead
+        CountDownLatch sameLane = new CountDownLatch(1);
+        CountDownLatch otherLane = new CountDownLatch(1);
+        workLanes.submit("default", 1L, "behind", sameLane::countDown);
+        workLanes.submit("default", 2L, "other", otherLane::countDown);
+
+        assertTrue(otherLane.await(2, TimeUnit.SECONDS));
+        assertEquals(1, sameLane.getCount());
+
+        unstall.countDown();
+        assertTrue(sameLane.await(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testFullLaneRejectsAndReportsSaturation() throws Exception {
+        CountDownLatch stalled = new CountDownLatch(1);
+        workLanes.submit("default", 1L, "stuck", () -> {
+            stalled.countDown();
+            await(unstall);
+        });
+        assertTrue(stalled.await(2, TimeUnit.SECONDS));
+
+        assertTrue(workLanes.submit("default", 1L, "a", () -> { }));
+        assertTrue(workLanes.submit("default", 1L, "b", () -> { }));
+        assertFalse(workLanes.submit("default", 1L, "c", () -> { }));
+
+        WorkLaneStats stats = workLanes.getStats("default").get(0);
+        assertEquals(1L, stats.getEquipmentId());
+        assertTrue(stats.isRunning());
+        assertTrue(stats.isSaturated());
+        assertEquals(3, stats.getSubmitted());
+        assertEquals(1, stats.getRejected());
+        assertEquals(List.of(), workLanes.getStats("north"));
+    }
+
+    @Test
+    void testLaneRunsInOrderAndSurvivesFailures() throws Exception {
+        // Room for all three even if none has started yet
+        ReflectionTestUtils.setField(workLanes, "queueCapacity", 3);
+        List<String> ran = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+        workLanes.submit("default", 1L, "first", () -> ran.add("first"));
+        workLanes.submit("default", 1L, "broken", () -> {
+            throw new IllegalStateException("database went away");
+        });
+        workLanes.submit("default", 1L, "last", () -> {
+            ran.add("last");
+            done.countDown();
+        });
+
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+        assertEquals(List.of("first", "last"), ran);
+        // Recorded before the lane moved on to the next task
+        assertEquals(1, workLanes.getStats("default").get(0).getFailed());
+    }
+
+    @Test
+    void testScheduledTaskReachesItsLaneWhenDue() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        workLanes.schedule("default", 3L, "later", done::countDown, 50, TimeUnit.MILLISECONDS);
+
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testScheduledTaskIsRetriedUntilItSucceeds() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(1);
+        workLanes.schedule("default", 4L, "auto-revert", () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new IllegalStateException("lock timeout");
+            }
+            done.countDown();
+        }, 0, TimeUnit.MILLISECONDS);
+
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+        WorkLaneStats stats = workLanes.getStats("default").get(0);
+        assertEquals(2, stats.getFailed());
+        assertEquals(2, stats.getRetries());
+        assertEquals(1, stats.getSubmitted());
+    }
+
+    @Test
+    void testScheduledTaskWaitsForRoomInAFullLane() throws Exception {
+        CountDownLatch stalled = new CountDownLatch(1);
+        workLanes.submit("default", 1L, "stuck", () -> {
+            stalled.countDown();
+            await(unstall);
+        });
+        assertTrue(stalled.await(2, TimeUnit.SECONDS));
+        workLanes.submit("default", 1L, "a", () -> { });
+        workLanes.submit("default", 1L, "b", () -> { });
+
+        CountDownLatch reverted = new CountDownLatch(1);
+        workLanes.schedule("default", 1L, "auto-revert", reverted::countDown, 0, TimeUnit.MILLISECONDS);
+        Thread.sleep(100);
+        assertTrue(workLanes.getStats("default").get(0).getRetries() > 0); // turned away, not dropped
+        assertEquals(1, reverted.getCount());
+
+        unstall.countDown();
+        assertTrue(reverted.await(2, TimeUnit.SECONDS));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.hospital.system.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyServiceTest {
+
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new IdempotencyService();
+        ReflectionTestUtils.setField(idempotencyService, "maxEntries", 100);
+        ReflectionTestUtils.setField(idempotencyService, "ttlSeconds", 60L);
+        ReflectionTestUtils.setField(idempotencyService, "waitTimeoutMillis", 5_000L);
+    }
+
+    @Test
+    void testRetryReplaysOriginalResponse() {
+        AtomicInteger calls = new AtomicInteger();
+
+        String first = idempotencyService.execute("k1", "POST /bookings", "body", String.class, () -> "booking-" + calls.incrementAndGet());
+        String retry = idempotencyService.execute("k1", "POST /bookings", "body", String.class, () -> "booking-" + calls.incrementAndGet());
+
+        assertEquals("booking-1", first);
+        assertEquals("booking-1", retry);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void testNoKeyAlwaysExecutes() {
+        AtomicInteger calls = new AtomicInteger();
+
+        idempotencyService.execute(null, "POST /bookings", "body", Integer.class, calls::incrementAndGet);
+        idempotencyService.execute("", "POST /bookings", "body", Integer.class, calls::incrementAndGet);
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void testKeyReusedForDifferentRequestIsRejected() {
+        idempotencyService.execute("k1", "POST /bookings", "patient A", String.class, () -> "A");
+
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> idempotencyService.execute("k1", "POST /bookings", "patient B", String.class, () -> "B"));
+
+        assertTrue(exception.getMessage().contains("different request"));
+    }
+
+    @Test
+    void testSameKeyOnDifferentEndpointsIsIndependent() {
+        assertEquals("A", idempotencyService.execute("k1", "POST /queue/1/next", "", String.class, () -> "A"));
+        assertEquals("B", idempotencyService.execute("k1", "POST /queue/2/next", "", String.class, () -> "B"));
+    }
+
+    @Test
+    void testFailuresAreNotRemembered() {
+        assertThrows(RuntimeException.class, () -> idempotencyService.execute("k1", "s", "", String.class, () -> {
+            throw new RuntimeException("Error: Equipment not found.");
+        }));
+
+        assertEquals("ok", idempotencyService.execute("k1", "s", "", String.class, () -> "ok"));
+    }
+
+    @Test
+    void testConcurrentRetriesWaitForTheFirstCall() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            Future<String> original = pool.submit(() -> idempotencyService.execute("k1", "s", "", String.class, () -> {
+                started.countDown();
+                await(release);
+                return "result-" + calls.incrementAndGet();
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            Future<String> retry1 = pool.submit(() -> idempotencyService.execute("k1", "s", "", String.class, () -> "result-" + calls.incrementAndGet()));
+            Future<String> retry2 = pool.submit(() -> idempotencyService.execute("k1", "s", "", String.class, () -> "result-" + calls.incrementAndGet()));
+            Thread.sleep(100);
+            assertFalse(retry1.isDone());
+
+            release.countDown();
+            assertEquals("result-1", original.get(5, TimeUnit.SECONDS));
+            assertEquals("result-1", retry1.get(5, TimeUnit.SECONDS));
+            assertEquals("result-1", retry2.get(5, TimeUnit.SECONDS));
+            assertEquals(1, calls.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void testCacheStaysBounded() {
+        for (int i = 0; i < 1_000; i++) {
+            idempotencyService.execute("key-" + i, "s", "", Integer.class, () -> 1);
+        }
+
+        assertTrue(idempotencyService.size() <= 101, "size was " + idempotencyService.size());
+    }
+
+    @Test
+    void testExpiredEntryRunsAgain() {
+        ReflectionTestUtils.setField(idempotencyService, "ttlSeconds", 0L);
+        AtomicInteger calls = new AtomicInteger();
+
+        idempotencyService.execute("k1", "s", "", Integer.class, calls::incrementAndGet);
+        sleepQuietly(5);
+        idempotencyService.execute("k1", "s", "", Integer.class, calls::incrementAndGet);
+
+        assertEquals(2, calls.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.hospital.system.service;
+
+import com.hospital.system.event.BookingTransitionEvent;
+import com.hospital.system.event.EquipmentInvalidatedEvent;
+import com.hospital.system.event.EquipmentStatusEvent;
+import com.hospital.system.invalidation.InvalidationMessage;
+import com.hospital.system.invalidation.InvalidationTransport;
+import com.hospital.system.model.EquipmentStatus;
+import com.hospital.system.model.Priority;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class InvalidationBusTest {
+
+    @Mock
+    private InvalidationTransport transport;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private InvalidationBus invalidationBus;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(invalidationBus, "configuredNodeId", "node-a");
+        ReflectionTestUtils.invokeMethod(invalidationBus, "init");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.unbindResourceIfPossible(invalidationBus);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testOneMessagePerMachineIsSentAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        invalidationBus.onBookingTransition(transition(10L, 1L));
+        invalidationBus.onBookingTransition(transition(11L, 1L));
+        invalidationBus.onEquipmentStatus(new EquipmentStatusEvent("default", 2L, EquipmentStatus.IN_USE, LocalDateTime.now()));
+        verify(transport, never()).publish(any());
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(s -> s.beforeCommit(false));
+        verify(transport, never()).publish(any());
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+
+        ArgumentCaptor<List<InvalidationMessage>> sent = ArgumentCaptor.forClass(List.class);
+        verify(transport).publish(sent.capture());
+        assertEquals(List.of(1L, 2L), sent.getValue().stream().map(InvalidationMessage::getEquipmentId).toList());
+        assertTrue(sent.getValue().get(1).getVersion() > sent.getValue().get(0).getVersion());
+        assertEquals("node-a", sent.getValue().get(0).getNodeId());
+    }
+
+    @Test
+    void testTransactionalTransportWritesBeforeCommit() {
+        when(transport.isTransactional()).thenReturn(true);
+        TransactionSynchronizationManager.initSynchronization();
+        invalidationBus.onBookingTransition(transition(10L, 1L));
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(s -> s.beforeCommit(false));
+
+        verify(transport).publish(anyList());
+    }
+
+    @Test
+    void testOnlyRepeatsFromTheSameNodeAreIgnored() {
+        invalidationBus.receive(new InvalidationMessage("node-b", "default", 1L, 200));
+        invalidationBus.receive(new InvalidationMessage("node-b", "default", 1L, 200)); // repeated delivery
+        invalidationBus.receive(new InvalidationMessage("node-b", "default", 1L, 150)); // overtaken by b's own 200
+        invalidationBus.receive(new InvalidationMessage("node-c", "default", 1L, 150)); // older clock, but another node
+        invalidationBus.receive(new InvalidationMessage("node-b", "default", 2L, 100)); // another machine
+
+        ArgumentCaptor<EquipmentInvalidatedEvent> applied = ArgumentCaptor.forClass(EquipmentInvalidatedEvent.class);
+        verify(eventPublisher, times(3)).publishEvent(applied.capture());
+        assertEquals(List.of(1L, 1L, 2L), applied.getAllValues().stream().map(EquipmentInvalidatedEvent::getEquipmentId).toList());
+        assertEquals(2L, invalidationBus.getStats().get("ignoredRepeats"));
+    }
+
+    @Test
+    void testOwnSendDoesNotHideAnotherNodesChange() {
+        // This node's clock runs ahead: its own message must not make the other node's look stale
+        ((AtomicLong) ReflectionTestUtils.getField(invalidationBus, "clock")).set((System.currentTimeMillis() + 60_000) << 12);
+        invalidationBus.onBookingTransition(transition(10L, 1L));
+
+        invalidationBus.receive(new InvalidationMessage("node-b", "default", 1L, 100));
+
+        verify(eventPublisher).publishEvent(any(EquipmentInvalidatedEvent.class));
+    }
+
+    @Test
+    void testOwnMessagesAreNotReapplied() {
+        invalidationBus.receive(new InvalidationMessage("node-a", "default", 1L, 100));
+
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testChangeAfterSeeingAnotherNodesMessageHasHigherVersion() {
+        long farAhead = (System.currentTimeMillis() + 60_000) << 12; // a node whose clock runs a minute fast
+        invalidationBus.receive(new InvalidationMessage("node-b", "default", 1L, farAhead));
+
+        invalidationBus.onBookingTransition(transition(10L, 1L));
+
+        ArgumentCaptor<List<InvalidationMessage>> sent = ArgumentCaptor.forClass(List.class);
+        verify(transport).publish(sent.capture());
+        assertTrue(sent.getValue().get(0).getVersion() > farAhead);
+    }
+
+    private static BookingTransitionEvent transition(Long bookingId, Long equipmentId) {
+        return new BookingTransitionEvent("default", bookingId, equipmentId, "Patient " + bookingId, Priority.NORMAL,
+                "PENDING", "CONFIRMED", LocalDateTime.now(), LocalDateTime.now());
+    }
+}
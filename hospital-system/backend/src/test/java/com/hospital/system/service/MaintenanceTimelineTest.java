@@ -0,0 +1,124 @@
+package com.hospital.system.service;
+
+import com.hospital.system.model.Equipment;
+import com.hospital.system.model.EquipmentStatus;
+import com.hospital.system.model.MaintenanceWindow;
+import com.hospital.system.repository.EquipmentRepository;
+import com.hospital.system.repository.MaintenanceWindowRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class MaintenanceTimelineTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.now().plusDays(1).withHour(0).withMinute(0).withSecond(0).withNano(0);
+
+    @Mock
+    private MaintenanceWindowRepository windowRepository;
+
+    @Mock
+    private EquipmentRepository equipmentRepository;
+
+    @Mock
+    private InvalidationBus invalidationBus;
+
+    @InjectMocks
+    private MaintenanceTimeline timeline;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void testOverlappingWindowsAreMerged() {
+        plan(window(9, 0, 11, 0), window(10, 0, 12, 0), window(12, 0, 13, 0), window(15, 0, 16, 0));
+
+        MaintenanceTimeline.Span span = timeline.windowAt(1L, at(10, 30));
+        assertEquals(at(9, 0), span.getStart());
+        assertEquals(at(13, 0), span.getEnd());
+        assertNull(timeline.windowAt(1L, at(13, 0)), "a window ends before its end time");
+        assertNull(timeline.windowAt(1L, at(8, 59)));
+        assertNotNull(timeline.windowAt(1L, at(15, 0)));
+        assertNull(timeline.windowAt(2L, at(10, 0)), "other machines are unaffected");
+    }
+
+    @Test
+    void testFreeStartSkipsGapsTooShortForTheProcedure() {
+        plan(window(9, 0, 10, 0), window(10, 30, 11, 0), window(12, 0, 13, 0));
+
+        assertEquals(at(8, 0), timeline.findFreeStart(1L, at(8, 0), 60));
+        // 08:30 would run into 09:00, the 30-minute gap at 10:00 is too short, 11:00 to 12:00 fits exactly
+        assertEquals(at(11, 0), timeline.findFreeStart(1L, at(8, 30), 60));
+        assertEquals(at(10, 0), timeline.findFreeStart(1L, at(9, 15), 30));
+        assertEquals(at(13, 0), timeline.findFreeStart(1L, at(11, 30), 60));
+    }
+
+    @Test
+    void testNextStartPlacesEachQueuedProcedureAroundMaintenance() {
+        plan(window(10, 0, 12, 0));
+
+        assertEquals(at(9, 0), timeline.nextStart(1L, at(8, 0), 1, 60));
+        // A scan at 09:30 would run into the window, so the two queued scans go 12:00 and 13:00
+        assertEquals(at(14, 0), timeline.nextStart(1L, at(9, 30), 2, 60));
+        assertEquals(at(10, 0), timeline.nextStart(2L, at(8, 0), 2, 60), "no windows: plain arithmetic");
+    }
+
+    @Test
+    void testCancelledWindowLeavesTheTimeline() {
+        plan(window(10, 0, 12, 0));
+        MaintenanceWindow planned = window(10, 0, 12, 0);
+        planned.setId(7L);
+        when(windowRepository.findById(7L)).thenReturn(Optional.of(planned));
+        when(windowRepository.findNotEndedBy(eq(1L), any(LocalDateTime.class))).thenReturn(List.of());
+
+        timeline.cancel(7L);
+
+        verify(windowRepository).delete(planned);
+        verify(invalidationBus).markChanged("default", 1L);
+        assertNull(timeline.windowAt(1L, at(11, 0)));
+    }
+
+    @Test
+    void testWindowMustEndAfterItStarts() {
+        Equipment mri = new Equipment(1L, "MRI-1", "MRI", EquipmentStatus.AVAILABLE, 60);
+        mri.setTenantId("default");
+        when(equipmentRepository.findById(1L)).thenReturn(Optional.of(mri));
+
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> timeline.schedule(window(12, 0, 10, 0)));
+        assertEquals("Error: A maintenance window must end after it starts.", exception.getMessage());
+        verify(windowRepository, never()).save(any());
+    }
+
+    @Test
+    void testAnotherHospitalsMachineIsNotFound() {
+        Equipment northMri = new Equipment(1L, "MRI-North", "MRI", EquipmentStatus.AVAILABLE, 60);
+        northMri.setTenantId("north");
+        when(equipmentRepository.findById(1L)).thenReturn(Optional.of(northMri));
+
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> timeline.schedule(window(10, 0, 12, 0)));
+        assertEquals("Error: Equipment not found.", exception.getMessage());
+    }
+
+    private void plan(MaintenanceWindow... windows) {
+        when(windowRepository.findNotEndedBy(any(LocalDateTime.class))).thenReturn(List.of(windows));
+        timeline.rebuild();
+    }
+
+    private static MaintenanceWindow window(int fromHour, int fromMinute, int toHour, int toMinute) {
+        return new MaintenanceWindow(1L, at(fromHour, fromMinute), at(toHour, toMinute), "Service");
+    }
+
+    private static LocalDateTime at(int hour, int minute) {
+        return DAY.withHour(hour).withMinute(minute);
+    }
+}
@@ -0,0 +1,97 @@
+package com.hospital.system.service;
+
+import com.hospital.system.model.OutboxMessage;
+import com.hospital.system.notification.InMemoryNotificationSink;
+import com.hospital.system.notification.NotificationSink;
+import com.hospital.system.repository.OutboxMessageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OutboxDispatcherTest {
+
+    @Mock
+    private OutboxMessageRepository outboxMessageRepository;
+
+    private OutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        dispatcher = new OutboxDispatcher();
+        ReflectionTestUtils.setField(dispatcher, "outboxMessageRepository", outboxMessageRepository);
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 2);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 3);
+        ReflectionTestUtils.setField(dispatcher, "backoffBaseMillis", 1_000L);
+        ReflectionTestUtils.setField(dispatcher, "backoffMaxMillis", 5_000L);
+    }
+
+    @Test
+    void testBatchIsDeliveredAndMarkedSentTogether() {
+        InMemoryNotificationSink sink = new InMemoryNotificationSink();
+        ReflectionTestUtils.setField(dispatcher, "sink", sink);
+        when(outboxMessageRepository.findDue(any(), any(Pageable.class)))
+                .thenReturn(List.of(message(1L, 0), message(2L, 0)));
+
+        int delivered = dispatcher.dispatchOnce();
+
+        assertEquals(2, delivered);
+        assertEquals(2, sink.getDelivered().size());
+        verify(outboxMessageRepository).markSent(eq(List.of(1L, 2L)), any());
+        verify(outboxMessageRepository, never()).markFailed(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void testFailedBatchIsRescheduledWithBackoff() {
+        NotificationSink failing = batch -> {
+            throw new IOException("display offline");
+        };
+        ReflectionTestUtils.setField(dispatcher, "sink", failing);
+        when(outboxMessageRepository.findDue(any(), any(Pageable.class))).thenReturn(List.of(message(7L, 1)));
+
+        LocalDateTime before = LocalDateTime.now();
+        int delivered = dispatcher.dispatchOnce();
+
+        assertEquals(0, delivered);
+        // Second attempt: base * 2^1 = 2 seconds from now
+        verify(outboxMessageRepository).markFailed(eq(List.of(7L)),
+                argThat(retryAt -> !retryAt.isBefore(before.plusSeconds(2)) && retryAt.isBefore(before.plusSeconds(3))),
+                eq("display offline"), eq(3));
+        verify(outboxMessageRepository, never()).markSent(any(), any());
+    }
+
+    @Test
+    void testBackoffIsCapped() {
+        assertEquals(1_000, dispatcher.backoffMillis(1));
+        assertEquals(4_000, dispatcher.backoffMillis(3));
+        assertEquals(5_000, dispatcher.backoffMillis(40));
+    }
+
+    @Test
+    void testNothingDueDoesNotTouchTheSink() {
+        NotificationSink sink = mock(NotificationSink.class);
+        ReflectionTestUtils.setField(dispatcher, "sink", sink);
+        when(outboxMessageRepository.findDue(any(), any(Pageable.class))).thenReturn(List.of());
+
+        assertEquals(0, dispatcher.dispatchOnce());
+        verifyNoInteractions(sink);
+    }
+
+    private OutboxMessage message(Long id, int attempts) {
+        OutboxMessage message = new OutboxMessage(OutboxService.PATIENT_CALLED, "{\"bookingId\":" + id + "}", LocalDateTime.now());
+        message.setId(id);
+        message.setAttempts(attempts);
+        return message;
+    }
+}
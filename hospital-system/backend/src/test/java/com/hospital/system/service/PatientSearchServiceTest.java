@@ -0,0 +1,129 @@
+package com.hospital.system.service;
+
+import com.hospital.system.dto.PatientMatch;
+import com.hospital.system.event.BookingTransitionEvent;
+import com.hospital.system.model.Booking;
+import com.hospital.system.model.Priority;
+import com.hospital.system.repository.BookingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PatientSearchServiceTest {
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @InjectMocks
+    private PatientSearchService patientSearchService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(patientSearchService, "maxEntries", 100);
+        when(bookingRepository.findByStatusNot("SERVED")).thenReturn(List.of(
+                new Booking(1L, "John Doe", 1L, Priority.NORMAL, null, "CONFIRMED", LocalDateTime.now().minusMinutes(30)),
+                new Booking(2L, "Johnny Walker", 1L, Priority.EMERGENCY, null, "PENDING", LocalDateTime.now().minusMinutes(20)),
+                new Booking(3L, "Zoë O'Brien", 2L, Priority.URGENT, null, "PENDING", LocalDateTime.now().minusMinutes(10))));
+        patientSearchService.rebuild();
+    }
+
+    @Test
+    void testExactWordRanksAboveLongerWordThenPriority() {
+        assertEquals(List.of(1L, 2L), ids(patientSearchService.search("john", null)));
+        // Both are prefixes here, so the emergency patient comes first
+        assertEquals(List.of(2L, 1L), ids(patientSearchService.search("jo", null)));
+    }
+
+    @Test
+    void testFindsLaterWordsAndTextInsideWords() {
+        assertEquals(List.of(1L), ids(patientSearchService.search("doe", null)));
+        assertEquals(List.of(2L), ids(patientSearchService.search("alk", null)));
+        assertEquals(List.of(2L, 1L), ids(patientSearchService.search("ohn", null))); // both inside a word, so by priority
+    }
+
+    @Test
+    void testEveryQueryWordMustMatch() {
+        assertEquals(List.of(2L), ids(patientSearchService.search("joh wal", null)));
+        assertEquals(List.of(), patientSearchService.search("john smith", null));
+    }
+
+    @Test
+    void testIgnoresCaseAccentsAndPunctuation() {
+        assertEquals(List.of(3L), ids(patientSearchService.search("ZOE o'bri", null)));
+    }
+
+    @Test
+    void testLimitKeepsBestMatches() {
+        assertEquals(List.of(2L), ids(patientSearchService.search("j", 1)));
+    }
+
+    @Test
+    void testIndexFollowsCreateConfirmAndServe() {
+        transition(4L, "Joan Arc", Priority.URGENT, null, "PENDING");
+        assertEquals(List.of(4L), ids(patientSearchService.search("joan", null)));
+
+        // Bulk confirm publishes without the name; the entry keeps it and takes the new state
+        transition(4L, null, Priority.EMERGENCY, "PENDING", "CONFIRMED");
+        PatientMatch confirmed = patientSearchService.search("joan", null).get(0);
+        assertEquals("CONFIRMED", confirmed.getStatus());
+        assertEquals(Priority.EMERGENCY, confirmed.getPriority());
+
+        transition(4L, "Joan Arc", Priority.EMERGENCY, "IN_USE", "SERVED");
+        assertEquals(List.of(), patientSearchService.search("joan", null));
+        assertEquals(3, patientSearchService.getIndexedCount());
+    }
+
+    @Test
+    void testFallsBackToDatabaseWhenOverCapacity() {
+        ReflectionTestUtils.setField(patientSearchService, "maxEntries", 3);
+        transition(4L, "Joan Arc", Priority.URGENT, null, "PENDING");
+        when(bookingRepository.searchActiveByName(eq("default"), eq("joan"), any(Pageable.class))).thenReturn(List.of(
+                new Booking(4L, "Joan Arc", 1L, Priority.URGENT, null, "PENDING", LocalDateTime.now())));
+
+        assertEquals(List.of(4L), ids(patientSearchService.search("joan", null)));
+        verify(bookingRepository).searchActiveByName(eq("default"), eq("joan"), any(Pageable.class));
+    }
+
+    @Test
+    void testRefreshRereadsOnlyTheChangedMachine() {
+        // Another node served John and booked Joan on machine 1; machine 2 is untouched
+        when(bookingRepository.findByEquipmentIdAndStatusNot(1L, "SERVED")).thenReturn(List.of(
+                new Booking(2L, "Johnny Walker", 1L, Priority.EMERGENCY, null, "CONFIRMED", LocalDateTime.now().minusMinutes(20)),
+                new Booking(5L, "Joan Arc", 1L, Priority.NORMAL, null, "PENDING", LocalDateTime.now())));
+
+        patientSearchService.refreshEquipment("default", 1L);
+
+        assertEquals(List.of(2L, 5L), ids(patientSearchService.search("jo", null)));
+        assertEquals("CONFIRMED", patientSearchService.search("walker", null).get(0).getStatus());
+        assertEquals(List.of(3L), ids(patientSearchService.search("zoe", null)));
+        verify(bookingRepository, never()).findByEquipmentIdAndStatusNot(eq(2L), any());
+    }
+
+    @Test
+    void testQueryWithoutLettersIsRejected() {
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> patientSearchService.search(" -- ", null));
+
+        assertEquals("Error: q must contain at least one letter or digit.", exception.getMessage());
+    }
+
+    private void transition(Long id, String name, Priority priority, String from, String to) {
+        patientSearchService.onBookingTransition(new BookingTransitionEvent("default", id, 1L, name, priority, from, to,
+                LocalDateTime.now(), LocalDateTime.now()));
+    }
+
+    private static List<Long> ids(List<PatientMatch> matches) {
+        return matches.stream().map(PatientMatch::getBookingId).toList();
+    }
+}
@@ -1,5 +1,15 @@
 package com.hospital.system.service;
 
+import com.hospital.system.dto.BookingRequest;
+import com.hospital.system.dto.ConfirmOutcome;
+import com.hospital.system.dto.ConfirmRequest;
+import com.hospital.system.dto.ErrorCode;
+import com.hospital.system.dto.PendingSummary;
+import com.hospital.system.dto.Result;
+import com.hospital.system.dto.SlotHold;
+import com.hospital.system.event.BookingTransitionEvent;
+import com.hospital.system.event.EquipmentStatusEvent;
+import com.hospital.system.event.QueueChangedEvent;
 import com.hospital.system.model.Booking;
 import com.hospital.system.model.Priority;
 import com.hospital.system.model.Equipment;
@@ -8,14 +18,25 @@ import com.hospital.system.repository.BookingRepository;
 import com.hospital.system.repository.EquipmentRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -28,6 +49,25 @@ class QueueServiceTest {
     @Mock
     private EquipmentRepository equipmentRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ResourceDispatcher resourceDispatcher;
+
+    @Mock
+    private EquipmentWorkLanes workLanes;
+
+    // Real timeline with no planned maintenance unless a test schedules some
+    @Spy
+    private MaintenanceTimeline maintenanceTimeline = new MaintenanceTimeline();
+
+    @Mock
+    private SlotHoldService slotHolds;
+
+    @Mock
+    private QueueViewService queueView;
+
     @InjectMocks
     private QueueService queueService;
 
@@ -63,15 +103,49 @@ class QueueServiceTest {
         Long bookingId = 10L;
         Long mriId = 1L;
         Booking booking = new Booking(bookingId, "John Doe", mriId, Priority.NORMAL, "2026-02-14T10:00", "IN_USE", LocalDateTime.now());
-        Equipment mri = new Equipment(mriId, "MRI-1", "MRI", EquipmentStatus.IN_USE, 60);
 
         when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
-        when(equipmentRepository.findById(mriId)).thenReturn(Optional.of(mri));
+        when(bookingRepository.transitionInTenant(bookingId, "default", "IN_USE", "SERVED")).thenReturn(1);
+        when(equipmentRepository.transitionStatus(mriId, EquipmentStatus.IN_USE, EquipmentStatus.AVAILABLE)).thenReturn(1);
 
         queueService.markAsServed(bookingId);
 
         assertEquals("SERVED", booking.getStatus());
-        assertEquals(EquipmentStatus.AVAILABLE, mri.getStatus());
+        // The machine is locked before the booking row, the order callNext takes them in
+        InOrder order = inOrder(queueView, bookingRepository);
+        order.verify(queueView).lockMachines(List.of(mriId));
+        order.verify(bookingRepository).transitionInTenant(bookingId, "default", "IN_USE", "SERVED");
+        // Both transitions are guarded UPDATEs; nothing is loaded and saved back
+        verify(equipmentRepository).transitionStatus(mriId, EquipmentStatus.IN_USE, EquipmentStatus.AVAILABLE);
+        verify(equipmentRepository, never()).save(any());
+        verify(bookingRepository, never()).save(any());
+    }
+
+    @Test
+    void testMarkAsServedLeavesMachineAloneForPendingBooking() {
+        Booking booking = new Booking(11L, "Walk Out", 1L, Priority.NORMAL, "2026-02-14T10:00", "PENDING", LocalDateTime.now());
+        when(bookingRepository.findById(11L)).thenReturn(Optional.of(booking));
+        when(bookingRepository.transitionInTenant(11L, "default", "PENDING", "SERVED")).thenReturn(1);
+
+        queueService.markAsServed(11L);
+
+        // The machine may be busy with someone else; only the booking using it may release it
+        verify(equipmentRepository, never()).transitionStatus(any(), any(), any());
+    }
+
+    @Test
+    void testMarkAsServedPublishesTransitions() {
+        Booking booking = new Booking(10L, "John Doe", 1L, Priority.URGENT, "2026-02-14T10:00", "IN_USE", LocalDateTime.now());
+        when(bookingRepository.findById(10L)).thenReturn(Optional.of(booking));
+        when(bookingRepository.transitionInTenant(10L, "default", "IN_USE", "SERVED")).thenReturn(1);
+        when(equipmentRepository.transitionStatus(1L, EquipmentStatus.IN_USE, EquipmentStatus.AVAILABLE)).thenReturn(1);
+
+        queueService.markAsServed(10L);
+
+        verify(eventPublisher).publishEvent(argThat((Object e) -> e instanceof BookingTransitionEvent t
+                && "IN_USE".equals(t.getFromStatus()) && "SERVED".equals(t.getToStatus())));
+        verify(eventPublisher).publishEvent(argThat((Object e) -> e instanceof EquipmentStatusEvent s
+                && s.getStatus() == EquipmentStatus.AVAILABLE));
     }
 
     @Test
@@ -118,7 +192,7 @@ class QueueServiceTest {
         pendingList.add(new Booking(1L, "Pending 1", 1L, Priority.NORMAL, "2026-02-14T10:00", "PENDING", LocalDateTime.now()));
         pendingList.add(new Booking(2L, "Pending 2", 1L, Priority.EMERGENCY, "2026-02-14T11:00", "PENDING", LocalDateTime.now()));
 
-        when(bookingRepository.findByStatus("PENDING")).thenReturn(pendingList);
+        when(bookingRepository.findByTenantIdAndStatus("default", "PENDING")).thenReturn(pendingList);
 
         List<Booking> result = queueService.getPendingBookings();
 
@@ -127,18 +201,134 @@ class QueueServiceTest {
         assertEquals("PENDING", result.get(1).getStatus());
     }
 
+    @Test
+    void testPendingSummaryFillsMissingPriorities() {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{Priority.URGENT, 4L});
+        when(bookingRepository.countPendingByPriority("default", null, null)).thenReturn(rows);
+
+        PendingSummary summary = queueService.getPendingSummary(null, null);
+
+        assertEquals(0L, summary.getByPriority().get(Priority.NORMAL));
+        assertEquals(4L, summary.getByPriority().get(Priority.URGENT));
+        assertEquals(0L, summary.getByPriority().get(Priority.EMERGENCY));
+        assertEquals(4L, summary.getTotal());
+    }
+
+    @Test
+    void testPendingPageRejectsTamperedCursor() {
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> queueService.getPendingPage(null, null, null, "Zm9vfGJhcnwx", 10)); // "foo|bar|1"
+
+        assertEquals("Error: Invalid cursor.", exception.getMessage());
+    }
+
     @Test
     void testConfirmBooking() {
         Long bookingId = 5L;
         Booking pending = new Booking(bookingId, "To Confirm", 1L, Priority.NORMAL, "2026-02-14T10:00", "PENDING", LocalDateTime.now());
 
         when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(pending));
-        when(bookingRepository.save(any(Booking.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(bookingRepository.confirmIfStatus(bookingId, "default", "PENDING", Priority.EMERGENCY)).thenReturn(1);
 
         Booking result = queueService.confirmBooking(bookingId, Priority.EMERGENCY);
 
         assertEquals("CONFIRMED", result.getStatus());
         assertEquals(Priority.EMERGENCY, result.getPriority());
+        verify(bookingRepository, never()).save(any(Booking.class));
+    }
+
+    @Test
+    void testConfirmBookingReTriagesAConfirmedPatient() {
+        Booking confirmed = new Booking(8L, "Waiting", 1L, Priority.NORMAL, "2026-02-14T10:00", "CONFIRMED", LocalDateTime.now());
+        when(bookingRepository.confirmIfStatus(8L, "default", "CONFIRMED", Priority.URGENT)).thenReturn(1);
+        when(bookingRepository.findById(8L)).thenReturn(Optional.of(confirmed));
+
+        Booking result = queueService.confirmBooking(8L, Priority.URGENT);
+
+        assertEquals(Priority.URGENT, result.getPriority());
+        verify(eventPublisher).publishEvent(argThat((Object e) -> e instanceof BookingTransitionEvent t
+                && "CONFIRMED".equals(t.getFromStatus())));
+    }
+
+    @Test
+    void testConfirmBookingRejectsPatientAlreadyCalled() {
+        Booking inUse = new Booking(6L, "On Table", 1L, Priority.NORMAL, "2026-02-14T10:00", "IN_USE", LocalDateTime.now());
+        when(bookingRepository.findById(6L)).thenReturn(Optional.of(inUse));
+
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> queueService.confirmBooking(6L, Priority.URGENT));
+
+        assertEquals("Error: Booking is no longer awaiting triage.", exception.getMessage());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void testConfirmBookingLosesRaceToAnotherTransition() {
+        Booking pending = new Booking(7L, "Raced", 1L, Priority.NORMAL, "2026-02-14T10:00", "PENDING", LocalDateTime.now());
+        when(bookingRepository.findById(7L)).thenReturn(Optional.of(pending));
+        when(bookingRepository.confirmIfStatus(7L, "default", "PENDING", Priority.URGENT)).thenReturn(0);
+
+        assertThrows(RuntimeException.class, () -> queueService.confirmBooking(7L, Priority.URGENT));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void testConfirmBookingNotFound() {
+        when(bookingRepository.findById(404L)).thenReturn(Optional.empty());
+
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> queueService.confirmBooking(404L, Priority.URGENT));
+
+        assertEquals("Booking not found", exception.getMessage());
+    }
+
+    @Test
+    void testBulkConfirmGroupsByPriorityAndReportsOutcomes() {
+        List<Object[]> statuses = new ArrayList<>();
+        statuses.add(new Object[]{1L, 10L, "PENDING"});
+        statuses.add(new Object[]{2L, 10L, "PENDING"});
+        statuses.add(new Object[]{3L, 20L, "PENDING"});
+        statuses.add(new Object[]{4L, 20L, "CONFIRMED"});
+        statuses.add(new Object[]{5L, 20L, "IN_USE"});
+        when(bookingRepository.findStatusByIdIn(eq("default"), any())).thenReturn(statuses);
+        when(bookingRepository.confirmPending(eq("default"), any(), any())).thenAnswer(inv -> ((Collection<?>) inv.getArgument(1)).size());
+        when(bookingRepository.retriageConfirmed(eq("default"), any(), any())).thenAnswer(inv -> ((Collection<?>) inv.getArgument(1)).size());
+
+        List<ConfirmOutcome> outcomes = queueService.confirmBookings(List.of(
+                new ConfirmRequest(1L, Priority.URGENT),
+                new ConfirmRequest(2L, Priority.URGENT),
+                new ConfirmRequest(3L, Priority.EMERGENCY),
+                new ConfirmRequest(4L, Priority.URGENT),
+                new ConfirmRequest(5L, Priority.NORMAL),
+                new ConfirmRequest(99L, Priority.NORMAL)));
+
+        assertEquals(List.of("CONFIRMED", "CONFIRMED", "CONFIRMED", "CONFIRMED", "NOT_PENDING", "NOT_FOUND"),
+                outcomes.stream().map(ConfirmOutcome::getOutcome).toList());
+        // One UPDATE per priority that still has work to do, plus one for the re-triaged rows
+        verify(bookingRepository).confirmPending("default", Set.of(1L, 2L), Priority.URGENT);
+        verify(bookingRepository).retriageConfirmed("default", Set.of(4L), Priority.URGENT);
+        verify(bookingRepository).confirmPending("default", Set.of(3L), Priority.EMERGENCY);
+        verify(bookingRepository, never()).confirmPending(any(), any(), eq(Priority.NORMAL));
+        verify(bookingRepository, never()).retriageConfirmed(any(), any(), eq(Priority.NORMAL));
+        // One notification per affected machine
+        verify(eventPublisher, times(2)).publishEvent(any(QueueChangedEvent.class));
+    }
+
+    @Test
+    void testBulkConfirmRejectsDuplicateIds() {
+        List<ConfirmOutcome> outcomes = queueService.confirmBookings(List.of(
+                new ConfirmRequest(1L, Priority.URGENT),
+                new ConfirmRequest(1L, Priority.NORMAL),
+                new ConfirmRequest(2L, null),
+                new ConfirmRequest(3L, Priority.URGENT),
+                new ConfirmRequest(3L, null)));
+
+        assertEquals("DUPLICATE", outcomes.get(0).getOutcome());
+        assertEquals("INVALID", outcomes.get(1).getOutcome());
+        assertEquals("DUPLICATE", outcomes.get(2).getOutcome(), "a later invalid repeat does not let the first one through");
+        verify(bookingRepository, never()).confirmPending(any(), any(), any());
+        verify(eventPublisher, never()).publishEvent(any());
     }
 
     @Test
@@ -149,6 +339,124 @@ class QueueServiceTest {
         Booking result = queueService.callNext(mriId);
 
         assertNull(result);
+        verify(equipmentRepository, never()).transitionStatus(any(), any(), any());
+    }
+
+    @Test
+    void testCallNextSkipsPatientClaimedElsewhere() {
+        Long mriId = 1L;
+        Booking first = new Booking(1L, "Taken", mriId, Priority.EMERGENCY, "2026-02-14T10:00", "CONFIRMED", LocalDateTime.now().minusMinutes(20));
+        Booking second = new Booking(2L, "Next Up", mriId, Priority.NORMAL, "2026-02-14T10:05", "CONFIRMED", LocalDateTime.now().minusMinutes(10));
+        when(bookingRepository.findByEquipmentIdAndStatus(mriId, "CONFIRMED")).thenReturn(new ArrayList<>(List.of(second, first)));
+        when(equipmentRepository.transitionStatus(mriId, EquipmentStatus.AVAILABLE, EquipmentStatus.IN_USE)).thenReturn(1);
+        when(bookingRepository.transitionStatus(1L, "CONFIRMED", "IN_USE")).thenReturn(0);
+        when(bookingRepository.transitionStatus(2L, "CONFIRMED", "IN_USE")).thenReturn(1);
+
+        Booking result = queueService.callNext(mriId);
+
+        assertEquals("Next Up", result.getPatientName());
+        assertEquals("IN_USE", result.getStatus());
+        verify(bookingRepository, never()).save(any(Booking.class));
+    }
+
+    @Test
+    void testCallThatRollsBackSchedulesNoRevert() {
+        Long mriId = 1L;
+        Booking waiting = new Booking(1L, "Waiting", mriId, Priority.NORMAL, "2026-02-14T10:00", "CONFIRMED", LocalDateTime.now());
+        when(bookingRepository.findByEquipmentIdAndStatus(mriId, "CONFIRMED")).thenReturn(new ArrayList<>(List.of(waiting)));
+        when(equipmentRepository.transitionStatus(mriId, EquipmentStatus.AVAILABLE, EquipmentStatus.IN_USE)).thenReturn(1);
+        when(bookingRepository.transitionStatus(1L, "CONFIRMED", "IN_USE")).thenReturn(1);
+
+        TransactionSynchronizationManager.initSynchronization();
+        List<TransactionSynchronization> pending;
+        try {
+            queueService.callNext(mriId);
+            pending = TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        pending.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        verify(workLanes, never()).schedule(any(), any(), any(), any(), anyLong(), any());
+        assertTrue(((Map<?, ?>) ReflectionTestUtils.getField(queueService, "inProcedure")).isEmpty(),
+                "nothing is remembered for a call that never happened");
+    }
+
+    @Test
+    void testAutoRevertRunsOnTheMachinesOwnLane() {
+        Long mriId = 1L;
+        Booking waiting = new Booking(1L, "Waiting", mriId, Priority.NORMAL, "2026-02-14T10:00", "CONFIRMED", LocalDateTime.now());
+        when(bookingRepository.findByEquipmentIdAndStatus(mriId, "CONFIRMED")).thenReturn(new ArrayList<>(List.of(waiting)));
+        when(equipmentRepository.transitionStatus(mriId, EquipmentStatus.AVAILABLE, EquipmentStatus.IN_USE)).thenReturn(1);
+        when(bookingRepository.transitionStatus(1L, "CONFIRMED", "IN_USE")).thenReturn(1);
+
+        queueService.callNext(mriId);
+
+        ArgumentCaptor<Runnable> revert = ArgumentCaptor.forClass(Runnable.class);
+        verify(workLanes).schedule(eq("default"), eq(mriId), eq("auto-revert"), revert.capture(), eq(8L), eq(TimeUnit.SECONDS));
+        when(bookingRepository.transitionStatus(1L, "IN_USE", "SERVED")).thenReturn(1);
+        when(equipmentRepository.transitionStatus(mriId, EquipmentStatus.IN_USE, EquipmentStatus.AVAILABLE)).thenReturn(1);
+
+        revert.getValue().run();
+
+        verify(resourceDispatcher).release(mriId);
+        verify(equipmentRepository).transitionStatus(mriId, EquipmentStatus.IN_USE, EquipmentStatus.AVAILABLE);
+    }
+
+    @Test
+    void testCallNextRejectsBusyMachine() {
+        Long mriId = 1L;
+        Booking waiting = new Booking(1L, "Waiting", mriId, Priority.NORMAL, "2026-02-14T10:00", "CONFIRMED", LocalDateTime.now());
+        when(bookingRepository.findByEquipmentIdAndStatus(mriId, "CONFIRMED")).thenReturn(new ArrayList<>(List.of(waiting)));
+        when(equipmentRepository.transitionStatus(mriId, EquipmentStatus.AVAILABLE, EquipmentStatus.IN_USE)).thenReturn(0);
+
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> queueService.callNext(mriId));
+
+        assertEquals("Error: Equipment is not available.", exception.getMessage());
+        verify(bookingRepository, never()).transitionStatus(any(), any(), any());
+    }
+
+    @Test
+    void testCallNextHandsMachineBackWhenNoTechnicianIsFree() {
+        Long mriId = 1L;
+        Booking waiting = new Booking(1L, "Waiting", mriId, Priority.NORMAL, "2026-02-14T10:00", "CONFIRMED", LocalDateTime.now());
+        when(bookingRepository.findByEquipmentIdAndStatus(mriId, "CONFIRMED")).thenReturn(new ArrayList<>(List.of(waiting)));
+        when(equipmentRepository.transitionStatus(mriId, EquipmentStatus.AVAILABLE, EquipmentStatus.IN_USE)).thenReturn(1);
+        when(resourceDispatcher.reserve(mriId)).thenThrow(new RuntimeException("Error: Waiting for a free TECHNICIAN for MRI."));
+
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> queueService.callNext(mriId));
+
+        assertEquals("Error: Waiting for a free TECHNICIAN for MRI.", exception.getMessage());
+        verify(equipmentRepository).transitionStatus(mriId, EquipmentStatus.IN_USE, EquipmentStatus.AVAILABLE);
+        verify(bookingRepository, never()).transitionStatus(any(), any(), any());
+    }
+
+    @Test
+    void testServingReleasesTheProcedureCrew() {
+        Booking booking = new Booking(10L, "John Doe", 1L, Priority.NORMAL, "2026-02-14T10:00", "IN_USE", LocalDateTime.now());
+        when(bookingRepository.findById(10L)).thenReturn(Optional.of(booking));
+        when(bookingRepository.transitionInTenant(10L, "default", "IN_USE", "SERVED")).thenReturn(1);
+
+        queueService.markAsServed(10L);
+
+        verify(resourceDispatcher).release(1L);
+    }
+
+    @Test
+    void testServingAPatientCalledHereIsOneUpdateWithoutARead() {
+        Long mriId = 1L;
+        Booking waiting = new Booking(1L, "Waiting", mriId, Priority.NORMAL, "2026-02-14T10:00", "CONFIRMED", LocalDateTime.now());
+        when(bookingRepository.findByEquipmentIdAndStatus(mriId, "CONFIRMED")).thenReturn(new ArrayList<>(List.of(waiting)));
+        when(equipmentRepository.transitionStatus(mriId, EquipmentStatus.AVAILABLE, EquipmentStatus.IN_USE)).thenReturn(1);
+        when(bookingRepository.transitionStatus(1L, "CONFIRMED", "IN_USE")).thenReturn(1);
+        queueService.callNext(mriId);
+        when(bookingRepository.transitionInTenant(1L, "default", "IN_USE", "SERVED")).thenReturn(1);
+
+        queueService.markAsServed(1L);
+
+        verify(bookingRepository, never()).findById(any());
+        verify(resourceDispatcher).release(mriId);
+        verify(equipmentRepository).transitionStatus(mriId, EquipmentStatus.IN_USE, EquipmentStatus.AVAILABLE);
     }
 
     @Test
@@ -270,4 +578,177 @@ class QueueServiceTest {
         assertTrue(exception.getMessage().contains("Booking date cannot be in the past"));
         verify(bookingRepository, never()).save(any(Booking.class));
     }
+
+    @Test
+    void testCreateBookingRunningIntoPlannedMaintenanceIsRejected() {
+        Equipment mri = new Equipment(1L, "MRI-1", "MRI", EquipmentStatus.AVAILABLE, 60);
+        LocalDateTime slot = LocalDateTime.now().plusDays(1).withHour(9).withMinute(30).withSecond(0).withNano(0);
+        when(equipmentRepository.findById(1L)).thenReturn(Optional.of(mri));
+        // Maintenance from 10:00 to 12:00 leaves no room for a 60-minute scan at 09:30
+        doReturn(slot.withHour(12).withMinute(0)).when(maintenanceTimeline).findFreeStart(1L, slot, 60);
+
+        Booking booking = new Booking();
+        booking.setPatientName("Test Patient");
+        booking.setEquipmentId(1L);
+        booking.setSlotTime(slot.toString());
+
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> queueService.createBookingRequest(booking));
+        assertTrue(exception.getMessage().contains("planned maintenance"));
+        assertTrue(exception.getMessage().contains(slot.withHour(12).withMinute(0).toString()));
+        verify(bookingRepository, never()).save(any(Booking.class));
+    }
+
+    @Test
+    void testCalculateNextSlotLandsAfterPlannedMaintenance() {
+        Equipment mri = new Equipment(1L, "MRI-1", "MRI", EquipmentStatus.AVAILABLE, 60);
+        LocalDateTime tomorrow = LocalDateTime.now().plusDays(1).withHour(8).withMinute(0);
+        doReturn(tomorrow).when(maintenanceTimeline).nextStart(eq(1L), any(LocalDateTime.class), eq(0), eq(60L));
+
+        // Not "Now" while the machine is out, and the date is given because it is not today
+        assertEquals(tomorrow.toLocalDate() + " 08:00", queueService.calculateNextSlot(mri, 0));
+    }
+
+    @Test
+    void testCallNextRefusedDuringPlannedMaintenance() {
+        Booking patient = new Booking(1L, "Patient 1", 1L, Priority.NORMAL, "2026-02-14T10:00", "CONFIRMED", LocalDateTime.now());
+        when(bookingRepository.findByEquipmentIdAndStatus(1L, "CONFIRMED")).thenReturn(new ArrayList<>(List.of(patient)));
+        LocalDateTime now = LocalDateTime.now();
+        doReturn(new MaintenanceTimeline.Span(now.minusHours(1), now.plusHours(1)))
+                .when(maintenanceTimeline).windowAt(eq(1L), any(LocalDateTime.class));
+
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> queueService.callNext(1L));
+        assertTrue(exception.getMessage().startsWith("Error: Equipment is in planned maintenance until"));
+        verify(equipmentRepository, never()).transitionStatus(any(), any(), any());
+    }
+
+    @Test
+    void testBookingWithHoldTakesTheHeldSlot() {
+        Equipment mri = new Equipment(1L, "MRI-1", "MRI", EquipmentStatus.AVAILABLE, 60);
+        LocalDateTime slot = LocalDateTime.now().plusDays(1).withHour(10).withMinute(0).withSecond(0).withNano(0);
+        SlotHold hold = new SlotHold("h-1", "default", 1L, slot, slot.plusMinutes(60), LocalDateTime.now().plusMinutes(5));
+        when(equipmentRepository.findById(1L)).thenReturn(Optional.of(mri));
+        when(slotHolds.tryBeginConversion("h-1", 1L)).thenReturn(Result.ok(hold));
+        when(bookingRepository.save(any(Booking.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Booking booking = new Booking();
+        booking.setPatientName("Held Patient");
+        booking.setEquipmentId(1L);
+        Booking result = queueService.createBookingRequest(booking, "h-1");
+
+        assertEquals(slot.toString(), result.getSlotTime());
+        verify(slotHolds).finishConversion(hold, true);
+        verify(slotHolds, never()).heldAt(any(), any(), anyLong());
+    }
+
+    @Test
+    void testHoldIsGivenBackWhenTheBookingFails() {
+        Equipment mri = new Equipment(1L, "MRI-1", "MRI", EquipmentStatus.AVAILABLE, 60);
+        LocalDateTime slot = LocalDateTime.now().plusDays(1).withHour(10).withMinute(0).withSecond(0).withNano(0);
+        SlotHold hold = new SlotHold("h-1", "default", 1L, slot, slot.plusMinutes(60), LocalDateTime.now().plusMinutes(5));
+        when(equipmentRepository.findById(1L)).thenReturn(Optional.of(mri));
+        when(slotHolds.tryBeginConversion("h-1", 1L)).thenReturn(Result.ok(hold));
+        when(bookingRepository.save(any(Booking.class))).thenThrow(new RuntimeException("connection reset"));
+
+        Booking booking = new Booking();
+        booking.setEquipmentId(1L);
+        assertThrows(RuntimeException.class, () -> queueService.createBookingRequest(booking, "h-1"));
+
+        verify(slotHolds).finishConversion(hold, false);
+    }
+
+    @Test
+    void testHoldIsGivenBackWhenTheBookingRollsBack() {
+        Equipment mri = new Equipment(1L, "MRI-1", "MRI", EquipmentStatus.AVAILABLE, 60);
+        when(equipmentRepository.findById(1L)).thenReturn(Optional.of(mri));
+        when(bookingRepository.save(any(Booking.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        SlotHoldService holds = new SlotHoldService();
+        ReflectionTestUtils.setField(holds, "equipmentRepository", equipmentRepository);
+        ReflectionTestUtils.setField(holds, "maintenanceTimeline", maintenanceTimeline);
+        ReflectionTestUtils.setField(holds, "maxMinutes", 15);
+        ReflectionTestUtils.setField(holds, "maxActive", 100);
+        ReflectionTestUtils.setField(queueService, "slotHolds", holds);
+        SlotHold hold = holds.hold(1L, LocalDateTime.now().plusDays(1).withHour(10).withMinute(0).withSecond(0).withNano(0), 5);
+
+        TransactionSynchronizationManager.initSynchronization();
+        List<TransactionSynchronization> pending;
+        try {
+            Booking booking = new Booking();
+            booking.setPatientName("Held Patient");
+            booking.setEquipmentId(1L);
+            queueService.createBookingRequest(booking, hold.getId());
+            pending = TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        // Saved, but not yet committed: nobody else may convert the hold meanwhile
+        assertEquals(1, holds.getStats().get("converting"));
+
+        // The commit failed, so the booking never existed and the patient keeps the slot
+        pending.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        assertEquals(0, holds.getStats().get("converting"));
+        assertSame(hold, holds.beginConversion(hold.getId(), 1L));
+    }
+
+    @Test
+    void testSlotHeldByAnotherPatientIsRefused() {
+        Equipment mri = new Equipment(1L, "MRI-1", "MRI", EquipmentStatus.AVAILABLE, 60);
+        LocalDateTime slot = LocalDateTime.now().plusDays(1).withHour(10).withMinute(0).withSecond(0).withNano(0);
+        when(equipmentRepository.findById(1L)).thenReturn(Optional.of(mri));
+        when(slotHolds.heldAt(1L, slot, 60)).thenReturn(
+                new SlotHold("h-2", "default", 1L, slot, slot.plusMinutes(60), LocalDateTime.now().plusMinutes(5)));
+
+        Booking booking = new Booking();
+        booking.setEquipmentId(1L);
+        booking.setSlotTime(slot.toString());
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> queueService.createBookingRequest(booking));
+
+        assertTrue(exception.getMessage().startsWith("Error: That slot is held by another patient until"));
+        verify(bookingRepository, never()).save(any(Booking.class));
+    }
+
+    @Test
+    void testSubmitBookingReturnsTheReasonInsteadOfThrowing() {
+        Equipment mri = new Equipment(1L, "MRI-1", "MRI", EquipmentStatus.AVAILABLE, 60);
+        when(equipmentRepository.findById(1L)).thenReturn(Optional.of(mri));
+        when(equipmentRepository.findById(999L)).thenReturn(Optional.empty());
+
+        Result<Booking> missing = queueService.submitBooking(new BookingRequest("A", null, null, null, null));
+        Result<Booking> unknown = queueService.submitBooking(new BookingRequest("A", 999L, null, null, null));
+        Result<Booking> past = queueService.submitBooking(new BookingRequest("A", 1L, "2020-02-15T10:00", null, null));
+
+        assertEquals(ErrorCode.EQUIPMENT_REQUIRED, missing.getCode());
+        assertEquals(ErrorCode.EQUIPMENT_NOT_FOUND, unknown.getCode());
+        assertEquals("Error: Equipment not found.", unknown.getMessage());
+        assertEquals(ErrorCode.SLOT_IN_PAST, past.getCode());
+        verify(bookingRepository, never()).save(any(Booking.class));
+    }
+
+    @Test
+    void testSubmitBookingDefaultsUnknownPriorityAndKeepsFreeTextSlot() {
+        Equipment mri = new Equipment(1L, "MRI-1", "MRI", EquipmentStatus.AVAILABLE, 60);
+        when(equipmentRepository.findById(1L)).thenReturn(Optional.of(mri));
+        when(bookingRepository.save(any(Booking.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Result<Booking> result = queueService.submitBooking(new BookingRequest("A", 1L, "after lunch", "CRITICAL", null));
+
+        assertTrue(result.isOk());
+        assertEquals(Priority.NORMAL, result.getValue().getPriority());
+        assertEquals("after lunch", result.getValue().getSlotTime());
+        assertEquals(Priority.URGENT, new BookingRequest("A", 1L, null, "URGENT", null).priority());
+    }
+
+    @Test
+    void testRefusedHoldIsReportedWithItsCode() {
+        Equipment mri = new Equipment(1L, "MRI-1", "MRI", EquipmentStatus.AVAILABLE, 60);
+        when(equipmentRepository.findById(1L)).thenReturn(Optional.of(mri));
+        when(slotHolds.tryBeginConversion("h-9", 1L))
+                .thenReturn(Result.rejected(ErrorCode.HOLD_NOT_FOUND, "Error: Hold not found or expired."));
+
+        Result<Booking> result = queueService.submitBooking(new BookingRequest("A", 1L, null, null, "h-9"));
+
+        assertEquals(ErrorCode.HOLD_NOT_FOUND, result.getCode());
+        verify(slotHolds, never()).finishConversion(any(), anyBoolean());
+        Result.Rejected thrown = assertThrows(Result.Rejected.class, result::orThrow);
+        assertEquals(0, thrown.getStackTrace().length, "rejections carry no stack trace");
+    }
 }
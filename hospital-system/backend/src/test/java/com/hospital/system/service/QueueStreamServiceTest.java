@@ -0,0 +1,165 @@
+package com.hospital.system.service;
+
+import com.hospital.system.event.QueueChangedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class QueueStreamServiceTest {
+
+    @Mock
+    private QueueViewService queueViewService;
+
+    @InjectMocks
+    private QueueStreamService queueStreamService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(queueStreamService, "timeoutMillis", 60_000L);
+        ReflectionTestUtils.setField(queueStreamService, "maxSubscribers", 3);
+        ReflectionTestUtils.setField(queueStreamService, "heartbeatSeconds", 60L);
+        ReflectionTestUtils.setField(queueStreamService, "senderThreads", 2);
+        ReflectionTestUtils.setField(queueStreamService, "sendTimeoutMillis", 200L);
+        when(queueViewService.getQueue(anyLong())).thenReturn(List.of());
+        queueStreamService.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        queueStreamService.shutdown();
+    }
+
+    @Test
+    void testBurstOfChangesIsOneReadSharedByAllWatchers() throws Exception {
+        queueStreamService.subscribe(1L);
+        queueStreamService.subscribe(1L);
+        verify(queueViewService, timeout(2_000).times(2)).getQueue(1L); // initial snapshot per display
+
+        // Hold the stream thread so both changes arrive before it reads
+        CountDownLatch release = new CountDownLatch(1);
+        ScheduledExecutorService pusher = (ScheduledExecutorService) ReflectionTestUtils.getField(queueStreamService, "pusher");
+        pusher.execute(() -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        queueStreamService.onQueueChanged(new QueueChangedEvent(1L));
+        queueStreamService.onQueueChanged(new QueueChangedEvent(1L));
+        release.countDown();
+
+        verify(queueViewService, timeout(2_000).times(3)).getQueue(1L);
+        Thread.sleep(100);
+        verify(queueViewService, times(3)).getQueue(1L);
+    }
+
+    @Test
+    void testSlowDisplayDoesNotHoldUpTheOthersAndIsDropped() throws Exception {
+        CountDownLatch unblock = new CountDownLatch(1);
+        SseEmitter slow = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) {
+                try {
+                    unblock.await(5, TimeUnit.SECONDS); // a display that stopped reading its socket
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        AtomicInteger fastSends = new AtomicInteger();
+        SseEmitter fast = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) {
+                fastSends.incrementAndGet();
+            }
+        };
+        try {
+            queueStreamService.subscribe(1L, slow);
+            queueStreamService.subscribe(1L, fast);
+            verify(queueViewService, timeout(2_000).times(2)).getQueue(1L);
+
+            queueStreamService.onQueueChanged(new QueueChangedEvent(1L));
+            verify(queueViewService, timeout(2_000).times(3)).getQueue(1L);
+            long deadline = System.currentTimeMillis() + 2_000;
+            while (fastSends.get() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(2, fastSends.get()); // snapshot and update, while the slow display is still stuck
+
+            while (queueStreamService.getSubscriberCount() > 1 && System.currentTimeMillis() < deadline + 2_000) {
+                Thread.sleep(10);
+            }
+            assertEquals(1, queueStreamService.getSubscriberCount()); // the stuck one timed out
+        } finally {
+            unblock.countDown();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testMachineIsForgottenWhenItsLastDisplayGoes() throws Exception {
+        CountDownLatch unblock = new CountDownLatch(1);
+        SseEmitter stuck = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) {
+                try {
+                    unblock.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        Map<Long, ?> subscribers = (Map<Long, ?>) ReflectionTestUtils.getField(queueStreamService, "subscribers");
+        try {
+            queueStreamService.subscribe(7L, stuck);
+            assertTrue(subscribers.containsKey(7L));
+
+            long deadline = System.currentTimeMillis() + 3_000;
+            while (queueStreamService.getSubscriberCount() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(0, queueStreamService.getSubscriberCount());
+            assertFalse(subscribers.containsKey(7L));
+        } finally {
+            unblock.countDown();
+        }
+    }
+
+    @Test
+    void testUnwatchedMachineIsNotRead() {
+        queueStreamService.onQueueChanged(new QueueChangedEvent(42L));
+
+        verify(queueViewService, never()).getQueue(anyLong());
+    }
+
+    @Test
+    void testSubscriberLimit() {
+        queueStreamService.subscribe(1L);
+        queueStreamService.subscribe(2L);
+        queueStreamService.subscribe(3L);
+
+        RejectedExecutionException exception = assertThrows(RejectedExecutionException.class,
+                () -> queueStreamService.subscribe(4L));
+
+        assertTrue(exception.getMessage().startsWith("Error: Too many live queue streams"));
+        assertEquals(3, queueStreamService.getSubscriberCount());
+    }
+}
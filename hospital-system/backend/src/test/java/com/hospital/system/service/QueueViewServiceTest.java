@@ -0,0 +1,202 @@
+package com.hospital.system.service;
+
+import com.hospital.system.event.QueueChangedEvent;
+import com.hospital.system.model.Booking;
+import com.hospital.system.model.Equipment;
+import com.hospital.system.model.EquipmentStatus;
+import com.hospital.system.model.MaintenanceWindow;
+import com.hospital.system.model.Priority;
+import com.hospital.system.model.QueueEntry;
+import com.hospital.system.repository.BookingRepository;
+import com.hospital.system.repository.EquipmentRepository;
+import com.hospital.system.repository.MaintenanceWindowRepository;
+import com.hospital.system.repository.QueueEntryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class QueueViewServiceTest {
+
+    @Mock
+    private QueueEntryRepository queueEntryRepository;
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private EquipmentRepository equipmentRepository;
+
+    @Mock
+    private MaintenanceWindowRepository windowRepository;
+
+    @InjectMocks
+    private QueueViewService queueViewService;
+
+    private final MaintenanceTimeline maintenanceTimeline = new MaintenanceTimeline();
+
+    private final Equipment mri = new Equipment(1L, "MRI-1", "MRI", EquipmentStatus.AVAILABLE, 60);
+    private final Equipment ct = new Equipment(2L, "CT-1", "CT", EquipmentStatus.AVAILABLE, 30);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(maintenanceTimeline, "windowRepository", windowRepository);
+        ReflectionTestUtils.setField(queueViewService, "maintenanceTimeline", maintenanceTimeline);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.unbindResourceIfPossible(queueViewService);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testChangesInOneTransactionAreProjectedTogetherBeforeCommit() {
+        queueViewService.onQueueChanged(new QueueChangedEvent(1L));
+        queueViewService.onQueueChanged(new QueueChangedEvent(2L));
+        queueViewService.onQueueChanged(new QueueChangedEvent(1L));
+        verifyNoInteractions(queueEntryRepository);
+
+        when(equipmentRepository.lockAllById(any())).thenReturn(List.of(mri, ct));
+        when(bookingRepository.findByEquipmentIdInAndStatus(any(), eq("CONFIRMED"))).thenReturn(List.of(
+                booking(10L, 1L, Priority.NORMAL, 30),
+                booking(11L, 1L, Priority.EMERGENCY, 10),
+                booking(12L, 2L, Priority.NORMAL, 20)));
+        TransactionSynchronizationManager.getSynchronizations().forEach(s -> s.beforeCommit(false));
+
+        ArgumentCaptor<Collection<Long>> locked = ArgumentCaptor.forClass(Collection.class);
+        verify(equipmentRepository, times(1)).lockAllById(locked.capture());
+        assertEquals(Set.of(1L, 2L), Set.copyOf(locked.getValue()));
+        verify(queueEntryRepository, times(1)).findByEquipmentIdIn(any());
+
+        ArgumentCaptor<List<QueueEntry>> saved = ArgumentCaptor.forClass(List.class);
+        verify(queueEntryRepository, times(1)).saveAll(saved.capture());
+        assertEquals(Set.of(10L, 11L, 12L), saved.getValue().stream().map(QueueEntry::getId).collect(Collectors.toSet()));
+        assertEquals("MRI-1", saved.getValue().stream().filter(e -> e.getId() == 10L).findFirst().orElseThrow().getEquipmentName());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRefreshWritesOnlyTheRowsThatChanged() {
+        QueueEntry waiting = new QueueEntry(booking(10L, 1L, Priority.NORMAL, 30), mri);
+        QueueEntry called = new QueueEntry(booking(11L, 1L, Priority.EMERGENCY, 10), mri);
+        when(equipmentRepository.lockAllById(any())).thenReturn(List.of(mri));
+        when(queueEntryRepository.findByEquipmentIdIn(any())).thenReturn(List.of(waiting, called));
+        // 11 was called in, 10 was re-triaged and 12 has just been confirmed
+        when(bookingRepository.findByEquipmentIdInAndStatus(any(), eq("CONFIRMED"))).thenReturn(List.of(
+                booking(10L, 1L, Priority.URGENT, 30),
+                booking(12L, 1L, Priority.NORMAL, 5)));
+
+        queueViewService.markDirty(1L);
+        TransactionSynchronizationManager.getSynchronizations().forEach(s -> s.beforeCommit(false));
+
+        ArgumentCaptor<Collection<QueueEntry>> deleted = ArgumentCaptor.forClass(Collection.class);
+        verify(queueEntryRepository).deleteAll(deleted.capture());
+        assertEquals(List.of(11L), deleted.getValue().stream().map(QueueEntry::getId).toList());
+        ArgumentCaptor<List<QueueEntry>> saved = ArgumentCaptor.forClass(List.class);
+        verify(queueEntryRepository).saveAll(saved.capture());
+        assertEquals(List.of(12L), saved.getValue().stream().map(QueueEntry::getId).toList());
+        assertEquals(Priority.URGENT, waiting.getPriority()); // updated in place, flushed by Hibernate
+    }
+
+    @Test
+    void testQueueIsNumberedOnRead() {
+        when(queueEntryRepository.findByEquipmentIdOrderByPriorityRankAscBookingTimeAscIdAsc(1L)).thenReturn(List.of(
+                new QueueEntry(booking(11L, 1L, Priority.EMERGENCY, 10), mri),
+                new QueueEntry(booking(10L, 1L, Priority.NORMAL, 30), mri)));
+
+        List<QueueEntry> queue = queueViewService.getQueue(1L);
+
+        assertEquals(List.of(1, 2), queue.stream().map(QueueEntry::getPosition).toList());
+        assertEquals(List.of(0L, 60L), queue.stream().map(QueueEntry::getEstimatedWaitMinutes).toList());
+    }
+
+    @Test
+    void testWaitsSkipPlannedMaintenance() {
+        // A 60-minute procedure starting now would run into the window, so the first patient waits it out
+        LocalDateTime now = LocalDateTime.now();
+        when(windowRepository.findNotEndedBy(eq(1L), any())).thenReturn(List.of(
+                new MaintenanceWindow(1L, now.plusMinutes(30), now.plusMinutes(120), "Calibration")));
+        maintenanceTimeline.reload(1L);
+        when(queueEntryRepository.findByEquipmentIdOrderByPriorityRankAscBookingTimeAscIdAsc(1L)).thenReturn(List.of(
+                new QueueEntry(booking(11L, 1L, Priority.EMERGENCY, 10), mri),
+                new QueueEntry(booking(10L, 1L, Priority.NORMAL, 30), mri)));
+
+        List<QueueEntry> queue = queueViewService.getQueue(1L);
+
+        // The read runs a moment after the window was set up, so the first wait may round down to 119
+        long first = queue.get(0).getEstimatedWaitMinutes();
+        assertTrue(first == 119 || first == 120, "first wait was " + first);
+        assertEquals(first + 60, queue.get(1).getEstimatedWaitMinutes());
+    }
+
+    @Test
+    void testReadInsideTransactionSeesItsOwnChange() {
+        queueViewService.markDirty(1L);
+        when(equipmentRepository.lockAllById(any())).thenReturn(List.of(mri));
+        when(bookingRepository.findByEquipmentIdInAndStatus(any(), eq("CONFIRMED")))
+                .thenReturn(List.of(booking(10L, 1L, Priority.URGENT, 5)));
+
+        queueViewService.getQueue(1L);
+
+        var order = inOrder(queueEntryRepository);
+        order.verify(queueEntryRepository).findByEquipmentIdIn(any());
+        order.verify(queueEntryRepository).saveAll(anyList());
+        order.verify(queueEntryRepository).findByEquipmentIdOrderByPriorityRankAscBookingTimeAscIdAsc(1L);
+
+        // Already projected, so committing does no further work
+        TransactionSynchronizationManager.getSynchronizations().forEach(s -> s.beforeCommit(false));
+        verify(queueEntryRepository, times(1)).findByEquipmentIdIn(any());
+    }
+
+    @Test
+    void testCompletionReleasesTransactionState() {
+        queueViewService.markDirty(1L);
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+
+        synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertNull(TransactionSynchronizationManager.getResource(queueViewService));
+    }
+
+    @Test
+    void testRebuildingOneTenantLeavesTheOthersRows() {
+        when(equipmentRepository.lockAllByTenant("default")).thenReturn(List.of(mri));
+        when(bookingRepository.findByTenantIdAndStatus("default", "CONFIRMED"))
+                .thenReturn(List.of(booking(10L, 1L, Priority.URGENT, 5)));
+
+        assertEquals(1, queueViewService.rebuild("default"));
+
+        // Machines first, as every writer takes them, then only this tenant's rows go
+        var order = inOrder(equipmentRepository, queueEntryRepository);
+        order.verify(equipmentRepository).lockAllByTenant("default");
+        order.verify(queueEntryRepository).deleteByTenant("default");
+        verify(queueEntryRepository, never()).deleteAllInBatch();
+    }
+
+    private Booking booking(Long id, Long equipmentId, Priority priority, int minutesAgo) {
+        return new Booking(id, "Patient " + id, equipmentId, priority, "2026-12-31T10:00", "CONFIRMED",
+                LocalDateTime.now().minusMinutes(minutesAgo));
+    }
+}
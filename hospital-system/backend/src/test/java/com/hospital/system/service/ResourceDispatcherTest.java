@@ -0,0 +1,171 @@
+package com.hospital.system.service;
+
+import com.hospital.system.model.CareResource;
+import com.hospital.system.model.ResourceKind;
+import com.hospital.system.model.ResourceStatus;
+import com.hospital.system.repository.CareResourceRepository;
+import com.hospital.system.repository.EquipmentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ResourceDispatcherTest {
+
+    private static final Long MRI_1 = 1L;
+    private static final Long MRI_2 = 2L;
+    private static final Long CT_1 = 3L;
+    private static final Long XRAY_1 = 4L;
+
+    @Mock
+    private CareResourceRepository careResourceRepository;
+
+    @Mock
+    private EquipmentRepository equipmentRepository;
+
+    @InjectMocks
+    private ResourceDispatcher resourceDispatcher;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(resourceDispatcher, "environment", new MockEnvironment()
+                .withProperty("hospital.dispatch.requires.MRI", "TECHNICIAN, PREP_ROOM")
+                .withProperty("hospital.dispatch.requires.CT", "TECHNICIAN"));
+        when(equipmentRepository.findTypeById(MRI_1)).thenReturn("MRI");
+        when(equipmentRepository.findTypeById(MRI_2)).thenReturn("MRI");
+        when(equipmentRepository.findTypeById(CT_1)).thenReturn("CT");
+        when(equipmentRepository.findTypeById(XRAY_1)).thenReturn("X-Ray");
+        when(careResourceRepository.findAll()).thenReturn(List.of(
+                resource(10L, ResourceKind.TECHNICIAN, "MRI,CT"),
+                resource(11L, ResourceKind.TECHNICIAN, "CT"),
+                resource(20L, ResourceKind.PREP_ROOM, "MRI")));
+        when(careResourceRepository.claim(anyLong(), anyLong())).thenReturn(1);
+        resourceDispatcher.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testClaimsOneOfEachRequiredKindAndTakesThemOutOfEveryPool() {
+        assertEquals(List.of(10L, 20L), resourceDispatcher.reserve(MRI_1));
+        verify(careResourceRepository).claim(10L, MRI_1);
+        verify(careResourceRepository).claim(20L, MRI_1);
+
+        // The MRI technician also covered CT; the CT-only technician is next in line there
+        assertEquals(List.of(11L), resourceDispatcher.reserve(CT_1));
+        assertEquals(List.of(ResourceKind.TECHNICIAN, ResourceKind.PREP_ROOM), resourceDispatcher.missingFor("default", "MRI"));
+    }
+
+    @Test
+    void testClaimsNothingWhenAnyKindIsMissing() {
+        resourceDispatcher.reserve(MRI_1);
+        clearInvocations(careResourceRepository);
+
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> resourceDispatcher.reserve(MRI_2));
+
+        assertEquals("Error: Waiting for a free TECHNICIAN and PREP_ROOM for MRI.", exception.getMessage());
+        verify(careResourceRepository, never()).claim(anyLong(), anyLong());
+        // The CT technician was not held back by the failed attempt
+        assertEquals(List.of(11L), resourceDispatcher.reserve(CT_1));
+    }
+
+    @Test
+    void testTypesWithoutRequirementsNeedOnlyTheMachine() {
+        assertEquals(List.of(), resourceDispatcher.reserve(XRAY_1));
+        verify(careResourceRepository, never()).claim(anyLong(), anyLong());
+    }
+
+    @Test
+    void testReleaseMakesTheCrewAvailableAgainLongestFreeFirst() {
+        resourceDispatcher.reserve(CT_1);
+        resourceDispatcher.release(CT_1);
+
+        verify(careResourceRepository).release(List.of(10L), CT_1);
+        // 11 has been free longer than 10, which just finished
+        assertEquals(List.of(11L), resourceDispatcher.reserve(CT_1));
+    }
+
+    @Test
+    void testPicksAnotherWhenTheDatabaseSaysItIsTaken() {
+        when(careResourceRepository.findAll()).thenReturn(List.of(
+                resource(10L, ResourceKind.TECHNICIAN, "CT"),
+                resource(11L, ResourceKind.TECHNICIAN, "CT")));
+        resourceDispatcher.rebuild();
+        when(careResourceRepository.claim(10L, CT_1)).thenReturn(0);
+
+        assertEquals(List.of(11L), resourceDispatcher.reserve(CT_1));
+        assertEquals(List.of(ResourceKind.TECHNICIAN), resourceDispatcher.missingFor("default", "CT"));
+    }
+
+    @Test
+    void testRolledBackClaimReturnsToThePools() {
+        TransactionSynchronizationManager.initSynchronization();
+        resourceDispatcher.reserve(MRI_1);
+        assertEquals(List.of(ResourceKind.TECHNICIAN, ResourceKind.PREP_ROOM), resourceDispatcher.missingFor("default", "MRI"));
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertEquals(List.of(), resourceDispatcher.missingFor("default", "MRI"));
+    }
+
+    @Test
+    void testFollowsClaimsAndReleasesMadeByAnotherNode() {
+        CareResource tech = resource(10L, ResourceKind.TECHNICIAN, "MRI,CT");
+        CareResource room = resource(20L, ResourceKind.PREP_ROOM, "MRI");
+        tech.setStatus(ResourceStatus.BUSY);
+        tech.setEquipmentId(MRI_1);
+        room.setStatus(ResourceStatus.BUSY);
+        room.setEquipmentId(MRI_1);
+        when(careResourceRepository.findByEquipmentId(MRI_1)).thenReturn(List.of(tech, room));
+
+        resourceDispatcher.refreshEquipment(MRI_1);
+        assertEquals(List.of(ResourceKind.TECHNICIAN, ResourceKind.PREP_ROOM), resourceDispatcher.missingFor("default", "MRI"));
+
+        when(careResourceRepository.findByEquipmentId(MRI_1)).thenReturn(List.of());
+        when(careResourceRepository.findAllById(List.of(10L, 20L))).thenReturn(List.of(
+                resource(10L, ResourceKind.TECHNICIAN, "MRI,CT"), resource(20L, ResourceKind.PREP_ROOM, "MRI")));
+
+        resourceDispatcher.refreshEquipment(MRI_1);
+        assertEquals(List.of(), resourceDispatcher.missingFor("default", "MRI"));
+        // Released here without this node ever claiming, so there is nothing left to release locally
+        resourceDispatcher.release(MRI_1);
+        verify(careResourceRepository, never()).release(any(), any());
+    }
+
+    @Test
+    void testBusyResourceCannotGoOffDuty() {
+        CareResource busy = resource(10L, ResourceKind.TECHNICIAN, "MRI");
+        busy.setStatus(ResourceStatus.BUSY);
+        when(careResourceRepository.findById(10L)).thenReturn(Optional.of(busy));
+
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> resourceDispatcher.setStatus(10L, ResourceStatus.OFF_DUTY));
+
+        assertEquals("Error: Tech 10 is busy with a procedure; try again when it ends.", exception.getMessage());
+        verify(careResourceRepository, never()).transitionStatus(any(), any(), any());
+    }
+
+    private static CareResource resource(Long id, ResourceKind kind, String types) {
+        return new CareResource(id, "Tech " + id, kind, types, ResourceStatus.AVAILABLE);
+    }
+}
@@ -0,0 +1,71 @@
+package com.hospital.system.service;
+
+import com.hospital.system.dto.WaitStats;
+import com.hospital.system.dto.WindowStats;
+import com.hospital.system.model.Priority;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RollingWindowTest {
+
+    private static final long MINUTE = 60_000;
+    private static final long START = 1_000 * MINUTE; // aligned to a bucket boundary
+
+    @Test
+    void testWaitPercentilesPerPriority() {
+        RollingWindow window = new RollingWindow(60, MINUTE);
+        for (int i = 1; i <= 100; i++) {
+            window.recordWait(START + i * 100, Priority.URGENT, i * 60L); // 1..100 minutes
+        }
+        window.recordWait(START, Priority.EMERGENCY, 30);
+
+        WindowStats stats = window.summarize(START + 30 * MINUTE, 60, null);
+        WaitStats urgent = stats.getWaitByPriority().get(Priority.URGENT);
+
+        assertEquals(100, urgent.getCount());
+        assertEquals(3030.0, urgent.getMeanSeconds(), 0.001); // exact, from the running sum
+        assertEquals(3000, urgent.getP50Seconds(), 3000 * 0.15);
+        assertEquals(5700, urgent.getP95Seconds(), 5700 * 0.15);
+        assertEquals(1, stats.getWaitByPriority().get(Priority.EMERGENCY).getCount());
+        assertEquals(0, stats.getWaitByPriority().get(Priority.NORMAL).getCount());
+    }
+
+    @Test
+    void testOldBucketsRollOutOfTheWindow() {
+        RollingWindow window = new RollingWindow(60, MINUTE);
+        window.recordProcedure(START);
+        window.recordProcedure(START + 59 * MINUTE);
+
+        assertEquals(2, window.summarize(START + 59 * MINUTE, 60, null).getProcedures());
+        // One minute later the first bucket has left the 60-minute window
+        assertEquals(1, window.summarize(START + 60 * MINUTE, 60, null).getProcedures());
+        // Recording into the recycled slot resets it instead of adding to stale counts
+        window.recordProcedure(START + 120 * MINUTE);
+        assertEquals(1, window.summarize(START + 120 * MINUTE, 60, null).getProcedures());
+    }
+
+    @Test
+    void testUtilizationIncludesFinishedAndRunningProcedures() {
+        RollingWindow window = new RollingWindow(60, MINUTE);
+        long now = START + 60 * MINUTE - 1;
+        // 15 minutes busy spread over several buckets, then a run in progress for the last 15 minutes
+        window.recordBusy(START + 10 * MINUTE + 30_000, START + 25 * MINUTE + 30_000);
+
+        WindowStats stats = window.summarize(now, 60, now - 15 * MINUTE);
+
+        assertEquals(0.5, stats.getUtilization(), 0.01);
+    }
+
+    @Test
+    void testBinsAreMonotonic() {
+        assertEquals(0, RollingWindow.bin(0));
+        int previous = 0;
+        for (long seconds = 1; seconds < 10_000_000; seconds *= 3) {
+            int bin = RollingWindow.bin(seconds);
+            assertTrue(bin >= previous);
+            assertTrue(bin < RollingWindow.BINS);
+            previous = bin;
+        }
+    }
+}
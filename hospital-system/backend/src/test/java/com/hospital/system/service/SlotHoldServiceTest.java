@@ -0,0 +1,104 @@
+package com.hospital.system.service;
+
+import com.hospital.system.dto.SlotHold;
+import com.hospital.system.model.Equipment;
+import com.hospital.system.model.EquipmentStatus;
+import com.hospital.system.repository.EquipmentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SlotHoldServiceTest {
+
+    private static final LocalDateTime TEN = LocalDateTime.now().plusDays(1).withHour(10).withMinute(0).withSecond(0).withNano(0);
+
+    @Mock
+    private EquipmentRepository equipmentRepository;
+
+    @Spy
+    private MaintenanceTimeline maintenanceTimeline = new MaintenanceTimeline();
+
+    @InjectMocks
+    private SlotHoldService slotHoldService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(slotHoldService, "defaultMinutes", 5);
+        ReflectionTestUtils.setField(slotHoldService, "maxMinutes", 15);
+        ReflectionTestUtils.setField(slotHoldService, "maxActive", 100);
+        when(equipmentRepository.findById(1L)).thenReturn(Optional.of(new Equipment(1L, "MRI-1", "MRI", EquipmentStatus.AVAILABLE, 60)));
+    }
+
+    @Test
+    void testOverlappingSlotIsRefusedButTheNextOneIsFree() {
+        slotHoldService.hold(1L, TEN, null);
+
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> slotHoldService.hold(1L, TEN.plusMinutes(30), null));
+        assertTrue(exception.getMessage().startsWith("Error: That slot is held by another patient until"));
+        assertNotNull(slotHoldService.hold(1L, TEN.plusMinutes(60), null), "the 60-minute scan ends at 11:00");
+        assertNotNull(slotHoldService.heldAt(1L, TEN.minusMinutes(30), 60));
+        assertNull(slotHoldService.heldAt(1L, TEN.minusMinutes(60), 60));
+    }
+
+    @Test
+    void testSweepReleasesEveryExpiredHoldAtOnce() {
+        slotHoldService.hold(1L, TEN, 1);
+        slotHoldService.hold(1L, TEN.plusHours(1), 1);
+        slotHoldService.hold(1L, TEN.plusHours(2), 15);
+
+        assertEquals(0, slotHoldService.sweep(LocalDateTime.now()));
+        assertEquals(2, slotHoldService.sweep(LocalDateTime.now().plusMinutes(2)));
+        assertEquals(1, slotHoldService.getStats().get("active"));
+        assertEquals(2L, slotHoldService.getStats().get("expired"));
+        assertEquals(TEN, slotHoldService.hold(1L, TEN, null).getSlotTime(), "released slots can be held again");
+    }
+
+    @Test
+    void testAHoldIsConvertedOnlyOnce() {
+        SlotHold hold = slotHoldService.hold(1L, TEN, null);
+
+        slotHoldService.beginConversion(hold.getId(), 1L);
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> slotHoldService.beginConversion(hold.getId(), 1L));
+        assertEquals("Error: This hold is already being booked.", exception.getMessage());
+
+        // The booking failed: the hold is the patient's again
+        slotHoldService.finishConversion(hold, false);
+        slotHoldService.beginConversion(hold.getId(), 1L);
+        slotHoldService.finishConversion(hold, true);
+
+        assertNull(slotHoldService.heldAt(1L, TEN, 60));
+        assertThrows(RuntimeException.class, () -> slotHoldService.beginConversion(hold.getId(), 1L));
+    }
+
+    @Test
+    void testHoldIsOnlyConvertedForItsOwnMachine() {
+        SlotHold hold = slotHoldService.hold(1L, TEN, null);
+
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> slotHoldService.beginConversion(hold.getId(), 2L));
+        assertEquals("Error: Hold not found or expired.", exception.getMessage());
+    }
+
+    @Test
+    void testFreeSlotSearchSkipsHeldSlots() {
+        slotHoldService.hold(1L, TEN, null);
+        slotHoldService.hold(1L, TEN.plusMinutes(90), null);
+
+        // 10:00-11:00 and 11:30-12:30 are held; the 30-minute gap between them fits a 30-minute procedure only
+        assertEquals(TEN.plusMinutes(60), slotHoldService.findFreeStart(1L, TEN, 30));
+        assertEquals(TEN.plusMinutes(150), slotHoldService.findFreeStart(1L, TEN, 60));
+    }
+}
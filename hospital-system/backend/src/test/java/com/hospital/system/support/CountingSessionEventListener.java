@@ -0,0 +1,20 @@
+package com.hospital.system.support;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Registered for every Hibernate session through hibernate.session.events.auto
+ * (see application-test.properties). Counts prepared statements and flushes.
+ */
+public class CountingSessionEventListener implements SessionEventListener {
+
+    @Override
+    public void jdbcPrepareStatementStart() {
+        SqlCounters.increment(SqlCounters.STATEMENTS);
+    }
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        SqlCounters.increment(SqlCounters.FLUSHES);
+    }
+}
@@ -0,0 +1,144 @@
+package com.hospital.system.support;
+
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures what a single MockMvc call costs in SQL statements, entity loads, flushes and wall-clock
+ * time, and fails the test when a call goes over its budget. Every measurement is also written to
+ * target/query-budgets/&lt;suite&gt;.csv so the numbers can be compared across builds.
+ *
+ * <pre>
+ * QueryBudget budget = new QueryBudget("HospitalControllerQueryBudgetTest");
+ * budget.call("GET /api/equipment", () -> mockMvc.perform(get("/api/equipment")))
+ *       .maxStatements(3)
+ *       .maxMillis(500)
+ *       .verify();
+ * </pre>
+ */
+public class QueryBudget {
+
+    private static final Path REPORT_DIR = Paths.get("target", "query-budgets");
+
+    private final String suite;
+    private final List<Measurement> measurements = new ArrayList<>();
+
+    public QueryBudget(String suite) {
+        this.suite = suite;
+    }
+
+    @FunctionalInterface
+    public interface MockMvcCall {
+        ResultActions perform() throws Exception;
+    }
+
+    public Measurement call(String label, MockMvcCall call) throws Exception {
+        long[] before = SqlCounters.snapshot();
+        long start = System.nanoTime();
+        call.perform();
+        long elapsedMicros = (System.nanoTime() - start) / 1_000;
+        long[] after = SqlCounters.snapshot();
+
+        Measurement m = new Measurement(label,
+                after[SqlCounters.STATEMENTS] - before[SqlCounters.STATEMENTS],
+                after[SqlCounters.ENTITY_LOADS] - before[SqlCounters.ENTITY_LOADS],
+                after[SqlCounters.FLUSHES] - before[SqlCounters.FLUSHES],
+                elapsedMicros);
+        measurements.add(m);
+        return m;
+    }
+
+    /** Writes this suite's measurements to its report file. Call from @AfterAll. */
+    public void writeReport() throws IOException {
+        StringBuilder sb = new StringBuilder(
+                "call,statements,maxStatements,entityLoads,maxEntityLoads,flushes,elapsedMs,maxMillis,withinBudget\n");
+        for (Measurement m : measurements) {
+            sb.append('"').append(m.label).append('"').append(',')
+                    .append(m.statements).append(',').append(limit(m.maxStatements)).append(',')
+                    .append(m.entityLoads).append(',').append(limit(m.maxEntityLoads)).append(',')
+                    .append(m.flushes).append(',')
+                    .append(String.format("%.2f", m.elapsedMicros / 1000.0)).append(',')
+                    .append(limit(m.maxMillis)).append(',')
+                    .append(m.withinBudget()).append('\n');
+        }
+        Files.createDirectories(REPORT_DIR);
+        Files.writeString(REPORT_DIR.resolve(suite + ".csv"), sb.toString());
+    }
+
+    private static String limit(long value) {
+        return value == Long.MAX_VALUE ? "" : Long.toString(value);
+    }
+
+    public static class Measurement {
+        private final String label;
+        private final long statements;
+        private final long entityLoads;
+        private final long flushes;
+        private final long elapsedMicros;
+
+        private long maxStatements = Long.MAX_VALUE;
+        private long maxEntityLoads = Long.MAX_VALUE;
+        private long maxMillis = Long.MAX_VALUE;
+
+        Measurement(String label, long statements, long entityLoads, long flushes, long elapsedMicros) {
+            this.label = label;
+            this.statements = statements;
+            this.entityLoads = entityLoads;
+            this.flushes = flushes;
+            this.elapsedMicros = elapsedMicros;
+        }
+
+        public Measurement maxStatements(long max) {
+            this.maxStatements = max;
+            return this;
+        }
+
+        public Measurement maxEntityLoads(long max) {
+            this.maxEntityLoads = max;
+            return this;
+        }
+
+        public Measurement maxMillis(long max) {
+            this.maxMillis = max;
+            return this;
+        }
+
+        boolean withinBudget() {
+            return statements <= maxStatements && entityLoads <= maxEntityLoads
+                    && elapsedMicros <= maxMillis * 1000;
+        }
+
+        /** Fails with every metric in the message so the regression is obvious from the build log. */
+        public void verify() {
+            assertTrue(withinBudget(), label + " exceeded its budget: " + this);
+        }
+
+        public long getStatements() {
+            return statements;
+        }
+
+        public long getEntityLoads() {
+            return entityLoads;
+        }
+
+        public long getFlushes() {
+            return flushes;
+        }
+
+        @Override
+        public String toString() {
+            return "statements=" + statements + "/" + limit(maxStatements)
+                    + ", entityLoads=" + entityLoads + "/" + limit(maxEntityLoads)
+                    + ", flushes=" + flushes
+                    + ", elapsedMs=" + String.format("%.2f", elapsedMicros / 1000.0) + "/" + limit(maxMillis);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.hospital.system.support;
+
+/**
+ * Per-thread Hibernate counters. MockMvc runs the whole request on the calling test thread,
+ * so counting per thread keeps background jobs (e.g. the auto-revert scheduler) out of the numbers.
+ */
+public final class SqlCounters {
+
+    private static final ThreadLocal<long[]> COUNTS = ThreadLocal.withInitial(() -> new long[3]);
+
+    static final int STATEMENTS = 0;
+    static final int ENTITY_LOADS = 1;
+    static final int FLUSHES = 2;
+
+    private SqlCounters() {
+    }
+
+    static void increment(int counter) {
+        COUNTS.get()[counter]++;
+    }
+
+    /** Copy of [statements, entityLoads, flushes] for the current thread. */
+    static long[] snapshot() {
+        return COUNTS.get().clone();
+    }
+}
@@ -1,10 +1,21 @@
-import { useState, useEffect } from 'react'
+import { useState, useEffect, useRef } from 'react'
 import './App.css'
 import NavBar from './components/NavBar'
 import LandingView from './components/LandingView'
 import PatientView from './components/PatientView'
 import AdminView from './components/AdminView'
 
+// crypto.randomUUID only exists in secure contexts (HTTPS or localhost); a ward LAN may serve plain HTTP
+const newIdempotencyKey = () => {
+  if (window.crypto && typeof window.crypto.randomUUID === 'function') return window.crypto.randomUUID();
+  const bytes = new Uint8Array(16);
+  window.crypto.getRandomValues(bytes);
+  bytes[6] = (bytes[6] & 0x0f) | 0x40; // version 4
+  bytes[8] = (bytes[8] & 0x3f) | 0x80; // variant 10
+  const hex = Array.from(bytes, b => b.toString(16).padStart(2, '0')).join('');
+  return `${hex.slice(0, 8)}-${hex.slice(8, 12)}-${hex.slice(12, 16)}-${hex.slice(16, 20)}-${hex.slice(20)}`;
+};
+
 function App() {
   const [view, setView] = useState('LANDING'); // 'LANDING', 'USER', or 'ADMIN'
   const [equipment, setEquipment] = useState([]);
@@ -19,6 +30,11 @@ function App() {
   const [requestedPriority, setRequestedPriority] = useState('NORMAL');
   const [slotTime, setSlotTime] = useState('');
 
+  // Idempotency keys live until their request succeeds, so a retry of the same booking or Call Next
+  // reuses the key and the server replays the first result instead of acting twice
+  const bookingAttempt = useRef(null); // { key, body }
+  const callNextKeys = useRef({}); // equipmentId -> key
+
   // Auto-detect environment: If running on a dev port (like 5173 or 5174), point to backend 8080.
   // If running on 8080 (production build), use relative paths.
   const API_BASE = (window.location.port && window.location.port !== '8080') ? 'http://localhost:8080' : '';
@@ -64,12 +80,9 @@ function App() {
 
   // Load Data
   useEffect(() => {
-    fetchEquipment();
-    const interval = setInterval(() => {
-      fetchEquipment(); // Periodically sync equipment status (IN_USE vs AVAILABLE)
-      if (view === 'ADMIN') fetchPendingRequests();
-      if (selectedEquipment) fetchQueue(selectedEquipment.id);
-    }, 2000);
+    fetchDashboard();
+    // One request per poll: equipment status (IN_USE vs AVAILABLE), the selected queue and, for admins, the inbox
+    const interval = setInterval(fetchDashboard, 2000);
     return () => clearInterval(interval);
   }, [view, selectedEquipment]);
 
@@ -86,22 +99,21 @@ function App() {
     return () => window.removeEventListener('popstate', onPop);
   }, []); // run once on mount
 
-  const fetchEquipment = () => {
-    fetch(`${API_BASE}/api/equipment`)
-      .then(res => res.json())
-      .then(data => setEquipment(data));
-  };
-
-  const fetchQueue = (id) => {
-    fetch(`${API_BASE}/api/queue/${id}`)
-      .then(res => res.json())
-      .then(data => setQueue(data));
-  };
-
-  const fetchPendingRequests = () => {
-    fetch(`${API_BASE}/api/bookings/pending`)
+  const fetchDashboard = () => {
+    const params = new URLSearchParams();
+    if (selectedEquipment) params.set('equipmentId', selectedEquipment.id);
+    // The admin view only shows the selected machine's inbox, so ask for that page only
+    if (view === 'ADMIN' && selectedEquipment) {
+      params.set('pending', 'true');
+      params.set('pendingLimit', '50');
+    }
+    fetch(`${API_BASE}/api/dashboard?${params}`)
       .then(res => res.json())
-      .then(data => setPendingRequests(data));
+      .then(data => {
+        setEquipment(data.equipment);
+        if (data.queue) setQueue(data.queue);
+        if (data.pending) setPendingRequests(data.pending.items);
+      });
   };
 
   const handleRequestBooking = (e) => {
@@ -122,16 +134,23 @@ function App() {
       slotTime: slotTime
     };
 
+    // Submitting the same form again is a retry and keeps its key; a changed form is a new booking
+    const body = JSON.stringify(booking);
+    if (!bookingAttempt.current || bookingAttempt.current.body !== body) {
+      bookingAttempt.current = { key: newIdempotencyKey(), body };
+    }
+
     fetch(`${API_BASE}/api/bookings`, {
       method: 'POST',
-      headers: { 'Content-Type': 'application/json' },
-      body: JSON.stringify(booking)
+      headers: { 'Content-Type': 'application/json', 'Idempotency-Key': bookingAttempt.current.key },
+      body
     })
       .then(res => {
         if (!res.ok) return res.json().then(err => { throw new Error(err.message || 'Error') });
         return res.json();
       })
       .then(() => {
+        bookingAttempt.current = null;
         alert('Success! Your request has been sent to the Triage team.');
         setPatientName('');
         setSlotTime('');
@@ -147,18 +166,23 @@ function App() {
     })
       .then(res => res.json())
       .then(() => {
-        fetchPendingRequests();
-        if (selectedEquipment) fetchQueue(selectedEquipment.id);
+        fetchDashboard();
       });
   };
 
   const handleCallNext = () => {
     if (!selectedEquipment) return;
-    fetch(`${API_BASE}/api/queue/${selectedEquipment.id}/next`, { method: 'POST' })
+    const equipmentId = selectedEquipment.id;
+    // Until a call for this machine goes through, clicking again retries that same call
+    if (!callNextKeys.current[equipmentId]) callNextKeys.current[equipmentId] = newIdempotencyKey();
+    fetch(`${API_BASE}/api/queue/${equipmentId}/next`, {
+      method: 'POST',
+      headers: { 'Idempotency-Key': callNextKeys.current[equipmentId] }
+    })
       .then(res => {
         if (res.ok) {
-          fetchQueue(selectedEquipment.id);
-          fetchEquipment();
+          delete callNextKeys.current[equipmentId];
+          fetchDashboard();
         }
       });
   };